@@ -0,0 +1,129 @@
+package com.giapho.coffee_shop_backend.mapper;
+
+import com.giapho.coffee_shop_backend.domain.entity.CafeTable;
+import com.giapho.coffee_shop_backend.domain.entity.Category;
+import com.giapho.coffee_shop_backend.domain.entity.Customer;
+import com.giapho.coffee_shop_backend.domain.entity.Order;
+import com.giapho.coffee_shop_backend.domain.entity.OrderDetail;
+import com.giapho.coffee_shop_backend.domain.entity.Product;
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import com.giapho.coffee_shop_backend.domain.repository.UserRepository;
+import com.giapho.coffee_shop_backend.dto.OrderResponseDTO;
+import com.giapho.coffee_shop_backend.dto.ProductRequest;
+import com.giapho.coffee_shop_backend.dto.ProductResponse;
+import com.giapho.coffee_shop_backend.dto.UserSummaryDTO;
+import com.giapho.coffee_shop_backend.service.UserDirectory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Chuyển Entity -> DTO (và ngược lại) bằng mapper MapStruct sinh ra, như trong mỗi response đơn hàng / thực đơn
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperBenchmark {
+
+    private ProductMapper productMapper;
+    private Product product;
+    private ProductRequest productRequest;
+
+    /**
+     * Đơn hàng theo số món (chỉ benchmark đơn hàng cần tham số này)
+     */
+    @State(Scope.Thread)
+    public static class Orders {
+
+        @Param({"3", "20"})
+        int itemCount;
+
+        private OrderMapper orderMapper;
+        private Order order;
+
+        @Setup
+        public void setUp() {
+            // Username nhân viên lấy từ cache của UserDirectory (repository chỉ được gọi 1 lần)
+            UserRepository userRepository = mock(UserRepository.class);
+            when(userRepository.findSummaryById(7L))
+                    .thenReturn(Optional.of(new UserSummaryDTO(7L, "cashier01", "Thu ngân 01", "ACTIVE")));
+            UserDirectory userDirectory = new UserDirectory(userRepository, new SimpleMeterRegistry());
+
+            OrderMapperImpl orderMapperImpl = new OrderMapperImpl();
+            orderMapperImpl.userDirectory = userDirectory;
+            ReflectionTestUtils.setField(orderMapperImpl, "orderDetailMapper", new OrderDetailMapperImpl());
+            orderMapper = orderMapperImpl;
+
+            Product product = product();
+            order = Order.builder()
+                    .id(1L).type("AT_TABLE")
+                    .cafeTable(CafeTable.builder().id(3L).name("Bàn 3").capacity(4).build())
+                    .user(User.builder().id(7L).username("cashier01").build())
+                    .customer(Customer.builder().id(5L).fullName("Nguyễn Văn A").phone("0901234567").build())
+                    .subTotal(BigDecimal.valueOf(250_000)).totalAmount(BigDecimal.valueOf(250_000))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+            Set<OrderDetail> details = new HashSet<>();
+            for (int i = 0; i < itemCount; i++) {
+                details.add(OrderDetail.builder()
+                        .id((long) i + 1).order(order).product(product)
+                        .quantity(1 + i % 3).priceAtOrder(product.getPrice())
+                        .build());
+            }
+            order.setOrderDetails(details);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        productMapper = new ProductMapperImpl();
+        product = product();
+        productRequest = ProductRequest.builder()
+                .name("Cà phê sữa đá").code("CF01")
+                .price(BigDecimal.valueOf(29_000)).cost(BigDecimal.valueOf(11_000))
+                .description("Cà phê phin, sữa đặc").imageUrl("/api/v1/files/cf01.jpg")
+                .categoryId(1L)
+                .build();
+    }
+
+    @Benchmark
+    public OrderResponseDTO orderToResponse(Orders orders) {
+        return orders.orderMapper.entityToResponse(orders.order);
+    }
+
+    @Benchmark
+    public ProductResponse productToResponse() {
+        return productMapper.toProductResponse(product);
+    }
+
+    @Benchmark
+    public Product requestToProduct() {
+        return productMapper.toProduct(productRequest);
+    }
+
+    private static Product product() {
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Cà phê");
+        return Product.builder()
+                .id(1L).name("Cà phê sữa đá").code("CF01")
+                .price(BigDecimal.valueOf(29_000)).cost(BigDecimal.valueOf(11_000))
+                .description("Cà phê phin, sữa đặc").imageUrl("/api/v1/files/cf01.jpg")
+                .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now())
+                .category(category)
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.giapho.coffee_shop_backend.security;
+
+import com.giapho.coffee_shop_backend.domain.entity.Role;
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đường nóng của mỗi request có xác thực: tạo / giải mã JWT và đọc quyền của user
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SecurityBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey",
+                "fEs17OB+RbxtlgyvlSwkSpak+9MoT6dLNGwTr3S0rMsbisqfRZYLeoyZbBHULcAy");
+        ReflectionTestUtils.setField(jwtService, "expirationMs", 86_400_000L);
+        user = User.builder()
+                .id(7L)
+                .username("manager01")
+                .fullName("Quản lý 01")
+                .status("ACTIVE")
+                .roles(Set.of(Role.builder().id(1L).name("ROLE_STAFF").build(),
+                        Role.builder().id(2L).name("ROLE_MANAGER").build()))
+                .build();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return user.getAuthorities();
+    }
+}
@@ -0,0 +1,80 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Order;
+import com.giapho.coffee_shop_backend.domain.entity.OrderDetail;
+import com.giapho.coffee_shop_backend.domain.entity.Product;
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import com.giapho.coffee_shop_backend.domain.repository.VoucherRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dữ liệu dùng chung cho benchmark của service. Repository là mock nhưng chỉ được gọi khi nạp cache lần đầu,
+ * nên không nằm trong phần được đo.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static Voucher voucher(String code, Voucher.VoucherType type, long value, Long maximumDiscount) {
+        Voucher voucher = new Voucher();
+        voucher.setCode(code);
+        voucher.setDescription(code);
+        voucher.setType(type);
+        voucher.setDiscountValue(BigDecimal.valueOf(value));
+        voucher.setMinimumOrderAmount(BigDecimal.valueOf(30_000));
+        voucher.setMaximumDiscountAmount(maximumDiscount == null ? null : BigDecimal.valueOf(maximumDiscount));
+        voucher.setValidFrom(LocalDateTime.now().minusDays(1));
+        voucher.setValidTo(LocalDateTime.now().plusYears(1));
+        voucher.setUsageLimit(Integer.MAX_VALUE);
+        voucher.setActive(true);
+        return voucher;
+    }
+
+    /**
+     * VoucherService thật (VoucherRegistry thật, cache Guava) với các voucher cho sẵn
+     */
+    static VoucherService voucherService(Voucher... vouchers) {
+        VoucherRepository voucherRepository = mock(VoucherRepository.class);
+        VoucherCampaignService campaignService = mock(VoucherCampaignService.class);
+        for (Voucher voucher : vouchers) {
+            when(voucherRepository.findByCode(voucher.getCode())).thenReturn(Optional.of(voucher));
+        }
+        VoucherRegistry registry = new VoucherRegistry(voucherRepository, campaignService, new SimpleMeterRegistry());
+        return new VoucherService(voucherRepository, registry, campaignService);
+    }
+
+    /**
+     * Đơn có itemCount món khác nhau, giá 25.000 - 70.000
+     */
+    static Order order(long id, int itemCount) {
+        Order order = Order.builder().id(id).type("TAKE_AWAY").build();
+        Set<OrderDetail> details = new HashSet<>();
+        for (int i = 0; i < itemCount; i++) {
+            Product product = Product.builder()
+                    .id((long) i + 1)
+                    .name("Món " + (i + 1))
+                    .code("SP" + (i + 1))
+                    .price(BigDecimal.valueOf(25_000 + 5_000L * (i % 10)))
+                    .build();
+            details.add(OrderDetail.builder()
+                    .id(id * 1_000 + i)
+                    .order(order)
+                    .product(product)
+                    .quantity(1 + i % 3)
+                    .priceAtOrder(product.getPrice())
+                    .build());
+        }
+        order.setOrderDetails(details);
+        return order;
+    }
+}
@@ -0,0 +1,62 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Order;
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import com.giapho.coffee_shop_backend.domain.repository.CafeTableRepository;
+import com.giapho.coffee_shop_backend.domain.repository.CustomerRepository;
+import com.giapho.coffee_shop_backend.domain.repository.IngredientRepository;
+import com.giapho.coffee_shop_backend.domain.repository.OrderDetailRepository;
+import com.giapho.coffee_shop_backend.domain.repository.OrderRepository;
+import com.giapho.coffee_shop_backend.domain.repository.ProductIngredientRepository;
+import com.giapho.coffee_shop_backend.domain.repository.ProductRepository;
+import com.giapho.coffee_shop_backend.mapper.OrderDetailMapper;
+import com.giapho.coffee_shop_backend.mapper.OrderMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tính lại tổng tiền đơn (chạy mỗi lần thêm / sửa / xoá món): cộng dồn BigDecimal và kiểm tra voucher qua cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderTotalsBenchmark {
+
+    @Param({"3", "20"})
+    int itemCount;
+
+    @Param({"NONE", "GIAM10", "GIAM20K"})
+    String voucherCode;
+
+    private OrderService orderService;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        VoucherService voucherService = BenchmarkFixtures.voucherService(
+                BenchmarkFixtures.voucher("GIAM10", Voucher.VoucherType.PERCENTAGE, 10, 50_000L),
+                BenchmarkFixtures.voucher("GIAM20K", Voucher.VoucherType.FIXED_AMOUNT, 20_000, null));
+        orderService = new OrderService(mock(OrderRepository.class), mock(OrderDetailRepository.class),
+                mock(ProductRepository.class), mock(CafeTableRepository.class), mock(UserDirectory.class),
+                mock(CustomerRepository.class), mock(IngredientRepository.class),
+                mock(ProductIngredientRepository.class), mock(OrderMapper.class), mock(OrderDetailMapper.class),
+                voucherService, mock(VoucherReservationService.class), mock(LoyaltyService.class),
+                mock(ApplicationEventPublisher.class));
+        order = BenchmarkFixtures.order(1, itemCount);
+        order.setVoucherCode("NONE".equals(voucherCode) ? null : voucherCode);
+    }
+
+    @Benchmark
+    public BigDecimal recalculateOrderTotals() {
+        orderService.recalculateOrderTotals(order);
+        return order.getTotalAmount();
+    }
+}
@@ -0,0 +1,57 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phần xử lý trong bộ nhớ của báo cáo doanh thu theo ngày (groupingBy + reducing BigDecimal),
+ * trên số đơn của 1 tháng ở các quy mô quán khác nhau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RevenueReportBenchmark {
+
+    private static final int DAYS = 30;
+
+    @Param({"3000", "30000"})
+    int orderCount;
+
+    private List<Order> paidOrders;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup
+    public void setUp() {
+        endDate = LocalDate.of(2025, 11, 30);
+        startDate = endDate.minusDays(DAYS - 1);
+        Random random = new Random(42);
+        paidOrders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            Order order = Order.builder()
+                    .id((long) i)
+                    .status("PAID")
+                    .totalAmount(BigDecimal.valueOf(25_000 + 5_000L * random.nextInt(30)))
+                    .paidAt(startDate.plusDays((long) i * DAYS / orderCount)
+                            .atTime(7 + random.nextInt(14), random.nextInt(60)))
+                    .build();
+            paidOrders.add(order);
+        }
+    }
+
+    @Benchmark
+    public Map<LocalDate, BigDecimal> groupRevenueByDate() {
+        return ReportService.groupRevenueByDate(paidOrders, startDate, endDate);
+    }
+}
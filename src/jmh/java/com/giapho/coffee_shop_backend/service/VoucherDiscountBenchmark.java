@@ -0,0 +1,48 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import com.giapho.coffee_shop_backend.dto.VoucherCheckResponseDTO;
+import com.giapho.coffee_shop_backend.service.VoucherRegistry.VoucherSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tính tiền giảm của voucher: riêng phép tính, và cả đường kiểm tra voucher (tra cache + điều kiện + DTO)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VoucherDiscountBenchmark {
+
+    @Param({"PERCENTAGE", "FIXED_AMOUNT"})
+    Voucher.VoucherType type;
+
+    private VoucherService voucherService;
+    private VoucherSnapshot snapshot;
+    private BigDecimal orderAmount;
+
+    @Setup
+    public void setUp() {
+        Voucher voucher = type == Voucher.VoucherType.PERCENTAGE
+                ? BenchmarkFixtures.voucher("BENCH", type, 15, 50_000L)
+                : BenchmarkFixtures.voucher("BENCH", type, 20_000, null);
+        voucherService = BenchmarkFixtures.voucherService(voucher);
+        snapshot = VoucherSnapshot.of(voucher);
+        orderAmount = new BigDecimal("185000.00");
+    }
+
+    @Benchmark
+    public BigDecimal calculateDiscount() {
+        return voucherService.calculateDiscount(snapshot, orderAmount);
+    }
+
+    @Benchmark
+    public VoucherCheckResponseDTO checkAndCalculateDiscount() {
+        return voucherService.checkAndCalculateDiscount("BENCH", orderAmount);
+    }
+}
@@ -0,0 +1,36 @@
+package com.giapho.coffee_shop_backend.config;
+
+import com.giapho.coffee_shop_backend.storage.BlobStore;
+import com.giapho.coffee_shop_backend.storage.LocalBlobStore;
+import com.giapho.coffee_shop_backend.storage.S3BlobStore;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.Locale;
+
+/**
+ * Chọn nơi lưu file theo file.storage.backend (local | s3).
+ * Test cần backend trong bộ nhớ thì tự khai báo bean BlobStore (InMemoryBlobStore chỉ có trong mã test).
+ */
+@Configuration
+public class BlobStoreConfig {
+
+    @Bean
+    public BlobStore blobStore(FileStorageProperties properties) {
+        return create(properties.getBackend(), properties);
+    }
+
+    /**
+     * Tạo BlobStore theo tên backend (cũng dùng để mở backend nguồn khi chuyển dữ liệu)
+     */
+    public static BlobStore create(String backend, FileStorageProperties properties) {
+        return switch (backend == null ? "" : backend.trim().toLowerCase(Locale.ROOT)) {
+            case "local" -> new LocalBlobStore(Paths.get(properties.getUploadDir()));
+            case "s3" -> new S3BlobStore(properties.getS3(), Clock.systemUTC());
+            default -> throw new IllegalStateException("Unknown file storage backend: " + backend
+                    + " (expected local or s3)");
+        };
+    }
+}
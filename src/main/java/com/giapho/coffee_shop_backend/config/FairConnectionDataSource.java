@@ -0,0 +1,119 @@
+package com.giapho.coffee_shop_backend.config;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bọc connection pool: mỗi connection đang mượn giữ 1 permit của một Semaphore công bằng (FIFO)
+ * có đúng bằng số connection của pool.
+ * <p>
+ * Với virtual thread, số request đồng thời không còn bị giới hạn bởi thread pool của Tomcat; hàng nghìn thread
+ * cùng chờ trong Hikari thì thứ tự nhận connection không công bằng (request mới có thể lấy trước request
+ * chờ lâu, request chờ lâu bị timeout). Chờ ở Semaphore thì virtual thread được tháo khỏi carrier và lấy
+ * connection đúng thứ tự đến.
+ */
+public class FairConnectionDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxConnections;
+    private final long timeoutMs;
+
+    public FairConnectionDataSource(DataSource target, int maxConnections, long timeoutMs) {
+        super(target);
+        this.maxConnections = maxConnections;
+        this.permits = new Semaphore(maxConnections, true);
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return guarded(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return guarded(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Số thread đang chờ connection
+     */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Số connection đang được mượn qua guard
+     */
+    public int getActive() {
+        return maxConnections - permits.availablePermits();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                // Cùng loại exception Hikari ném khi hết thời gian chờ
+                throw new SQLTransientConnectionException(
+                        "Connection is not available, request timed out after " + timeoutMs + "ms ("
+                                + permits.getQueueLength() + " waiting)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    /**
+     * Trả permit đúng 1 lần khi connection được close (trả về pool)
+     */
+    private Connection guarded(Connection target) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getTargetConnection" -> target;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Guarded connection [" + target + "]";
+                    case "close" -> {
+                        try {
+                            target.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        yield null;
+                    }
+                    default -> {
+                        try {
+                            yield method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                });
+    }
+}
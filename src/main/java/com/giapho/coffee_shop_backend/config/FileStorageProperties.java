@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * Configuration properties cho file storage
  */
@@ -13,7 +15,12 @@ import org.springframework.context.annotation.Configuration;
 public class FileStorageProperties {
 
     /**
-     * Đường dẫn thư mục lưu trữ file upload
+     * Nơi lưu file: local (thư mục uploadDir, mặc định), s3 (S3 hoặc dịch vụ tương thích như MinIO)
+     */
+    private String backend = "local";
+
+    /**
+     * Đường dẫn thư mục lưu trữ file upload (backend local). Với backend khác vẫn dùng làm thư mục file tạm khi xử lý ảnh.
      */
     private String uploadDir = "uploads/products";
 
@@ -31,4 +38,111 @@ public class FileStorageProperties {
      * Base URL để truy cập file
      */
     private String baseUrl = "http://localhost:8088";
-}
\ No newline at end of file
+
+    /**
+     * Chất lượng JPEG khi encode lại ảnh upload (0.0 - 1.0)
+     */
+    private float imageQuality = 0.82f;
+
+    /**
+     * Số điểm ảnh tối đa (rộng x cao) của ảnh upload, đọc từ header trước khi decode - Default: 40MP
+     */
+    private long maxImagePixels = 40_000_000L;
+
+    /**
+     * Thời gian giữ lại file không còn sản phẩm nào dùng trước khi job dọn rác xoá (kể từ lần dùng/upload cuối)
+     */
+    private Duration gcGracePeriod = Duration.ofHours(1);
+
+    /**
+     * Số file tối đa job dọn rác lấy ra mỗi lượt (mỗi file được xoá trong 1 transaction riêng)
+     */
+    private int gcBatchSize = 200;
+
+    /**
+     * Đối soát refCount với bảng products khi khởi động. Ghi đè số tham chiếu, nên chỉ bật khi chạy 1 node
+     * (không node nào khác đang ghi), ví dụ lần đầu triển khai bảng stored_files hoặc sau khi chuyển dữ liệu.
+     */
+    private boolean reconcileOnStartup = false;
+
+    /**
+     * Số ảnh được decode/encode đồng thời khi upload (tốn CPU) - Default: số CPU, tối thiểu 2
+     */
+    private int uploadParallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Tổng dung lượng file upload đang được xử lý cùng lúc trên toàn server (bytes) - Default: 64MB
+     */
+    private long uploadInFlightBytes = 64L * 1024 * 1024;
+
+    /**
+     * Thời gian tối đa 1 file chờ tới lượt xử lý trước khi bị từ chối
+     */
+    private Duration uploadQueueTimeout = Duration.ofSeconds(60);
+
+    /**
+     * Cấu hình backend s3
+     */
+    private S3 s3 = new S3();
+
+    /**
+     * Chuyển file từ backend khác sang backend hiện tại khi khởi động (xem BlobStoreMigration)
+     */
+    private Migration migration = new Migration();
+
+    @Data
+    public static class S3 {
+
+        /**
+         * Địa chỉ dịch vụ, ví dụ https://s3.ap-southeast-1.amazonaws.com hoặc http://minio:9000
+         */
+        private String endpoint = "https://s3.amazonaws.com";
+
+        private String region = "us-east-1";
+
+        private String bucket;
+
+        private String accessKey;
+
+        private String secretKey;
+
+        /**
+         * true: endpoint/bucket/key (MinIO), false: bucket.endpoint/key (virtual-hosted)
+         */
+        private boolean pathStyleAccess = true;
+
+        /**
+         * Tiền tố của key trong bucket, ví dụ products/
+         */
+        private String keyPrefix = "";
+
+        /**
+         * Thời hạn của URL ký sẵn trả cho client để tải ảnh trực tiếp từ S3
+         */
+        private Duration presignTtl = Duration.ofHours(1);
+
+        /**
+         * Timeout kết nối / mỗi request tới S3
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Migration {
+
+        /**
+         * Backend nguồn (local, s3). Để trống thì không chuyển.
+         */
+        private String source;
+
+        /**
+         * Ghi đè file đã có ở backend đích (mặc định bỏ qua file đã có cùng kích thước)
+         */
+        private boolean overwrite = false;
+
+        /**
+         * Số file được copy song song
+         */
+        private int parallelism = 8;
+    }
+}
@@ -0,0 +1,41 @@
+package com.giapho.coffee_shop_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties cho việc giới hạn số lần đăng nhập (chống brute-force)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.security.login-throttle")
+@Data
+public class LoginThrottleProperties {
+
+    /**
+     * Bật/tắt cơ chế giới hạn đăng nhập
+     */
+    private boolean enabled = true;
+
+    /**
+     * Độ dài cửa sổ trượt (sliding window)
+     */
+    private Duration window = Duration.ofMinutes(15);
+
+    /**
+     * Số lần đăng nhập SAI tối đa cho một username trong một cửa sổ
+     */
+    private int maxFailuresPerUsername = 5;
+
+    /**
+     * Số lần thử đăng nhập tối đa (đúng hoặc sai) từ một địa chỉ IP trong một cửa sổ
+     */
+    private int maxAttemptsPerIp = 30;
+
+    /**
+     * Số key (username/IP) tối đa được theo dõi cùng lúc, tránh tràn bộ nhớ
+     */
+    private long maxTrackedKeys = 100_000;
+}
@@ -0,0 +1,89 @@
+package com.giapho.coffee_shop_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties cho giới hạn tốc độ (rate limit) và giới hạn đồng thời theo nhóm route
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+@Data
+public class RateLimitProperties {
+
+    /**
+     * Bật/tắt filter giới hạn tốc độ
+     */
+    private boolean enabled = true;
+
+    /**
+     * Thời gian giữ token bucket của một user sau lần truy cập cuối
+     */
+    private Duration idleExpiry = Duration.ofMinutes(10);
+
+    /**
+     * Các nhóm route. Request khớp nhóm ĐẦU TIÊN; không khớp nhóm nào thì không bị giới hạn.
+     */
+    private List<Group> groups = new ArrayList<>();
+
+    @Data
+    public static class Group {
+
+        /**
+         * Tên nhóm (dùng cho log và metric)
+         */
+        private String name;
+
+        /**
+         * Các path pattern thuộc nhóm, ví dụ /api/v1/reports/**
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * Chỉ áp dụng cho các HTTP method này (rỗng = mọi method)
+         */
+        private List<String> methods = new ArrayList<>();
+
+        /**
+         * Số request tối đa dồn liền (dung lượng bucket) cho mỗi user
+         */
+        private double capacity = 10;
+
+        /**
+         * Số token được nạp lại mỗi giây cho mỗi user
+         */
+        private double refillPerSecond = 1;
+
+        /**
+         * Giới hạn đồng thời thích ứng (AIMD) cho cả nhóm, dùng cho các endpoint nặng
+         */
+        private Concurrency concurrency = new Concurrency();
+    }
+
+    @Data
+    public static class Concurrency {
+
+        private boolean enabled = false;
+
+        private int initialLimit = 4;
+
+        private int minLimit = 1;
+
+        private int maxLimit = 16;
+
+        /**
+         * Request chậm hơn ngưỡng này được coi là dấu hiệu quá tải (giảm giới hạn)
+         */
+        private Duration latencyThreshold = Duration.ofSeconds(2);
+
+        /**
+         * Hệ số giảm giới hạn khi quá tải (multiplicative decrease)
+         */
+        private double backoffRatio = 0.8;
+    }
+}
@@ -0,0 +1,117 @@
+package com.giapho.coffee_shop_backend.config;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Thống kê SQL của request đang chạy trên thread hiện tại (gắn bởi {@link SqlMetricsFilter},
+ * được ghi bởi {@link SqlMetricsDataSource}). Chỉ một thread ghi nên không cần đồng bộ.
+ * <p>
+ * Câu lệnh được đếm theo chuỗi SQL gốc (Hibernate dùng lại cùng chuỗi nên tra HashMap rẻ);
+ * chỉ khi cần tìm N+1 mới chuẩn hoá về "dạng" câu lệnh.
+ */
+public class RequestSqlStats {
+
+    // Giới hạn số câu SQL khác nhau được nhớ trong 1 request (request export / báo cáo lớn)
+    private static final int MAX_DISTINCT_STATEMENTS = 500;
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    private final Map<String, Integer> executions = new HashMap<>();
+    private long statements;
+    private long rows;
+    private long connections;
+    private long connectionWaitNanos;
+    private long transactionNanos;
+
+    public static RequestSqlStats begin() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * Thống kê của request trên thread hiện tại, null nếu không ở trong request (job nền, khởi động...)
+     */
+    public static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    void statementExecuted(String sql) {
+        statements++;
+        if (sql != null && (executions.size() < MAX_DISTINCT_STATEMENTS || executions.containsKey(sql))) {
+            executions.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void rowFetched() {
+        rows++;
+    }
+
+    void connectionAcquired(long waitNanos) {
+        connections++;
+        connectionWaitNanos += waitNanos;
+    }
+
+    void transactionFinished(long nanos) {
+        transactionNanos += nanos;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getConnections() {
+        return connections;
+    }
+
+    public long getConnectionWaitNanos() {
+        return connectionWaitNanos;
+    }
+
+    public long getTransactionNanos() {
+        return transactionNanos;
+    }
+
+    /**
+     * Các dạng câu lệnh chạy nhiều hơn threshold lần, sắp xếp giảm dần theo số lần
+     */
+    public Map<String, Integer> repeatedShapes(int threshold) {
+        if (statements <= threshold) {
+            return Map.of();
+        }
+        Map<String, Integer> shapes = new HashMap<>();
+        executions.forEach((sql, count) -> shapes.merge(shapeOf(sql), count, Integer::sum));
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        shapes.entrySet().stream()
+                .filter(entry -> entry.getValue() > threshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return repeated;
+    }
+
+    /**
+     * Dạng câu lệnh: bỏ khác biệt về khoảng trắng, giá trị literal và độ dài danh sách IN (?, ?, ...)
+     */
+    static String shapeOf(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return PARAMETER_LIST.matcher(shape).replaceAll("(?)");
+    }
+}
@@ -0,0 +1,12 @@
+package com.giapho.coffee_shop_backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Bật @Scheduled cho các tác vụ nền (thu hồi voucher giữ chỗ...)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,11 +1,18 @@
 package com.giapho.coffee_shop_backend.config;
 
+import com.giapho.coffee_shop_backend.security.CompiledPreAuthorizeManager;
 import com.giapho.coffee_shop_backend.security.CustomAccessDeniedHandler;
 import com.giapho.coffee_shop_backend.security.JwtAuthenticationFilter;
+import com.giapho.coffee_shop_backend.security.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -26,11 +33,12 @@ import static org.springframework.security.config.Customizer.withDefaults;
 
 @Configuration
 @EnableWebSecurity
-@EnableMethodSecurity
+@EnableMethodSecurity(prePostEnabled = false) // @PreAuthorize do CompiledPreAuthorizeManager xử lý
 @RequiredArgsConstructor
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final AuthenticationProvider authenticationProvider;
     private final CustomAccessDeniedHandler accessDeniedHandler;
 
@@ -42,6 +50,9 @@ public class SecurityConfig {
                 // ------------------------------------------
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() // Cho phép tất cả OPTIONS request
+                        // Async dispatch (kết thúc StreamingResponseBody) thuộc request đã được phân quyền,
+                        // JWT filter không chạy lại nên SecurityContext lúc này rỗng
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/v1/auth/**")
                         .permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/files/**").permitAll() // Cho phép xem file công khai
@@ -58,17 +69,36 @@ public class SecurityConfig {
                 .exceptionHandling(exception -> exception
                     .accessDeniedHandler(accessDeniedHandler)
                 )
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // Giới hạn tốc độ sau khi đã biết user (cần username làm khoá bucket)
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
 
+    /**
+     * Biên dịch các biểu thức @PreAuthorize thành kiểm tra role bằng bitmask
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static CompiledPreAuthorizeManager compiledPreAuthorizeManager() {
+        return new CompiledPreAuthorizeManager();
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor preAuthorizeAuthorizationMethodInterceptor(CompiledPreAuthorizeManager compiledPreAuthorizeManager) {
+        return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(compiledPreAuthorizeManager);
+    }
+
     @Bean
     CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:5173"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "If-None-Match",
+                "If-Modified-Since", "Range"));
+        configuration.setExposedHeaders(Arrays.asList("ETag", "Retry-After", "Content-Range", "Accept-Ranges")); // Cho phép JS đọc ETag để gửi lại If-None-Match
         configuration.setMaxAge(3600L); // 1 giờ
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/api/v1/**", configuration);
@@ -0,0 +1,45 @@
+package com.giapho.coffee_shop_backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Đo SQL theo từng request ({@link SqlMetricsFilter}, {@link SqlMetricsDataSource}); tắt bằng app.sql-metrics.enabled=false.
+ * Log từng câu SQL (org.hibernate.SQL) vẫn tắt mặc định, chỉ bật khi cần soi chi tiết.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "app.sql-metrics", name = "enabled", matchIfMissing = true)
+public class SqlMetricsConfig {
+
+    @Bean
+    static SqlMetricsDataSourcePostProcessor sqlMetricsDataSourcePostProcessor() {
+        return new SqlMetricsDataSourcePostProcessor();
+    }
+
+    /**
+     * Bọc ngoài cùng (sau {@link FairConnectionDataSource}) để thời gian chờ connection tính cả hàng đợi
+     */
+    static final class SqlMetricsDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof SqlMetricsDataSource)) {
+                log.info("Recording per-request SQL metrics for {}", beanName);
+                return new SqlMetricsDataSource(dataSource);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
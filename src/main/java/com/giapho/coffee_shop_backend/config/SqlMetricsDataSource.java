@@ -0,0 +1,186 @@
+package com.giapho.coffee_shop_backend.config;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Bọc DataSource để ghi vào {@link RequestSqlStats} của request hiện tại: thời gian chờ connection,
+ * số câu lệnh (theo chuỗi SQL), số dòng đọc qua ResultSet.next() và thời gian transaction
+ * (từ setAutoCommit(false) đến commit / rollback).
+ * <p>
+ * Connection lấy ngoài request (job nền, khởi động) được trả nguyên bản, không tốn thêm gì.
+ */
+public class SqlMetricsDataSource extends DelegatingDataSource {
+
+    public SqlMetricsDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats == null) {
+            return obtainTargetDataSource().getConnection();
+        }
+        long start = System.nanoTime();
+        Connection connection = obtainTargetDataSource().getConnection();
+        stats.connectionAcquired(System.nanoTime() - start);
+        return instrumented(connection, stats);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats == null) {
+            return obtainTargetDataSource().getConnection(username, password);
+        }
+        long start = System.nanoTime();
+        Connection connection = obtainTargetDataSource().getConnection(username, password);
+        stats.connectionAcquired(System.nanoTime() - start);
+        return instrumented(connection, stats);
+    }
+
+    private static Connection instrumented(Connection target, RequestSqlStats stats) {
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class}, new ConnectionHandler(target, stats));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final RequestSqlStats stats;
+        private long transactionStart;
+
+        ConnectionHandler(Connection target, RequestSqlStats stats) {
+            this.target = target;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getTargetConnection":
+                    return target;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Instrumented connection [" + target + "]";
+                case "setAutoCommit":
+                    if (!(Boolean) args[0] && transactionStart == 0) {
+                        transactionStart = System.nanoTime();
+                    } else if ((Boolean) args[0]) {
+                        finishTransaction();
+                    }
+                    break;
+                case "commit", "rollback", "close":
+                    // rollback(Savepoint) không kết thúc transaction
+                    if (args == null || args.length == 0) {
+                        Object result = SqlMetricsDataSource.invoke(target, method, args);
+                        finishTransaction();
+                        return result;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            Object result = SqlMetricsDataSource.invoke(target, method, args);
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String value ? value : null;
+                return instrumented(statement, sql);
+            }
+            return result;
+        }
+
+        private void finishTransaction() {
+            if (transactionStart != 0) {
+                stats.transactionFinished(System.nanoTime() - transactionStart);
+                transactionStart = 0;
+            }
+        }
+
+        private Statement instrumented(Statement statement, String sql) {
+            Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class
+                    : Statement.class;
+            return (Statement) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(statement, sql, stats));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private final RequestSqlStats stats;
+
+        StatementHandler(Statement target, String preparedSql, RequestSqlStats stats) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.endsWith("Batch") && name.startsWith("execute")) {
+                // Batch là 1 lượt gửi cho nhiều dòng: đếm câu lệnh nhưng không tính vào phát hiện N+1
+                stats.statementExecuted(null);
+            } else if (name.startsWith("execute")) {
+                // Statement thường truyền SQL khi execute, PreparedStatement đã có SQL lúc prepare
+                String sql = args != null && args.length > 0 && args[0] instanceof String value ? value : preparedSql;
+                stats.statementExecuted(sql);
+            }
+            Object result = switch (name) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> SqlMetricsDataSource.invoke(target, method, args);
+            };
+            if (result instanceof ResultSet resultSet && !"getGeneratedKeys".equals(name)) {
+                return Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                        new ResultSetHandler(resultSet, stats));
+            }
+            return result;
+        }
+    }
+
+    private record ResultSetHandler(ResultSet target, RequestSqlStats stats) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "next" -> {
+                    boolean hasRow = target.next();
+                    if (hasRow) {
+                        stats.rowFetched();
+                    }
+                    yield hasRow;
+                }
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> SqlMetricsDataSource.invoke(target, method, args);
+            };
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.giapho.coffee_shop_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo SQL theo từng request và ghi metric theo method controller xử lý request (tag handler, VD: OrderController.addItem):
+ * - http.server.requests.sql.statements / .rows: số câu lệnh và số dòng đọc mỗi request
+ * - http.server.requests.sql.connection.wait / .transaction: tổng thời gian chờ connection và thời gian transaction
+ * - http.server.requests.sql.repeated: số request chạy cùng một dạng câu lệnh quá nhiều lần (nghi N+1).
+ * Mỗi cặp (handler, dạng câu lệnh) chỉ log WARN lần đầu, sau đó chỉ đếm vào metric.
+ * <p>
+ * Đứng trước Spring Security để tính cả query nạp user khi xác thực.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(prefix = "app.sql-metrics", name = "enabled", matchIfMissing = true)
+public class SqlMetricsFilter extends OncePerRequestFilter {
+
+    // Request không tới controller nào (401, 404...)
+    private static final String NO_HANDLER = "none";
+
+    private final SqlMetricsProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, HandlerMeters> meters = new ConcurrentHashMap<>();
+    private final Set<String> reportedShapes = ConcurrentHashMap.newKeySet();
+
+    public SqlMetricsFilter(SqlMetricsProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RequestSqlStats stats = RequestSqlStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestSqlStats.end();
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestSqlStats stats) {
+        String handler = handlerOf(request);
+        if (NO_HANDLER.equals(handler) && stats.getStatements() == 0) {
+            return; // File tĩnh, 404... không có gì để ghi
+        }
+        HandlerMeters handlerMeters = meters.computeIfAbsent(handler, HandlerMeters::new);
+        handlerMeters.statements.record(stats.getStatements());
+        handlerMeters.rows.record(stats.getRows());
+        if (stats.getConnections() > 0) {
+            handlerMeters.connectionWait.record(stats.getConnectionWaitNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (stats.getTransactionNanos() > 0) {
+            handlerMeters.transaction.record(stats.getTransactionNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        Map<String, Integer> repeated = stats.repeatedShapes(properties.getRepeatedStatementThreshold());
+        if (repeated.isEmpty()) {
+            return;
+        }
+        handlerMeters.repeated.increment();
+        repeated.forEach((shape, count) -> {
+            if (reportedShapes.add(handler + "|" + shape)) {
+                log.warn("Possible N+1 in {} ({} {}): statement ran {} times in one request ({} statements total): {}",
+                        handler, request.getMethod(), request.getRequestURI(), count, stats.getStatements(), shape);
+            } else {
+                log.debug("Repeated statement in {}: {} times: {}", handler, count, shape);
+            }
+        });
+    }
+
+    private static String handlerOf(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        return NO_HANDLER;
+    }
+
+    private final class HandlerMeters {
+
+        private final DistributionSummary statements;
+        private final DistributionSummary rows;
+        private final Timer connectionWait;
+        private final Timer transaction;
+        private final Counter repeated;
+
+        HandlerMeters(String handler) {
+            this.statements = DistributionSummary.builder("http.server.requests.sql.statements")
+                    .description("JDBC statements executed per request")
+                    .tag("handler", handler)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            this.rows = DistributionSummary.builder("http.server.requests.sql.rows")
+                    .description("Rows fetched from result sets per request")
+                    .tag("handler", handler)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            this.connectionWait = Timer.builder("http.server.requests.sql.connection.wait")
+                    .description("Time spent waiting for JDBC connections per request")
+                    .tag("handler", handler)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            this.transaction = Timer.builder("http.server.requests.sql.transaction")
+                    .description("Time spent inside database transactions per request")
+                    .tag("handler", handler)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            this.repeated = Counter.builder("http.server.requests.sql.repeated")
+                    .description("Requests that ran one statement shape more times than the N+1 threshold")
+                    .tag("handler", handler)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.giapho.coffee_shop_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cấu hình đo SQL theo từng request (số câu lệnh, số dòng đọc, thời gian chờ connection, thời gian transaction)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.sql-metrics")
+@Data
+public class SqlMetricsProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Cảnh báo N+1 khi một request chạy cùng một dạng câu lệnh nhiều hơn số lần này
+     */
+    private int repeatedStatementThreshold = 10;
+}
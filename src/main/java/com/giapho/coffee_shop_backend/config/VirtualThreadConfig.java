@@ -0,0 +1,86 @@
+package com.giapho.coffee_shop_backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Chế độ virtual thread (tuỳ chọn): spring.threads.virtual.enabled=true
+ * <p>
+ * Spring Boot chạy request của Tomcat, task @Async / @Scheduled trên virtual thread. Ở đây bổ sung:
+ * - Hàng đợi FIFO lấy connection JDBC ({@link FairConnectionDataSource})
+ * - Theo dõi virtual thread bị ghim vào carrier ({@link VirtualThreadPinningMonitor})
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.virtual-threads", name = "connection-guard", matchIfMissing = true)
+    // Kiểu trả về cụ thể: Spring đọc Ordered từ kiểu khai báo khi sắp xếp BeanPostProcessor
+    static FairConnectionDataSourcePostProcessor fairConnectionDataSourcePostProcessor() {
+        return new FairConnectionDataSourcePostProcessor();
+    }
+
+    /**
+     * Chạy trước các BeanPostProcessor khác để còn thấy HikariDataSource (chưa bị bọc, VD bởi SqlMetricsDataSource)
+     */
+    static final class FairConnectionDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource hikari) {
+                log.info("Guarding JDBC connections of {} with a fair queue ({} connections, {} ms timeout)",
+                        beanName, hikari.getMaximumPoolSize(), hikari.getConnectionTimeout());
+                return new FairConnectionDataSource(hikari, hikari.getMaximumPoolSize(),
+                        hikari.getConnectionTimeout());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+
+    @Bean
+    MeterBinder fairConnectionDataSourceMetrics(DataSource dataSource) {
+        return registry -> {
+            FairConnectionDataSource guard = unwrapGuard(dataSource);
+            if (guard != null) {
+                Gauge.builder("jdbc.connections.guard.waiting", guard, FairConnectionDataSource::getWaiting)
+                        .description("Threads queued for a JDBC connection")
+                        .register(registry);
+                Gauge.builder("jdbc.connections.guard.active", guard, FairConnectionDataSource::getActive)
+                        .description("JDBC connections borrowed through the fair queue")
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * DataSource có thể còn được bọc thêm bên ngoài (VD: {@link SqlMetricsDataSource})
+     */
+    private static FairConnectionDataSource unwrapGuard(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(FairConnectionDataSource.class)
+                    ? dataSource.unwrap(FairConnectionDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.giapho.coffee_shop_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Theo dõi virtual thread bị ghim vào carrier thread (block I/O bên trong synchronized / native) qua JFR.
+ * Khi bị ghim, carrier không chạy được virtual thread khác: vài chỗ như vậy trên đường đi nóng là đủ làm
+ * nghẽn cả server. Mỗi vị trí chỉ log WARN lần đầu (kèm stack), sau đó chỉ đếm vào metric.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final VirtualThreadProperties properties;
+    private final Counter pinnedEvents;
+    private final Timer pinnedDuration;
+    private final Set<String> reportedLocations = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(VirtualThreadProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.pinnedEvents = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads pinned to their carrier longer than the threshold")
+                .register(meterRegistry);
+        this.pinnedDuration = Timer.builder("jvm.threads.virtual.pinned.duration")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            stream = new RecordingStream();
+            stream.enable(EVENT).withThreshold(properties.getPinnedThreshold()).withStackTrace();
+            stream.onEvent(EVENT, this::onPinned);
+            stream.startAsync();
+            log.info("Monitoring virtual thread pinning (threshold {} ms)", properties.getPinnedThreshold().toMillis());
+        } catch (Exception | LinkageError e) {
+            // JFR có thể bị tắt trong một số JVM / môi trường
+            log.warn("Could not start virtual thread pinning monitor: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.increment();
+        pinnedDuration.record(event.getDuration());
+
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String location = frames.stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith("com.giapho."))
+                .findFirst()
+                .or(() -> frames.stream().findFirst())
+                .map(VirtualThreadPinningMonitor::describe)
+                .orElse("unknown");
+        if (reportedLocations.add(location)) {
+            log.warn("Virtual thread pinned for {} ms at {}:\n{}", event.getDuration().toMillis(), location,
+                    format(event.getStackTrace()));
+        }
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\t(no stack trace)";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> "\tat " + describe(frame))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + "(line " + frame.getLineNumber() + ")";
+    }
+}
@@ -0,0 +1,27 @@
+package com.giapho.coffee_shop_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Cấu hình chế độ virtual thread (bật bằng spring.threads.virtual.enabled=true)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.virtual-threads")
+@Data
+public class VirtualThreadProperties {
+
+    /**
+     * Cho các request xếp hàng FIFO để lấy connection (tối đa = số connection của pool),
+     * thay vì hàng nghìn virtual thread cùng tranh nhau trong Hikari
+     */
+    private boolean connectionGuard = true;
+
+    /**
+     * Ghi log khi một virtual thread bị ghim vào carrier thread lâu hơn ngưỡng này (JFR jdk.VirtualThreadPinned)
+     */
+    private Duration pinnedThreshold = Duration.ofMillis(20);
+}
@@ -0,0 +1,31 @@
+package com.giapho.coffee_shop_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties cho chiến dịch voucher (Bloom filter các mã đã phát hành)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.voucher.campaign")
+@Data
+public class VoucherCampaignProperties {
+
+    /**
+     * Số mã tối thiểu mà Bloom filter được thiết kế để chứa (dựng lại với gấp đôi tổng số mã nếu lớn hơn)
+     */
+    private long bloomMinCapacity = 1_000_000;
+
+    /**
+     * Chu kỳ kiểm tra Bloom filter đã vượt dung lượng thiết kế hay chưa, để dựng lại ở job nền
+     */
+    private Duration bloomRebuildInterval = Duration.ofSeconds(10);
+
+    /**
+     * Chu kỳ nạp các chiến dịch do node khác tạo (mã có tiền tố lạ cũng kích hoạt nạp ngay)
+     */
+    private Duration reloadInterval = Duration.ofSeconds(10);
+}
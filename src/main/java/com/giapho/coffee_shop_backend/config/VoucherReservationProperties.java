@@ -0,0 +1,31 @@
+package com.giapho.coffee_shop_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties cho việc giữ chỗ voucher của đơn hàng chưa thanh toán
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.voucher.reservation")
+@Data
+public class VoucherReservationProperties {
+
+    /**
+     * Thời gian giữ 1 lượt voucher cho đơn PENDING (gia hạn mỗi khi áp dụng lại)
+     */
+    private Duration ttl = Duration.ofMinutes(30);
+
+    /**
+     * Chu kỳ quét và thu hồi các lượt giữ đã hết hạn
+     */
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    /**
+     * Số lượt giữ tối đa thu hồi trong 1 transaction khi quét
+     */
+    private int sweepBatchSize = 500;
+}
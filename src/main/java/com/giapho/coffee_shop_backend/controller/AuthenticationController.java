@@ -4,6 +4,7 @@ import com.giapho.coffee_shop_backend.dto.AuthenticationResponse;
 import com.giapho.coffee_shop_backend.dto.LoginRequest;
 import com.giapho.coffee_shop_backend.dto.RegisterRequest;
 import com.giapho.coffee_shop_backend.service.AuthenticationService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -31,8 +32,10 @@ public class AuthenticationController {
 
     @PostMapping("/login")
     public ResponseEntity<AuthenticationResponse> login(
-            @Valid @RequestBody LoginRequest request
+            @Valid @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest
     ) {
-        return ResponseEntity.ok(authenticationService.login(request));
+        // IP thật phía sau proxy: cấu hình server.forward-headers-strategy
+        return ResponseEntity.ok(authenticationService.login(request, httpRequest.getRemoteAddr()));
     }
 }
\ No newline at end of file
@@ -3,12 +3,15 @@ package com.giapho.coffee_shop_backend.controller;
 import com.giapho.coffee_shop_backend.dto.CafeTableRequest;
 import com.giapho.coffee_shop_backend.dto.CafeTableResponse;
 import com.giapho.coffee_shop_backend.service.CafeTableService;
+import com.giapho.coffee_shop_backend.service.ResourceVersions;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -19,16 +22,21 @@ import java.util.Map;
 public class CafeTableController {
 
     private final CafeTableService cafeTableService;
+    private final ResourceVersions resourceVersions;
 
     /**
      * API Lấy tất cả các bàn (dùng cho sơ đồ bàn)
      * Tất cả nhân viên đều có quyền xem.
+     * Hỗ trợ If-None-Match: trả 304 (không truy vấn DB) nếu sơ đồ bàn chưa đổi.
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('STAFF', 'MANAGER', 'ADMIN')")
-    public ResponseEntity<List<CafeTableResponse>> getAllTables() {
+    public ResponseEntity<List<CafeTableResponse>> getAllTables(WebRequest webRequest) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.TABLES))) {
+            return null; // 304 Not Modified
+        }
         List<CafeTableResponse> tables = cafeTableService.getAllTables();
-        return ResponseEntity.ok(tables);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(tables);
     }
 
     /**
@@ -37,9 +45,12 @@ public class CafeTableController {
      */
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('STAFF', 'MANAGER', 'ADMIN')")
-    public ResponseEntity<CafeTableResponse> getTableById(@PathVariable Long id) {
+    public ResponseEntity<CafeTableResponse> getTableById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.TABLES))) {
+            return null; // 304 Not Modified
+        }
         CafeTableResponse table = cafeTableService.getTableById(id);
-        return ResponseEntity.ok(table);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(table);
     }
 
     /**
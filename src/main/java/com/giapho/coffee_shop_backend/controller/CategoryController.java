@@ -2,11 +2,14 @@ package com.giapho.coffee_shop_backend.controller;
 
 import com.giapho.coffee_shop_backend.dto.CategoryDTO;
 import com.giapho.coffee_shop_backend.service.CategoryService;
+import com.giapho.coffee_shop_backend.service.ResourceVersions;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -16,6 +19,7 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final ResourceVersions resourceVersions;
 
     /**
      * API tạo danh mục mới
@@ -35,9 +39,13 @@ public class CategoryController {
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('STAFF', 'MANAGER', 'ADMIN')")
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(WebRequest webRequest) {
+        // Danh mục thuộc phiên bản catalog: 304 nếu menu chưa đổi
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.CATALOG))) {
+            return null; // 304 Not Modified
+        }
         List<CategoryDTO> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(categories);
     }
 
     /**
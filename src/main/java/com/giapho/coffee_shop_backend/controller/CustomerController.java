@@ -1,7 +1,11 @@
 package com.giapho.coffee_shop_backend.controller;
 
+import com.giapho.coffee_shop_backend.dto.CursorPageResponse;
 import com.giapho.coffee_shop_backend.dto.CustomerDTO;
+import com.giapho.coffee_shop_backend.dto.LoyaltyPointTransactionDTO;
+import com.giapho.coffee_shop_backend.dto.LoyaltyRedeemRequestDTO;
 import com.giapho.coffee_shop_backend.service.CustomerService;
+import com.giapho.coffee_shop_backend.service.LoyaltyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -19,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final LoyaltyService loyaltyService;
 
     /**
      * API Tạo khách hàng mới
@@ -45,6 +50,21 @@ public class CustomerController {
         return ResponseEntity.ok(customers);
     }
 
+    /**
+     * API Lấy danh sách khách hàng phân trang bằng cursor (theo tên)
+     * Trang đầu: không gửi cursor. Trang sau: gửi nextCursor của trang trước.
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('STAFF', 'MANAGER', 'ADMIN')")
+    public ResponseEntity<CursorPageResponse<CustomerDTO>> getCustomersByCursor(
+            @RequestParam(required = false, defaultValue = "") String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal // true: trả thêm tổng số (tốn 1 câu COUNT)
+    ) {
+        return ResponseEntity.ok(customerService.getCustomersByCursor(keyword, cursor, size, includeTotal));
+    }
+
     /**
      * API Lấy chi tiết khách hàng theo ID
      * Tất cả nhân viên đều có thể xem.
@@ -91,4 +111,31 @@ public class CustomerController {
         customerService.deleteCustomer(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    /**
+     * API Đổi điểm thưởng (trừ điểm nếu số dư đủ, ghi vào sổ điểm)
+     * Tất cả nhân viên đều có thể thực hiện.
+     */
+    @PostMapping("/{id}/loyalty/redeem")
+    @PreAuthorize("hasAnyRole('STAFF', 'MANAGER', 'ADMIN')")
+    public ResponseEntity<LoyaltyPointTransactionDTO> redeemLoyaltyPoints(
+            @PathVariable Long id,
+            @Valid @RequestBody LoyaltyRedeemRequestDTO request
+    ) {
+        return ResponseEntity.ok(loyaltyService.redeem(id, request));
+    }
+
+    /**
+     * API Lịch sử điểm thưởng (mới nhất trước, phân trang bằng cursor)
+     * Trang đầu: không gửi cursor. Trang sau: gửi nextCursor của trang trước.
+     */
+    @GetMapping("/{id}/loyalty/history")
+    @PreAuthorize("hasAnyRole('STAFF', 'MANAGER', 'ADMIN')")
+    public ResponseEntity<CursorPageResponse<LoyaltyPointTransactionDTO>> getLoyaltyHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(loyaltyService.getHistory(id, cursor, size));
+    }
+}
@@ -1,5 +1,6 @@
 package com.giapho.coffee_shop_backend.controller;
 
+import com.giapho.coffee_shop_backend.dto.CursorPageResponse;
 import com.giapho.coffee_shop_backend.dto.ExpenseDTO;
 import com.giapho.coffee_shop_backend.service.ExpenseService;
 import jakarta.validation.Valid;
@@ -51,6 +52,22 @@ public class ExpenseController {
         return ResponseEntity.ok(expenses);
     }
 
+    /**
+     * API Lấy danh sách chi phí phân trang bằng cursor (mới nhất trước)
+     * Chỉ MANAGER hoặc ADMIN mới có quyền xem.
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<CursorPageResponse<ExpenseDTO>> getExpensesByCursor(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        return ResponseEntity.ok(expenseService.getExpensesByCursor(startDate, endDate, cursor, size, includeTotal));
+    }
+
     /**
      * API Lấy chi tiết một khoản chi theo ID
      * Chỉ MANAGER hoặc ADMIN mới có quyền xem.
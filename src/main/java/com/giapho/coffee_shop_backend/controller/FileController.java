@@ -1,20 +1,30 @@
 package com.giapho.coffee_shop_backend.controller;
 
+import com.giapho.coffee_shop_backend.config.FileStorageProperties;
 import com.giapho.coffee_shop_backend.dto.FileUploadResponse;
+import com.giapho.coffee_shop_backend.service.FileReferenceService;
 import com.giapho.coffee_shop_backend.service.FileStorageService;
+import com.giapho.coffee_shop_backend.service.FileUploadService;
+import com.giapho.coffee_shop_backend.service.ImageProcessingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletRequest;
 
-import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
 
 /**
  * Controller xử lý upload và download file
@@ -25,7 +35,22 @@ import java.io.IOException;
 @Slf4j
 public class FileController {
 
+    // Attribute sendfile của Tomcat (xem org.apache.catalina.servlets.DefaultServlet)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // File nhỏ gửi thẳng nhanh hơn chuyển socket sang poller sendfile (cùng ngưỡng mặc định của Tomcat)
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    // File cũ (tên UUID): cho cache 1 ngày, sau đó hỏi lại bằng If-None-Match
+    private static final CacheControl REVALIDATE = CacheControl.maxAge(Duration.ofDays(1)).cachePublic();
+
     private final FileStorageService fileStorageService;
+    private final FileStorageProperties fileStorageProperties;
+    private final FileReferenceService fileReferenceService;
+    private final FileUploadService fileUploadService;
 
     /**
      * Upload single file
@@ -38,23 +63,14 @@ public class FileController {
     ) {
         log.info("Uploading file: {}", file.getOriginalFilename());
 
-        String fileName = fileStorageService.storeFile(file);
-        String fileUrl = fileStorageService.getFileUrl(fileName);
-
-        FileUploadResponse response = FileUploadResponse.builder()
-                .fileName(fileName)
-                .fileUrl(fileUrl)
-                .fileSize(file.getSize())
-                .fileType(file.getContentType())
-                .message("File uploaded successfully")
-                .build();
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(fileUploadService.store(file));
     }
 
     /**
      * Upload multiple files
      * Chỉ MANAGER hoặc ADMIN mới có quyền upload
+     * Các file được xử lý song song, kết quả theo từng file (success / error):
+     * 200 nếu tất cả thành công, 207 nếu một phần lỗi, 400 nếu tất cả lỗi
      */
     @PostMapping("/upload-multiple")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
@@ -63,43 +79,54 @@ public class FileController {
     ) {
         log.info("Uploading {} files", files.length);
 
-        FileUploadResponse[] responses = new FileUploadResponse[files.length];
-
-        for (int i = 0; i < files.length; i++) {
-            MultipartFile file = files[i];
-            String fileName = fileStorageService.storeFile(file);
-            String fileUrl = fileStorageService.getFileUrl(fileName);
+        List<FileUploadResponse> responses = fileUploadService.storeAll(files);
 
-            responses[i] = FileUploadResponse.builder()
-                    .fileName(fileName)
-                    .fileUrl(fileUrl)
-                    .fileSize(file.getSize())
-                    .fileType(file.getContentType())
-                    .message("File uploaded successfully")
-                    .build();
-        }
-
-        return ResponseEntity.ok(responses);
+        long failed = responses.stream().filter(response -> !response.isSuccess()).count();
+        HttpStatus status = failed == 0 ? HttpStatus.OK
+                : failed == responses.size() ? HttpStatus.BAD_REQUEST
+                : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(responses.toArray(FileUploadResponse[]::new));
     }
 
     /**
      * Download/View file
      * Public endpoint - không cần authentication
+     * size = thumb (200px), medium (600px) hoặc full (mặc định, tối đa 1600px)
+     * <p>
+     * - If-None-Match / If-Modified-Since: trả 304 nếu client đã có bản này
+     * - Tên file theo nội dung (hash) không bao giờ đổi nội dung → Cache-Control: max-age 1 năm, immutable
+     * - Range: Spring trả 206 với đoạn được yêu cầu
+     * - File lớn, không có Range: Tomcat gửi bằng sendfile (FileChannel.transferTo, không copy qua heap)
+     * - Backend S3: 302 tới URL ký sẵn, client tải thẳng từ bucket
      */
     @GetMapping("/{fileName:.+}")
     public ResponseEntity<Resource> downloadFile(
             @PathVariable String fileName,
-            HttpServletRequest request
+            @RequestParam(required = false) String size,
+            HttpServletRequest request,
+            WebRequest webRequest
     ) {
-        log.debug("Downloading file: {}", fileName);
+        log.debug("Downloading file: {} (size: {})", fileName, size);
+
+        FileStorageService.ServedFile file = fileStorageService.loadFileForServing(fileName,
+                ImageProcessingService.Variant.fromParam(size));
+
+        if (webRequest.checkNotModified(file.eTag(), file.lastModified())) {
+            return null; // 304 Not Modified
+        }
 
-        Resource resource = fileStorageService.loadFileAsResource(fileName);
+        if (file.redirectUrl() != null) {
+            // Backend S3: client tải thẳng từ bucket. URL ký sẵn còn hạn ít nhất nửa TTL nên chỉ cho cache chừng đó
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(file.redirectUrl())
+                    .cacheControl(CacheControl.maxAge(fileStorageProperties.getS3().getPresignTtl().dividedBy(2))
+                            .cachePrivate())
+                    .build();
+        }
 
-        // Xác định content type
-        String contentType = null;
-        try {
-            contentType = request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
-        } catch (IOException ex) {
+        // Xác định content type theo đuôi file
+        String contentType = request.getServletContext().getMimeType(file.fileName());
+        if (contentType == null) {
             log.warn("Could not determine file type for: {}", fileName);
         }
 
@@ -108,22 +135,44 @@ public class FileController {
             contentType = "application/octet-stream";
         }
 
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+                .cacheControl(file.immutable() ? IMMUTABLE : REVALIDATE)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.fileName() + "\"");
+
+        if (file.localPath() == null) {
+            return response.body(fileStorageService.openFile(file));
+        }
+        if (file.size() >= SENDFILE_MIN_SIZE && canUseSendfile(request)) {
+            // Tomcat đọc các attribute này khi commit response và tự gửi nội dung file sau khi request kết thúc
+            request.setAttribute(SENDFILE_FILENAME, file.localPath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, file.size());
+            return response.contentLength(file.size()).build();
+        }
+        return response.body(new FileSystemResource(file.localPath()));
     }
 
     /**
      * Delete file
-     * Chỉ MANAGER hoặc ADMIN mới có quyền xóa
+     * Chỉ MANAGER hoặc ADMIN mới có quyền xóa; file còn sản phẩm dùng thì bị từ chối
      */
     @DeleteMapping("/{fileName:.+}")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
     public ResponseEntity<String> deleteFile(@PathVariable String fileName) {
         log.info("Deleting file: {}", fileName);
 
-        fileStorageService.deleteFile(fileName);
+        fileReferenceService.deleteFile(fileName);
         return ResponseEntity.ok("File deleted successfully: " + fileName);
     }
-}
\ No newline at end of file
+
+    /**
+     * Chỉ dùng sendfile cho GET không có Range (Range do Spring xử lý), khi connector hỗ trợ
+     */
+    private static boolean canUseSendfile(HttpServletRequest request) {
+        return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))
+                && "GET".equals(request.getMethod())
+                && request.getHeader(HttpHeaders.RANGE) == null;
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/orders")
@@ -41,13 +42,31 @@ public class OrderController {
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
-    public ResponseEntity<Page<OrderResponseDTO>> getAllOrders(
+    public ResponseEntity<Page<OrderSummaryDTO>> getAllOrders(
             @PageableDefault(size = 10, page = 0, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable
     ) {
-        Page<OrderResponseDTO> orders = orderService.getAllOrders(pageable);
+        Page<OrderSummaryDTO> orders = orderService.getAllOrders(pageable);
         return ResponseEntity.ok(orders);
     }
 
+    /**
+     * API Lấy đơn hàng phân trang bằng cursor (mới nhất trước), lọc tuỳ chọn theo trạng thái / khoảng ngày.
+     * Không có OFFSET nên trang sâu của lịch sử đơn không bị chậm dần như API phân trang theo số trang.
+     * Chỉ MANAGER hoặc ADMIN mới có quyền.
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<CursorPageResponse<OrderSummaryDTO>> getOrdersByCursor(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal // true: trả thêm tổng số (tốn 1 câu COUNT)
+    ) {
+        return ResponseEntity.ok(orderService.getOrdersByCursor(status, startDate, endDate, cursor, size, includeTotal));
+    }
+
     /**
      * API Lấy chi tiết một đơn hàng theo ID
      * Tất cả nhân viên đều có quyền xem (ví dụ: để in lại bill).
@@ -59,6 +78,16 @@ public class OrderController {
         return ResponseEntity.ok(order);
     }
 
+    /**
+     * API Lấy danh sách món của một đơn hàng
+     * (Các API danh sách chỉ trả thông tin tóm tắt, không kèm món)
+     */
+    @GetMapping("/{id}/details")
+    @PreAuthorize("hasAnyRole('STAFF', 'MANAGER', 'ADMIN')")
+    public ResponseEntity<Set<OrderDetailResponseDTO>> getOrderDetails(@PathVariable Long id) {
+        return ResponseEntity.ok(orderService.getOrderDetails(id));
+    }
+
     /**
      * API Lấy đơn hàng đang PENDING (chưa thanh toán) của một bàn cụ thể
      * Tất cả nhân viên đều có quyền.
@@ -158,11 +187,11 @@ public class OrderController {
      */
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
-    public ResponseEntity<Page<OrderResponseDTO>> getOrdersByStatus(
+    public ResponseEntity<Page<OrderSummaryDTO>> getOrdersByStatus(
             @PathVariable String status,
             @PageableDefault(size = 10, page = 0, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable
     ) {
-        Page<OrderResponseDTO> orders = orderService.getOrdersByStatus(status, pageable);
+        Page<OrderSummaryDTO> orders = orderService.getOrdersByStatus(status, pageable);
         return ResponseEntity.ok(orders);
     }
 
@@ -172,12 +201,12 @@ public class OrderController {
      */
     @GetMapping("/date-range")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
-    public ResponseEntity<Page<OrderResponseDTO>> getOrdersByDateRange(
+    public ResponseEntity<Page<OrderSummaryDTO>> getOrdersByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @PageableDefault(size = 10, page = 0, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable
     ) {
-        Page<OrderResponseDTO> orders = orderService.getOrdersByDateRange(startDate, endDate, pageable);
+        Page<OrderSummaryDTO> orders = orderService.getOrdersByDateRange(startDate, endDate, pageable);
         return ResponseEntity.ok(orders);
     }
 
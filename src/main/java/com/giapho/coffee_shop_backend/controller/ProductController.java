@@ -3,26 +3,36 @@ package com.giapho.coffee_shop_backend.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.giapho.coffee_shop_backend.dto.ProductRequest;
 import com.giapho.coffee_shop_backend.dto.ProductResponse;
+import com.giapho.coffee_shop_backend.service.FileUploadService;
+import com.giapho.coffee_shop_backend.service.ProductSearchService;
 import com.giapho.coffee_shop_backend.service.ProductService;
+import com.giapho.coffee_shop_backend.service.ResourceVersions;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/api/v1/products")
 @RequiredArgsConstructor
 public class ProductController {
     private final ProductService productService;
+    private final ProductSearchService productSearchService;
     private final ObjectMapper objectMapper;
+    private final ResourceVersions resourceVersions;
+    private final FileUploadService fileUploadService;
     
     @PostMapping
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
@@ -34,16 +44,41 @@ public class ProductController {
     /**
      * API lấy tất cả sản phẩm (có phân trang)
      * Mọi nhân viên (STAFF, MANAGER, ADMIN) đều có quyền
+     * Hỗ trợ If-None-Match: trả 304 nếu menu chưa đổi (ETag theo phiên bản catalog)
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('STAFF', 'MANAGER', 'ADMIN')")
     public ResponseEntity<Page<ProductResponse>> getAllProducts(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) Long categoryId,
-            @PageableDefault(size = 10, page = 0) Pageable pageable
+            @PageableDefault(size = 10, page = 0) Pageable pageable,
+            WebRequest webRequest
     ) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.CATALOG))) {
+            return null; // 304 Not Modified
+        }
         Page<ProductResponse> products = productService.getFilteredProducts(name, categoryId, pageable);
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(products);
+    }
+
+    /**
+     * API tìm kiếm sản phẩm (type-ahead): không phân biệt dấu, khớp theo tiền tố, xếp theo độ liên quan
+     * Ví dụ: ?q=ca phe sua -> "Cà phê sữa đá", "Cà phê sữa nóng"...
+     * Mọi nhân viên (STAFF, MANAGER, ADMIN) đều có quyền
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('STAFF', 'MANAGER', 'ADMIN')")
+    public ResponseEntity<List<ProductResponse>> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            WebRequest webRequest
+    ) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.CATALOG))) {
+            return null; // 304 Not Modified
+        }
+        List<ProductResponse> results = productSearchService.search(query, limit, availableOnly);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(results);
     }
 
     /**
@@ -52,9 +87,12 @@ public class ProductController {
      */
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('STAFF', 'MANAGER', 'ADMIN')")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.CATALOG))) {
+            return null; // 304 Not Modified
+        }
         ProductResponse product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(product);
     }
 
     /**
@@ -112,7 +150,7 @@ public class ProductController {
             // Validate manually (vì không dùng @Valid với @RequestPart String)
             // Hoặc bạn có thể dùng Validator bean
 
-            ProductResponse productResponse = productService.createProductWithImage(productRequest, imageFile);
+            ProductResponse productResponse = productService.createProductWithImage(productRequest, storeImage(imageFile));
             return ResponseEntity.ok(productResponse);
 
         } catch (Exception e) {
@@ -133,7 +171,8 @@ public class ProductController {
     ) {
         try {
             ProductRequest productRequest = objectMapper.readValue(productJson, ProductRequest.class);
-            ProductResponse updatedProduct = productService.updateProductWithImage(id, productRequest, imageFile);
+            ProductResponse updatedProduct = productService.updateProductWithImage(id, productRequest,
+                    storeImage(imageFile));
             return ResponseEntity.ok(updatedProduct);
         } catch (Exception e) {
             throw new RuntimeException("Failed to parse product data", e);
@@ -165,7 +204,17 @@ public class ProductController {
             throw new IllegalArgumentException("Image file is required");
         }
 
-        ProductResponse updatedProduct = productService.uploadProductImage(id, imageFile);
+        ProductResponse updatedProduct = productService.uploadProductImage(id, fileUploadService.storeFile(imageFile));
         return ResponseEntity.ok(updatedProduct);
     }
+
+    /**
+     * Lưu ảnh upload (nếu có) trước khi gọi service: upload / xử lý ảnh không chạy trong transaction của sản phẩm
+     */
+    private String storeImage(MultipartFile imageFile) {
+        if (imageFile == null || imageFile.isEmpty()) {
+            return null;
+        }
+        return fileUploadService.storeFile(imageFile);
+    }
 }
@@ -1,5 +1,6 @@
 package com.giapho.coffee_shop_backend.controller;
 
+import com.giapho.coffee_shop_backend.dto.CursorPageResponse;
 import com.giapho.coffee_shop_backend.dto.PurchaseOrderRequestDTO;
 import com.giapho.coffee_shop_backend.dto.PurchaseOrderResponseDTO;
 import com.giapho.coffee_shop_backend.service.PurchaseOrderService;
@@ -59,6 +60,25 @@ public class PurchaseOrderController {
         return ResponseEntity.ok(purchaseOrders);
     }
 
+    /**
+     * API Lấy danh sách phiếu nhập hàng phân trang bằng cursor (mới nhất trước, cùng bộ lọc)
+     * Chỉ MANAGER hoặc ADMIN mới có quyền xem.
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<CursorPageResponse<PurchaseOrderResponseDTO>> getPurchaseOrdersByCursor(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long supplierId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        return ResponseEntity.ok(purchaseOrderService.getPurchaseOrdersByCursor(
+                status, supplierId, startDate, endDate, cursor, size, includeTotal));
+    }
+
     /**
      * API Lấy chi tiết một phiếu nhập hàng theo ID
      * Chỉ MANAGER hoặc ADMIN mới có quyền xem.
@@ -0,0 +1,75 @@
+package com.giapho.coffee_shop_backend.controller;
+
+import com.giapho.coffee_shop_backend.dto.EndpointAuthorizationDTO;
+import com.giapho.coffee_shop_backend.security.CompiledPreAuthorizeManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/v1/security")
+public class SecurityAuditController {
+
+    private final RequestMappingHandlerMapping handlerMapping;
+    private final CompiledPreAuthorizeManager preAuthorizeManager;
+
+    public SecurityAuditController(
+            @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+            CompiledPreAuthorizeManager preAuthorizeManager
+    ) {
+        this.handlerMapping = handlerMapping;
+        this.preAuthorizeManager = preAuthorizeManager;
+    }
+
+    /**
+     * API Liệt kê tất cả endpoint và quyền cần có (theo @PreAuthorize đã biên dịch)
+     * Chỉ ADMIN mới có quyền xem.
+     */
+    @GetMapping("/endpoints")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<EndpointAuthorizationDTO>> getEndpointAuthorizations() {
+        List<EndpointAuthorizationDTO> endpoints = handlerMapping.getHandlerMethods().entrySet().stream()
+                .map(this::toDto)
+                .sorted(Comparator.comparing((EndpointAuthorizationDTO dto) -> String.join(",", dto.getPaths()))
+                        .thenComparing(dto -> String.join(",", dto.getHttpMethods())))
+                .toList();
+        return ResponseEntity.ok(endpoints);
+    }
+
+    private EndpointAuthorizationDTO toDto(Map.Entry<RequestMappingInfo, HandlerMethod> entry) {
+        RequestMappingInfo info = entry.getKey();
+        HandlerMethod handlerMethod = entry.getValue();
+        CompiledPreAuthorizeManager.CompiledDecision decision =
+                preAuthorizeManager.decisionFor(handlerMethod.getMethod());
+
+        EndpointAuthorizationDTO.EndpointAuthorizationDTOBuilder builder = EndpointAuthorizationDTO.builder()
+                .httpMethods(info.getMethodsCondition().getMethods().stream()
+                        .map(RequestMethod::name)
+                        .collect(Collectors.toCollection(TreeSet::new)))
+                .paths(new TreeSet<>(info.getPatternValues()))
+                .handler(handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName());
+
+        if (decision == null) {
+            return builder.mode("NONE").requiredRoles(List.of()).build();
+        }
+        return builder
+                .mode(decision.kind().name())
+                .requiredRoles(decision.requiredRoles())
+                .requiredMask(decision.kind() == CompiledPreAuthorizeManager.Kind.ROLE_MASK ? decision.requiredMask() : null)
+                .expression(decision.expression())
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.giapho.coffee_shop_backend.controller;
+
+import com.giapho.coffee_shop_backend.dto.VoucherCampaignDTO;
+import com.giapho.coffee_shop_backend.dto.VoucherCampaignRequestDTO;
+import com.giapho.coffee_shop_backend.service.VoucherCampaignService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/voucher-campaigns")
+@RequiredArgsConstructor
+public class VoucherCampaignController {
+
+    private final VoucherCampaignService voucherCampaignService;
+
+    /**
+     * API Tạo chiến dịch và phát hành hàng loạt mã voucher dùng 1 lần
+     * Chỉ MANAGER hoặc ADMIN mới có quyền.
+     */
+    @PostMapping
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<VoucherCampaignDTO> createCampaign(@Valid @RequestBody VoucherCampaignRequestDTO request) {
+        VoucherCampaignDTO campaign = voucherCampaignService.createCampaign(request);
+        return new ResponseEntity<>(campaign, HttpStatus.CREATED);
+    }
+
+    /**
+     * API Lấy danh sách chiến dịch (kèm số mã đã dùng)
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<List<VoucherCampaignDTO>> getAllCampaigns() {
+        return ResponseEntity.ok(voucherCampaignService.getAllCampaigns());
+    }
+
+    /**
+     * API Lấy chi tiết chiến dịch
+     */
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<VoucherCampaignDTO> getCampaignById(@PathVariable Long id) {
+        return ResponseEntity.ok(voucherCampaignService.getCampaignById(id));
+    }
+
+    /**
+     * API Xuất toàn bộ mã của chiến dịch ra file CSV (ghi dần, không giữ cả file trong bộ nhớ)
+     */
+    @GetMapping("/{id}/codes/export")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportCodes(@PathVariable Long id) {
+        voucherCampaignService.getCampaignById(id); // 404 trước khi bắt đầu ghi file
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            voucherCampaignService.exportCodes(id, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=VoucherCampaign_" + id + ".csv")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+}
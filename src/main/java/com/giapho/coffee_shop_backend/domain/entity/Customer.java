@@ -16,7 +16,8 @@ import java.util.Objects;
 @Builder
 @AllArgsConstructor
 @Entity
-@Table(name = "customers")
+@Table(name = "customers",
+        indexes = @Index(name = "idx_customers_full_name_id", columnList = "full_name, id"))
 public class Customer {
 
     @Id
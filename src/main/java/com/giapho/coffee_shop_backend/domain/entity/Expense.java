@@ -16,7 +16,8 @@ import java.util.Objects;
 @Builder
 @AllArgsConstructor
 @Entity
-@Table(name = "expenses")
+@Table(name = "expenses",
+        indexes = @Index(name = "idx_expenses_expense_date_id", columnList = "expense_date, id"))
 public class Expense {
 
     @Id
@@ -0,0 +1,79 @@
+package com.giapho.coffee_shop_backend.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Sổ điểm thưởng (chỉ ghi thêm, không sửa/xoá).
+ * Số dư hiện tại vẫn nằm ở customers.loyalty_points và được cập nhật nguyên tử cùng lúc ghi sổ.
+ */
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+@Builder
+@AllArgsConstructor
+@Entity
+@Table(name = "loyalty_point_transactions",
+        indexes = @Index(name = "idx_loyalty_tx_customer_id", columnList = "customer_id, id"))
+public class LoyaltyPointTransaction {
+
+    public static final String TYPE_EARN = "EARN";
+    public static final String TYPE_REDEEM = "REDEEM";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id", nullable = false, updatable = false)
+    @ToString.Exclude
+    private Customer customer;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", updatable = false) // Null với giao dịch đổi điểm
+    @ToString.Exclude
+    private Order order;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "created_by", updatable = false) // Nhân viên thực hiện
+    @ToString.Exclude
+    private User createdBy;
+
+    @Column(nullable = false, length = 20, updatable = false)
+    private String type; // EARN, REDEEM
+
+    @Column(nullable = false, updatable = false)
+    private int points; // Số điểm thay đổi: dương khi cộng, âm khi trừ
+
+    @Column(length = 255, updatable = false)
+    private String note;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        LoyaltyPointTransaction that = (LoyaltyPointTransaction) o;
+        return getId() != null && Objects.equals(getId(), that.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+    }
+}
@@ -20,7 +20,12 @@ import com.giapho.coffee_shop_backend.domain.entity.User;
 @Builder
 @AllArgsConstructor
 @Entity
-@Table(name = "orders") // Tên bảng là "orders"
+@Table(name = "orders", // Tên bảng là "orders"
+        indexes = {
+                // Phân trang keyset theo (created_at, id)
+                @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+                @Index(name = "idx_orders_status_created_at_id", columnList = "status, created_at, id")
+        })
 public class Order {
 
     @Id
@@ -44,7 +49,7 @@ public class Order {
     @ToString.Exclude
     private Customer customer;
 
-    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     @ToString.Exclude
     @Builder.Default // Thêm nếu chưa có
     private Set<OrderDetail> orderDetails = new HashSet<>();
@@ -17,7 +17,8 @@ import java.util.Set; // Import Set
 @Builder
 @AllArgsConstructor
 @Entity
-@Table(name = "purchase_orders")
+@Table(name = "purchase_orders",
+        indexes = @Index(name = "idx_purchase_orders_order_date_id", columnList = "order_date, id"))
 public class PurchaseOrder {
 
     @Id
@@ -1,18 +1,19 @@
 package com.giapho.coffee_shop_backend.domain.entity;
 
 import jakarta.persistence.*;
+import com.giapho.coffee_shop_backend.security.RoleAuthorities;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.proxy.HibernateProxy;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @ToString
 @RequiredArgsConstructor
@@ -59,15 +60,42 @@ public class User implements UserDetails {
             joinColumns = @JoinColumn(name = "user_id"),
             inverseJoinColumns = @JoinColumn(name = "role_id")
     )
+    @BatchSize(size = 50) // Lấy roles của cả trang user trong 1 query thay vì N query
     @Builder.Default
     private Set<Role> roles = new HashSet<>();
 
+    // Quyền đã tính sẵn của user, tính lại khi roles bị thay thế
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final AuthorityCache authorityCache = new AuthorityCache();
+
+    /**
+     * Thay toàn bộ roles. Luôn gán Set mới qua setter thay vì sửa trực tiếp getRoles(),
+     * để cache quyền được làm mới.
+     */
+    public void setRoles(Set<Role> roles) {
+        this.roles = roles;
+        this.authorityCache.invalidate();
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return this.roles.stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .collect(Collectors.toSet());
+        return authorityCache.resolve(roles).authorities();
+    }
+
+    /**
+     * Mask các role cố định của user (xem {@link RoleAuthorities})
+     */
+    public int getRoleMask() {
+        return authorityCache.resolve(roles).mask();
+    }
+
+    /**
+     * User có ít nhất một trong các role trong mask
+     */
+    public boolean hasAnyRole(int mask) {
+        return (getRoleMask() & mask) != 0;
     }
 
     @Override
@@ -117,4 +145,28 @@ public class User implements UserDetails {
     public final int hashCode() {
         return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
     }
+
+    private static final class AuthorityCache {
+
+        private record Resolved(Set<Role> source, int mask, Set<GrantedAuthority> authorities) {
+        }
+
+        private volatile Resolved resolved;
+
+        private Resolved resolve(Set<Role> roles) {
+            Resolved current = resolved;
+            // So sánh tham chiếu: Hibernate gán thẳng collection mới vào field khi load/merge
+            if (current != null && current.source() == roles) {
+                return current;
+            }
+            List<String> roleNames = roles == null ? List.of() : roles.stream().map(Role::getName).toList();
+            current = new Resolved(roles, RoleAuthorities.maskOf(roleNames), RoleAuthorities.resolve(roleNames));
+            resolved = current;
+            return current;
+        }
+
+        private void invalidate() {
+            resolved = null;
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package com.giapho.coffee_shop_backend.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Chiến dịch phát hành hàng loạt mã voucher dùng 1 lần (mã nằm trong bảng voucher_codes).
+ * Điều kiện giảm giá khai báo 1 lần ở chiến dịch, dùng chung cho mọi mã.
+ */
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+@Builder
+@AllArgsConstructor
+@Entity
+@Table(name = "voucher_campaigns")
+public class VoucherCampaign {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false, unique = true, length = 10)
+    private String prefix; // Tiền tố của mọi mã trong chiến dịch (VD: "TET25" → "TET25-7K3QX9MD2A")
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Voucher.VoucherType type;
+
+    @Column(nullable = false)
+    private BigDecimal discountValue;
+
+    private BigDecimal minimumOrderAmount;
+
+    private BigDecimal maximumDiscountAmount;
+
+    @Column(nullable = false)
+    private LocalDateTime validFrom;
+
+    @Column(nullable = false)
+    private LocalDateTime validTo;
+
+    @Column(name = "code_count", nullable = false)
+    private int codeCount; // Số mã đã phát hành
+
+    @Column(nullable = false)
+    @Builder.Default
+    private boolean active = true;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        VoucherCampaign that = (VoucherCampaign) o;
+        return getId() != null && Objects.equals(getId(), that.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+    }
+}
@@ -0,0 +1,65 @@
+package com.giapho.coffee_shop_backend.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Một mã voucher dùng 1 lần của chiến dịch.
+ * Được ghi/đọc hàng loạt bằng JDBC (VoucherCodeJdbcRepository); entity này chủ yếu để khai báo bảng.
+ */
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+@Builder
+@AllArgsConstructor
+@Entity
+@Table(name = "voucher_codes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_voucher_code", columnNames = "code"),
+        @UniqueConstraint(name = "uk_voucher_code_campaign_seq", columnNames = {"campaign_id", "seq"})
+})
+public class VoucherCode {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "campaign_id", nullable = false, updatable = false)
+    @ToString.Exclude
+    private VoucherCampaign campaign;
+
+    @Column(nullable = false, updatable = false)
+    private int seq; // Số thứ tự trong chiến dịch (0..codeCount-1), là vị trí bit trong bitmap đã dùng
+
+    @Column(nullable = false, updatable = false, length = 32)
+    private String code;
+
+    @Column(name = "redeemed_at")
+    private LocalDateTime redeemedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id")
+    @ToString.Exclude
+    private Order order; // Đơn hàng đã dùng mã
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        VoucherCode that = (VoucherCode) o;
+        return getId() != null && Objects.equals(getId(), that.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+    }
+}
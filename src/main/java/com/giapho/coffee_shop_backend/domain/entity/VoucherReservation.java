@@ -0,0 +1,82 @@
+package com.giapho.coffee_shop_backend.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Một lượt voucher được giữ cho đơn hàng PENDING.
+ * RESERVED → CONVERTED (thanh toán) | RELEASED (gỡ voucher / huỷ đơn) | EXPIRED (quá hạn, bị thu hồi)
+ */
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+@Builder
+@AllArgsConstructor
+@Entity
+@Table(name = "voucher_reservations", indexes = {
+        @Index(name = "idx_voucher_reservation_order", columnList = "order_id, status"),
+        @Index(name = "idx_voucher_reservation_status_expiry", columnList = "status, expires_at")
+})
+public class VoucherReservation {
+
+    public static final String STATUS_RESERVED = "RESERVED";
+    public static final String STATUS_CONVERTED = "CONVERTED";
+    public static final String STATUS_RELEASED = "RELEASED";
+    public static final String STATUS_EXPIRED = "EXPIRED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "voucher_code", nullable = false, updatable = false)
+    private String voucherCode;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false, updatable = false)
+    @ToString.Exclude
+    private Order order;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        VoucherReservation that = (VoucherReservation) o;
+        return getId() != null && Objects.equals(getId(), that.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+    }
+}
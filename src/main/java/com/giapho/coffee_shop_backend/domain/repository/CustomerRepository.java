@@ -1,15 +1,21 @@
 package com.giapho.coffee_shop_backend.domain.repository;
 
 import com.giapho.coffee_shop_backend.domain.entity.Customer;
+import com.giapho.coffee_shop_backend.dto.CustomerSummaryDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer> {
 
     // Tìm khách hàng theo số điện thoại (quan trọng để tra cứu)
     Optional<Customer> findByPhone(String phone);
@@ -22,4 +28,22 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     // Tìm kiếm khách hàng theo tên hoặc SĐT (phân trang)
     Page<Customer> findByFullNameContainingIgnoreCaseOrPhoneContaining(String fullName, String phone, Pageable pageable);
+
+    // Chỉ lấy các cột cần cho CustomerLookupIndex
+    @Query("SELECT new com.giapho.coffee_shop_backend.dto.CustomerSummaryDTO(c.id, c.phone, c.fullName) FROM Customer c")
+    List<CustomerSummaryDTO> findAllSummaries();
+
+    @Query("SELECT new com.giapho.coffee_shop_backend.dto.CustomerSummaryDTO(c.id, c.phone, c.fullName) " +
+            "FROM Customer c WHERE c.id = :id")
+    Optional<CustomerSummaryDTO> findSummaryById(@Param("id") Long id);
+
+    // Cộng/trừ điểm nguyên tử trong 1 câu UPDATE (không đọc trước, không mất điểm khi thanh toán đồng thời).
+    // Trả về 0 nếu không tìm thấy khách hàng hoặc số dư không đủ để trừ.
+    @Modifying
+    @Query("UPDATE Customer c SET c.loyaltyPoints = c.loyaltyPoints + :delta " +
+            "WHERE c.id = :id AND c.loyaltyPoints + :delta >= 0")
+    int addLoyaltyPoints(@Param("id") Long id, @Param("delta") int delta);
+
+    @Query("SELECT c.loyaltyPoints FROM Customer c WHERE c.id = :id")
+    Optional<Integer> findLoyaltyPointsById(@Param("id") Long id);
 }
\ No newline at end of file
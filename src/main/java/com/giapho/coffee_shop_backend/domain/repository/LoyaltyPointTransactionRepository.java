@@ -0,0 +1,25 @@
+package com.giapho.coffee_shop_backend.domain.repository;
+
+import com.giapho.coffee_shop_backend.domain.entity.LoyaltyPointTransaction;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LoyaltyPointTransactionRepository extends JpaRepository<LoyaltyPointTransaction, Long> {
+
+    // Keyset: trang đầu tiên (mới nhất trước)
+    @Query("SELECT t FROM LoyaltyPointTransaction t WHERE t.customer.id = :customerId ORDER BY t.id DESC")
+    List<LoyaltyPointTransaction> findLatest(@Param("customerId") Long customerId, Limit limit);
+
+    // Keyset: các trang tiếp theo, bắt đầu sau ID cuối của trang trước (dùng index customer_id, id)
+    @Query("SELECT t FROM LoyaltyPointTransaction t WHERE t.customer.id = :customerId AND t.id < :beforeId " +
+            "ORDER BY t.id DESC")
+    List<LoyaltyPointTransaction> findBefore(@Param("customerId") Long customerId,
+                                             @Param("beforeId") Long beforeId,
+                                             Limit limit);
+}
@@ -1,8 +1,11 @@
 package com.giapho.coffee_shop_backend.domain.repository;
 
 import com.giapho.coffee_shop_backend.domain.entity.Order;
+import com.giapho.coffee_shop_backend.dto.OrderSummaryDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -17,20 +20,65 @@ import java.util.Optional;
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    String SUMMARY_SELECT = "SELECT new com.giapho.coffee_shop_backend.dto.OrderSummaryDTO(" +
+            "o.id, t.name, o.user.id, c.id, c.fullName, o.type, o.status, o.subTotal, o.discountAmount, " +
+            "o.totalAmount, o.voucherCode, " +
+            "(SELECT COALESCE(SUM(d.quantity), 0L) FROM OrderDetail d WHERE d.order = o), " +
+            "o.createdAt, o.paidAt, o.paymentMethod) " +
+            "FROM Order o LEFT JOIN o.cafeTable t LEFT JOIN o.customer c ";
+
+    // Lọc chung cho các trang danh sách; status = null là mọi trạng thái
+    String SUMMARY_FILTER = "WHERE (:status IS NULL OR o.status = :status) " +
+            "AND o.createdAt >= :from AND o.createdAt < :to ";
+
+    /**
+     * Danh sách đơn dạng tóm tắt (phân trang theo số trang): 1 câu SELECT có join + 1 câu COUNT,
+     * không nạp entity Order / chi tiết món
+     */
+    @Query(value = SUMMARY_SELECT + SUMMARY_FILTER,
+            countQuery = "SELECT COUNT(o) FROM Order o " + SUMMARY_FILTER)
+    Page<OrderSummaryDTO> findSummaries(@Param("status") String status,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to,
+                                        Pageable pageable);
+
+    /**
+     * Danh sách đơn dạng tóm tắt theo keyset: các đơn đứng sau (beforeCreatedAt, beforeId) theo thứ tự mới nhất trước
+     */
+    @Query(SUMMARY_SELECT + SUMMARY_FILTER +
+            "AND (o.createdAt < :beforeCreatedAt OR (o.createdAt = :beforeCreatedAt AND o.id < :beforeId)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryDTO> findSummariesBefore(@Param("status") String status,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to,
+                                              @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                              @Param("beforeId") Long beforeId,
+                                              Limit limit);
+
+    @Query("SELECT COUNT(o) FROM Order o " + SUMMARY_FILTER)
+    long countSummaries(@Param("status") String status,
+                        @Param("from") LocalDateTime from,
+                        @Param("to") LocalDateTime to);
+
     /**
-     * Tìm các đơn hàng trong một khoảng thời gian (dùng cho báo cáo)
+     * Đơn hàng kèm đầy đủ chi tiết món (1 câu query có join), dùng cho màn hình chi tiết
      */
-    Page<Order> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end, Pageable pageable);
+    @EntityGraph(attributePaths = {"cafeTable", "customer", "orderDetails", "orderDetails.product"})
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findWithDetailsById(@Param("id") Long id);
 
     /**
-     * Tìm các đơn hàng theo trạng thái
+     * Đơn hàng trong khoảng thời gian kèm chi tiết món (dùng cho xuất báo cáo)
      */
-    Page<Order> findByStatus(String status, Pageable pageable);
+    @EntityGraph(attributePaths = {"cafeTable", "orderDetails", "orderDetails.product"})
+    @Query("SELECT o FROM Order o WHERE o.createdAt >= :start AND o.createdAt < :end ORDER BY o.createdAt")
+    List<Order> findWithDetailsByCreatedAtBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
     /**
      * Tìm đơn hàng đang 'PENDING' (chưa thanh toán) của 1 bàn
      * (Một bàn chỉ nên có 1 đơn PENDING tại 1 thời điểm)
      */
+    @EntityGraph(attributePaths = {"orderDetails", "orderDetails.product"})
     @Query("SELECT o FROM Order o WHERE o.cafeTable.id = :tableId AND o.status = 'PENDING'")
     Optional<Order> findPendingOrderByTableId(@Param("tableId") Long tableId);
 
@@ -4,20 +4,37 @@ import com.giapho.coffee_shop_backend.domain.entity.Product;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
 
+    // Lấy kèm category để map categoryName không phát sinh N+1
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Product> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
     Optional<Product> findByName(String name);
 
     boolean existsByName(String name);
 
+    // Số sản phẩm dùng từng ảnh (đối soát số tham chiếu của stored_files): [imageUrl, count]
+    @Query("SELECT p.imageUrl, COUNT(p) FROM Product p WHERE p.imageUrl IS NOT NULL GROUP BY p.imageUrl")
+    List<Object[]> countByImageUrl();
+
     // Tìm tất cả sản phẩm thuộc một danh mục (theo categoryId)
     // Dùng Pageable để phân trang
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
@@ -34,5 +51,13 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
 
 
 
+    // Toàn bộ menu kèm danh mục trong 1 query (dùng để dựng ProductCatalog)
+    @Query("SELECT p FROM Product p JOIN FETCH p.category ORDER BY p.id")
+    List<Product> findAllWithCategory();
+
+    // Cùng với count(): phát hiện thay đổi menu do node khác ghi (mọi thay đổi sản phẩm đều cập nhật updated_at)
+    @Query("SELECT MAX(p.updatedAt) FROM Product p")
+    LocalDateTime findLastUpdatedAt();
+
     boolean existsByCode(@NotBlank(message = "Product code is required") String code);
 }
@@ -0,0 +1,60 @@
+package com.giapho.coffee_shop_backend.domain.repository;
+
+import com.giapho.coffee_shop_backend.domain.entity.StoredFile;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
+
+    Optional<StoredFile> findByFileName(String fileName);
+
+    // Các file không còn sản phẩm nào dùng, đã quá thời gian chờ (cho job dọn rác)
+    List<StoredFile> findByRefCountAndUpdatedAtBefore(int refCount, LocalDateTime cutoff, Limit limit);
+
+    /**
+     * Ghi nhận file và cộng thêm refCount trong transaction của người gọi (1 câu lệnh, không lỗi trùng khoá
+     * khi 2 luồng cùng ghi nhận 1 file). Cập nhật updatedAt để job dọn rác chờ thêm 1 chu kỳ.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stored_files (file_name, ref_count, created_at, updated_at) " +
+            "VALUES (:fileName, :refCount, :now, :now) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + :refCount, updated_at = :now", nativeQuery = true)
+    int upsert(@Param("fileName") String fileName, @Param("refCount") int refCount, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.refCount = f.refCount + 1, f.updatedAt = :now WHERE f.fileName = :fileName")
+    int incrementRefCount(@Param("fileName") String fileName, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.refCount = f.refCount - 1, f.updatedAt = :now " +
+            "WHERE f.fileName = :fileName AND f.refCount > 0")
+    int decrementRefCount(@Param("fileName") String fileName, @Param("now") LocalDateTime now);
+
+    // Đối soát khi khởi động: đặt lại số tham chiếu theo bảng products
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.refCount = :refCount WHERE f.fileName = :fileName AND f.refCount <> :refCount")
+    int updateRefCount(@Param("fileName") String fileName, @Param("refCount") int refCount);
+
+    /**
+     * Khoá dòng của file sắp bị dọn (SELECT ... FOR UPDATE), chỉ khi vẫn không có tham chiếu và đã quá thời gian chờ.
+     * Upload lại / dùng lại file trong lúc xoá phải chờ khoá, sau đó thấy dòng đã mất và ghi lại từ đầu.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM StoredFile f WHERE f.id = :id AND f.refCount = 0 AND f.updatedAt < :cutoff")
+    Optional<StoredFile> lockIfUnreferenced(@Param("id") Long id, @Param("cutoff") LocalDateTime cutoff);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM StoredFile f WHERE f.fileName = :fileName")
+    Optional<StoredFile> lockByFileName(@Param("fileName") String fileName);
+}
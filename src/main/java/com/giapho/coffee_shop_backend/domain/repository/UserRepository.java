@@ -1,7 +1,11 @@
 package com.giapho.coffee_shop_backend.domain.repository;
 
 import com.giapho.coffee_shop_backend.domain.entity.User;
+import com.giapho.coffee_shop_backend.dto.UserSummaryDTO;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,6 +13,8 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    // Gọi ở mỗi request có JWT: lấy luôn roles trong cùng 1 query
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsername(String username);
 
     Boolean existsByUsername(String username);
@@ -16,4 +22,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByEmail(String email);
 
     Boolean existsByPhone(String phone);
+
+    // Chỉ lấy các cột hiển thị, không load roles
+    @Query("SELECT new com.giapho.coffee_shop_backend.dto.UserSummaryDTO(u.id, u.username, u.fullName, u.status) " +
+            "FROM User u WHERE u.id = :id")
+    Optional<UserSummaryDTO> findSummaryById(@Param("id") Long id);
 }
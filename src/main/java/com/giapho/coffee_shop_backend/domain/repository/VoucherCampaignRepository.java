@@ -0,0 +1,17 @@
+package com.giapho.coffee_shop_backend.domain.repository;
+
+import com.giapho.coffee_shop_backend.domain.entity.VoucherCampaign;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface VoucherCampaignRepository extends JpaRepository<VoucherCampaign, Long> {
+
+    boolean existsByPrefix(String prefix);
+
+    @Query("SELECT c.id FROM VoucherCampaign c")
+    List<Long> findAllIds();
+}
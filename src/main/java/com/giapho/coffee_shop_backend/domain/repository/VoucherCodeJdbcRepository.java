@@ -0,0 +1,123 @@
+package com.giapho.coffee_shop_backend.domain.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Truy cập bảng voucher_codes bằng JDBC: insert hàng loạt (JPA với IDENTITY không batch được)
+ * và đọc tuần tự theo keyset khi nạp Bloom filter / xuất file.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VoucherCodeJdbcRepository {
+
+    private static final int INSERT_BATCH_SIZE = 1_000;
+    private static final int SCAN_CHUNK_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Trạng thái của 1 mã
+     */
+    public record CodeRow(long campaignId, int seq, boolean redeemed) {
+    }
+
+    /**
+     * Một dòng khi xuất mã của chiến dịch
+     */
+    public record ExportRow(int seq, String code, LocalDateTime redeemedAt) {
+    }
+
+    /**
+     * Insert mã theo lô 1000 dòng (cần rewriteBatchedStatements=true để MySQL gộp thành INSERT nhiều giá trị)
+     */
+    public void batchInsert(long campaignId, List<String> codes) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO voucher_codes (campaign_id, seq, code) VALUES (?, ?, ?)",
+                indexed(codes), INSERT_BATCH_SIZE,
+                (ps, row) -> {
+                    ps.setLong(1, campaignId);
+                    ps.setInt(2, row.seq());
+                    ps.setString(3, row.code());
+                });
+    }
+
+    public Optional<CodeRow> findByCode(String code) {
+        List<CodeRow> rows = jdbcTemplate.query(
+                "SELECT campaign_id, seq, redeemed_at FROM voucher_codes WHERE code = ?",
+                (rs, i) -> new CodeRow(rs.getLong(1), rs.getInt(2), rs.getTimestamp(3) != null),
+                code);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Đánh dấu mã đã dùng (chỉ thành công 1 lần): trả về 0 nếu mã không tồn tại hoặc đã được dùng
+     */
+    public int redeem(String code, Long orderId, LocalDateTime now) {
+        return jdbcTemplate.update(
+                "UPDATE voucher_codes SET redeemed_at = ?, order_id = ? WHERE code = ? AND redeemed_at IS NULL",
+                Timestamp.valueOf(now), orderId, code);
+    }
+
+    /**
+     * Duyệt toàn bộ mã theo từng khúc (keyset trên id), không giữ cả bảng trong bộ nhớ
+     */
+    public void forEachCode(Consumer<String> action) {
+        long lastId = 0;
+        while (true) {
+            long[] maxId = {lastId};
+            List<String> chunk = jdbcTemplate.query(
+                    "SELECT id, code FROM voucher_codes WHERE id > ? ORDER BY id LIMIT ?",
+                    (rs, i) -> {
+                        maxId[0] = rs.getLong(1);
+                        return rs.getString(2);
+                    },
+                    lastId, SCAN_CHUNK_SIZE);
+            chunk.forEach(action);
+            if (chunk.size() < SCAN_CHUNK_SIZE) {
+                return;
+            }
+            lastId = maxId[0];
+        }
+    }
+
+    /**
+     * Các mã đã dùng: [campaignId, seq]
+     */
+    public List<long[]> findRedeemed() {
+        return jdbcTemplate.query(
+                "SELECT campaign_id, seq FROM voucher_codes WHERE redeemed_at IS NOT NULL",
+                (rs, i) -> new long[]{rs.getLong(1), rs.getInt(2)});
+    }
+
+    /**
+     * Khúc mã tiếp theo của chiến dịch (keyset trên seq) để xuất file
+     */
+    public List<ExportRow> findPage(long campaignId, int afterSeq, int limit) {
+        return jdbcTemplate.query(
+                "SELECT seq, code, redeemed_at FROM voucher_codes WHERE campaign_id = ? AND seq > ? ORDER BY seq LIMIT ?",
+                (rs, i) -> {
+                    Timestamp redeemedAt = rs.getTimestamp(3);
+                    return new ExportRow(rs.getInt(1), rs.getString(2),
+                            redeemedAt == null ? null : redeemedAt.toLocalDateTime());
+                },
+                campaignId, afterSeq, limit);
+    }
+
+    private record IndexedCode(int seq, String code) {
+    }
+
+    private static List<IndexedCode> indexed(List<String> codes) {
+        return IntStream.range(0, codes.size())
+                .mapToObj(i -> new IndexedCode(i, codes.get(i)))
+                .toList();
+    }
+}
@@ -2,8 +2,21 @@ package com.giapho.coffee_shop_backend.domain.repository;
 
 import com.giapho.coffee_shop_backend.domain.entity.Voucher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface VoucherRepository extends JpaRepository<Voucher, Long> {
     Optional<Voucher> findByCode(String code);
-}
\ No newline at end of file
+
+    // Dùng 1 lượt voucher nguyên tử: chỉ tăng khi còn lượt, đang hoạt động và trong thời hạn.
+    // Trả về 0 nếu không dùng được (không bao giờ vượt usageLimit kể cả khi thanh toán đồng thời).
+    @Modifying
+    @Query("UPDATE Voucher v SET v.timesUsed = v.timesUsed + 1, v.updatedAt = :now " +
+            "WHERE v.code = :code AND v.active = true AND v.timesUsed < v.usageLimit " +
+            "AND v.validFrom <= :now AND v.validTo >= :now")
+    int consumeUsage(@Param("code") String code, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,40 @@
+package com.giapho.coffee_shop_backend.domain.repository;
+
+import com.giapho.coffee_shop_backend.domain.entity.VoucherReservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VoucherReservationRepository extends JpaRepository<VoucherReservation, Long> {
+
+    Optional<VoucherReservation> findFirstByOrderIdAndStatus(Long orderId, String status);
+
+    // Các lượt giữ đã quá hạn (cho job thu hồi)
+    List<VoucherReservation> findByStatusAndExpiresAtBefore(String status, LocalDateTime now, Limit limit);
+
+    // Số lượt đang giữ theo từng mã (nạp bộ đếm trong bộ nhớ khi khởi động): [voucherCode, count]
+    @Query("SELECT r.voucherCode, COUNT(r) FROM VoucherReservation r " +
+            "WHERE r.status = 'RESERVED' AND r.expiresAt > :now GROUP BY r.voucherCode")
+    List<Object[]> countActiveByVoucherCode(@Param("now") LocalDateTime now);
+
+    // Chuyển trạng thái có điều kiện: trả về 0 nếu lượt giữ đã bị chuyển trạng thái bởi luồng khác
+    @Modifying
+    @Query("UPDATE VoucherReservation r SET r.status = :to, r.updatedAt = :now " +
+            "WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") Long id, @Param("from") String from, @Param("to") String to,
+                   @Param("now") LocalDateTime now);
+
+    // Gia hạn lượt giữ có điều kiện: trả về 0 nếu job thu hồi đã chuyển lượt giữ sang EXPIRED
+    @Modifying
+    @Query("UPDATE VoucherReservation r SET r.expiresAt = :expiresAt, r.updatedAt = :now " +
+            "WHERE r.id = :id AND r.status = 'RESERVED'")
+    int extend(@Param("id") Long id, @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+}
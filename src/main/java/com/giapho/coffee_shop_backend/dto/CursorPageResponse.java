@@ -0,0 +1,24 @@
+package com.giapho.coffee_shop_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Một trang kết quả phân trang theo keyset.
+ * Gửi lại nextCursor để lấy trang tiếp theo; nextCursor = null khi đã hết.
+ * totalElements chỉ có khi client yêu cầu (includeTotal=true), để trang thường không phải chạy câu COUNT.
+ */
+@Value
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    List<T> content;
+    String nextCursor;
+    boolean hasNext;
+    Long totalElements;
+
+    public CursorPageResponse(List<T> content, String nextCursor, boolean hasNext) {
+        this(content, nextCursor, hasNext, null);
+    }
+}
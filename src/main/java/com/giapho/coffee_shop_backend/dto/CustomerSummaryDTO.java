@@ -0,0 +1,15 @@
+package com.giapho.coffee_shop_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Thông tin tra cứu tối thiểu của khách hàng (dùng để nạp CustomerLookupIndex)
+ */
+@Value
+@AllArgsConstructor // Cần constructor này cho JPQL query
+public class CustomerSummaryDTO {
+    Long id;
+    String phone;
+    String fullName;
+}
@@ -0,0 +1,19 @@
+package com.giapho.coffee_shop_backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Set;
+
+@Data
+@Builder
+public class EndpointAuthorizationDTO {
+    private Set<String> httpMethods; // Rỗng = mọi method
+    private Set<String> paths;
+    private String handler; // Controller#method
+    private String mode; // ROLE_MASK, AUTHENTICATED, EXPRESSION hoặc NONE (không có @PreAuthorize)
+    private List<String> requiredRoles; // Có ít nhất một trong các role này
+    private Integer requiredMask;
+    private String expression; // Biểu thức @PreAuthorize gốc
+}
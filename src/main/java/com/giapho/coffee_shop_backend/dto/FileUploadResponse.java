@@ -14,9 +14,12 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class FileUploadResponse {
 
+    private String originalFileName;
+    private boolean success;
     private String fileName;
     private String fileUrl;
     private long fileSize;
     private String fileType;
     private String message;
+    private String error;
 }
\ No newline at end of file
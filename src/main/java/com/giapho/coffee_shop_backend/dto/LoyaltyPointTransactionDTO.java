@@ -0,0 +1,19 @@
+package com.giapho.coffee_shop_backend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class LoyaltyPointTransactionDTO {
+
+    private Long id;
+    private Long customerId;
+    private Long orderId; // Đơn hàng tích điểm (null nếu là đổi điểm)
+    private String type; // EARN, REDEEM
+    private int points; // Dương khi cộng, âm khi trừ
+    private String note;
+    private String createdByUsername;
+    private LocalDateTime createdAt;
+    private Integer balanceAfter; // Số dư sau giao dịch (chỉ có trong response đổi điểm)
+}
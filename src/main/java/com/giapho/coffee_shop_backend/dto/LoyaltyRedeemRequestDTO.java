@@ -0,0 +1,17 @@
+package com.giapho.coffee_shop_backend.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class LoyaltyRedeemRequestDTO {
+
+    @NotNull(message = "Points is required")
+    @Positive(message = "Points must be positive")
+    private Integer points; // Số điểm muốn đổi
+
+    @Size(max = 255, message = "Note must not exceed 255 characters")
+    private String note; // Ví dụ: "Đổi 1 ly cà phê"
+}
@@ -0,0 +1,55 @@
+package com.giapho.coffee_shop_backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Thông tin tóm tắt của đơn hàng cho các trang danh sách (không kèm chi tiết món).
+ * Được tạo trực tiếp bằng 1 câu JPQL (xem OrderRepository), staffUsername điền sau qua UserDirectory.
+ */
+@Data
+@NoArgsConstructor
+public class OrderSummaryDTO {
+
+    private Long id;
+    private String tableName;
+    private Long staffId;
+    private String staffUsername;
+    private Long customerId;
+    private String customerName;
+    private String type;
+    private String status;
+    private BigDecimal subTotal;
+    private BigDecimal discountAmount;
+    private BigDecimal totalAmount;
+    private String voucherCode;
+    private long itemCount; // Tổng số lượng món trong đơn
+    private LocalDateTime createdAt;
+    private LocalDateTime paidAt;
+    private String paymentMethod;
+
+    // Cần constructor này cho JPQL query
+    public OrderSummaryDTO(Long id, String tableName, Long staffId, Long customerId, String customerName,
+                           String type, String status, BigDecimal subTotal, BigDecimal discountAmount,
+                           BigDecimal totalAmount, String voucherCode, Long itemCount,
+                           LocalDateTime createdAt, LocalDateTime paidAt, String paymentMethod) {
+        this.id = id;
+        this.tableName = tableName;
+        this.staffId = staffId;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.type = type;
+        this.status = status;
+        this.subTotal = subTotal;
+        this.discountAmount = discountAmount;
+        this.totalAmount = totalAmount;
+        this.voucherCode = voucherCode;
+        this.itemCount = itemCount == null ? 0 : itemCount;
+        this.createdAt = createdAt;
+        this.paidAt = paidAt;
+        this.paymentMethod = paymentMethod;
+    }
+}
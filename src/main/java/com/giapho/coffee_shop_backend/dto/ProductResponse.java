@@ -7,21 +7,20 @@ import lombok.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+// Bất biến: cùng một instance được ProductCatalog chia sẻ cho mọi request
 @Getter
-@Setter
-@NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class ProductResponse {
 
-    private Long id;
-    private String name;
-    private String code;
-    private BigDecimal price;
-    private BigDecimal cost;
-    private String description;
-    private String imageUrl;
-    private boolean available;
-    private LocalDateTime createdAt;
-    private String categoryName;
+    private final Long id;
+    private final String name;
+    private final String code;
+    private final BigDecimal price;
+    private final BigDecimal cost;
+    private final String description;
+    private final String imageUrl;
+    private final boolean available;
+    private final LocalDateTime createdAt;
+    private final String categoryName;
 }
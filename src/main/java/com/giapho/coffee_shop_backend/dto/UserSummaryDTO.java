@@ -0,0 +1,14 @@
+package com.giapho.coffee_shop_backend.dto;
+
+import lombok.Value;
+
+/**
+ * Thông tin hiển thị tối thiểu của nhân viên (bất biến, dùng cho UserDirectory)
+ */
+@Value
+public class UserSummaryDTO {
+    Long id;
+    String username;
+    String fullName;
+    String status;
+}
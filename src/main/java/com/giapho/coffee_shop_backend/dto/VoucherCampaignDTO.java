@@ -0,0 +1,25 @@
+package com.giapho.coffee_shop_backend.dto;
+
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class VoucherCampaignDTO {
+
+    private Long id;
+    private String name;
+    private String prefix;
+    private Voucher.VoucherType type;
+    private BigDecimal discountValue;
+    private BigDecimal minimumOrderAmount;
+    private BigDecimal maximumDiscountAmount;
+    private LocalDateTime validFrom;
+    private LocalDateTime validTo;
+    private int codeCount; // Số mã đã phát hành
+    private int redeemedCount; // Số mã đã dùng
+    private boolean active;
+    private LocalDateTime createdAt;
+}
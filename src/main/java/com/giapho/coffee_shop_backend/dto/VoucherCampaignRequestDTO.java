@@ -0,0 +1,43 @@
+package com.giapho.coffee_shop_backend.dto;
+
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class VoucherCampaignRequestDTO {
+
+    @NotBlank(message = "Campaign name is required")
+    private String name;
+
+    @NotBlank(message = "Prefix is required")
+    @Pattern(regexp = "^[A-Z0-9]{2,10}$", message = "Prefix must be 2-10 uppercase letters or digits")
+    private String prefix;
+
+    @NotNull(message = "Voucher type is required")
+    private Voucher.VoucherType type;
+
+    @NotNull(message = "Discount value is required")
+    @Positive(message = "Discount value must be positive")
+    private BigDecimal discountValue;
+
+    @PositiveOrZero(message = "Minimum order amount must not be negative")
+    private BigDecimal minimumOrderAmount;
+
+    @Positive(message = "Maximum discount amount must be positive")
+    private BigDecimal maximumDiscountAmount;
+
+    @NotNull(message = "Valid from is required")
+    private LocalDateTime validFrom;
+
+    @NotNull(message = "Valid to is required")
+    private LocalDateTime validTo;
+
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    @Max(value = 200_000, message = "Quantity must not exceed 200000 per campaign")
+    private Integer quantity; // Số mã cần phát hành
+}
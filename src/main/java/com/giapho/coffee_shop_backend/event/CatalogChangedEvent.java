@@ -0,0 +1,17 @@
+package com.giapho.coffee_shop_backend.event;
+
+/**
+ * Phát ra khi sản phẩm hoặc danh mục thay đổi (tạo/sửa/xoá/ẩn hiện)
+ *
+ * @param productId sản phẩm bị thay đổi, null nếu thay đổi ảnh hưởng nhiều sản phẩm (ví dụ sửa danh mục)
+ */
+public record CatalogChangedEvent(Long productId) {
+
+    public static CatalogChangedEvent product(Long productId) {
+        return new CatalogChangedEvent(productId);
+    }
+
+    public static CatalogChangedEvent all() {
+        return new CatalogChangedEvent(null);
+    }
+}
@@ -0,0 +1,7 @@
+package com.giapho.coffee_shop_backend.event;
+
+/**
+ * Phát ra khi khách hàng được tạo/sửa/xoá
+ */
+public record CustomerChangedEvent(Long customerId) {
+}
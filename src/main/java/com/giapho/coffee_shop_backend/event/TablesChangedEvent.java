@@ -0,0 +1,9 @@
+package com.giapho.coffee_shop_backend.event;
+
+/**
+ * Phát ra khi thông tin hoặc trạng thái bàn thay đổi
+ *
+ * @param tableId bàn bị thay đổi
+ */
+public record TablesChangedEvent(Long tableId) {
+}
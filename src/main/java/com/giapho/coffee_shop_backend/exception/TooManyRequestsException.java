@@ -0,0 +1,20 @@
+package com.giapho.coffee_shop_backend.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception khi client gửi quá nhiều request (HTTP 429)
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    /**
+     * Số giây client nên chờ trước khi thử lại (header Retry-After)
+     */
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,29 @@
+package com.giapho.coffee_shop_backend.mapper;
+
+import com.giapho.coffee_shop_backend.domain.entity.LoyaltyPointTransaction;
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import com.giapho.coffee_shop_backend.dto.LoyaltyPointTransactionDTO;
+import com.giapho.coffee_shop_backend.service.UserDirectory;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
+import org.springframework.beans.factory.annotation.Autowired;
+
+@Mapper(componentModel = "spring")
+public abstract class LoyaltyPointTransactionMapper {
+
+    @Autowired
+    protected UserDirectory userDirectory;
+
+    // Entity -> DTO (chỉ đọc ID của các proxy, không load customer/order)
+    @Mapping(source = "customer.id", target = "customerId")
+    @Mapping(source = "order.id", target = "orderId")
+    @Mapping(source = "createdBy", target = "createdByUsername", qualifiedByName = "userToUsername")
+    @Mapping(target = "balanceAfter", ignore = true)
+    public abstract LoyaltyPointTransactionDTO toDto(LoyaltyPointTransaction entity);
+
+    @Named("userToUsername")
+    protected String userToUsername(User user) {
+        return userDirectory.usernameOf(user);
+    }
+}
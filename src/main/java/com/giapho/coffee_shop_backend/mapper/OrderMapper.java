@@ -5,12 +5,17 @@ import com.giapho.coffee_shop_backend.domain.entity.Customer;
 import com.giapho.coffee_shop_backend.domain.entity.Order;
 import com.giapho.coffee_shop_backend.domain.entity.User;
 import com.giapho.coffee_shop_backend.dto.OrderResponseDTO;
+import com.giapho.coffee_shop_backend.service.UserDirectory;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
+import org.springframework.beans.factory.annotation.Autowired;
 
 @Mapper(componentModel = "spring", uses = {OrderDetailMapper.class}) // Báo MapStruct sử dụng OrderDetailMapper
-public interface OrderMapper {
+public abstract class OrderMapper {
+
+    @Autowired
+    protected UserDirectory userDirectory;
 
     // Chuyển từ Entity sang Response DTO
     @Mapping(source = "cafeTable", target = "tableName", qualifiedByName = "tableToTableName")
@@ -19,23 +24,23 @@ public interface OrderMapper {
     @Mapping(source = "customer", target = "customerName", qualifiedByName = "customerToName")
     @Mapping(source = "customer.phone", target = "customerPhone")
     @Mapping(source = "orderDetails", target = "orderDetails") // Tự động dùng OrderDetailMapper
-    OrderResponseDTO entityToResponse(Order order);
+    public abstract OrderResponseDTO entityToResponse(Order order);
 
     // --- Hàm Helpers ---
     // Lấy tên bàn
     @Named("tableToTableName")
-    default String tableToTableName(CafeTable table) {
+    protected String tableToTableName(CafeTable table) {
         return (table != null) ? table.getName() : null;
     }
 
-    // Lấy username nhân viên
+    // Lấy username nhân viên (qua UserDirectory, không load proxy User)
     @Named("userToUsername")
-    default String userToUsername(User user) {
-        return (user != null) ? user.getUsername() : null;
+    protected String userToUsername(User user) {
+        return userDirectory.usernameOf(user);
     }
 
     @Named("customerToName")
-    default String customerToName(Customer customer) {
+    protected String customerToName(Customer customer) {
         return (customer != null) ? customer.getFullName() : null;
     }
 }
\ No newline at end of file
@@ -4,24 +4,29 @@ import com.giapho.coffee_shop_backend.domain.entity.PurchaseOrder;
 import com.giapho.coffee_shop_backend.domain.entity.Supplier;
 import com.giapho.coffee_shop_backend.domain.entity.User;
 import com.giapho.coffee_shop_backend.dto.PurchaseOrderResponseDTO;
+import com.giapho.coffee_shop_backend.service.UserDirectory;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
+import org.springframework.beans.factory.annotation.Autowired;
 
 @Mapper(componentModel = "spring", uses = {PurchaseOrderDetailMapper.class})
-public interface PurchaseOrderMapper {
+public abstract class PurchaseOrderMapper {
+
+    @Autowired
+    protected UserDirectory userDirectory;
 
     // Entity -> ResponseDTO
     @Mapping(source = "supplier.id", target = "supplierId")
     @Mapping(source = "supplier.name", target = "supplierName")
     @Mapping(source = "user", target = "staffUsername", qualifiedByName = "userToUsername")
     @Mapping(source = "purchaseOrderDetails", target = "purchaseOrderDetails") // Dùng PurchaseOrderDetailMapper
-    PurchaseOrderResponseDTO entityToResponse(PurchaseOrder entity);
+    public abstract PurchaseOrderResponseDTO entityToResponse(PurchaseOrder entity);
 
-    // Helper lấy username
+    // Helper lấy username (qua UserDirectory, không load proxy User)
     @Named("userToUsername")
-    default String userToUsername(User user) {
-        return (user != null) ? user.getUsername() : null;
+    protected String userToUsername(User user) {
+        return userDirectory.usernameOf(user);
     }
 
     // (Không cần hàm DTO -> Entity cho PurchaseOrder vì logic phức tạp hơn, sẽ xử lý trong Service)
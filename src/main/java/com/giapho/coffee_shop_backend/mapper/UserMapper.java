@@ -1,16 +1,11 @@
 package com.giapho.coffee_shop_backend.mapper;
 
-import com.giapho.coffee_shop_backend.domain.entity.Role; // Import Role
 import com.giapho.coffee_shop_backend.domain.entity.User;
 import com.giapho.coffee_shop_backend.dto.UserResponseDTO;
 import com.giapho.coffee_shop_backend.dto.UserUpdateRequestDTO;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
-import org.mapstruct.Named;
-
-import java.util.Set;
-import java.util.stream.Collectors; // Import Collectors
 
 @Mapper(componentModel = "spring", uses = {RoleMapper.class}) // Sử dụng RoleMapper
 public interface UserMapper {
@@ -26,23 +21,6 @@ public interface UserMapper {
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "authorities", ignore = true)
-    @Mapping(source = "roleIds", target = "roles", qualifiedByName = "roleIdsToRoleSet") // Map ID -> Set<Role>
-
+    @Mapping(target = "roles", ignore = true) // UserService tự lấy Role từ DB và gọi setRoles
     void updateUserFromDto(UserUpdateRequestDTO dto, @MappingTarget User user);
-
-    // Helper map từ Set<Long> sang Set<Role>
-    @Named("roleIdsToRoleSet")
-    default Set<Role> roleIdsToRoleSet(Set<Long> roleIds) {
-        if (roleIds == null) {
-            return null; // Hoặc trả về Set rỗng tùy logic
-        }
-        // Tạo Set<Role> chứa các proxy Role chỉ có ID
-        return roleIds.stream()
-                .map(id -> {
-                    Role role = new Role();
-                    role.setId(id);
-                    return role;
-                })
-                .collect(Collectors.toSet());
-    }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.giapho.coffee_shop_backend.mapper;
+
+import com.giapho.coffee_shop_backend.domain.entity.VoucherCampaign;
+import com.giapho.coffee_shop_backend.dto.VoucherCampaignDTO;
+import com.giapho.coffee_shop_backend.dto.VoucherCampaignRequestDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface VoucherCampaignMapper {
+
+    // Request -> Entity (tạo mới)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "codeCount", ignore = true) // Gán sau khi sinh mã
+    @Mapping(target = "active", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    VoucherCampaign toEntity(VoucherCampaignRequestDTO dto);
+
+    // Entity -> DTO (hiển thị)
+    @Mapping(target = "redeemedCount", ignore = true) // Lấy từ bitmap trong VoucherCampaignService
+    VoucherCampaignDTO toDto(VoucherCampaign entity);
+}
@@ -0,0 +1,78 @@
+package com.giapho.coffee_shop_backend.security;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Giới hạn số request đồng thời theo thuật toán AIMD (additive increase / multiplicative decrease).
+ * <p>
+ * Mỗi request hoàn tất nhanh (dưới ngưỡng độ trễ) khi đang dùng gần hết giới hạn sẽ tăng giới hạn thêm ~1
+ * sau mỗi "vòng" (1/limit mỗi request). Request chậm hoặc lỗi sẽ nhân giới hạn với {@code backoffRatio}.
+ * Nhờ vậy endpoint nặng (báo cáo, export) tự co lại khi DB bắt đầu chậm, chừa tài nguyên cho POS.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Lưu giá trị double dưới dạng bit để cập nhật bằng CAS
+    private final AtomicLong limitBits;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      long latencyThresholdNanos, double backoffRatio) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        double initial = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initial));
+    }
+
+    /**
+     * Xin một slot
+     *
+     * @return true nếu được phép chạy; khi đó BẮT BUỘC gọi {@link #release(long, boolean)}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Trả slot và điều chỉnh giới hạn theo kết quả request
+     */
+    public void release(long latencyNanos, boolean success) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (!success || latencyNanos > latencyThresholdNanos) {
+            limitBits.updateAndGet(bits ->
+                    Double.doubleToLongBits(Math.max(minLimit, Double.longBitsToDouble(bits) * backoffRatio)));
+        } else {
+            limitBits.updateAndGet(bits -> {
+                double limit = Double.longBitsToDouble(bits);
+                // Chỉ tăng khi giới hạn thực sự được dùng tới, tránh "phình" lúc rảnh
+                if (inFlightBefore * 2 < limit) {
+                    return bits;
+                }
+                return Double.doubleToLongBits(Math.min(maxLimit, limit + 1.0 / limit));
+            });
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
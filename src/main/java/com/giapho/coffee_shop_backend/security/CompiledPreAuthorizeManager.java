@@ -0,0 +1,162 @@
+package com.giapho.coffee_shop_backend.security;
+
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AuthorizationManager cho @PreAuthorize: biên dịch biểu thức một lần cho mỗi method.
+ * <p>
+ * - {@code hasRole(..)}, {@code hasAnyRole(..)} (nối bằng {@code ||} / {@code or}) → mask các role cần có,
+ * kiểm tra bằng phép AND với {@link User#getRoleMask()} của principal.
+ * - {@code isAuthenticated()} → chỉ kiểm tra đã đăng nhập.
+ * - Biểu thức khác (ví dụ so sánh tham số với principal) → chuyển cho {@link PreAuthorizeAuthorizationManager} (SpEL).
+ * Đường nóng không đánh giá SpEL và không tạo object mới.
+ */
+public class CompiledPreAuthorizeManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private static final Pattern OR_SEPARATOR = Pattern.compile("\\|\\||\\s+or\\s+");
+    private static final Pattern ROLE_CALL = Pattern.compile("^\\s*has(Any)?Role\\s*\\(([^()]*)\\)\\s*$");
+    private static final Pattern ROLE_ARGUMENT = Pattern.compile("^\\s*'([A-Za-z0-9_]+)'\\s*$");
+    private static final Pattern IS_AUTHENTICATED = Pattern.compile("^\\s*isAuthenticated\\s*\\(\\s*\\)\\s*$");
+
+    /**
+     * Cách một method được kiểm tra quyền
+     */
+    public enum Kind {
+        ROLE_MASK, AUTHENTICATED, EXPRESSION
+    }
+
+    /**
+     * Quyết định đã biên dịch cho một method
+     *
+     * @param requiredMask  mask role (chỉ dùng cho ROLE_MASK)
+     * @param requiredRoles tên các role cần có (để hiển thị)
+     */
+    public record CompiledDecision(Kind kind, int requiredMask, List<String> requiredRoles, String expression) {
+    }
+
+    private final Map<Method, CompiledDecision> decisions = new ConcurrentHashMap<>();
+    private final PreAuthorizeAuthorizationManager fallback = new PreAuthorizeAuthorizationManager();
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        CompiledDecision decision = decisionFor(invocation.getMethod());
+        if (decision == null) {
+            return null; // Không có @PreAuthorize: không quyết định
+        }
+        return switch (decision.kind()) {
+            case ROLE_MASK -> {
+                Authentication auth = authentication.get();
+                yield isAuthenticated(auth) && (roleMaskOf(auth) & decision.requiredMask()) != 0 ? GRANTED : DENIED;
+            }
+            case AUTHENTICATED -> isAuthenticated(authentication.get()) ? GRANTED : DENIED;
+            case EXPRESSION -> fallback.authorize(authentication, invocation);
+        };
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        AuthorizationResult result = authorize(authentication, invocation);
+        if (result == null || result instanceof AuthorizationDecision) {
+            return (AuthorizationDecision) result;
+        }
+        return result.isGranted() ? GRANTED : DENIED;
+    }
+
+    /**
+     * Quyết định đã biên dịch của method (null nếu method không có @PreAuthorize)
+     */
+    public CompiledDecision decisionFor(Method method) {
+        CompiledDecision decision = decisions.get(method);
+        if (decision == null) {
+            PreAuthorize annotation = findAnnotation(method);
+            if (annotation == null) {
+                return null;
+            }
+            decision = decisions.computeIfAbsent(method, m -> compile(annotation.value()));
+        }
+        return decision;
+    }
+
+    /**
+     * Biên dịch biểu thức @PreAuthorize
+     */
+    static CompiledDecision compile(String expression) {
+        if (IS_AUTHENTICATED.matcher(expression).matches()) {
+            return new CompiledDecision(Kind.AUTHENTICATED, 0, List.of(), expression);
+        }
+
+        int mask = 0;
+        List<String> roles = new ArrayList<>();
+        for (String part : OR_SEPARATOR.split(expression)) {
+            Matcher call = ROLE_CALL.matcher(part);
+            if (!call.matches()) {
+                return new CompiledDecision(Kind.EXPRESSION, 0, List.of(), expression);
+            }
+            String[] arguments = call.group(2).split(",");
+            if (call.group(1) == null && arguments.length != 1) {
+                return new CompiledDecision(Kind.EXPRESSION, 0, List.of(), expression);
+            }
+            for (String argument : arguments) {
+                Matcher role = ROLE_ARGUMENT.matcher(argument);
+                int bit = role.matches() ? RoleAuthorities.bitOf(role.group(1)) : 0;
+                if (bit == 0) {
+                    // Role không cố định: không biểu diễn được bằng mask
+                    return new CompiledDecision(Kind.EXPRESSION, 0, List.of(), expression);
+                }
+                mask |= bit;
+                roles.add(role.group(1));
+            }
+        }
+        return new CompiledDecision(Kind.ROLE_MASK, mask, Collections.unmodifiableList(roles), expression);
+    }
+
+    private static PreAuthorize findAnnotation(Method method) {
+        PreAuthorize annotation = AnnotatedElementUtils.findMergedAnnotation(method, PreAuthorize.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), PreAuthorize.class);
+        }
+        return annotation;
+    }
+
+    private static boolean isAuthenticated(Authentication authentication) {
+        return authentication != null
+                && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+    }
+
+    private static int roleMaskOf(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof User user) {
+            return user.getRoleMask();
+        }
+        // Principal không phải User entity: tính từ authorities
+        int mask = 0;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            mask |= RoleAuthorities.bitOf(authority.getAuthority());
+        }
+        return mask;
+    }
+}
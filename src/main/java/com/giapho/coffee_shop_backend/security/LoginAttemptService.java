@@ -0,0 +1,137 @@
+package com.giapho.coffee_shop_backend.security;
+
+import com.giapho.coffee_shop_backend.config.LoginThrottleProperties;
+import com.giapho.coffee_shop_backend.exception.TooManyRequestsException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+
+/**
+ * Giới hạn số lần đăng nhập theo username và theo IP (cửa sổ trượt).
+ * <p>
+ * Việc kiểm tra chạy TRƯỚC AuthenticationManager, nên request bị chặn không tốn một lần tính BCrypt.
+ * - Theo IP: đếm mọi lần thử (bảo vệ CPU khỏi script gửi liên tục).
+ * - Theo username: chỉ đếm lần sai, reset khi đăng nhập thành công (chống dò mật khẩu).
+ * Các bộ đếm tự hết hạn sau khi không còn được truy cập.
+ */
+@Slf4j
+@Service
+public class LoginAttemptService {
+
+    private final LoginThrottleProperties properties;
+    private final long windowMillis;
+    private final Cache<String, SlidingWindowCounter> ipCounters;
+    private final Cache<String, SlidingWindowCounter> usernameCounters;
+    private final Counter throttledByIp;
+    private final Counter throttledByUsername;
+    private final Counter failedLogins;
+
+    public LoginAttemptService(LoginThrottleProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.windowMillis = properties.getWindow().toMillis();
+        // Hết hạn sau 2 cửa sổ: lúc đó cả cửa sổ "trước" lẫn "hiện tại" đều đã về 0
+        this.ipCounters = CacheBuilder.newBuilder()
+                .expireAfterAccess(properties.getWindow().multipliedBy(2))
+                .maximumSize(properties.getMaxTrackedKeys())
+                .build();
+        this.usernameCounters = CacheBuilder.newBuilder()
+                .expireAfterAccess(properties.getWindow().multipliedBy(2))
+                .maximumSize(properties.getMaxTrackedKeys())
+                .build();
+
+        this.throttledByIp = Counter.builder("auth.login.throttled")
+                .description("Login attempts rejected before authentication")
+                .tag("reason", "ip")
+                .register(meterRegistry);
+        this.throttledByUsername = Counter.builder("auth.login.throttled")
+                .description("Login attempts rejected before authentication")
+                .tag("reason", "username")
+                .register(meterRegistry);
+        this.failedLogins = Counter.builder("auth.login.failures")
+                .description("Failed login attempts")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.tracked.keys", ipCounters, Cache::size)
+                .tag("type", "ip")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.tracked.keys", usernameCounters, Cache::size)
+                .tag("type", "username")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Kiểm tra xem lần đăng nhập này có được phép không. Gọi trước khi xác thực mật khẩu.
+     *
+     * @throws TooManyRequestsException nếu IP hoặc username đã vượt giới hạn
+     */
+    public void checkAllowed(String username, String clientIp) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        if (clientIp != null) {
+            SlidingWindowCounter ipCounter = ipCounters.asMap()
+                    .computeIfAbsent(clientIp, key -> new SlidingWindowCounter(windowMillis, now));
+            if (!ipCounter.tryIncrement(properties.getMaxAttemptsPerIp(), now)) {
+                throttledByIp.increment();
+                log.warn("Login throttled for IP {}", clientIp);
+                throw new TooManyRequestsException("Too many login attempts. Please try again later.",
+                        toRetryAfterSeconds(ipCounter.millisUntilWindowEnds(now)));
+            }
+        }
+
+        String usernameKey = normalize(username);
+        if (usernameKey != null) {
+            SlidingWindowCounter userCounter = usernameCounters.getIfPresent(usernameKey);
+            if (userCounter != null && userCounter.estimate(now) >= properties.getMaxFailuresPerUsername()) {
+                throttledByUsername.increment();
+                log.warn("Login throttled for username {}", usernameKey);
+                throw new TooManyRequestsException("Too many failed login attempts for this account. Please try again later.",
+                        toRetryAfterSeconds(userCounter.millisUntilWindowEnds(now)));
+            }
+        }
+    }
+
+    /**
+     * Ghi nhận một lần đăng nhập sai
+     */
+    public void loginFailed(String username) {
+        failedLogins.increment();
+        String usernameKey = normalize(username);
+        if (!properties.isEnabled() || usernameKey == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        usernameCounters.asMap()
+                .computeIfAbsent(usernameKey, key -> new SlidingWindowCounter(windowMillis, now))
+                .increment(now);
+    }
+
+    /**
+     * Đăng nhập thành công: xoá bộ đếm lần sai của username
+     */
+    public void loginSucceeded(String username) {
+        String usernameKey = normalize(username);
+        if (usernameKey != null) {
+            usernameCounters.invalidate(usernameKey);
+        }
+    }
+
+    // Username trong DB so sánh không phân biệt hoa thường (collation MySQL)
+    private String normalize(String username) {
+        if (username == null || username.isBlank()) {
+            return null;
+        }
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private long toRetryAfterSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+}
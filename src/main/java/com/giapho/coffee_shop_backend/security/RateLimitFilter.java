@@ -0,0 +1,236 @@
+package com.giapho.coffee_shop_backend.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.giapho.coffee_shop_backend.config.RateLimitProperties;
+import com.giapho.coffee_shop_backend.exception.ErrorResponse;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Giới hạn tốc độ và tải cho các nhóm endpoint nặng (báo cáo, export, upload).
+ * <p>
+ * - Token bucket theo (nhóm, user): chặn một người gọi dồn dập, trả 429 kèm Retry-After.
+ * - Giới hạn đồng thời AIMD theo nhóm: khi request trong nhóm chậm dần, số slot tự co lại và
+ * request vượt slot bị từ chối ngay bằng 503, nên không chiếm thread/connection của các endpoint POS.
+ * Request không thuộc nhóm nào (ví dụ /api/v1/orders) đi thẳng, không tốn thêm gì ngoài việc so khớp path.
+ * Filter đứng sau JwtAuthenticationFilter để lấy được username.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final long RETRY_AFTER_OVERLOADED_SECONDS = 1;
+
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final List<RouteGroup> groups;
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.buckets = CacheBuilder.newBuilder()
+                .expireAfterAccess(properties.getIdleExpiry())
+                .build();
+        this.groups = properties.getGroups().stream()
+                .map(group -> new RouteGroup(group, meterRegistry))
+                .toList();
+        Gauge.builder("http.ratelimit.buckets", buckets, Cache::size)
+                .description("Token buckets currently tracked")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !properties.isEnabled() || groups.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        RouteGroup group = findGroup(request);
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // 1. Token bucket theo user (hoặc IP nếu chưa đăng nhập)
+        long now = System.nanoTime();
+        String bucketKey = group.name + '|' + resolveClientKey(request);
+        TokenBucket bucket = buckets.asMap().computeIfAbsent(bucketKey,
+                key -> new TokenBucket(group.config.getCapacity(), group.config.getRefillPerSecond(), now));
+        long waitNanos = bucket.tryConsume(now);
+        if (waitNanos > 0) {
+            group.rejectedByRate.increment();
+            // Làm tròn lên mà không cộng dồn (waitNanos có thể rất lớn khi tốc độ nạp rất thấp)
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos)
+                    + (waitNanos % 1_000_000_000 == 0 ? 0 : 1));
+            reject(request, response, HttpStatus.TOO_MANY_REQUESTS, retryAfter,
+                    "Too many requests. Please try again later.");
+            return;
+        }
+
+        // 2. Giới hạn đồng thời của cả nhóm
+        AdaptiveConcurrencyLimiter limiter = group.limiter;
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limiter.tryAcquire()) {
+            group.rejectedByConcurrency.increment();
+            log.warn("Load shedding on group '{}': limit={}, inFlight={}",
+                    group.name, limiter.getLimit(), limiter.getInFlight());
+            reject(request, response, HttpStatus.SERVICE_UNAVAILABLE, RETRY_AFTER_OVERLOADED_SECONDS,
+                    "Server is busy processing other heavy requests. Please try again shortly.");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            filterChain.doFilter(request, response);
+            success = response.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            limiter.release(System.nanoTime() - start, success);
+        }
+    }
+
+    private RouteGroup findGroup(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        String method = request.getMethod();
+        for (RouteGroup group : groups) {
+            if (group.matches(method, path)) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    private String resolveClientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "u:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response,
+                        HttpStatus status, long retryAfterSeconds, String message) throws IOException {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                status.value(),
+                status.getReasonPhrase(),
+                message,
+                request.getRequestURI()
+        );
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+    }
+
+    /**
+     * Nhóm route đã được biên dịch sẵn (path pattern, limiter, metric)
+     */
+    private static final class RouteGroup {
+
+        private final String name;
+        private final RateLimitProperties.Group config;
+        private final List<PathPattern> patterns;
+        private final Set<String> methods;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final Counter rejectedByRate;
+        private final Counter rejectedByConcurrency;
+
+        private RouteGroup(RateLimitProperties.Group config, MeterRegistry meterRegistry) {
+            if (config.getCapacity() < 1 || config.getRefillPerSecond() <= 0) {
+                // Bucket không bao giờ được nạp lại sẽ chặn user vĩnh viễn: từ chối ngay khi khởi động
+                throw new IllegalStateException("Rate limit group '" + config.getName()
+                        + "' needs capacity >= 1 and refill-per-second > 0");
+            }
+            this.name = config.getName();
+            this.config = config;
+            this.patterns = config.getPaths().stream()
+                    .map(PathPatternParser.defaultInstance::parse)
+                    .toList();
+            this.methods = config.getMethods().stream()
+                    .map(m -> m.toUpperCase(Locale.ROOT))
+                    .collect(Collectors.toUnmodifiableSet());
+
+            RateLimitProperties.Concurrency concurrency = config.getConcurrency();
+            if (concurrency.isEnabled()) {
+                this.limiter = new AdaptiveConcurrencyLimiter(
+                        concurrency.getInitialLimit(),
+                        concurrency.getMinLimit(),
+                        concurrency.getMaxLimit(),
+                        concurrency.getLatencyThreshold().toNanos(),
+                        concurrency.getBackoffRatio());
+                Gauge.builder("http.ratelimit.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                        .tag("group", name)
+                        .register(meterRegistry);
+                Gauge.builder("http.ratelimit.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                        .tag("group", name)
+                        .register(meterRegistry);
+            } else {
+                this.limiter = null;
+            }
+
+            this.rejectedByRate = Counter.builder("http.ratelimit.rejected")
+                    .tag("group", name)
+                    .tag("reason", "rate")
+                    .register(meterRegistry);
+            this.rejectedByConcurrency = Counter.builder("http.ratelimit.rejected")
+                    .tag("group", name)
+                    .tag("reason", "concurrency")
+                    .register(meterRegistry);
+        }
+
+        private boolean matches(String method, PathContainer path) {
+            if (!methods.isEmpty() && !methods.contains(method)) {
+                return false;
+            }
+            for (PathPattern pattern : patterns) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
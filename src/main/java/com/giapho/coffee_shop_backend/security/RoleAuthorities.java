@@ -0,0 +1,122 @@
+package com.giapho.coffee_shop_backend.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bảng tra cứu quyền dùng chung cho toàn ứng dụng.
+ * <p>
+ * Mỗi role có đúng một instance {@link GrantedAuthority} (interned), và các role cố định
+ * (STAFF, MANAGER, ADMIN) được gán một bit để kiểm tra quyền bằng phép AND thay vì so sánh chuỗi.
+ * Mọi tổ hợp role cố định đã có sẵn một Set bất biến, nên việc lấy authorities của user không tạo object mới.
+ */
+public final class RoleAuthorities {
+
+    public static final String ROLE_PREFIX = "ROLE_";
+
+    public static final int STAFF = 1;
+    public static final int MANAGER = 1 << 1;
+    public static final int ADMIN = 1 << 2;
+
+    private static final String[] KNOWN_ROLES = {"ROLE_STAFF", "ROLE_MANAGER", "ROLE_ADMIN"};
+    private static final int KNOWN_MASK = (1 << KNOWN_ROLES.length) - 1;
+
+    private static final Map<String, GrantedAuthority> INTERNED = new ConcurrentHashMap<>();
+    private static final List<Set<GrantedAuthority>> SETS_BY_MASK;
+
+    static {
+        for (String role : KNOWN_ROLES) {
+            INTERNED.put(role, new SimpleGrantedAuthority(role));
+        }
+        List<Set<GrantedAuthority>> sets = new ArrayList<>(KNOWN_MASK + 1);
+        for (int mask = 0; mask <= KNOWN_MASK; mask++) {
+            Set<GrantedAuthority> set = new LinkedHashSet<>();
+            for (int bit = 0; bit < KNOWN_ROLES.length; bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    set.add(INTERNED.get(KNOWN_ROLES[bit]));
+                }
+            }
+            sets.add(Collections.unmodifiableSet(set));
+        }
+        SETS_BY_MASK = List.copyOf(sets);
+    }
+
+    private RoleAuthorities() {
+    }
+
+    /**
+     * Bit của role (theo tên đầy đủ "ROLE_X" hoặc tên ngắn "X"), 0 nếu không phải role cố định
+     */
+    public static int bitOf(String roleName) {
+        if (roleName == null) {
+            return 0;
+        }
+        String fullName = roleName.startsWith(ROLE_PREFIX) ? roleName : ROLE_PREFIX + roleName;
+        for (int bit = 0; bit < KNOWN_ROLES.length; bit++) {
+            if (KNOWN_ROLES[bit].equals(fullName)) {
+                return 1 << bit;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Instance authority dùng chung cho tên role
+     */
+    public static GrantedAuthority authorityOf(String roleName) {
+        return INTERNED.computeIfAbsent(roleName, SimpleGrantedAuthority::new);
+    }
+
+    /**
+     * Set authority bất biến, dùng chung cho một tổ hợp role cố định
+     */
+    public static Set<GrantedAuthority> forMask(int mask) {
+        return SETS_BY_MASK.get(mask & KNOWN_MASK);
+    }
+
+    /**
+     * Tính mask từ danh sách tên role
+     */
+    public static int maskOf(Collection<String> roleNames) {
+        int mask = 0;
+        for (String roleName : roleNames) {
+            mask |= bitOf(roleName);
+        }
+        return mask;
+    }
+
+    /**
+     * Dựng Set authority bất biến cho danh sách role.
+     * Chỉ có role cố định thì trả về Set dùng chung; có role tuỳ biến thì tạo Set riêng (vẫn dùng authority interned).
+     */
+    public static Set<GrantedAuthority> resolve(Collection<String> roleNames) {
+        int mask = 0;
+        boolean hasCustomRole = false;
+        for (String roleName : roleNames) {
+            int bit = bitOf(roleName);
+            if (bit == 0 && roleName != null) {
+                hasCustomRole = true;
+            }
+            mask |= bit;
+        }
+        if (!hasCustomRole) {
+            return forMask(mask);
+        }
+        Set<GrantedAuthority> set = new LinkedHashSet<>(forMask(mask));
+        for (String roleName : roleNames) {
+            if (roleName != null) {
+                set.add(authorityOf(roleName));
+            }
+        }
+        return Collections.unmodifiableSet(set);
+    }
+}
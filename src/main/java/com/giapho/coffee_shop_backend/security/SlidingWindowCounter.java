@@ -0,0 +1,95 @@
+package com.giapho.coffee_shop_backend.security;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bộ đếm cửa sổ trượt (sliding window) xấp xỉ, không dùng lock.
+ * <p>
+ * Giữ 2 cửa sổ cố định liên tiếp (trước và hiện tại); số lần ước lượng trong cửa sổ trượt là
+ * {@code previous * (phần còn lại của cửa sổ trước) + current}. Trạng thái là một đối tượng bất biến
+ * được cập nhật bằng compare-and-set nên nhiều request đồng thời không bao giờ chặn nhau.
+ */
+public class SlidingWindowCounter {
+
+    private record State(long windowStart, int previous, int current) {
+    }
+
+    private final long windowMillis;
+    private final AtomicReference<State> state;
+
+    public SlidingWindowCounter(long windowMillis, long nowMillis) {
+        this.windowMillis = windowMillis;
+        this.state = new AtomicReference<>(new State(alignedStart(nowMillis), 0, 0));
+    }
+
+    /**
+     * Tăng bộ đếm nếu số lần ước lượng hiện tại còn nhỏ hơn {@code limit}
+     *
+     * @return true nếu được phép (đã tăng), false nếu đã vượt giới hạn
+     */
+    public boolean tryIncrement(int limit, long nowMillis) {
+        while (true) {
+            State current = state.get();
+            State rolled = roll(current, nowMillis);
+            if (estimate(rolled, nowMillis) >= limit) {
+                // Lưu lại trạng thái đã "trượt" để lần sau không phải tính lại (không bắt buộc thành công)
+                if (rolled != current) {
+                    state.compareAndSet(current, rolled);
+                }
+                return false;
+            }
+            State next = new State(rolled.windowStart(), rolled.previous(), rolled.current() + 1);
+            if (state.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Tăng bộ đếm không điều kiện
+     */
+    public void increment(long nowMillis) {
+        while (true) {
+            State current = state.get();
+            State rolled = roll(current, nowMillis);
+            State next = new State(rolled.windowStart(), rolled.previous(), rolled.current() + 1);
+            if (state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Số lần ước lượng trong cửa sổ trượt kết thúc tại {@code nowMillis}
+     */
+    public double estimate(long nowMillis) {
+        return estimate(roll(state.get(), nowMillis), nowMillis);
+    }
+
+    /**
+     * Số mili-giây còn lại tới khi cửa sổ hiện tại kết thúc (dùng cho header Retry-After)
+     */
+    public long millisUntilWindowEnds(long nowMillis) {
+        State rolled = roll(state.get(), nowMillis);
+        return Math.max(0, rolled.windowStart() + windowMillis - nowMillis);
+    }
+
+    private double estimate(State s, long nowMillis) {
+        double elapsedFraction = (double) (nowMillis - s.windowStart()) / windowMillis;
+        return s.previous() * Math.max(0.0, 1.0 - elapsedFraction) + s.current();
+    }
+
+    private State roll(State s, long nowMillis) {
+        long start = alignedStart(nowMillis);
+        if (start == s.windowStart()) {
+            return s;
+        }
+        // Vừa sang cửa sổ kế tiếp: current trở thành previous. Cách xa hơn 1 cửa sổ: reset.
+        int previous = (start - s.windowStart() == windowMillis) ? s.current() : 0;
+        return new State(start, previous, 0);
+    }
+
+    private long alignedStart(long nowMillis) {
+        return nowMillis - Math.floorMod(nowMillis, windowMillis);
+    }
+}
@@ -0,0 +1,44 @@
+package com.giapho.coffee_shop_backend.security;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token bucket không dùng lock: nạp lại liên tục theo thời gian, cập nhật bằng compare-and-set.
+ */
+public class TokenBucket {
+
+    private record State(double tokens, long lastRefillNanos) {
+    }
+
+    private final double capacity;
+    private final double refillPerNano;
+    private final AtomicReference<State> state;
+
+    public TokenBucket(double capacity, double refillPerSecond, long nowNanos) {
+        if (refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Refill rate must be positive: " + refillPerSecond);
+        }
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.state = new AtomicReference<>(new State(capacity, nowNanos));
+    }
+
+    /**
+     * Lấy 1 token
+     *
+     * @return 0 nếu thành công, ngược lại là số nano-giây cần chờ tới khi có token
+     */
+    public long tryConsume(long nowNanos) {
+        while (true) {
+            State current = state.get();
+            double tokens = Math.min(capacity,
+                    current.tokens() + Math.max(0, nowNanos - current.lastRefillNanos()) * refillPerNano);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / refillPerNano);
+            }
+            if (state.compareAndSet(current, new State(tokens - 1, nowNanos))) {
+                return 0;
+            }
+        }
+    }
+}
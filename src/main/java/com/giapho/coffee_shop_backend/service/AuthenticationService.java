@@ -8,6 +8,7 @@ import com.giapho.coffee_shop_backend.dto.AuthenticationResponse;
 import com.giapho.coffee_shop_backend.dto.LoginRequest;
 import com.giapho.coffee_shop_backend.dto.RegisterRequest;
 import com.giapho.coffee_shop_backend.security.JwtService;
+import com.giapho.coffee_shop_backend.security.LoginAttemptService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -26,6 +27,7 @@ public class AuthenticationService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final LoginAttemptService loginAttemptService;
 
     public AuthenticationResponse register(RegisterRequest request) {
         if (userRepository.existsByUsername(request.getUsername())) {
@@ -60,7 +62,10 @@ public class AuthenticationService {
                 .build();
     }
 
-    public AuthenticationResponse login(LoginRequest request) {
+    public AuthenticationResponse login(LoginRequest request, String clientIp) {
+        // Chặn sớm trước khi tốn CPU cho BCrypt
+        loginAttemptService.checkAllowed(request.getUsername(), clientIp);
+
         try {
             authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
@@ -69,8 +74,10 @@ public class AuthenticationService {
                     )
             );
         } catch (Exception e) {
+            loginAttemptService.loginFailed(request.getUsername());
             throw new EntityNotFoundException("Invalid username or password");
         }
+        loginAttemptService.loginSucceeded(request.getUsername());
 
         User user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
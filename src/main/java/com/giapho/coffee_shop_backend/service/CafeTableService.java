@@ -5,9 +5,11 @@ import com.giapho.coffee_shop_backend.domain.repository.CafeTableRepository;
 import com.giapho.coffee_shop_backend.domain.repository.OrderRepository;
 import com.giapho.coffee_shop_backend.dto.CafeTableRequest;
 import com.giapho.coffee_shop_backend.dto.CafeTableResponse;
+import com.giapho.coffee_shop_backend.event.TablesChangedEvent;
 import com.giapho.coffee_shop_backend.mapper.CafeTableMapper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +22,7 @@ public class CafeTableService {
     private final CafeTableRepository cafeTableRepository;
     private final CafeTableMapper cafeTableMapper;
     private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Lấy tất cả các bàn
@@ -53,6 +56,7 @@ public class CafeTableService {
         CafeTable newTable = cafeTableMapper.requestToEntity(request);
 
         CafeTable savedTable = cafeTableRepository.save(newTable);
+        eventPublisher.publishEvent(new TablesChangedEvent(savedTable.getId()));
 
         return cafeTableMapper.entityToResponse(savedTable);
     }
@@ -73,6 +77,7 @@ public class CafeTableService {
         cafeTableMapper.updateEntityFromRequest(request, existingTable);
 
         CafeTable updatedTable = cafeTableRepository.save(existingTable);
+        eventPublisher.publishEvent(new TablesChangedEvent(id));
 
         return cafeTableMapper.entityToResponse(updatedTable);
     }
@@ -93,6 +98,7 @@ public class CafeTableService {
         table.setStatus(status);
 
         CafeTable updatedTable = cafeTableRepository.save(table);
+        eventPublisher.publishEvent(new TablesChangedEvent(id));
 
         return cafeTableMapper.entityToResponse(updatedTable);
     }
@@ -113,6 +119,7 @@ public class CafeTableService {
 
         // 3. Nếu không có order nào, tiến hành xóa bàn
         cafeTableRepository.deleteById(id);
+        eventPublisher.publishEvent(new TablesChangedEvent(id));
         System.out.println("Deleted table with ID: " + id); // Log (tùy chọn)
     }
 }
\ No newline at end of file
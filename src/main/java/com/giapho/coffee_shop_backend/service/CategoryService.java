@@ -3,8 +3,10 @@ package com.giapho.coffee_shop_backend.service;
 import com.giapho.coffee_shop_backend.domain.entity.Category;
 import com.giapho.coffee_shop_backend.domain.repository.CategoryRepository;
 import com.giapho.coffee_shop_backend.dto.CategoryDTO;
+import com.giapho.coffee_shop_backend.event.CatalogChangedEvent;
 import com.giapho.coffee_shop_backend.mapper.CategoryMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +19,7 @@ import java.util.List;
 public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Tạo danh mục mới
@@ -35,6 +38,7 @@ public class CategoryService {
         category.setName(name); // đảm bảo tên đã được chuẩn hóa
 
         Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(CatalogChangedEvent.all());
 
         return categoryMapper.toCategoryDTO(saved);
     }
@@ -65,6 +69,7 @@ public class CategoryService {
         existingCategory.setDescription(categoryDTO.getDescription());
 
         Category updateCategory = categoryRepository.save(existingCategory);
+        eventPublisher.publishEvent(CatalogChangedEvent.all()); // Tên danh mục nằm trong từng sản phẩm
 
         return categoryMapper.toCategoryDTO(updateCategory);
     }
@@ -77,5 +82,6 @@ public class CategoryService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category with id " + id + " not found"));
 
         categoryRepository.delete(existingCategory);
+        eventPublisher.publishEvent(CatalogChangedEvent.all());
     }
 }
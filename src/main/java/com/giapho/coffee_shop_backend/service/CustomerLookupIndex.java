@@ -0,0 +1,262 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.dto.CustomerSummaryDTO;
+import com.giapho.coffee_shop_backend.util.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Chỉ mục tra cứu khách hàng trong bộ nhớ.
+ * <p>
+ * - SĐT: TreeMap từ chuỗi số đã chuẩn hoá (+84 → 0) → danh sách ID, tìm theo tiền tố bằng subMap.
+ * - Tên: TreeMap từ (đã bỏ dấu) → danh sách ID, mỗi từ trong câu tìm kiếm khớp theo tiền tố, các từ nối bằng AND.
+ * Chỉ lưu id, SĐT, tên; thông tin đầy đủ (điểm, email...) vẫn đọc từ DB theo ID của trang kết quả.
+ * Tiền tố ngắn (VD "0") khớp gần hết khách hàng, nên chỉ giữ offset+limit kết quả đầu bằng heap thay vì sắp xếp cả danh sách.
+ */
+public class CustomerLookupIndex {
+
+    // Chỉ gồm số và ký tự hay gặp khi nhập SĐT
+    private static final Pattern PHONE_QUERY = Pattern.compile("^[+\\d\\s.()-]*\\d[+\\d\\s.()-]*$");
+    private static final Pattern NON_DIGIT = Pattern.compile("\\D+");
+
+    public enum SortKey {
+        FULL_NAME, PHONE, ID
+    }
+
+    /**
+     * Một trang kết quả
+     *
+     * @param ids   ID khách hàng của trang, theo đúng thứ tự sắp xếp
+     * @param total tổng số khách hàng khớp
+     */
+    public record Result(List<Long> ids, long total) {
+    }
+
+    private record Entry(Long id, String phone, String foldedName, List<String> tokens) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Set<Long>> phones = new TreeMap<>();
+    private final NavigableMap<String, Set<Long>> nameTokens = new TreeMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /**
+     * Chuẩn hoá SĐT: chỉ giữ chữ số, mã quốc gia 84 → 0
+     */
+    public static String normalizePhone(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        String digits = NON_DIGIT.matcher(phone).replaceAll("");
+        return digits.startsWith("84") ? "0" + digits.substring(2) : digits;
+    }
+
+    public void rebuild(Collection<CustomerSummaryDTO> customers) {
+        lock.writeLock().lock();
+        try {
+            phones.clear();
+            nameTokens.clear();
+            entries.clear();
+            for (CustomerSummaryDTO customer : customers) {
+                addLocked(customer);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Thêm mới hoặc cập nhật 1 khách hàng
+     */
+    public void put(CustomerSummaryDTO customer) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(customer.getId());
+            addLocked(customer);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long customerId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(customerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm theo tiền tố SĐT (nếu từ khoá chỉ gồm số) hoặc theo tiền tố các từ trong tên
+     */
+    public Result search(String keyword, SortKey sortKey, boolean ascending, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Comparator<Entry> comparator = comparator(sortKey);
+            TopK top = new TopK(ascending ? comparator : comparator.reversed(), offset + limit);
+            if (PHONE_QUERY.matcher(keyword).matches()) {
+                matchPhone(normalizePhone(keyword), top);
+            } else {
+                matchName(TextNormalizer.tokens(keyword), top);
+            }
+
+            List<Entry> sorted = top.sorted();
+            List<Long> ids = new ArrayList<>(limit);
+            for (long i = offset; i < sorted.size() && ids.size() < limit; i++) {
+                ids.add(sorted.get((int) i).id());
+            }
+            return new Result(ids, top.total());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void matchPhone(String prefix, TopK top) {
+        if (prefix.isEmpty()) {
+            return;
+        }
+        for (Set<Long> ids : phones.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            for (Long id : ids) {
+                top.offer(entries.get(id));
+            }
+        }
+    }
+
+    private void matchName(List<String> tokens, TopK top) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        // Từ dài thường ít kết quả hơn: bắt đầu từ đó rồi lọc dần
+        List<String> ordered = new ArrayList<>(tokens);
+        ordered.sort(Comparator.comparingInt(String::length).reversed());
+
+        Set<Long> candidates = idsWithTokenPrefix(ordered.get(0));
+        for (int i = 1; i < ordered.size() && !candidates.isEmpty(); i++) {
+            String prefix = ordered.get(i);
+            candidates.removeIf(id -> !hasTokenWithPrefix(entries.get(id), prefix));
+        }
+
+        for (Long id : candidates) {
+            top.offer(entries.get(id));
+        }
+    }
+
+    private Set<Long> idsWithTokenPrefix(String prefix) {
+        Set<Long> ids = new HashSet<>();
+        for (Set<Long> posting : nameTokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            ids.addAll(posting);
+        }
+        return ids;
+    }
+
+    private static boolean hasTokenWithPrefix(Entry entry, String prefix) {
+        for (String token : entry.tokens()) {
+            if (token.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Comparator<Entry> comparator(SortKey sortKey) {
+        return switch (sortKey) {
+            case FULL_NAME -> Comparator.comparing(Entry::foldedName).thenComparing(Entry::id);
+            case PHONE -> Comparator.comparing(Entry::phone).thenComparing(Entry::id);
+            case ID -> Comparator.comparing(Entry::id);
+        };
+    }
+
+    private void addLocked(CustomerSummaryDTO customer) {
+        List<String> tokens = TextNormalizer.tokens(customer.getFullName());
+        Entry entry = new Entry(customer.getId(), normalizePhone(customer.getPhone()),
+                String.join(" ", tokens), tokens);
+        entries.put(entry.id(), entry);
+        if (!entry.phone().isEmpty()) {
+            // Nhiều khách có thể cùng SĐT sau chuẩn hoá (VD "+84901..." và "0901...")
+            phones.computeIfAbsent(entry.phone(), ignored -> new HashSet<>()).add(entry.id());
+        }
+        for (String token : tokens) {
+            nameTokens.computeIfAbsent(token, ignored -> new HashSet<>()).add(entry.id());
+        }
+    }
+
+    private void removeLocked(Long customerId) {
+        Entry entry = entries.remove(customerId);
+        if (entry == null) {
+            return;
+        }
+        removePosting(phones, entry.phone(), customerId);
+        for (String token : entry.tokens()) {
+            removePosting(nameTokens, token, customerId);
+        }
+    }
+
+    private static void removePosting(Map<String, Set<Long>> index, String key, Long customerId) {
+        Set<Long> posting = index.get(key);
+        if (posting != null) {
+            posting.remove(customerId);
+            if (posting.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Giữ k phần tử đầu theo thứ tự sắp xếp (max-heap kích thước k) và đếm tổng số phần tử đã xét
+     */
+    private static final class TopK {
+
+        private final Comparator<Entry> order;
+        private final int k;
+        private final PriorityQueue<Entry> heap; // Đỉnh heap: phần tử đứng sau cùng trong số đang giữ
+        private long total;
+
+        private TopK(Comparator<Entry> order, long k) {
+            this.order = order;
+            this.k = (int) Math.min(k, Integer.MAX_VALUE - 8);
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(this.k, 64)), order.reversed());
+        }
+
+        private void offer(Entry entry) {
+            total++;
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (k > 0 && order.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        private List<Entry> sorted() {
+            List<Entry> sorted = new ArrayList<>(heap);
+            sorted.sort(order);
+            return sorted;
+        }
+
+        private long total() {
+            return total;
+        }
+    }
+}
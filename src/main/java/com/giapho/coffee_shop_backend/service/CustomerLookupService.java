@@ -0,0 +1,131 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.repository.CustomerRepository;
+import com.giapho.coffee_shop_backend.dto.CustomerSummaryDTO;
+import com.giapho.coffee_shop_backend.event.CustomerChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Tra cứu khách hàng (type-ahead theo SĐT / tên) bằng {@link CustomerLookupIndex}.
+ * Chỉ mục được nạp khi khởi động và cập nhật từng khách hàng sau khi CustomerService commit.
+ * Trong lúc chưa nạp xong, {@link #search} trả về empty để CustomerService dùng query DB.
+ */
+@Slf4j
+@Service
+public class CustomerLookupService {
+
+    private static final Map<String, CustomerLookupIndex.SortKey> SORT_KEYS = Map.of(
+            "fullName", CustomerLookupIndex.SortKey.FULL_NAME,
+            "phone", CustomerLookupIndex.SortKey.PHONE,
+            "id", CustomerLookupIndex.SortKey.ID
+    );
+
+    private final CustomerRepository customerRepository;
+    private final CustomerLookupIndex index = new CustomerLookupIndex();
+    // Thay đổi xảy ra trong lúc đang nạp chỉ mục, áp dụng lại sau khi nạp xong
+    private final Queue<Long> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final Timer lookupTimer;
+
+    private volatile boolean ready;
+
+    public CustomerLookupService(CustomerRepository customerRepository, MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        this.lookupTimer = Timer.builder("customer.lookup")
+                .description("Customer type-ahead lookup latency")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("customer.lookup.index.size", index, CustomerLookupIndex::size)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            long start = System.nanoTime();
+            List<CustomerSummaryDTO> customers = customerRepository.findAllSummaries();
+            index.rebuild(customers);
+            ready = true;
+            drainPendingChanges();
+            log.info("Customer lookup index loaded: {} customers in {} ms",
+                    index.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Could not load customer lookup index, falling back to database search: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (ready) {
+            refresh(event.customerId());
+            return;
+        }
+        pendingChanges.add(event.customerId());
+        // warmUp có thể đã bật ready và xả hàng đợi giữa lần kiểm tra trên và lúc thêm vào: tự xả
+        if (ready) {
+            drainPendingChanges();
+        }
+    }
+
+    /**
+     * Trang ID khách hàng khớp từ khoá, theo thứ tự của pageable.
+     * Empty nếu chỉ mục chưa sẵn sàng hoặc pageable sắp xếp theo trường chỉ mục không có.
+     */
+    public Optional<Page<Long>> search(String keyword, Pageable pageable) {
+        if (!ready || pageable.isUnpaged()) {
+            return Optional.empty();
+        }
+        CustomerLookupIndex.SortKey sortKey = CustomerLookupIndex.SortKey.ID;
+        boolean ascending = true;
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (orders.size() > 1) {
+            return Optional.empty();
+        }
+        if (orders.size() == 1) {
+            sortKey = SORT_KEYS.get(orders.get(0).getProperty());
+            if (sortKey == null) {
+                return Optional.empty();
+            }
+            ascending = orders.get(0).isAscending();
+        }
+
+        CustomerLookupIndex.SortKey key = sortKey;
+        boolean asc = ascending;
+        CustomerLookupIndex.Result result = lookupTimer.record(() ->
+                index.search(keyword, key, asc, pageable.getOffset(), pageable.getPageSize()));
+        return Optional.of(new PageImpl<>(result.ids(), pageable, result.total()));
+    }
+
+    /**
+     * Áp dụng các thay đổi đang chờ; an toàn khi warmUp và listener cùng xả (mỗi phần tử chỉ được lấy 1 lần,
+     * refresh đọc trạng thái mới nhất từ DB)
+     */
+    private void drainPendingChanges() {
+        Long customerId;
+        while ((customerId = pendingChanges.poll()) != null) {
+            refresh(customerId);
+        }
+    }
+
+    private void refresh(Long customerId) {
+        customerRepository.findSummaryById(customerId)
+                .ifPresentOrElse(index::put, () -> index.remove(customerId));
+    }
+}
@@ -2,21 +2,41 @@ package com.giapho.coffee_shop_backend.service;
 
 import com.giapho.coffee_shop_backend.domain.entity.Customer;
 import com.giapho.coffee_shop_backend.domain.repository.CustomerRepository;
+import com.giapho.coffee_shop_backend.dto.CursorPageResponse;
 import com.giapho.coffee_shop_backend.dto.CustomerDTO;
+import com.giapho.coffee_shop_backend.event.CustomerChangedEvent;
 import com.giapho.coffee_shop_backend.mapper.CustomerMapper;
+import com.giapho.coffee_shop_backend.util.CursorCodec;
+import com.giapho.coffee_shop_backend.util.Keyset;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class CustomerService {
 
+    private static final Sort KEYSET_SORT = Keyset.sort("fullName", Sort.Direction.ASC);
+
     private final CustomerRepository customerRepository;
     private final CustomerMapper customerMapper;
+    private final CustomerLookupService customerLookupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Lấy danh sách khách hàng (phân trang, tìm kiếm)
@@ -24,7 +44,12 @@ public class CustomerService {
     @Transactional(readOnly = true)
     public Page<CustomerDTO> searchCustomers(String keyword, Pageable pageable) {
         Page<Customer> customerPage;
-        if (keyword != null && !keyword.isEmpty()) {
+        if (keyword != null && !keyword.isBlank()) {
+            // Tra cứu ID trên chỉ mục trong bộ nhớ, chỉ đọc DB các khách hàng của trang hiện tại
+            Optional<Page<Long>> idPage = customerLookupService.search(keyword, pageable);
+            if (idPage.isPresent()) {
+                return loadPage(idPage.get(), pageable);
+            }
             customerPage = customerRepository.findByFullNameContainingIgnoreCaseOrPhoneContaining(keyword, keyword, pageable);
         } else {
             customerPage = customerRepository.findAll(pageable);
@@ -33,6 +58,48 @@ public class CustomerService {
         return customerPage.map(customerMapper::toDto);
     }
 
+    /**
+     * Lấy danh sách khách hàng theo keyset (fullName ASC, id ASC), tìm tuỳ chọn theo tên hoặc SĐT.
+     * Type-ahead vẫn dùng {@link #searchCustomers} (chỉ mục trong bộ nhớ, không có OFFSET trên DB).
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<CustomerDTO> getCustomersByCursor(String keyword, String cursor, int size,
+                                                                boolean includeTotal) {
+        Specification<Customer> filter = (root, query, cb) -> {
+            if (keyword == null || keyword.isBlank()) {
+                return cb.conjunction();
+            }
+            String term = keyword.trim();
+            return cb.or(cb.like(cb.lower(root.get("fullName")), "%" + term.toLowerCase(Locale.ROOT) + "%"),
+                    cb.like(root.get("phone"), "%" + term + "%"));
+        };
+
+        Specification<Customer> spec = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            CursorCodec.TextPosition position = CursorCodec.decodeText(cursor);
+            spec = filter.and(Keyset.after("fullName", position.key(), position.id(), Sort.Direction.ASC));
+        }
+
+        int pageSize = Keyset.pageSize(size);
+        List<Customer> rows = customerRepository.findBy(spec, query -> query.sortBy(KEYSET_SORT).limit(pageSize + 1).all());
+        Long total = includeTotal ? customerRepository.count(filter) : null;
+        return Keyset.page(rows, pageSize,
+                customer -> CursorCodec.encode(customer.getFullName(), customer.getId()),
+                customerMapper::toDto, total);
+    }
+
+    private Page<CustomerDTO> loadPage(Page<Long> idPage, Pageable pageable) {
+        Map<Long, Customer> byId = customerRepository.findAllById(idPage.getContent()).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        // Giữ thứ tự của chỉ mục, bỏ qua khách hàng vừa bị xoá
+        List<CustomerDTO> content = idPage.getContent().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(customerMapper::toDto)
+                .toList();
+        return new PageImpl<>(content, pageable, idPage.getTotalElements());
+    }
+
     /**
      * Lấy chi tiết khách hàng theo ID
      */
@@ -71,6 +138,7 @@ public class CustomerService {
         Customer newCustomer = customerMapper.toEntity(customerDTO);
         // loyaltyPoints mặc định là 0
         Customer savedCustomer = customerRepository.save(newCustomer);
+        eventPublisher.publishEvent(new CustomerChangedEvent(savedCustomer.getId()));
         return customerMapper.toDto(savedCustomer);
     }
 
@@ -97,6 +165,7 @@ public class CustomerService {
         // Dùng mapper cập nhật (mapper đã ignore loyaltyPoints, createdAt, updatedAt)
         customerMapper.updateEntityFromDto(customerDTO, existingCustomer);
         Customer updatedCustomer = customerRepository.save(existingCustomer);
+        eventPublisher.publishEvent(new CustomerChangedEvent(id));
         return customerMapper.toDto(updatedCustomer);
     }
 
@@ -111,6 +180,7 @@ public class CustomerService {
         // (Cần kiểm tra xem Customer có đang được liên kết với Order nào không trước khi xoá)
         // (Tạm thời cho phép xoá)
         customerRepository.deleteById(id);
+        eventPublisher.publishEvent(new CustomerChangedEvent(id));
     }
 
     // --- CÁC NGHIỆP VỤ LIÊN QUAN ĐIỂM THƯỞNG SẼ THÊM SAU ---
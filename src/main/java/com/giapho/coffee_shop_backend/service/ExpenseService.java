@@ -3,25 +3,32 @@ package com.giapho.coffee_shop_backend.service;
 import com.giapho.coffee_shop_backend.domain.entity.Expense;
 import com.giapho.coffee_shop_backend.domain.entity.User; // Import User
 import com.giapho.coffee_shop_backend.domain.repository.ExpenseRepository;
-import com.giapho.coffee_shop_backend.domain.repository.UserRepository; // Import UserRepository
+import com.giapho.coffee_shop_backend.dto.CursorPageResponse;
 import com.giapho.coffee_shop_backend.dto.ExpenseDTO;
 import com.giapho.coffee_shop_backend.mapper.ExpenseMapper;
+import com.giapho.coffee_shop_backend.util.CursorCodec;
+import com.giapho.coffee_shop_backend.util.Keyset;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.context.SecurityContextHolder; // Import SecurityContextHolder
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate; // Import LocalDate
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class ExpenseService {
 
+    private static final Sort KEYSET_SORT = Keyset.sort("expenseDate", Sort.Direction.DESC);
+
     private final ExpenseRepository expenseRepository;
-    private final UserRepository userRepository; // Inject UserRepository
+    private final UserDirectory userDirectory;
     private final ExpenseMapper expenseMapper;
 
     /**
@@ -40,6 +47,38 @@ public class ExpenseService {
         return expensePage.map(expenseMapper::toDto);
     }
 
+    /**
+     * Lấy danh sách chi phí theo keyset (expenseDate DESC, id DESC), lọc tuỳ chọn theo khoảng ngày
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ExpenseDTO> getExpensesByCursor(LocalDate startDate, LocalDate endDate,
+                                                              String cursor, int size, boolean includeTotal) {
+        Specification<Expense> filter = (root, query, cb) -> {
+            List<jakarta.persistence.criteria.Predicate> predicates = new ArrayList<>();
+            if (startDate != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("expenseDate"), startDate));
+            }
+            if (endDate != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("expenseDate"), endDate));
+            }
+            return cb.and(predicates.toArray(jakarta.persistence.criteria.Predicate[]::new));
+        };
+
+        Specification<Expense> spec = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            long[] position = CursorCodec.decode(cursor, 2);
+            spec = filter.and(Keyset.after("expenseDate", LocalDate.ofEpochDay(position[0]), position[1],
+                    Sort.Direction.DESC));
+        }
+
+        int pageSize = Keyset.pageSize(size);
+        List<Expense> rows = expenseRepository.findBy(spec, query -> query.sortBy(KEYSET_SORT).limit(pageSize + 1).all());
+        Long total = includeTotal ? expenseRepository.count(filter) : null;
+        return Keyset.page(rows, pageSize,
+                expense -> CursorCodec.encode(expense.getExpenseDate().toEpochDay(), expense.getId()),
+                expenseMapper::toDto, total);
+    }
+
     /**
      * Lấy chi tiết một khoản chi
      */
@@ -56,9 +95,8 @@ public class ExpenseService {
     @Transactional
     public ExpenseDTO createExpense(ExpenseDTO expenseDTO) {
         // Lấy thông tin User đang đăng nhập
-        String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
-        User currentUser = userRepository.findByUsername(currentUsername)
-                .orElseThrow(() -> new EntityNotFoundException("Current user not found"));
+        // Chỉ cần reference để gán khoá ngoại, không SELECT bảng users
+        User currentUser = userDirectory.currentUserReference();
 
         Expense newExpense = expenseMapper.toEntity(expenseDTO);
         newExpense.setUser(currentUser); // Gán người tạo
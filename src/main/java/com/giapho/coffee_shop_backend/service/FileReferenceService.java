@@ -0,0 +1,255 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.config.FileStorageProperties;
+import com.giapho.coffee_shop_backend.domain.entity.StoredFile;
+import com.giapho.coffee_shop_backend.domain.repository.ProductRepository;
+import com.giapho.coffee_shop_backend.domain.repository.StoredFileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Đếm tham chiếu cho ảnh đã lưu: mỗi sản phẩm có imageUrl trỏ tới file là 1 tham chiếu.
+ * <p>
+ * Số tham chiếu được cập nhật trong cùng transaction với thay đổi Product.imageUrl, nên không lệch khi rollback.
+ * Sản phẩm thôi dùng ảnh không xoá file ngay: job dọn rác xoá các file có refCount = 0 sau thời gian chờ.
+ * Job giữ khoá dòng stored_files trong lúc xoá file và chỉ xoá dòng sau khi xoá file thành công,
+ * nên lần xoá thất bại được thử lại ở chu kỳ sau, còn upload lại cùng ảnh trong lúc đó sẽ ghi lại file.
+ * Đối soát số tham chiếu với bảng products chỉ chạy khi bật file.storage.reconcile-on-startup (xem {@link #reconcile}).
+ */
+@Slf4j
+@Service
+public class FileReferenceService {
+
+    // Đường dẫn của API trả file: chỉ imageUrl chứa đường dẫn này mới là file do hệ thống lưu
+    private static final String FILES_PATH = "/api/v1/files/";
+
+    private final StoredFileRepository storedFileRepository;
+    private final ProductRepository productRepository;
+    private final FileStorageService fileStorageService;
+    private final FileStorageProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter collectedCounter;
+
+    public FileReferenceService(StoredFileRepository storedFileRepository,
+                                ProductRepository productRepository,
+                                FileStorageService fileStorageService,
+                                FileStorageProperties properties,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.storedFileRepository = storedFileRepository;
+        this.productRepository = productRepository;
+        this.fileStorageService = fileStorageService;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.collectedCounter = Counter.builder("files.gc.collected").register(meterRegistry);
+    }
+
+    /**
+     * Chuyển file cũ vào cây thư mục; nếu bật file.storage.reconcile-on-startup thì đối soát bảng stored_files
+     * với nơi lưu file và bảng products.
+     * <p>
+     * Đối soát ghi đè refCount bằng số đếm từ bảng products, nên các thay đổi tham chiếu của node khác trong lúc đếm
+     * sẽ bị mất: chỉ bật khi không có node nào khác đang ghi (chạy 1 node khi bảo trì / sau khi chuyển dữ liệu).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        try {
+            fileStorageService.migrateToShardedLayout();
+            if (!properties.isReconcileOnStartup()) {
+                return;
+            }
+            Map<String, Integer> references = countProductReferences();
+            List<String> files = fileStorageService.listStoredFiles();
+            transactionTemplate.executeWithoutResult(status -> reconcileRows(files, references));
+            log.info("Reconciled reference counts for {} stored files", files.size());
+        } catch (Exception e) {
+            log.warn("Could not reconcile stored file references: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Lưu ảnh upload và ghi nhận file (chưa có tham chiếu: nếu không sản phẩm nào dùng, job dọn rác sẽ xoá).
+     * Gọi ngoài transaction của sản phẩm: dòng stored_files phải commit ngay vì file đã nằm trong nơi lưu trữ.
+     */
+    public String storeFile(MultipartFile file) {
+        String fileName = fileStorageService.storeFile(file);
+        register(fileName);
+        // Ảnh trùng nội dung được dùng lại, nhưng job dọn rác có thể đã xoá nó trước khi dòng được ghi lại.
+        // Dòng vừa ghi có updatedAt mới nên job không lấy nữa: ghi lại file là đủ.
+        if (!fileStorageService.exists(fileName)) {
+            fileName = fileStorageService.storeFile(file);
+        }
+        return fileName;
+    }
+
+    /**
+     * Sản phẩm đổi ảnh: tăng tham chiếu ảnh mới, giảm tham chiếu ảnh cũ (trong transaction của sản phẩm)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void replace(String oldImageUrl, String newImageUrl) {
+        String oldFileName = fileNameOf(oldImageUrl);
+        String newFileName = fileNameOf(newImageUrl);
+        if (oldFileName != null && oldFileName.equals(newFileName)) {
+            return;
+        }
+        if (newFileName != null) {
+            acquire(newFileName);
+        }
+        if (oldFileName != null) {
+            storedFileRepository.decrementRefCount(oldFileName, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Xoá file theo yêu cầu (API xoá file): từ chối nếu vẫn còn sản phẩm dùng
+     */
+    @Transactional
+    public void deleteFile(String fileName) {
+        Optional<StoredFile> storedFile = storedFileRepository.lockByFileName(fileName);
+        if (storedFile.isPresent() && storedFile.get().getRefCount() > 0) {
+            throw new IllegalArgumentException("File " + fileName + " is still used by "
+                    + storedFile.get().getRefCount() + " product(s)");
+        }
+        // Xoá file khi đang giữ khoá dòng, rồi mới xoá dòng (như job dọn rác)
+        fileStorageService.deleteFile(fileName);
+        storedFile.ifPresent(storedFileRepository::delete);
+    }
+
+    /**
+     * Xoá các file không còn tham chiếu quá thời gian chờ, mỗi file trong 1 transaction riêng
+     */
+    @Scheduled(fixedDelayString = "${file.storage.gc-interval:1h}",
+            initialDelayString = "${file.storage.gc-interval:1h}")
+    public void collectGarbage() {
+        int total = 0;
+        int collected;
+        int found;
+        do {
+            LocalDateTime cutoff = LocalDateTime.now().minus(properties.getGcGracePeriod());
+            List<StoredFile> candidates = storedFileRepository.findByRefCountAndUpdatedAtBefore(
+                    0, cutoff, Limit.of(properties.getGcBatchSize()));
+            found = candidates.size();
+            collected = 0;
+            for (StoredFile candidate : candidates) {
+                if (collect(candidate, cutoff)) {
+                    collected++;
+                }
+            }
+            total += collected;
+        } while (found >= properties.getGcBatchSize() && collected > 0);
+
+        int tempFiles = fileStorageService.cleanTempFiles(properties.getGcGracePeriod());
+        if (total > 0 || tempFiles > 0) {
+            collectedCounter.increment(total);
+            log.info("Collected {} unreferenced stored files and {} stale temporary files", total, tempFiles);
+        }
+    }
+
+    /**
+     * Tên file do hệ thống lưu từ imageUrl (null nếu URL rỗng hoặc trỏ ra ngoài)
+     */
+    private static String fileNameOf(String imageUrl) {
+        if (imageUrl == null || imageUrl.isBlank()) {
+            return null;
+        }
+        int index = imageUrl.lastIndexOf(FILES_PATH);
+        if (index < 0) {
+            return null;
+        }
+        String fileName = imageUrl.substring(index + FILES_PATH.length());
+        return fileName.isEmpty() || fileName.contains("/") ? null : fileName;
+    }
+
+    private void acquire(String fileName) {
+        LocalDateTime now = LocalDateTime.now();
+        if (storedFileRepository.incrementRefCount(fileName, now) == 1) {
+            return;
+        }
+        // File chưa có trong stored_files (upload trước khi có bảng này, hoặc imageUrl nhập tay):
+        // ghi nhận ngay trong transaction của sản phẩm, không mở connection thứ 2
+        if (!fileStorageService.exists(fileName)) {
+            log.warn("Image {} does not exist in file storage, reference not tracked", fileName);
+            return;
+        }
+        storedFileRepository.upsert(fileName, 1, now);
+    }
+
+    /**
+     * Ghi nhận file vừa lưu (refCount không đổi, cập nhật updatedAt để job dọn rác chờ thêm 1 chu kỳ).
+     * Tham gia transaction đang có, nếu không có thì commit ngay trong transaction ngắn của riêng nó.
+     */
+    private void register(String fileName) {
+        transactionTemplate.executeWithoutResult(status ->
+                storedFileRepository.upsert(fileName, 0, LocalDateTime.now()));
+    }
+
+    /**
+     * Xoá 1 file không còn tham chiếu: khoá dòng, xoá file, rồi xoá dòng trong cùng transaction.
+     * Xoá file lỗi thì transaction rollback, dòng còn nguyên để chu kỳ sau thử lại.
+     */
+    private boolean collect(StoredFile candidate, LocalDateTime cutoff) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                // Có thể vừa được dùng lại / upload lại sau khi lấy danh sách
+                Optional<StoredFile> locked = storedFileRepository.lockIfUnreferenced(candidate.getId(), cutoff);
+                if (locked.isEmpty()) {
+                    return false;
+                }
+                fileStorageService.deleteFile(candidate.getFileName());
+                storedFileRepository.delete(locked.get());
+                return true;
+            }));
+        } catch (Exception e) {
+            log.error("Could not delete unreferenced file {}", candidate.getFileName(), e);
+            return false;
+        }
+    }
+
+    private void reconcileRows(List<String> files, Map<String, Integer> references) {
+        Map<String, StoredFile> rows = new HashMap<>();
+        storedFileRepository.findAll().forEach(row -> rows.put(row.getFileName(), row));
+
+        for (String fileName : files) {
+            int refCount = references.getOrDefault(fileName, 0);
+            if (rows.remove(fileName) == null) {
+                storedFileRepository.save(StoredFile.builder().fileName(fileName).refCount(refCount).build());
+            } else {
+                storedFileRepository.updateRefCount(fileName, refCount);
+            }
+        }
+        // Dòng không còn file trên ổ đĩa
+        if (!rows.isEmpty()) {
+            storedFileRepository.deleteAll(rows.values());
+            log.info("Removed {} stored file records without a file on disk", rows.size());
+        }
+    }
+
+    private Map<String, Integer> countProductReferences() {
+        Map<String, Integer> references = new HashMap<>();
+        for (Object[] row : productRepository.countByImageUrl()) {
+            String fileName = fileNameOf((String) row[0]);
+            if (fileName != null) {
+                // Cùng file nhưng khác base URL (đổi domain) vẫn tính chung
+                references.merge(fileName, ((Number) row[1]).intValue(), Integer::sum);
+            }
+        }
+        return references;
+    }
+}
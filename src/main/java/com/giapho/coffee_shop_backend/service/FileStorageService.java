@@ -2,74 +2,150 @@ package com.giapho.coffee_shop_backend.service;
 
 import com.giapho.coffee_shop_backend.config.FileStorageProperties;
 import com.giapho.coffee_shop_backend.exception.FileStorageException;
+import com.giapho.coffee_shop_backend.service.ImageProcessingService.ProcessedImage;
+import com.giapho.coffee_shop_backend.service.ImageProcessingService.Variant;
+import com.giapho.coffee_shop_backend.storage.BlobResource;
+import com.giapho.coffee_shop_backend.storage.BlobStore;
+import com.giapho.coffee_shop_backend.storage.LocalBlobStore;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.MalformedURLException;
+import java.net.URI;
 import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.UUID;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Service xử lý upload, lưu trữ và truy xuất file
+ * <p>
+ * Ảnh được đặt tên theo SHA-256 của nội dung. Nội dung nằm trong {@link BlobStore} (ổ đĩa hoặc S3,
+ * chọn bằng file.storage.backend); ổ đĩa local chỉ còn dùng làm chỗ chứa file tạm khi xử lý upload.
  */
 @Service
 @Slf4j
 public class FileStorageService {
 
-    private final Path fileStorageLocation;
+    /**
+     * File sẽ được trả về cho client
+     *
+     * @param size        -1 nếu chưa biết (file trả bằng redirect)
+     * @param eTag        ETag (chưa có dấu nháy)
+     * @param immutable   tên file theo nội dung: nội dung dưới tên này không bao giờ đổi, cho phép cache lâu dài
+     * @param localPath   đường dẫn trên ổ đĩa (backend local), để gửi bằng sendfile
+     * @param redirectUrl URL ký sẵn để client tải thẳng từ backend (S3), null nếu app tự trả nội dung
+     */
+    public record ServedFile(String fileName, long size, long lastModified, String eTag, boolean immutable,
+                             Path localPath, URI redirectUrl) {
+    }
+
+    // Định dạng của các bản ảnh đã encode lại (xem ImageProcessingService)
+    private static final String[] STORED_EXTENSIONS = {"jpg", "png"};
+
+    // Tên file theo nội dung (cả các bản -sm / -md)
+    private static final Pattern CONTENT_ADDRESSED_NAME =
+            Pattern.compile("^[0-9a-f]{64}(?:-sm|-md)?\\.(?:jpg|png)$");
+
+    // Key đã thấy tồn tại trong BlobStore (nội dung dưới tên theo nội dung không đổi, chỉ có thể bị xoá)
+    private static final int PRESENT_BLOBS_MAX_ENTRIES = 100_000;
+    private static final Duration PRESENT_BLOBS_TTL = Duration.ofMinutes(10);
+
+    // File upload được copy ra đây để hash / kiểm tra / decode trước khi ghi vào BlobStore
+    private final Path tempLocation;
     private final FileStorageProperties fileStorageProperties;
+    private final ImageProcessingService imageProcessingService;
+    private final BlobStore blobStore;
+    private final Cache<String, Boolean> presentBlobs = CacheBuilder.newBuilder()
+            .maximumSize(PRESENT_BLOBS_MAX_ENTRIES)
+            .expireAfterWrite(PRESENT_BLOBS_TTL)
+            .build();
 
     @Autowired
-    public FileStorageService(FileStorageProperties fileStorageProperties) {
+    public FileStorageService(FileStorageProperties fileStorageProperties,
+                              ImageProcessingService imageProcessingService,
+                              BlobStore blobStore) {
         this.fileStorageProperties = fileStorageProperties;
-        this.fileStorageLocation = Paths.get(fileStorageProperties.getUploadDir())
-                .toAbsolutePath().normalize();
+        this.imageProcessingService = imageProcessingService;
+        this.blobStore = blobStore;
+        this.tempLocation = Paths.get(fileStorageProperties.getUploadDir())
+                .toAbsolutePath().normalize().resolve(".tmp");
 
         try {
-            Files.createDirectories(this.fileStorageLocation);
-            log.info("File storage directory created at: {}", this.fileStorageLocation);
+            Files.createDirectories(this.tempLocation);
         } catch (Exception ex) {
             throw new FileStorageException("Could not create the directory where the uploaded files will be stored.", ex);
         }
     }
 
     /**
-     * Lưu file và trả về tên file đã lưu
+     * Lưu ảnh upload thành các bản full / medium / thumbnail và trả về tên file bản full.
+     * Tên file là SHA-256 của nội dung gốc, nên cùng một ảnh upload lại sẽ dùng lại file đã có.
      */
     public String storeFile(MultipartFile file) {
         // Validate file
         validateFile(file);
 
-        // Tạo tên file unique
         String originalFileName = StringUtils.cleanPath(file.getOriginalFilename());
-        String fileExtension = getFileExtension(originalFileName);
-        String newFileName = generateUniqueFileName() + "." + fileExtension;
+        // Kiểm tra file name không có ký tự đặc biệt
+        if (originalFileName.contains("..")) {
+            throw new FileStorageException("Filename contains invalid path sequence: " + originalFileName);
+        }
 
+        Path upload = null;
         try {
-            // Kiểm tra file name không có ký tự đặc biệt
-            if (originalFileName.contains("..")) {
-                throw new FileStorageException("Filename contains invalid path sequence: " + originalFileName);
+            // 1 lượt đọc: copy upload ra file tạm và tính SHA-256 cùng lúc (không giữ cả file trong heap)
+            upload = Files.createTempFile(this.tempLocation, "upload-", ".part");
+            String baseName = copyAndHash(file, upload);
+
+            // Magic bytes + header (kích thước), chưa decode pixel
+            ImageProcessingService.ImageInfo info = imageProcessingService.inspect(upload);
+
+            // Cùng nội dung đã được lưu trước đó: dùng lại, không cần decode
+            String existing = findStoredFile(baseName);
+            if (existing != null) {
+                log.info("File already stored: {} (original: {})", existing, originalFileName);
+                return existing;
             }
 
-            // Copy file vào thư mục đích
-            Path targetLocation = this.fileStorageLocation.resolve(newFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            // Decode, xoay theo EXIF, thu nhỏ và encode lại (bỏ metadata)
+            List<ProcessedImage> images = imageProcessingService.process(upload, info);
+            String newFileName = baseName + "." + images.get(0).extension();
 
-            log.info("File stored successfully: {} (original: {})", newFileName, originalFileName);
+            // Bản FULL ghi sau cùng: khi file chính đã tồn tại thì các bản nhỏ chắc chắn đã có
+            String contentType = "image/" + (images.get(0).extension().equals("png") ? "png" : "jpeg");
+            for (int i = images.size() - 1; i >= 0; i--) {
+                ProcessedImage image = images.get(i);
+                blobStore.put(image.variant().fileName(newFileName), new ByteArrayInputStream(image.data()),
+                        image.data().length, contentType);
+            }
+
+            log.info("File stored successfully: {} (original: {}, {} bytes -> {} bytes full size)",
+                    newFileName, originalFileName, file.getSize(), images.get(0).data().length);
             return newFileName;
 
         } catch (IOException ex) {
-            throw new FileStorageException("Could not store file " + newFileName + ". Please try again!", ex);
+            throw new FileStorageException("Could not store file " + originalFileName + ". Please try again!", ex);
+        } finally {
+            deleteQuietly(upload);
         }
     }
 
@@ -77,27 +153,69 @@ public class FileStorageService {
      * Load file như một Resource
      */
     public Resource loadFileAsResource(String fileName) {
+        return loadFileAsResource(fileName, Variant.FULL);
+    }
+
+    /**
+     * Load một kích thước của ảnh. File cũ (upload trước khi có variant) chỉ có bản gốc nên trả về bản gốc.
+     */
+    public Resource loadFileAsResource(String fileName, Variant variant) {
+        ServedFile file = loadFileForServing(fileName, variant);
+        return file.localPath() != null ? new FileSystemResource(file.localPath()) : openFile(file);
+    }
+
+    /**
+     * Thông tin để trả file qua HTTP (chỉ đọc thuộc tính file, không mở file).
+     * Backend có URL ký sẵn (S3): ảnh theo nội dung trả về redirect sau khi kiểm tra object tồn tại (HEAD).
+     * Kết quả "có tồn tại" được cache vì nội dung dưới tên đó không đổi; file xoá qua {@link #deleteFile}
+     * bị bỏ khỏi cache ngay, còn file xoá ở instance khác có thể vẫn được redirect (S3 trả 404) thêm tối đa
+     * 10 phút, chỉ xảy ra với file đã không còn sản phẩm nào dùng (xem job dọn rác).
+     */
+    public ServedFile loadFileForServing(String fileName, Variant variant) {
+        validateFileName(fileName);
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
+            if (CONTENT_ADDRESSED_NAME.matcher(fileName).matches()) {
+                // Ảnh theo nội dung luôn được lưu đủ các kích thước
+                String servedName = variant.fileName(fileName);
+                Optional<URI> redirect = blobStore.presignedUrl(servedName, fileStorageProperties.getS3().getPresignTtl());
+                if (redirect.isPresent() && isPresent(servedName)) {
+                    return new ServedFile(servedName, -1, 0, eTagOf(servedName, -1, 0), true, null, redirect.get());
+                }
+            }
 
-            if (resource.exists()) {
-                return resource;
-            } else {
-                throw new FileStorageException("File not found: " + fileName);
+            String servedName = variant.fileName(fileName);
+            Optional<BlobStore.BlobInfo> info = blobStore.stat(servedName);
+            if (info.isEmpty()) {
+                servedName = fileName;
+                info = blobStore.stat(servedName);
             }
-        } catch (MalformedURLException ex) {
-            throw new FileStorageException("File not found: " + fileName, ex);
+            BlobStore.BlobInfo blob = info.orElseThrow(() -> new FileStorageException("File not found: " + fileName));
+            boolean immutable = CONTENT_ADDRESSED_NAME.matcher(servedName).matches();
+            return new ServedFile(servedName, blob.size(), blob.lastModified(),
+                    eTagOf(servedName, blob.size(), blob.lastModified()), immutable,
+                    blobStore.localPath(servedName).orElse(null), null);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not read file: " + fileName, ex);
         }
     }
 
     /**
-     * Xóa file
+     * Nội dung file cho backend không có đường dẫn local (đọc dạng stream từ BlobStore)
+     */
+    public Resource openFile(ServedFile file) {
+        return new BlobResource(blobStore, file.fileName(), file.size());
+    }
+
+    /**
+     * Xóa file (cùng các kích thước của nó)
      */
     public void deleteFile(String fileName) {
+        validateFileName(fileName);
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Files.deleteIfExists(filePath);
+            for (Variant variant : Variant.values()) {
+                blobStore.delete(variant.fileName(fileName));
+                presentBlobs.invalidate(variant.fileName(fileName));
+            }
             log.info("File deleted successfully: {}", fileName);
         } catch (IOException ex) {
             log.error("Could not delete file: {}", fileName, ex);
@@ -105,6 +223,57 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * File (bản FULL) có tồn tại trong nơi lưu trữ không
+     */
+    public boolean exists(String fileName) {
+        validateFileName(fileName);
+        try {
+            return blobStore.exists(fileName);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not read file: " + fileName, ex);
+        }
+    }
+
+    /**
+     * Tên các file đã lưu (chỉ bản FULL, không kể -sm / -md), dùng để đối soát với bảng stored_files
+     */
+    public List<String> listStoredFiles() {
+        try {
+            return blobStore.listKeys().stream()
+                    .filter(name -> !Variant.isSmallerVariant(name))
+                    .toList();
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not list stored files", ex);
+        }
+    }
+
+    /**
+     * Backend local: chuyển các file theo nội dung còn nằm phẳng ở thư mục gốc vào cây thư mục
+     * (xem {@link LocalBlobStore#migrateToShardedLayout()}). Backend khác không có gì để làm.
+     */
+    public int migrateToShardedLayout() {
+        return blobStore instanceof LocalBlobStore local ? local.migrateToShardedLayout() : 0;
+    }
+
+    /**
+     * Xoá file tạm bỏ dở (upload bị ngắt, tiến trình bị kill giữa chừng) cũ hơn olderThan
+     */
+    public int cleanTempFiles(Duration olderThan) {
+        Instant cutoff = Instant.now().minus(olderThan);
+        int deleted = 0;
+        try (Stream<Path> paths = Files.list(this.tempLocation)) {
+            for (Path path : paths.toList()) {
+                if (Files.getLastModifiedTime(path).toInstant().isBefore(cutoff) && Files.deleteIfExists(path)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Could not clean temporary upload files", ex);
+        }
+        return deleted;
+    }
+
     /**
      * Lấy URL đầy đủ của file
      */
@@ -157,40 +326,86 @@ public class FileStorageService {
                             String.join(", ", fileStorageProperties.getAllowedExtensions()))
             );
         }
+        // Nội dung ảnh được kiểm tra bằng magic bytes + header khi lưu (ImageProcessingService.inspect)
+    }
+
+    /**
+     * Lấy file extension
+     */
+    private String getFileExtension(String fileName) {
+        if (fileName == null || !fileName.contains(".")) {
+            throw new FileStorageException("File must have an extension");
+        }
+        return fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
+    }
 
-        // Validate là image file thật
-        validateImageFile(file);
+    /**
+     * Copy nội dung upload ra file tạm, trả về SHA-256 (hex) của nội dung - dùng làm tên file
+     */
+    private static String copyAndHash(MultipartFile file, Path target) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+        try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(input, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
     }
 
     /**
-     * Validate file là image hợp lệ
+     * Tên file bản FULL đã lưu của nội dung này (ảnh được lưu thành .jpg hoặc .png), null nếu chưa có
      */
-    private void validateImageFile(MultipartFile file) {
-        try (InputStream input = file.getInputStream()) {
-            BufferedImage image = ImageIO.read(input);
-            if (image == null) {
-                throw new FileStorageException("File is not a valid image");
+    private String findStoredFile(String baseName) throws IOException {
+        for (String extension : STORED_EXTENSIONS) {
+            String fileName = baseName + "." + extension;
+            if (blobStore.exists(fileName)) {
+                return fileName;
             }
-            log.debug("Image validated - Width: {}, Height: {}", image.getWidth(), image.getHeight());
-        } catch (IOException ex) {
-            throw new FileStorageException("Could not validate image file", ex);
         }
+        return null;
+    }
+
+    private boolean isPresent(String key) throws IOException {
+        if (presentBlobs.getIfPresent(key) != null) {
+            return true;
+        }
+        boolean exists = blobStore.exists(key);
+        if (exists) {
+            presentBlobs.put(key, Boolean.TRUE); // Không cache "không tồn tại": file có thể vừa được upload
+        }
+        return exists;
     }
 
     /**
-     * Lấy file extension
+     * Tên file từ URL / client chỉ là 1 tên, không được chứa đường dẫn (path traversal)
      */
-    private String getFileExtension(String fileName) {
-        if (fileName == null || !fileName.contains(".")) {
-            throw new FileStorageException("File must have an extension");
+    private static void validateFileName(String fileName) {
+        if (fileName == null || fileName.isEmpty() || fileName.contains("/") || fileName.contains("\\")
+                || fileName.contains("..")) {
+            throw new FileStorageException("Invalid file name: " + fileName);
         }
-        return fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
     }
 
     /**
-     * Tạo tên file unique
+     * Tên theo nội dung đã là hash → ETag mạnh; file cũ (UUID) dùng kích thước + thời điểm sửa
      */
-    private String generateUniqueFileName() {
-        return UUID.randomUUID().toString();
+    private static String eTagOf(String servedName, long size, long lastModified) {
+        return CONTENT_ADDRESSED_NAME.matcher(servedName).matches()
+                ? servedName.substring(0, servedName.lastIndexOf('.'))
+                : Long.toHexString(size) + "-" + Long.toHexString(lastModified);
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("Could not delete temporary file: {}", path, ex);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.config.FileStorageProperties;
+import com.giapho.coffee_shop_backend.dto.FileUploadResponse;
+import com.giapho.coffee_shop_backend.exception.FileStorageException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Xử lý upload ảnh với giới hạn tài nguyên chung cho cả server:
+ * - Tối đa uploadParallelism ảnh được decode/encode cùng lúc (việc tốn CPU)
+ * - Tổng dung lượng file đang xử lý không vượt uploadInFlightBytes, để một loạt upload lớn không làm cạn heap / I/O
+ * <p>
+ * Upload nhiều file: mỗi file chạy trên 1 virtual thread, kết quả trả theo từng file (file lỗi không làm hỏng cả lô).
+ */
+@Slf4j
+@Service
+public class FileUploadService {
+
+    // Ngân sách dung lượng tính theo KiB để số permit của Semaphore không tràn int
+    private static final int KIB = 1024;
+
+    private final FileReferenceService fileReferenceService;
+    private final FileStorageService fileStorageService;
+    private final FileStorageProperties properties;
+    private final ExecutorService executor;
+    private final Semaphore workers;
+    private final Semaphore byteBudget;
+    private final int byteBudgetKib;
+
+    public FileUploadService(FileReferenceService fileReferenceService,
+                             FileStorageService fileStorageService,
+                             FileStorageProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.fileReferenceService = fileReferenceService;
+        this.fileStorageService = fileStorageService;
+        this.properties = properties;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("upload-", 0).factory());
+        this.workers = new Semaphore(Math.max(1, properties.getUploadParallelism()), true);
+        this.byteBudgetKib = (int) Math.min(Integer.MAX_VALUE, Math.max(1, properties.getUploadInFlightBytes() / KIB));
+        this.byteBudget = new Semaphore(byteBudgetKib, true);
+        Gauge.builder("files.upload.inflight.bytes", byteBudget,
+                        budget -> (double) (byteBudgetKib - budget.availablePermits()) * KIB)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Upload 1 file trên luồng của request (vẫn tính vào giới hạn chung). Lỗi được ném ra như trước.
+     */
+    public FileUploadResponse store(MultipartFile file) {
+        return success(file, storeWithinLimits(file));
+    }
+
+    /**
+     * Lưu ảnh của sản phẩm (trong ProductService), trả về tên file
+     */
+    public String storeFile(MultipartFile file) {
+        return storeWithinLimits(file);
+    }
+
+    /**
+     * Upload nhiều file song song; kết quả theo đúng thứ tự file gửi lên
+     */
+    public List<FileUploadResponse> storeAll(MultipartFile[] files) {
+        List<Future<FileUploadResponse>> futures = new ArrayList<>(files.length);
+        for (MultipartFile file : files) {
+            futures.add(executor.submit(() -> process(file)));
+        }
+
+        List<FileUploadResponse> responses = new ArrayList<>(files.length);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                responses.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(future -> future.cancel(true));
+                throw new FileStorageException("Upload was interrupted");
+            } catch (ExecutionException e) {
+                responses.add(failure(files[i], "Could not store file"));
+            }
+        }
+        return responses;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private FileUploadResponse process(MultipartFile file) {
+        try {
+            return success(file, storeWithinLimits(file));
+        } catch (FileStorageException e) {
+            log.warn("Upload of {} failed: {}", file.getOriginalFilename(), e.getMessage());
+            return failure(file, e.getMessage());
+        } catch (Exception e) {
+            log.error("Upload of {} failed", file.getOriginalFilename(), e);
+            return failure(file, "Could not store file");
+        }
+    }
+
+    /**
+     * Chờ tới lượt (ngân sách dung lượng rồi tới slot xử lý) và lưu file; hết thời gian chờ thì từ chối
+     */
+    private String storeWithinLimits(MultipartFile file) {
+        int permits = (int) Math.min(byteBudgetKib, Math.max(1, (file.getSize() + KIB - 1) / KIB));
+        long timeoutMs = properties.getUploadQueueTimeout().toMillis();
+        try {
+            if (!byteBudget.tryAcquire(permits, timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new FileStorageException("Server is busy processing other uploads, please try again");
+            }
+            try {
+                if (!workers.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new FileStorageException("Server is busy processing other uploads, please try again");
+                }
+                try {
+                    return fileReferenceService.storeFile(file);
+                } finally {
+                    workers.release();
+                }
+            } finally {
+                byteBudget.release(permits);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileStorageException("Upload was interrupted", e);
+        }
+    }
+
+    private FileUploadResponse success(MultipartFile file, String fileName) {
+        return FileUploadResponse.builder()
+                .originalFileName(file.getOriginalFilename())
+                .success(true)
+                .fileName(fileName)
+                .fileUrl(fileStorageService.getFileUrl(fileName))
+                .fileSize(file.getSize())
+                .fileType(file.getContentType())
+                .message("File uploaded successfully")
+                .build();
+    }
+
+    private static FileUploadResponse failure(MultipartFile file, String error) {
+        return FileUploadResponse.builder()
+                .originalFileName(file.getOriginalFilename())
+                .success(false)
+                .fileSize(file.getSize())
+                .fileType(file.getContentType())
+                .message("File upload failed")
+                .error(error)
+                .build();
+    }
+}
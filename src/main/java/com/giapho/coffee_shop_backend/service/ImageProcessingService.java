@@ -0,0 +1,393 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.config.FileStorageProperties;
+import com.giapho.coffee_shop_backend.exception.FileStorageException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Xử lý ảnh upload: xoay theo EXIF, tạo các bản thumbnail / medium / full theo chiều rộng cố định
+ * và encode lại (JPEG, hoặc PNG nếu ảnh có nền trong suốt).
+ * Ảnh được encode lại từ pixel nên toàn bộ metadata (EXIF, GPS, ICC...) của file gốc bị loại bỏ.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageProcessingService {
+
+    /**
+     * Các kích thước ảnh được lưu. Ảnh nhỏ hơn chiều rộng của variant thì giữ nguyên kích thước (không phóng to).
+     */
+    public enum Variant {
+        THUMBNAIL("thumb", 200, "-sm"),
+        MEDIUM("medium", 600, "-md"),
+        FULL("full", 1600, "");
+
+        private final String param;
+        private final int maxWidth;
+        private final String suffix;
+
+        Variant(String param, int maxWidth, String suffix) {
+            this.param = param;
+            this.maxWidth = maxWidth;
+            this.suffix = suffix;
+        }
+
+        public int maxWidth() {
+            return maxWidth;
+        }
+
+        /**
+         * Giá trị tham số ?size= (thumb, medium, full); mặc định là FULL
+         */
+        public static Variant fromParam(String size) {
+            if (size == null || size.isBlank()) {
+                return FULL;
+            }
+            for (Variant variant : values()) {
+                if (variant.param.equalsIgnoreCase(size.trim())) {
+                    return variant;
+                }
+            }
+            throw new IllegalArgumentException("Invalid image size: " + size + " (thumb, medium, full)");
+        }
+
+        /**
+         * Tên file của variant, suy ra từ tên file bản full (VD: abc.jpg → abc-sm.jpg)
+         */
+        public String fileName(String fullFileName) {
+            if (suffix.isEmpty()) {
+                return fullFileName;
+            }
+            int dot = fullFileName.lastIndexOf('.');
+            return dot < 0
+                    ? fullFileName + suffix
+                    : fullFileName.substring(0, dot) + suffix + fullFileName.substring(dot);
+        }
+
+        /**
+         * Tên file có phải là bản thu nhỏ (-sm / -md) của một ảnh không
+         */
+        public static boolean isSmallerVariant(String fileName) {
+            int dot = fileName.lastIndexOf('.');
+            String baseName = dot < 0 ? fileName : fileName.substring(0, dot);
+            return baseName.endsWith(THUMBNAIL.suffix) || baseName.endsWith(MEDIUM.suffix);
+        }
+    }
+
+    public record ProcessedImage(Variant variant, String extension, byte[] data, int width, int height) {
+    }
+
+    /**
+     * Thông tin đọc từ header ảnh (không decode pixel)
+     *
+     * @param orientation giá trị EXIF Orientation (1 nếu không có)
+     */
+    public record ImageInfo(String format, int width, int height, int orientation) {
+    }
+
+    // Segment APP1/Exif tối đa 64KB, nằm gần đầu file JPEG
+    private static final int METADATA_PREFIX_BYTES = 128 * 1024;
+
+    private final FileStorageProperties fileStorageProperties;
+
+    /**
+     * Kiểm tra file là ảnh hợp lệ chỉ bằng magic bytes và header (kích thước), không decode pixel.
+     * Từ chối ảnh vượt quá số điểm ảnh cho phép (file nén nhỏ nhưng giải nén ra hàng trăm MB).
+     */
+    public ImageInfo inspect(Path file) {
+        String format;
+        byte[] prefix;
+        try (InputStream input = Files.newInputStream(file)) {
+            prefix = input.readNBytes(METADATA_PREFIX_BYTES);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not read image file", ex);
+        }
+        format = sniffFormat(prefix);
+        if (format == null) {
+            throw new FileStorageException("File is not a valid image");
+        }
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = readerFor(input, format);
+            try {
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > fileStorageProperties.getMaxImagePixels()) {
+                    throw new FileStorageException(String.format(
+                            "Image dimensions %dx%d exceed the limit of %d pixels",
+                            width, height, fileStorageProperties.getMaxImagePixels()));
+                }
+                return new ImageInfo(format, width, height, readExifOrientation(prefix));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException ex) {
+            throw new FileStorageException("File is not a valid image", ex);
+        }
+    }
+
+    /**
+     * Tạo tất cả variant từ file ảnh đã qua {@link #inspect} (theo thứ tự FULL, MEDIUM, THUMBNAIL).
+     * Ảnh lớn hơn nhiều so với bản FULL được decode có lấy mẫu (subsampling), nên raster trong bộ nhớ
+     * chỉ cỡ 1-2 lần bản FULL thay vì toàn bộ ảnh gốc.
+     */
+    public List<ProcessedImage> process(Path file, ImageInfo info) {
+        BufferedImage source;
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = readerFor(input, info.format());
+            try {
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Cạnh sẽ thành chiều rộng sau khi xoay theo EXIF
+                int displayWidth = info.orientation() >= 5 ? info.height() : info.width();
+                int factor = Math.max(1, displayWidth / Variant.FULL.maxWidth());
+                if (factor > 1) {
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                }
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not read image file", ex);
+        }
+
+        BufferedImage oriented = applyOrientation(source, info.orientation());
+        boolean transparent = oriented.getColorModel().hasAlpha();
+        String extension = transparent ? "png" : "jpg";
+
+        List<ProcessedImage> result = new ArrayList<>(3);
+        // Mỗi variant thu nhỏ từ variant lớn hơn liền trước, đỡ tốn CPU hơn thu nhỏ từ ảnh gốc
+        BufferedImage current = oriented;
+        for (Variant variant : new Variant[]{Variant.FULL, Variant.MEDIUM, Variant.THUMBNAIL}) {
+            current = resizeToWidth(current, variant.maxWidth(), transparent);
+            result.add(new ProcessedImage(variant, extension, encode(current, extension),
+                    current.getWidth(), current.getHeight()));
+        }
+        log.debug("Processed {} image {}x{} (decoded {}x{}) into {} variants", info.format(),
+                info.width(), info.height(), source.getWidth(), source.getHeight(), result.size());
+        return result;
+    }
+
+    /**
+     * Nhận dạng định dạng ảnh theo magic bytes; null nếu không phải định dạng được hỗ trợ
+     */
+    static String sniffFormat(byte[] header) {
+        if (startsWith(header, 0xFF, 0xD8, 0xFF)) {
+            return "jpeg";
+        }
+        if (startsWith(header, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "png";
+        }
+        if (startsWith(header, 'G', 'I', 'F', '8') && header.length >= 6
+                && (header[4] == '7' || header[4] == '9') && header[5] == 'a') {
+            return "gif";
+        }
+        return null;
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static ImageReader readerFor(ImageInputStream input, String format) throws IOException {
+        if (input == null) {
+            throw new IOException("Cannot open image stream");
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName(format);
+        if (!readers.hasNext()) {
+            throw new IOException("No reader for image format " + format);
+        }
+        ImageReader reader = readers.next();
+        // Chỉ đọc ảnh đầu tiên, bỏ qua metadata
+        reader.setInput(input, true, true);
+        return reader;
+    }
+
+    private static boolean startsWith(byte[] data, int... expected) {
+        if (data.length < expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((data[i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Thu nhỏ về chiều rộng tối đa, giữ tỉ lệ. Giảm dần mỗi bước một nửa (bilinear) để ảnh nhỏ không bị răng cưa.
+     * Luôn trả về ảnh mới kiểu RGB / ARGB để encoder nhận được.
+     */
+    private static BufferedImage resizeToWidth(BufferedImage image, int maxWidth, boolean transparent) {
+        int targetWidth = Math.min(maxWidth, image.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * targetWidth / image.getWidth()));
+
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = width == targetWidth ? targetHeight : Math.max(targetHeight, height / 2);
+            current = draw(current, width, height, transparent, null);
+        } while (width != targetWidth);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean transparent,
+                                      AffineTransform transform) {
+        BufferedImage target = new BufferedImage(width, height,
+                transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (!transparent) {
+                // Nền trắng cho ảnh có kênh alpha nhưng được lưu thành JPEG
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+            }
+            if (transform != null) {
+                g.drawImage(source, transform, null);
+            } else {
+                g.drawImage(source, 0, 0, width, height, null);
+            }
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encode(BufferedImage image, String extension) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(extension).next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpg".equals(extension)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(fileStorageProperties.getImageQuality());
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT); // JPEG progressive: hiện dần trên mạng chậm
+            }
+            // Không truyền metadata → file mới không có EXIF
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not encode image", ex);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Xoay / lật ảnh theo giá trị EXIF Orientation (1-8), vì metadata bị bỏ khi encode lại
+     */
+    static BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5;
+        // x' = m00*x + m01*y + m02, y' = m10*x + m11*y + m12
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);  // lật ngang
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h); // xoay 180°
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);  // lật dọc
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);   // chuyển vị
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);  // xoay 90° theo chiều kim đồng hồ
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w); // chuyển vị ngược
+            default -> new AffineTransform(0, -1, 1, 0, 0, w); // 8: xoay 90° ngược chiều kim đồng hồ
+        };
+        return draw(image, swap ? h : w, swap ? w : h, image.getColorModel().hasAlpha(), transform);
+    }
+
+    /**
+     * Đọc tag Orientation (0x0112) trong segment APP1/Exif của file JPEG; 1 nếu không có.
+     * Chỉ cần phần đầu file (các segment metadata nằm trước dữ liệu ảnh).
+     */
+    static int readExifOrientation(byte[] data) {
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return 1; // Không phải JPEG
+        }
+        int pos = 2;
+        while (pos + 4 <= data.length && (data[pos] & 0xFF) == 0xFF) {
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                break; // Bắt đầu dữ liệu ảnh: không còn metadata
+            }
+            int length = u16(data, pos + 2, true);
+            int segment = pos + 4;
+            if (marker == 0xE1 && segment + 14 <= data.length
+                    && new String(data, segment, 4, StandardCharsets.US_ASCII).equals("Exif")) {
+                return orientationFromTiff(data, segment + 6, Math.min(data.length, pos + 2 + length));
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private static int orientationFromTiff(byte[] data, int tiff, int end) {
+        boolean bigEndian;
+        if (data[tiff] == 'M' && data[tiff + 1] == 'M') {
+            bigEndian = true;
+        } else if (data[tiff] == 'I' && data[tiff + 1] == 'I') {
+            bigEndian = false;
+        } else {
+            return 1;
+        }
+        if (tiff + 8 > end) {
+            return 1;
+        }
+        long ifd = tiff + u32(data, tiff + 4, bigEndian);
+        if (ifd + 2 > end) {
+            return 1;
+        }
+        int entries = u16(data, (int) ifd, bigEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (u16(data, entry, bigEndian) == 0x0112) {
+                return u16(data, entry + 8, bigEndian); // Kiểu SHORT: giá trị nằm ở 2 byte đầu của ô value
+            }
+        }
+        return 1;
+    }
+
+    private static int u16(byte[] data, int pos, boolean bigEndian) {
+        int a = data[pos] & 0xFF;
+        int b = data[pos + 1] & 0xFF;
+        return bigEndian ? (a << 8) | b : (b << 8) | a;
+    }
+
+    private static long u32(byte[] data, int pos, boolean bigEndian) {
+        long high = u16(data, bigEndian ? pos : pos + 2, bigEndian);
+        long low = u16(data, bigEndian ? pos + 2 : pos, bigEndian);
+        return (high << 16) | low;
+    }
+}
@@ -0,0 +1,119 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.LoyaltyPointTransaction;
+import com.giapho.coffee_shop_backend.domain.entity.Order;
+import com.giapho.coffee_shop_backend.domain.repository.CustomerRepository;
+import com.giapho.coffee_shop_backend.domain.repository.LoyaltyPointTransactionRepository;
+import com.giapho.coffee_shop_backend.dto.CursorPageResponse;
+import com.giapho.coffee_shop_backend.dto.LoyaltyPointTransactionDTO;
+import com.giapho.coffee_shop_backend.dto.LoyaltyRedeemRequestDTO;
+import com.giapho.coffee_shop_backend.mapper.LoyaltyPointTransactionMapper;
+import com.giapho.coffee_shop_backend.util.CursorCodec;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Tích điểm / đổi điểm cho khách hàng.
+ * Mọi thay đổi điểm đều đi qua {@link #apply}: 1 câu UPDATE nguyên tử trên customers + 1 dòng sổ điểm.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LoyaltyService {
+
+    // 10,000 VND = 1 điểm
+    private static final BigDecimal AMOUNT_PER_POINT = BigDecimal.valueOf(10000);
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    private final CustomerRepository customerRepository;
+    private final LoyaltyPointTransactionRepository transactionRepository;
+    private final LoyaltyPointTransactionMapper transactionMapper;
+    private final UserDirectory userDirectory;
+
+    /**
+     * Cộng điểm cho khách hàng của đơn vừa thanh toán (chạy trong transaction thanh toán)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void earnForOrder(Order order) {
+        if (order.getCustomer() == null || order.getTotalAmount() == null ||
+                order.getTotalAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return;
+        }
+
+        int pointsToAdd = order.getTotalAmount()
+                .divide(AMOUNT_PER_POINT, 0, RoundingMode.DOWN)
+                .intValue();
+        if (pointsToAdd <= 0) {
+            return;
+        }
+
+        Long customerId = order.getCustomer().getId();
+        apply(customerId, pointsToAdd, LoyaltyPointTransaction.TYPE_EARN, order, null);
+        log.info("Added {} points to customer ID {} for order {}", pointsToAdd, customerId, order.getId());
+    }
+
+    /**
+     * Đổi điểm: trừ điểm nếu số dư đủ
+     */
+    @Transactional
+    public LoyaltyPointTransactionDTO redeem(Long customerId, LoyaltyRedeemRequestDTO request) {
+        LoyaltyPointTransaction transaction = apply(customerId, -request.getPoints(),
+                LoyaltyPointTransaction.TYPE_REDEEM, null, request.getNote());
+
+        LoyaltyPointTransactionDTO dto = transactionMapper.toDto(transaction);
+        // Dòng customers đang bị khoá bởi UPDATE ở trên nên số dư đọc được là chính xác
+        dto.setBalanceAfter(customerRepository.findLoyaltyPointsById(customerId).orElse(null));
+        log.info("Customer ID {} redeemed {} points", customerId, request.getPoints());
+        return dto;
+    }
+
+    /**
+     * Lịch sử điểm (mới nhất trước), phân trang theo keyset trên ID giao dịch
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<LoyaltyPointTransactionDTO> getHistory(Long customerId, String cursor, int size) {
+        if (!customerRepository.existsById(customerId)) {
+            throw new EntityNotFoundException("Customer not found with id: " + customerId);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<LoyaltyPointTransaction> rows = cursor == null || cursor.isBlank()
+                ? transactionRepository.findLatest(customerId, limit)
+                : transactionRepository.findBefore(customerId, CursorCodec.decode(cursor, 1)[0], limit);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<LoyaltyPointTransaction> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? CursorCodec.encode(page.get(page.size() - 1).getId()) : null;
+        return new CursorPageResponse<>(page.stream().map(transactionMapper::toDto).toList(), nextCursor, hasNext);
+    }
+
+    private LoyaltyPointTransaction apply(Long customerId, int delta, String type, Order order, String note) {
+        if (customerRepository.addLoyaltyPoints(customerId, delta) == 0) {
+            if (!customerRepository.existsById(customerId)) {
+                throw new EntityNotFoundException("Customer not found with id: " + customerId);
+            }
+            throw new IllegalArgumentException("Not enough loyalty points to redeem " + (-delta));
+        }
+
+        LoyaltyPointTransaction transaction = LoyaltyPointTransaction.builder()
+                .customer(customerRepository.getReferenceById(customerId))
+                .order(order)
+                .createdBy(userDirectory.currentUserReference())
+                .type(type)
+                .points(delta)
+                .note(note)
+                .build();
+        return transactionRepository.save(transaction);
+    }
+}
@@ -3,19 +3,22 @@ package com.giapho.coffee_shop_backend.service;
 import com.giapho.coffee_shop_backend.domain.entity.*;
 import com.giapho.coffee_shop_backend.domain.repository.*;
 import com.giapho.coffee_shop_backend.dto.*;
+import com.giapho.coffee_shop_backend.event.TablesChangedEvent;
 import com.giapho.coffee_shop_backend.mapper.OrderDetailMapper;
 import com.giapho.coffee_shop_backend.mapper.OrderMapper;
+import com.giapho.coffee_shop_backend.util.CursorCodec;
+import com.giapho.coffee_shop_backend.util.Keyset;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -28,24 +31,60 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class OrderService {
 
+    // Mốc thời gian thay cho bộ lọc ngày / cursor bị bỏ trống (nằm trong miền DATETIME của MySQL)
+    private static final LocalDateTime MIN_CREATED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_CREATED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final OrderRepository orderRepository;
     private final OrderDetailRepository orderDetailRepository;
     private final ProductRepository productRepository;
     private final CafeTableRepository cafeTableRepository;
-    private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
     private final CustomerRepository customerRepository;
     private final IngredientRepository ingredientRepository;
     private final ProductIngredientRepository productIngredientRepository;
     private final OrderMapper orderMapper;
+    private final OrderDetailMapper orderDetailMapper;
     private final VoucherService voucherService; // <-- Đã được inject
+    private final VoucherReservationService voucherReservationService;
+    private final LoyaltyService loyaltyService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Lấy danh sách Order (có phân trang)
+     * Lấy danh sách Order (có phân trang), dạng tóm tắt không kèm chi tiết món
      */
     @Transactional(readOnly = true)
-    public Page<OrderResponseDTO> getAllOrders(Pageable pageable) {
-        Page<Order> orderPage = orderRepository.findAll(pageable);
-        return orderPage.map(orderMapper::entityToResponse);
+    public Page<OrderSummaryDTO> getAllOrders(Pageable pageable) {
+        return findSummaries(null, null, null, pageable);
+    }
+
+    /**
+     * Lấy danh sách Order theo keyset (createdAt DESC, id DESC), lọc tuỳ chọn theo trạng thái / khoảng ngày.
+     * Không dùng OFFSET nên trang sâu không chậm dần; chỉ đếm tổng khi includeTotal = true.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<OrderSummaryDTO> getOrdersByCursor(String status, LocalDate startDate, LocalDate endDate,
+                                                                 String cursor, int size, boolean includeTotal) {
+        String statusFilter = normalizeStatus(status);
+        LocalDateTime from = startDate != null ? startDate.atStartOfDay() : MIN_CREATED_AT;
+        LocalDateTime to = endDate != null ? endDate.plusDays(1).atStartOfDay() : MAX_CREATED_AT;
+
+        LocalDateTime beforeCreatedAt = MAX_CREATED_AT;
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            CursorCodec.TimePosition position = CursorCodec.decodeTime(cursor);
+            beforeCreatedAt = position.time();
+            beforeId = position.id();
+        }
+
+        int pageSize = Keyset.pageSize(size);
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<OrderSummaryDTO> rows = orderRepository.findSummariesBefore(statusFilter, from, to,
+                beforeCreatedAt, beforeId, Limit.of(pageSize + 1));
+        Long total = includeTotal ? orderRepository.countSummaries(statusFilter, from, to) : null;
+        return Keyset.page(rows, pageSize,
+                summary -> CursorCodec.encode(summary.getCreatedAt(), summary.getId()),
+                this::withStaffUsername, total);
     }
 
     /**
@@ -54,27 +93,32 @@ public class OrderService {
      * @param startDate Ngày bắt đầu (inclusive)
      * @param endDate   Ngày kết thúc (inclusive)
      * @param pageable  Thông tin phân trang
-     * @return Trang các OrderResponseDTO
+     * @return Trang các OrderSummaryDTO
      */
     @Transactional(readOnly = true)
-    public Page<OrderResponseDTO> getOrdersByDateRange(LocalDate startDate, LocalDate endDate, Pageable pageable) {
-        // Chuyển LocalDate thành LocalDateTime để so sánh với trường created_at trong database
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay();
-
-        Page<Order> orderPage = orderRepository.findByCreatedAtBetween(startDateTime, endDateTime, pageable);
-        return orderPage.map(orderMapper::entityToResponse);
+    public Page<OrderSummaryDTO> getOrdersByDateRange(LocalDate startDate, LocalDate endDate, Pageable pageable) {
+        return findSummaries(null, startDate, endDate, pageable);
     }
 
 
     @Transactional(readOnly = true)
     public OrderResponseDTO getOrderById(Long id) {
-        // Sử dụng findById và fetch EAGER details để đảm bảo có đủ thông tin
-        Order order = orderRepository.findById(id)
+        // Fetch kèm chi tiết món, bàn, khách hàng trong 1 câu query
+        Order order = orderRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Order not found with id: " + id));
         return orderMapper.entityToResponse(order);
     }
 
+    /**
+     * Lấy các món của một đơn hàng
+     */
+    @Transactional(readOnly = true)
+    public Set<OrderDetailResponseDTO> getOrderDetails(Long id) {
+        Order order = orderRepository.findWithDetailsById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found with id: " + id));
+        return orderDetailMapper.entitySetToResponseSet(order.getOrderDetails());
+    }
+
     /**
      * Lấy đơn hàng đang PENDING của một bàn
      */
@@ -95,9 +139,8 @@ public class OrderService {
     @Transactional
     public OrderResponseDTO createOrder(OrderCreateRequestDTO request) {
         // --- Lấy thông tin User và Customer ---
-        String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
-        User currentUser = userRepository.findByUsername(currentUsername)
-                .orElseThrow(() -> new EntityNotFoundException("Current user not found"));
+        // Chỉ cần reference để gán khoá ngoại, không SELECT bảng users
+        User currentUser = userDirectory.currentUserReference();
 
         Customer customer = null;
         if (request.getCustomerId() != null) {
@@ -137,6 +180,11 @@ public class OrderService {
         // --- Lưu Order ---
         Order savedOrder = orderRepository.save(newOrder);
 
+        // --- Giữ 1 lượt voucher cho đơn (nếu voucher còn hợp lệ sau khi tính tiền) ---
+        if (savedOrder.getVoucherCode() != null) {
+            voucherReservationService.reserve(savedOrder, savedOrder.getVoucherCode());
+        }
+
         // --- Cập nhật trạng thái bàn ---
         updateTableStatusOnOrderCreate(savedOrder.getCafeTable());
 
@@ -238,10 +286,15 @@ public class OrderService {
 
         String paymentMethod = validatePaymentMethod(paymentRequest.getPaymentMethod());
 
-        subtractInventoryForOrder(order);
-
-        // Lưu voucher code trước khi thanh toán
+        // Chuyển lượt voucher đang giữ thành lượt dùng trước tiên: nếu voucher đã hết lượt thì huỷ thanh toán
+        // (rollback), thu ngân gỡ voucher rồi thanh toán lại
         String appliedVoucherCode = order.getVoucherCode();
+        if (appliedVoucherCode != null && !appliedVoucherCode.isEmpty()) {
+            voucherReservationService.convert(order);
+            log.info("Consumed one usage of voucher: {}", appliedVoucherCode);
+        }
+
+        subtractInventoryForOrder(order);
 
         // Cập nhật Order
         order.setStatus("PAID");
@@ -251,24 +304,11 @@ public class OrderService {
 
         log.info("Order {} paid successfully with payment method: {}", orderId, paymentMethod);
 
-        // *** CẢI TIẾN: Tăng usage count cho voucher ***
-        if (appliedVoucherCode != null && !appliedVoucherCode.isEmpty()) {
-            try {
-                voucherService.incrementUsageCount(appliedVoucherCode);
-                log.info("Incremented usage count for voucher: {}", appliedVoucherCode);
-            } catch (Exception e) {
-                log.error("Failed to increment voucher usage for code: {}", appliedVoucherCode, e);
-                // Không throw exception để không ảnh hưởng đến việc thanh toán
-            }
-        }
-
         // Cập nhật Bàn
         updateTableStatusOnOrderCompletion(order.getCafeTable());
 
-        // Cộng điểm thưởng
-        if (order.getCustomer() != null) {
-            addLoyaltyPoints(order);
-        }
+        // Cộng điểm thưởng (UPDATE nguyên tử + ghi sổ điểm)
+        loyaltyService.earnForOrder(order);
 
         return fetchAndMapOrder(orderId, "Failed to fetch paid order");
     }
@@ -291,6 +331,9 @@ public class OrderService {
             throw new IllegalArgumentException(voucherCheck.getMessage());
         }
 
+        // Giữ 1 lượt voucher cho đơn này đến khi thanh toán / gỡ voucher / hết hạn giữ chỗ
+        voucherReservationService.reserve(order, voucherCode);
+
         // Apply voucher
         order.setVoucherCode(voucherCode.trim().toUpperCase());
         order.setDiscountAmount(voucherCheck.getDiscountAmount());
@@ -314,6 +357,9 @@ public class OrderService {
 
         String removedVoucher = order.getVoucherCode();
 
+        // Trả lại lượt voucher đang giữ
+        voucherReservationService.release(order);
+
         // Remove voucher
         order.setVoucherCode(null);
         order.setDiscountAmount(BigDecimal.ZERO);
@@ -327,12 +373,28 @@ public class OrderService {
     }
 
     @Transactional(readOnly = true)
-    public Page<OrderResponseDTO> getOrdersByStatus(String status, Pageable pageable) {
-        if (status == null || status.trim().isEmpty()) {
-            return getAllOrders(pageable);
-        }
-        Page<Order> orders = orderRepository.findByStatus(status.trim().toUpperCase(), pageable);
-        return orders.map(orderMapper::entityToResponse);
+    public Page<OrderSummaryDTO> getOrdersByStatus(String status, Pageable pageable) {
+        return findSummaries(status, null, null, pageable);
+    }
+
+    private Page<OrderSummaryDTO> findSummaries(String status, LocalDate startDate, LocalDate endDate, Pageable pageable) {
+        // Chuyển LocalDate thành LocalDateTime để so sánh với trường created_at trong database
+        LocalDateTime from = startDate != null ? startDate.atStartOfDay() : MIN_CREATED_AT;
+        LocalDateTime to = endDate != null ? endDate.plusDays(1).atStartOfDay() : MAX_CREATED_AT;
+        return orderRepository.findSummaries(normalizeStatus(status), from, to, pageable)
+                .map(this::withStaffUsername);
+    }
+
+    private static String normalizeStatus(String status) {
+        return status == null || status.isBlank() ? null : status.trim().toUpperCase();
+    }
+
+    // Username lấy từ UserDirectory (cache) thay vì join bảng users
+    private OrderSummaryDTO withStaffUsername(OrderSummaryDTO summary) {
+        summary.setStaffUsername(userDirectory.find(summary.getStaffId())
+                .map(UserSummaryDTO::getUsername)
+                .orElse(null));
+        return summary;
     }
 
     /**
@@ -345,6 +407,11 @@ public class OrderService {
         order.setStatus("CANCELLED");
         orderRepository.save(order); // Lưu trạng thái CANCELLED
 
+        // Trả lại lượt voucher đang giữ (nếu có)
+        if (order.getVoucherCode() != null) {
+            voucherReservationService.release(order);
+        }
+
         // Cập nhật Bàn
         updateTableStatusOnOrderCompletion(order.getCafeTable());
 
@@ -417,8 +484,9 @@ public class OrderService {
     /**
      * Tính toán lại subTotal, discountAmount, totalAmount cho Order
      * SỬA LỖI: Hàm này đã được sửa để sử dụng VoucherService
+     * (package-private để benchmark trong src/jmh gọi trực tiếp)
      */
-    private void recalculateOrderTotals(Order order) {
+    void recalculateOrderTotals(Order order) {
         BigDecimal subTotal = BigDecimal.ZERO;
         if (order.getOrderDetails() != null) {
             for (OrderDetail detail : order.getOrderDetails()) {
@@ -446,11 +514,13 @@ public class OrderService {
                 } else {
                     // Voucher không còn hợp lệ (ví dụ: subTotal thay đổi, không đủ điều kiện)
                     log.warn("Voucher {} is no longer valid for order {}. Removing.", order.getVoucherCode(), order.getId());
+                    voucherReservationService.release(order);
                     order.setVoucherCode(null); // Xóa voucher
                 }
             } catch (EntityNotFoundException e) {
                 // Voucher không tồn tại
                 log.warn("Voucher {} not found during recalculation. Removing.", order.getVoucherCode());
+                voucherReservationService.release(order);
                 order.setVoucherCode(null); // Xóa voucher
             }
         }
@@ -477,6 +547,9 @@ public class OrderService {
         order.setSubTotal(BigDecimal.ZERO);
         order.setDiscountAmount(BigDecimal.ZERO);
         order.setTotalAmount(BigDecimal.ZERO);
+        if (order.getVoucherCode() != null) {
+            voucherReservationService.release(order);
+        }
         order.setVoucherCode(null);
     }
 
@@ -487,6 +560,7 @@ public class OrderService {
         if (table != null && "EMPTY".equals(table.getStatus())) {
             table.setStatus("SERVING");
             cafeTableRepository.save(table);
+            eventPublisher.publishEvent(new TablesChangedEvent(table.getId()));
         }
     }
 
@@ -503,6 +577,7 @@ public class OrderService {
             if (!hasOtherPendingOrder && "SERVING".equals(table.getStatus())) {
                 table.setStatus("EMPTY");
                 cafeTableRepository.save(table);
+                eventPublisher.publishEvent(new TablesChangedEvent(table.getId()));
             }
         }
     }
@@ -521,34 +596,6 @@ public class OrderService {
         return paymentMethod;
     }
 
-    /**
-     * Hàm helper cộng điểm (đã có)
-     */
-    private void addLoyaltyPoints(Order order) {
-        if (order.getCustomer() == null || order.getTotalAmount() == null ||
-                order.getTotalAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            return;
-        }
-
-        // Logic tính điểm: 10,000 VND = 1 điểm
-        int pointsToAdd = order.getTotalAmount()
-                .divide(BigDecimal.valueOf(10000), 0, RoundingMode.DOWN)
-                .intValue();
-
-        if (pointsToAdd > 0) {
-            Customer currentCustomer = customerRepository.findById(order.getCustomer().getId())
-                    .orElseThrow(() -> new EntityNotFoundException(
-                            "Customer disappeared during point calculation"));
-
-            int oldPoints = currentCustomer.getLoyaltyPoints();
-            currentCustomer.setLoyaltyPoints(oldPoints + pointsToAdd);
-
-            log.info("Added {} points to customer {} (ID: {}). Old: {}, New: {}",
-                    pointsToAdd, currentCustomer.getPhone(), currentCustomer.getId(),
-                    oldPoints, currentCustomer.getLoyaltyPoints());
-        }
-    }
-
     /**
      * Hàm helper trừ kho (đã có)
      */
@@ -596,7 +643,7 @@ public class OrderService {
      * Hàm helper fetch lại Order và map sang DTO
      */
     private OrderResponseDTO fetchAndMapOrder(Long orderId, String errorMessage) {
-        Order fetchedOrder = orderRepository.findById(orderId)
+        Order fetchedOrder = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new EntityNotFoundException(errorMessage + " with id: " + orderId));
         return orderMapper.entityToResponse(fetchedOrder);
     }
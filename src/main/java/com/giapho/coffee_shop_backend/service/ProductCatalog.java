@@ -0,0 +1,354 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Category;
+import com.giapho.coffee_shop_backend.domain.entity.Product;
+import com.giapho.coffee_shop_backend.domain.repository.CategoryRepository;
+import com.giapho.coffee_shop_backend.domain.repository.ProductRepository;
+import com.giapho.coffee_shop_backend.dto.ProductResponse;
+import com.giapho.coffee_shop_backend.event.CatalogChangedEvent;
+import com.giapho.coffee_shop_backend.mapper.ProductMapper;
+import com.giapho.coffee_shop_backend.util.TextNormalizer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Snapshot bất biến của toàn bộ menu (sản phẩm kèm tên danh mục) trong bộ nhớ.
+ * <p>
+ * Menu chỉ đổi vài lần mỗi ngày nhưng máy POS tải lại liên tục, nên các API đọc (danh sách, lọc, chi tiết)
+ * được phục vụ hoàn toàn từ snapshot. Mỗi lần sản phẩm/danh mục thay đổi, snapshot mới được dựng lại
+ * sau khi transaction commit (1 query JOIN FETCH) rồi thay thế snapshot cũ bằng một phép gán volatile.
+ * Request đang đọc snapshot cũ không bị ảnh hưởng.
+ * <p>
+ * Thay đổi do node khác ghi không phát sự kiện ở node này: job định kỳ so dấu vết của DB (số sản phẩm,
+ * updated_at lớn nhất, danh sách danh mục) với dấu vết lúc dựng snapshot và dựng lại khi khác.
+ */
+@Slf4j
+@Service
+public class ProductCatalog {
+
+    /**
+     * Dữ liệu của một phiên bản menu. Mọi collection đều bất biến.
+     */
+    private record Snapshot(List<ProductResponse> products,
+                            Map<Long, ProductResponse> byId,
+                            Map<Long, List<ProductResponse>> byCategory,
+                            Map<Long, String> foldedNames,
+                            Set<Long> categoryIds,
+                            Fingerprint fingerprint,
+                            long estimatedBytes) {
+    }
+
+    /**
+     * Dấu vết dữ liệu menu trong DB, đọc cùng transaction với snapshot
+     */
+    private record Fingerprint(long productCount, LocalDateTime lastProductUpdate, List<List<Object>> categories) {
+    }
+
+    // Các thuộc tính sắp xếp được hỗ trợ trong bộ nhớ (tên theo entity Product)
+    private static final Map<String, Function<ProductResponse, ? extends Comparable<?>>> SORT_KEYS = Map.of(
+            "id", ProductResponse::getId,
+            "name", ProductResponse::getName,
+            "code", ProductResponse::getCode,
+            "price", ProductResponse::getPrice,
+            "cost", ProductResponse::getCost,
+            "createdAt", ProductResponse::getCreatedAt,
+            "isAvailable", ProductResponse::isAvailable,
+            "available", ProductResponse::isAvailable,
+            "category.name", ProductResponse::getCategoryName
+    );
+    // So sánh chuỗi không phân biệt hoa thường, giống collation của MySQL
+    private static final Set<String> STRING_SORT_KEYS = Set.of("name", "code", "category.name");
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductMapper productMapper;
+    private final ResourceVersions resourceVersions;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final Timer rebuildTimer;
+
+    private volatile Snapshot snapshot;
+
+    public ProductCatalog(ProductRepository productRepository,
+                          CategoryRepository categoryRepository,
+                          ProductMapper productMapper,
+                          ResourceVersions resourceVersions,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productMapper = productMapper;
+        this.resourceVersions = resourceVersions;
+
+        // REQUIRES_NEW: rebuild có thể chạy trong callback AFTER_COMMIT của transaction vừa ghi
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.rebuildTimer = Timer.builder("catalog.snapshot.rebuild")
+                .description("Time to rebuild the in-memory product catalog")
+                .register(meterRegistry);
+        Gauge.builder("catalog.snapshot.products", this, catalog -> catalog.sizeOrZero())
+                .description("Products in the in-memory catalog")
+                .register(meterRegistry);
+        Gauge.builder("catalog.snapshot.bytes", this, catalog -> catalog.estimatedBytesOrZero())
+                .description("Estimated heap footprint of the in-memory catalog")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // Không chặn khởi động; lần đọc đầu tiên sẽ thử dựng lại
+            log.warn("Could not warm up product catalog: {}", e.getMessage());
+        }
+    }
+
+    @Order(0) // Chạy trước các listener dùng lại snapshot (ví dụ ProductSearchService)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Dựng lại snapshot nếu dữ liệu trong DB đã khác (do node khác ghi)
+     */
+    @Scheduled(fixedDelayString = "${app.resource-versions.refresh-interval:5s}",
+            initialDelayString = "${app.resource-versions.refresh-interval:5s}")
+    public void refreshIfChanged() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return; // Chưa dựng: lần đọc đầu tiên sẽ dựng
+        }
+        Fingerprint fingerprint = readOnlyTransaction.execute(status -> fingerprint(categoryRepository.findAll()));
+        if (!current.fingerprint().equals(fingerprint)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Tất cả sản phẩm (phân trang)
+     */
+    public Page<ProductResponse> findAll(Pageable pageable) {
+        return page(current().products(), pageable);
+    }
+
+    /**
+     * Toàn bộ sản phẩm theo thứ tự id
+     */
+    public List<ProductResponse> allProducts() {
+        return current().products();
+    }
+
+    /**
+     * Lọc theo tên (chứa, không phân biệt hoa thường và dấu) và/hoặc danh mục
+     */
+    public Page<ProductResponse> findFiltered(String name, Long categoryId, Pageable pageable) {
+        Snapshot current = current();
+        List<ProductResponse> candidates = categoryId == null
+                ? current.products()
+                : current.byCategory().getOrDefault(categoryId, List.of());
+        if (name == null || name.isEmpty()) {
+            return page(candidates, pageable);
+        }
+        String keyword = TextNormalizer.fold(name);
+        Map<Long, String> foldedNames = current.foldedNames();
+        List<ProductResponse> matches = candidates.stream()
+                .filter(product -> foldedNames.get(product.getId()).contains(keyword))
+                .toList();
+        return page(matches, pageable);
+    }
+
+    /**
+     * Chi tiết 1 sản phẩm
+     */
+    public Optional<ProductResponse> findById(Long productId) {
+        return Optional.ofNullable(current().byId().get(productId));
+    }
+
+    /**
+     * Danh mục có tồn tại trong snapshot không
+     */
+    public boolean categoryExists(Long categoryId) {
+        return current().categoryIds().contains(categoryId);
+    }
+
+    /**
+     * Snapshot có sắp xếp được theo Sort này không (không được thì gọi DB)
+     */
+    public boolean supportsSort(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORT_KEYS.containsKey(order.getProperty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Dựng lại snapshot từ DB và thay thế snapshot hiện tại
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            Snapshot rebuilt = readOnlyTransaction.execute(status -> load());
+            snapshot = rebuilt;
+            // Tăng phiên bản SAU khi snapshot mới đã sẵn sàng: ETag mới luôn đi với dữ liệu mới
+            resourceVersions.bump(ResourceVersions.Resource.CATALOG);
+            long elapsed = System.nanoTime() - start;
+            rebuildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Product catalog rebuilt: {} products, ~{} KB in {} ms",
+                    rebuilt.products().size(), rebuilt.estimatedBytes() / 1024, elapsed / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuild();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        List<ProductResponse> products = new ArrayList<>();
+        Map<Long, ProductResponse> byId = new HashMap<>();
+        Map<Long, List<ProductResponse>> byCategory = new HashMap<>();
+        Map<Long, String> foldedNames = new HashMap<>();
+        long bytes = 0;
+
+        // Query đã sắp theo id: giống thứ tự mặc định của MySQL khi không truyền sort
+        for (Product product : productRepository.findAllWithCategory()) {
+            ProductResponse response = productMapper.toProductResponse(product);
+            products.add(response);
+            byId.put(response.getId(), response);
+            byCategory.computeIfAbsent(product.getCategory().getId(), id -> new ArrayList<>()).add(response);
+            String foldedName = TextNormalizer.fold(response.getName());
+            foldedNames.put(response.getId(), foldedName);
+            bytes += estimateBytes(response) + estimateString(foldedName) + 48;
+        }
+        List<Category> categories = categoryRepository.findAll();
+        Set<Long> categoryIds = Set.copyOf(categories.stream().map(Category::getId).toList());
+
+        Map<Long, List<ProductResponse>> immutableByCategory = new HashMap<>();
+        byCategory.forEach((id, list) -> immutableByCategory.put(id, List.copyOf(list)));
+
+        // Overhead của các List/Map: ~8 byte/tham chiếu trong list, ~48 byte/entry trong map
+        bytes += products.size() * 16L + byId.size() * 48L + byCategory.size() * 64L + categoryIds.size() * 48L;
+        return new Snapshot(List.copyOf(products), Map.copyOf(byId), Map.copyOf(immutableByCategory),
+                Map.copyOf(foldedNames), categoryIds, fingerprint(categories), bytes);
+    }
+
+    private Fingerprint fingerprint(List<Category> categories) {
+        List<List<Object>> categoryRows = categories.stream()
+                .sorted(Comparator.comparing(Category::getId))
+                .map(category -> Arrays.<Object>asList(category.getId(), category.getName(), category.getDescription()))
+                .toList();
+        return new Fingerprint(productRepository.count(), productRepository.findLastUpdatedAt(), categoryRows);
+    }
+
+    private Page<ProductResponse> page(List<ProductResponse> source, Pageable pageable) {
+        List<ProductResponse> sorted = source;
+        if (pageable.getSort().isSorted()) {
+            sorted = new ArrayList<>(source);
+            sorted.sort(comparator(pageable.getSort()));
+        }
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(sorted, pageable, sorted.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), sorted.size());
+        int to = Math.min(from + pageable.getPageSize(), sorted.size());
+        return new PageImpl<>(sorted.subList(from, to), pageable, sorted.size());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<ProductResponse> comparator(Sort sort) {
+        Comparator<ProductResponse> result = null;
+        for (Sort.Order order : sort) {
+            Function<ProductResponse, Comparable> key = (Function) SORT_KEYS.get(order.getProperty());
+            Comparator<Comparable> valueOrder = STRING_SORT_KEYS.contains(order.getProperty())
+                    ? (Comparator) String.CASE_INSENSITIVE_ORDER
+                    : Comparator.naturalOrder();
+            // MySQL: NULL đứng đầu khi ASC, cuối khi DESC
+            Comparator<ProductResponse> next = Comparator.comparing(key, Comparator.nullsFirst(valueOrder));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            result = result == null ? next : result.thenComparing(next);
+        }
+        return result.thenComparing(ProductResponse::getId);
+    }
+
+    // Ước lượng kích thước trên heap (JVM 64-bit, compressed oops, compact strings)
+    private static long estimateBytes(ProductResponse product) {
+        return 56 // header + 10 tham chiếu/field
+                + estimateString(product.getName())
+                + estimateString(product.getCode())
+                + estimateString(product.getDescription())
+                + estimateString(product.getImageUrl())
+                + estimateString(product.getCategoryName())
+                + estimateDecimal(product.getPrice())
+                + estimateDecimal(product.getCost())
+                + (product.getCreatedAt() != null ? 48 : 0) // LocalDateTime + LocalDate + LocalTime
+                + 16; // Long id
+    }
+
+    private static long estimateString(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = value.chars().allMatch(c -> c < 256);
+        return 24 + 16 + (long) value.length() * (latin1 ? 1 : 2);
+    }
+
+    private static long estimateDecimal(BigDecimal value) {
+        return value == null ? 0 : 40 + (value.unscaledValue().bitLength() > 63 ? 32 : 0);
+    }
+
+    private int sizeOrZero() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.products().size();
+    }
+
+    private long estimatedBytesOrZero() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.estimatedBytes();
+    }
+}
@@ -0,0 +1,209 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.dto.ProductResponse;
+import com.giapho.coffee_shop_backend.util.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục đảo (inverted index) trên tên, mã, danh mục và mô tả sản phẩm.
+ * <p>
+ * Mỗi từ (đã bỏ dấu) được đánh chỉ mục theo mọi tiền tố (edge n-gram) để gõ tới đâu ra tới đó:
+ * "ca phe" khớp "Cà phê", "cap" khớp "Cappuccino". Điểm = tổng trọng số của từng từ trong câu tìm kiếm
+ * (trường khớp và độ dài tiền tố), cộng thêm điểm khi tên sản phẩm bắt đầu bằng cả câu tìm kiếm.
+ * Mọi từ trong câu tìm kiếm đều phải khớp (AND).
+ */
+public class ProductSearchIndex {
+
+    static final int MAX_PREFIX_LENGTH = 20;
+
+    private static final float CODE_WEIGHT = 4f;
+    private static final float NAME_WEIGHT = 3f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 0.5f;
+    private static final float NAME_PREFIX_BONUS = 2f;
+    private static final float NAME_EXACT_BONUS = 3f;
+
+    private record Document(ProductResponse product, String foldedName, Set<String> keys) {
+    }
+
+    private record Hit(Document document, float score) {
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator
+            .comparingDouble((Hit hit) -> -hit.score())
+            .thenComparingInt(hit -> hit.document().foldedName().length())
+            .thenComparing(hit -> hit.document().product().getId());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // tiền tố -> (productId -> trọng số cao nhất)
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+
+    /**
+     * Xoá và đánh chỉ mục lại toàn bộ
+     */
+    public void rebuild(Collection<ProductResponse> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            for (ProductResponse product : products) {
+                addLocked(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Thêm mới hoặc cập nhật 1 sản phẩm
+     */
+    public void put(ProductResponse product) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            addLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm kiếm, trả về theo thứ tự liên quan giảm dần
+     */
+    public List<ProductResponse> search(String query, int limit, boolean availableOnly) {
+        List<String> queryTokens = TextNormalizer.tokens(query);
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String foldedQuery = String.join(" ", queryTokens);
+
+        lock.readLock().lock();
+        try {
+            // Lấy posting của từng từ, bắt đầu từ danh sách ngắn nhất để giao nhanh
+            List<Map<Long, Float>> lists = new ArrayList<>(queryTokens.size());
+            for (String token : queryTokens) {
+                Map<Long, Float> posting = postings.get(truncate(token));
+                if (posting == null) {
+                    return List.of();
+                }
+                lists.add(posting);
+            }
+            lists.sort(Comparator.comparingInt(Map::size));
+
+            List<Hit> hits = new ArrayList<>();
+            candidates:
+            for (Map.Entry<Long, Float> candidate : lists.get(0).entrySet()) {
+                float score = candidate.getValue();
+                for (int i = 1; i < lists.size(); i++) {
+                    Float weight = lists.get(i).get(candidate.getKey());
+                    if (weight == null) {
+                        continue candidates;
+                    }
+                    score += weight;
+                }
+                Document document = documents.get(candidate.getKey());
+                if (availableOnly && !document.product().isAvailable()) {
+                    continue;
+                }
+                if (document.foldedName().equals(foldedQuery)) {
+                    score += NAME_EXACT_BONUS;
+                } else if (document.foldedName().startsWith(foldedQuery)) {
+                    score += NAME_PREFIX_BONUS;
+                }
+                hits.add(new Hit(document, score));
+            }
+
+            hits.sort(RANKING);
+            return hits.stream().limit(limit).map(hit -> hit.document().product()).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Số khoá (tiền tố) trong chỉ mục, để theo dõi bộ nhớ
+     */
+    public int keyCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addLocked(ProductResponse product) {
+        Long id = product.getId();
+        Set<String> keys = new HashSet<>();
+        indexField(id, product.getCode(), CODE_WEIGHT, true, keys);
+        indexField(id, product.getName(), NAME_WEIGHT, true, keys);
+        indexField(id, product.getCategoryName(), CATEGORY_WEIGHT, true, keys);
+        // Mô tả dài: chỉ đánh chỉ mục từ nguyên vẹn, không theo tiền tố
+        indexField(id, product.getDescription(), DESCRIPTION_WEIGHT, false, keys);
+        documents.put(id, new Document(product, TextNormalizer.fold(product.getName()), keys));
+    }
+
+    private void indexField(Long id, String text, float fieldWeight, boolean prefixes, Set<String> keys) {
+        for (String token : TextNormalizer.tokens(text)) {
+            int length = Math.min(token.length(), MAX_PREFIX_LENGTH);
+            int from = prefixes ? 1 : length;
+            for (int k = from; k <= length; k++) {
+                // Tiền tố càng dài càng gần từ đầy đủ thì trọng số càng cao
+                float weight = k == token.length()
+                        ? fieldWeight
+                        : fieldWeight * (0.5f + 0.4f * k / token.length());
+                String key = token.substring(0, k);
+                postings.computeIfAbsent(key, ignored -> new HashMap<>()).merge(id, weight, Math::max);
+                keys.add(key);
+            }
+        }
+    }
+
+    private void removeLocked(Long productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String key : document.keys()) {
+            Map<Long, Float> posting = postings.get(key);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    private static String truncate(String token) {
+        return token.length() > MAX_PREFIX_LENGTH ? token.substring(0, MAX_PREFIX_LENGTH) : token;
+    }
+}
@@ -0,0 +1,82 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.dto.ProductResponse;
+import com.giapho.coffee_shop_backend.event.CatalogChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Tìm kiếm sản phẩm (type-ahead) bằng chỉ mục trong bộ nhớ.
+ * Chỉ mục lấy dữ liệu từ ProductCatalog và được cập nhật từng sản phẩm khi có thay đổi.
+ */
+@Slf4j
+@Service
+public class ProductSearchService {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final ProductCatalog productCatalog;
+    private final ProductSearchIndex index = new ProductSearchIndex();
+    private final Timer searchTimer;
+
+    private volatile boolean indexed;
+
+    public ProductSearchService(ProductCatalog productCatalog, MeterRegistry meterRegistry) {
+        this.productCatalog = productCatalog;
+        this.searchTimer = Timer.builder("catalog.search")
+                .description("Product type-ahead search latency")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("catalog.search.index.products", index, ProductSearchIndex::size)
+                .register(meterRegistry);
+        Gauge.builder("catalog.search.index.keys", index, ProductSearchIndex::keyCount)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Could not build product search index: {}", e.getMessage());
+        }
+    }
+
+    // Chạy sau ProductCatalog.onCatalogChanged (@Order(0)) nên snapshot đã là dữ liệu mới
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        Long productId = event.productId();
+        if (productId == null || !indexed) {
+            rebuild();
+            return;
+        }
+        productCatalog.findById(productId).ifPresentOrElse(index::put, () -> index.remove(productId));
+    }
+
+    /**
+     * Tìm sản phẩm theo tên, mã, danh mục, mô tả (không phân biệt dấu), xếp theo độ liên quan
+     */
+    public List<ProductResponse> search(String query, int limit, boolean availableOnly) {
+        if (!indexed) {
+            rebuild();
+        }
+        int safeLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return searchTimer.record(() -> index.search(query, safeLimit, availableOnly));
+    }
+
+    private void rebuild() {
+        List<ProductResponse> products = productCatalog.allProducts();
+        index.rebuild(products);
+        indexed = true;
+        log.info("Product search index rebuilt: {} products, {} keys", index.size(), index.keyCount());
+    }
+}
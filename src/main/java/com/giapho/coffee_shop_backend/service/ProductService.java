@@ -8,17 +8,17 @@ import com.giapho.coffee_shop_backend.domain.repository.ProductIngredientReposit
 import com.giapho.coffee_shop_backend.domain.repository.ProductRepository;
 import com.giapho.coffee_shop_backend.dto.ProductRequest;
 import com.giapho.coffee_shop_backend.dto.ProductResponse;
+import com.giapho.coffee_shop_backend.event.CatalogChangedEvent;
 import com.giapho.coffee_shop_backend.mapper.ProductMapper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.ILoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
 @Slf4j
 @Service
@@ -31,12 +31,18 @@ public class ProductService {
     private final ProductIngredientRepository productIngredientRepository;
     private final OrderDetailRepository orderDetailRepository;
     private final FileStorageService fileStorageService;
+    private final FileReferenceService fileReferenceService;
+    private final ProductCatalog productCatalog;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Lấy sản phẩm (có phân trang)
+     * Lấy sản phẩm (có phân trang) - đọc từ ProductCatalog
+     * Không mở transaction: snapshot không cần DB, nhánh dự phòng dùng query đã fetch sẵn category
      */
-    @Transactional(readOnly = true)
     public Page<ProductResponse> getAllProducts(Pageable pageable) {
+        if (productCatalog.supportsSort(pageable.getSort())) {
+            return productCatalog.findAll(pageable);
+        }
         Page<Product> productPage = productRepository.findAll(pageable);
 
         // 2. Dùng hàm map() của Page để chuyển Page<Entity> -> Page<DTO>
@@ -47,12 +53,9 @@ public class ProductService {
     /**
      * Lấy chi tiết 1 sản phẩm
      */
-    @Transactional(readOnly = true)
     public ProductResponse getProductById(Long productId) {
-        Product product = productRepository.findById(productId)
+        return productCatalog.findById(productId)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with id " + productId));
-
-        return productMapper.toProductResponse(product);
     }
 
     /**
@@ -68,23 +71,29 @@ public class ProductService {
                 .orElseThrow(() -> new EntityNotFoundException("Category not found: " + productRequest.getCategoryId()));
 
         Product product = productMapper.toProduct(productRequest);
-        System.out.println(">>> DEBUG: Set isAvailable to: " + product.isAvailable());
         product.setCategory(category);
         product.setAvailable(true);
 
-        System.out.println(">>> DEBUG: Set isAvailable to: " + product.isAvailable());
-
         Product savedProduct = productRepository.save(product);
+        fileReferenceService.replace(null, savedProduct.getImageUrl());
+        eventPublisher.publishEvent(CatalogChangedEvent.product(savedProduct.getId()));
 
         return productMapper.toProductResponse(savedProduct);
     }
 
     /**
-     * Lấy sản phẩm có lọc theo tên và/hoặc categoryId
+     * Lấy sản phẩm có lọc theo tên và/hoặc categoryId - đọc từ ProductCatalog
+     * Không mở transaction: snapshot không cần DB, nhánh dự phòng dùng query đã fetch sẵn category
      */
-    @Transactional(readOnly = true)
     public Page<ProductResponse> getFilteredProducts(String name, Long categoryId, Pageable pageable) {
+        if (productCatalog.supportsSort(pageable.getSort())) {
+            if (categoryId != null && categoryId > 0 && !productCatalog.categoryExists(categoryId)) {
+                throw new EntityNotFoundException("Category not found with id: " + categoryId);
+            }
+            return productCatalog.findFiltered(name, categoryId, pageable);
+        }
 
+        // Sắp xếp theo thuộc tính snapshot không hỗ trợ: truy vấn DB như cũ
         Specification<Product> spec = (root, query, criteriaBuilder) -> null;
 
         if (name != null && !name.isEmpty()) {
@@ -118,11 +127,14 @@ public class ProductService {
                 .orElseThrow(() ->
                         new EntityNotFoundException("Category not found with id: " + productRequest.getCategoryId()));
 
+        String oldImageUrl = existingProduct.getImageUrl();
         productMapper.updateProductFromDto(productRequest, existingProduct);
 
         existingProduct.setCategory(category);
 
         Product updatedProduct = productRepository.save(existingProduct);
+        fileReferenceService.replace(oldImageUrl, updatedProduct.getImageUrl());
+        eventPublisher.publishEvent(CatalogChangedEvent.product(id));
 
         return productMapper.toProductResponse(updatedProduct);
     }
@@ -142,15 +154,8 @@ public class ProductService {
                             "' because it exists in past order details. Consider marking it as unavailable instead.");
         }
 
-        if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-            try {
-                String fileName = fileStorageService.extractFileNameFromUrl(product.getImageUrl());
-                fileStorageService.deleteFile(fileName);
-                log.info("Product image deleted during product deletion: {}", fileName);
-            } catch (Exception e) {
-                log.error("Failed to delete product image: {}", product.getImageUrl(), e);
-            }
-        }
+        // Giảm tham chiếu ảnh; file được job dọn rác xoá khi không còn sản phẩm nào dùng
+        fileReferenceService.replace(product.getImageUrl(), null);
 
         // Xóa product ingredients
         productIngredientRepository.deleteByProductId(id);
@@ -158,6 +163,7 @@ public class ProductService {
 
         // Xóa product
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(CatalogChangedEvent.product(id));
 
         log.info("Deleted product and its data for ID: {}", id);
     }
@@ -173,14 +179,19 @@ public class ProductService {
         product.setAvailable(!product.isAvailable());
 
         Product updateProduct = productRepository.save(product);
+        eventPublisher.publishEvent(CatalogChangedEvent.product(id));
 
         return productMapper.toProductResponse(updateProduct);
     }
 
+    /**
+     * Tạo sản phẩm với ảnh đã upload trước (imageFileName null nếu không có ảnh).
+     * Ảnh được lưu trước khi mở transaction để không giữ connection trong lúc upload / xử lý ảnh.
+     */
     @Transactional
     public ProductResponse createProductWithImage(
             ProductRequest productRequest,
-            MultipartFile imageFile
+            String imageFileName
     ) {
         // Validate unique code
         if (productRepository.existsByCode(productRequest.getCode())) {
@@ -192,13 +203,7 @@ public class ProductService {
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Category not found: " + productRequest.getCategoryId()));
 
-        // Upload image nếu có
-        String imageUrl = null;
-        if (imageFile != null && !imageFile.isEmpty()) {
-            String fileName = fileStorageService.storeFile(imageFile);
-            imageUrl = fileStorageService.getFileUrl(fileName);
-            log.info("Product image uploaded: {}", fileName);
-        }
+        String imageUrl = fileStorageService.getFileUrl(imageFileName);
 
         // Tạo product
         Product product = productMapper.toProduct(productRequest);
@@ -207,18 +212,20 @@ public class ProductService {
         product.setImageUrl(imageUrl); // Set image URL
 
         Product savedProduct = productRepository.save(product);
+        fileReferenceService.replace(null, imageUrl);
+        eventPublisher.publishEvent(CatalogChangedEvent.product(savedProduct.getId()));
 
         return productMapper.toProductResponse(savedProduct);
     }
 
     /**
-     * CẢI TIẾN: Cập nhật sản phẩm với image upload (optional)
+     * CẢI TIẾN: Cập nhật sản phẩm với ảnh đã upload trước (imageFileName null nếu giữ ảnh theo DTO)
      */
     @Transactional
     public ProductResponse updateProductWithImage(
             Long id,
             ProductRequest productRequest,
-            MultipartFile imageFile
+            String imageFileName
     ) {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
@@ -228,37 +235,23 @@ public class ProductService {
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Category not found with id: " + productRequest.getCategoryId()));
 
-        // Lưu old image URL để xóa sau (nếu cần)
+        // Lưu old image URL để cập nhật số tham chiếu
         String oldImageUrl = existingProduct.getImageUrl();
 
-        // Upload image mới nếu có
-        if (imageFile != null && !imageFile.isEmpty()) {
-            String fileName = fileStorageService.storeFile(imageFile);
-            String newImageUrl = fileStorageService.getFileUrl(fileName);
-
-            // Xóa file cũ nếu có
-            if (oldImageUrl != null && !oldImageUrl.isEmpty()) {
-                try {
-                    String oldFileName = fileStorageService.extractFileNameFromUrl(oldImageUrl);
-                    fileStorageService.deleteFile(oldFileName);
-                    log.info("Old product image deleted: {}", oldFileName);
-                } catch (Exception e) {
-                    log.error("Failed to delete old image: {}", oldImageUrl, e);
-                    // Không throw exception, chỉ log
-                }
-            }
-
-            existingProduct.setImageUrl(newImageUrl);
-            log.info("Product image updated: {}", fileName);
-        }
-
         // Update product info
         productMapper.updateProductFromDto(productRequest, existingProduct);
         existingProduct.setCategory(category);
 
-        Product updatedProduct = productRepository.save(existingProduct);
-
+        // Ảnh mới nếu có (đặt sau khi map DTO để imageUrl trong DTO không ghi đè ảnh vừa upload)
+        if (imageFileName != null) {
+            existingProduct.setImageUrl(fileStorageService.getFileUrl(imageFileName));
+            log.info("Product image updated: {}", imageFileName);
+        }
 
+        Product updatedProduct = productRepository.save(existingProduct);
+        // Ảnh cũ không còn sản phẩm nào dùng sẽ được job dọn rác xoá
+        fileReferenceService.replace(oldImageUrl, updatedProduct.getImageUrl());
+        eventPublisher.publishEvent(CatalogChangedEvent.product(id));
 
         return productMapper.toProductResponse(updatedProduct);
     }
@@ -277,53 +270,35 @@ public class ProductService {
             throw new IllegalArgumentException("Product does not have an image");
         }
 
-        try {
-            String fileName = fileStorageService.extractFileNameFromUrl(imageUrl);
-            fileStorageService.deleteFile(fileName);
-            log.info("Product image deleted: {}", fileName);
-        } catch (Exception e) {
-            log.error("Failed to delete product image: {}", imageUrl, e);
-            throw new RuntimeException("Failed to delete product image", e);
-        }
-
         product.setImageUrl(null);
         Product updatedProduct = productRepository.save(product);
+        fileReferenceService.replace(imageUrl, null);
+        eventPublisher.publishEvent(CatalogChangedEvent.product(id));
 
         return productMapper.toProductResponse(updatedProduct);
     }
 
 
     /**
-     * Upload/Update chỉ image cho product đã tồn tại
+     * Đổi ảnh (đã upload trước) cho product đã tồn tại
      */
     @Transactional
-    public ProductResponse uploadProductImage(Long id, MultipartFile imageFile) {
+    public ProductResponse uploadProductImage(Long id, String imageFileName) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
 
-        // Lưu old image URL để xóa sau
+        // Lưu old image URL để cập nhật số tham chiếu
         String oldImageUrl = product.getImageUrl();
 
-        // Upload image mới
-        String fileName = fileStorageService.storeFile(imageFile);
-        String newImageUrl = fileStorageService.getFileUrl(fileName);
-
-        // Xóa file cũ nếu có
-        if (oldImageUrl != null && !oldImageUrl.isEmpty()) {
-            try {
-                String oldFileName = fileStorageService.extractFileNameFromUrl(oldImageUrl);
-                fileStorageService.deleteFile(oldFileName);
-                log.info("Old product image replaced: {}", oldFileName);
-            } catch (Exception e) {
-                log.error("Failed to delete old image: {}", oldImageUrl, e);
-            }
-        }
+        String newImageUrl = fileStorageService.getFileUrl(imageFileName);
 
         product.setImageUrl(newImageUrl);
         Product updatedProduct = productRepository.save(product);
+        // Tên file theo nội dung: upload lại đúng ảnh cũ thì số tham chiếu giữ nguyên
+        fileReferenceService.replace(oldImageUrl, newImageUrl);
+        eventPublisher.publishEvent(CatalogChangedEvent.product(id));
 
-
-        log.info("Product image uploaded successfully: {}", fileName);
+        log.info("Product image updated successfully: {}", imageFileName);
         return productMapper.toProductResponse(updatedProduct);
     }
 }
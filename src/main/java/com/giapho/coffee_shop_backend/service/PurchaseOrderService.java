@@ -2,17 +2,20 @@ package com.giapho.coffee_shop_backend.service;
 
 import com.giapho.coffee_shop_backend.domain.entity.*;
 import com.giapho.coffee_shop_backend.domain.repository.*;
+import com.giapho.coffee_shop_backend.dto.CursorPageResponse;
 import com.giapho.coffee_shop_backend.dto.PurchaseOrderDetailRequestDTO;
 import com.giapho.coffee_shop_backend.dto.PurchaseOrderRequestDTO;
 import com.giapho.coffee_shop_backend.dto.PurchaseOrderResponseDTO;
 import com.giapho.coffee_shop_backend.mapper.PurchaseOrderDetailMapper; // Cần mapper chi tiết
 import com.giapho.coffee_shop_backend.mapper.PurchaseOrderMapper;
+import com.giapho.coffee_shop_backend.util.CursorCodec;
+import com.giapho.coffee_shop_backend.util.Keyset;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,9 +33,11 @@ import java.util.function.Predicate;
 @RequiredArgsConstructor
 public class PurchaseOrderService {
 
+    private static final Sort KEYSET_SORT = Keyset.sort("orderDate", Sort.Direction.DESC);
+
     private final PurchaseOrderRepository purchaseOrderRepository;
     private final SupplierRepository supplierRepository;
-    private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
     private final IngredientRepository ingredientRepository;
     private final PurchaseOrderMapper purchaseOrderMapper;
     private final PurchaseOrderDetailMapper purchaseOrderDetailMapper;
@@ -54,8 +59,46 @@ public class PurchaseOrderService {
             LocalDate endDate,
             Pageable pageable
     ) {
-        // Tạo Specification dựa trên các tham số lọc
-        Specification<PurchaseOrder> spec = (root, query, criteriaBuilder) -> {
+        // Gọi phương thức findAll của repository với Specification và Pageable
+        Page<PurchaseOrder> poPage = purchaseOrderRepository.findAll(
+                filterSpecification(status, supplierId, startDate, endDate), pageable);
+
+        return poPage.map(purchaseOrderMapper::entityToResponse);
+    }
+
+    /**
+     * Lấy danh sách phiếu nhập hàng theo keyset (orderDate DESC, id DESC), cùng bộ lọc với {@link #getAllPurchaseOrders}
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<PurchaseOrderResponseDTO> getPurchaseOrdersByCursor(
+            String status,
+            Long supplierId,
+            LocalDate startDate,
+            LocalDate endDate,
+            String cursor,
+            int size,
+            boolean includeTotal
+    ) {
+        Specification<PurchaseOrder> filter = filterSpecification(status, supplierId, startDate, endDate);
+        Specification<PurchaseOrder> spec = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            CursorCodec.TimePosition position = CursorCodec.decodeTime(cursor);
+            spec = filter.and(Keyset.after("orderDate", position.time(), position.id(), Sort.Direction.DESC));
+        }
+
+        int pageSize = Keyset.pageSize(size);
+        List<PurchaseOrder> rows = purchaseOrderRepository.findBy(spec,
+                query -> query.sortBy(KEYSET_SORT).limit(pageSize + 1).all());
+        Long total = includeTotal ? purchaseOrderRepository.count(filter) : null;
+        return Keyset.page(rows, pageSize,
+                po -> CursorCodec.encode(po.getOrderDate(), po.getId()),
+                purchaseOrderMapper::entityToResponse, total);
+    }
+
+    // Tạo Specification dựa trên các tham số lọc
+    private Specification<PurchaseOrder> filterSpecification(String status, Long supplierId,
+                                                             LocalDate startDate, LocalDate endDate) {
+        return (root, query, criteriaBuilder) -> {
             List<jakarta.persistence.criteria.Predicate> predicates = new ArrayList<>();
             jakarta.persistence.criteria.Predicate predicate = criteriaBuilder.conjunction();
 
@@ -88,11 +131,6 @@ public class PurchaseOrderService {
 
             return predicate;
         };
-
-        // Gọi phương thức findAll của repository với Specification và Pageable
-        Page<PurchaseOrder> poPage = purchaseOrderRepository.findAll(spec, pageable);
-
-        return poPage.map(purchaseOrderMapper::entityToResponse);
     }
 
     /**
@@ -111,9 +149,8 @@ public class PurchaseOrderService {
     @Transactional
     public PurchaseOrderResponseDTO createPurchaseOrder(PurchaseOrderRequestDTO request) {
         // 1. Lấy thông tin User đang đăng nhập
-        String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
-        User currentUser = userRepository.findByUsername(currentUsername)
-                .orElseThrow(() -> new EntityNotFoundException("Current user not found"));
+        // Chỉ cần reference để gán khoá ngoại, không SELECT bảng users
+        User currentUser = userDirectory.currentUserReference();
 
         // 2. Lấy thông tin Nhà cung cấp
         Supplier supplier = supplierRepository.findById(request.getSupplierId())
@@ -44,6 +44,7 @@ public class ReportService {
     private final IngredientMapper ingredientMapper; // Inject mapper
     private final OrderDetailRepository orderDetailRepository;
     private final ExpenseRepository expenseRepository;
+    private final UserDirectory userDirectory;
 
     /**
      * Lấy tổng doanh thu trong một ngày cụ thể
@@ -95,7 +96,8 @@ public class ReportService {
         // Lấy danh sách Order trong khoảng thời gian (không phân trang cho export)
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay(); // Lấy đến hết ngày kết thúc
-        List<Order> orders = orderRepository.findByCreatedAtBetween(startDateTime, endDateTime, Pageable.unpaged()).getContent();
+        // Nạp kèm bàn + chi tiết món trong 1 câu query (orderDetails là LAZY)
+        List<Order> orders = orderRepository.findWithDetailsByCreatedAtBetween(startDateTime, endDateTime);
 
         // Tạo workbook Excel (.xlsx)
         try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
@@ -128,7 +130,7 @@ public class ReportService {
 
                 row.createCell(0).setCellValue(order.getId() != null ? order.getId() : 0);
                 row.createCell(1).setCellValue(order.getCafeTable() != null ? order.getCafeTable().getName() : "Take Away/Delivery");
-                row.createCell(2).setCellValue(order.getUser() != null ? order.getUser().getUsername() : "N/A");
+                row.createCell(2).setCellValue(order.getUser() != null ? userDirectory.usernameOf(order.getUser()) : "N/A");
                 row.createCell(3).setCellValue(order.getType() != null ? order.getType() : "");
                 row.createCell(4).setCellValue(order.getStatus() != null ? order.getStatus() : "");
 
@@ -260,6 +262,13 @@ public class ReportService {
         // Lấy tất cả các đơn hàng PAID trong khoảng thời gian
         List<Order> paidOrders = orderRepository.findByStatusAndPaidAtBetween("PAID", startDateTime, endDateTime);
 
+        return groupRevenueByDate(paidOrders, startDate, endDate);
+    }
+
+    /**
+     * Nhóm doanh thu theo ngày, chỉ xử lý trong bộ nhớ (benchmark trong src/jmh gọi trực tiếp)
+     */
+    static Map<LocalDate, BigDecimal> groupRevenueByDate(List<Order> paidOrders, LocalDate startDate, LocalDate endDate) {
         // Sử dụng Stream API để nhóm theo ngày và tính tổng
         Map<LocalDate, BigDecimal> dailyRevenue = paidOrders.stream()
                 .filter(order -> order.getPaidAt() != null && order.getTotalAmount() != null) // Lọc bỏ null an toàn
@@ -315,7 +324,7 @@ public class ReportService {
     /**
      * (Hàm helper) Điền các ngày còn thiếu trong Map báo cáo với giá trị mặc định.
      */
-    private <T> void fillMissingDates(Map<LocalDate, T> reportMap, LocalDate startDate, LocalDate endDate, T defaultValue) {
+    private static <T> void fillMissingDates(Map<LocalDate, T> reportMap, LocalDate startDate, LocalDate endDate, T defaultValue) {
         long daysBetween = ChronoUnit.DAYS.between(startDate, endDate);
         for (long i = 0; i <= daysBetween; i++) {
             LocalDate date = startDate.plusDays(i);
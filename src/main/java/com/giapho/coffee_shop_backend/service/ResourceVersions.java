@@ -0,0 +1,84 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.repository.CafeTableRepository;
+import com.giapho.coffee_shop_backend.dto.CafeTableResponse;
+import com.giapho.coffee_shop_backend.event.TablesChangedEvent;
+import com.giapho.coffee_shop_backend.mapper.CafeTableMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Số phiên bản tăng dần cho các tài nguyên ít thay đổi, dùng làm ETag (conditional GET).
+ * <p>
+ * Phiên bản chỉ tăng SAU KHI dữ liệu mới đã commit (và snapshot đã dựng lại), nên một ETag
+ * không bao giờ đi kèm dữ liệu cũ. Mỗi lần khởi động có một "epoch" riêng để ETag của process trước
+ * không trùng với process mới.
+ * <p>
+ * Sự kiện chỉ đến từ các ghi trên node này. Ghi từ node khác được phát hiện bằng job định kỳ
+ * (CATALOG: {@link ProductCatalog#refreshIfChanged()}, TABLES: {@link #refreshTables()}),
+ * nên ETag cũ chỉ còn được trả 304 tối đa 1 chu kỳ app.resource-versions.refresh-interval.
+ */
+@Service
+public class ResourceVersions {
+
+    public enum Resource {
+        CATALOG, // Sản phẩm và danh mục
+        TABLES
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Resource, AtomicLong> versions = new EnumMap<>(Resource.class);
+    private final CafeTableRepository cafeTableRepository;
+    private final CafeTableMapper cafeTableMapper;
+    private volatile List<CafeTableResponse> lastTables; // Danh sách bàn ở lần kiểm tra trước
+
+    public ResourceVersions(CafeTableRepository cafeTableRepository, CafeTableMapper cafeTableMapper) {
+        this.cafeTableRepository = cafeTableRepository;
+        this.cafeTableMapper = cafeTableMapper;
+        for (Resource resource : Resource.values()) {
+            versions.put(resource, new AtomicLong());
+        }
+    }
+
+    /**
+     * ETag mạnh cho phiên bản hiện tại của tài nguyên
+     */
+    public String etag(Resource resource) {
+        return "\"" + resource.name().toLowerCase(Locale.ROOT) + "-" + epoch + "-" + versions.get(resource).get() + "\"";
+    }
+
+    public long current(Resource resource) {
+        return versions.get(resource).get();
+    }
+
+    public void bump(Resource resource) {
+        versions.get(resource).incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTablesChanged(TablesChangedEvent event) {
+        bump(Resource.TABLES);
+    }
+
+    /**
+     * Tăng phiên bản TABLES nếu danh sách bàn trong DB khác lần kiểm tra trước (do node khác ghi).
+     * Vài chục dòng nên đọc lại toàn bộ; lần kiểm tra đầu chỉ ghi nhận.
+     */
+    @Scheduled(fixedDelayString = "${app.resource-versions.refresh-interval:5s}",
+            initialDelayString = "${app.resource-versions.refresh-interval:5s}")
+    public void refreshTables() {
+        List<CafeTableResponse> tables = cafeTableMapper.entityListToResponseList(cafeTableRepository.findAll());
+        if (lastTables != null && !lastTables.equals(tables)) {
+            bump(Resource.TABLES);
+        }
+        lastTables = tables;
+    }
+}
@@ -0,0 +1,113 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import com.giapho.coffee_shop_backend.domain.repository.UserRepository;
+import com.giapho.coffee_shop_backend.dto.UserSummaryDTO;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static com.giapho.coffee_shop_backend.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Danh bạ nhân viên trong bộ nhớ (id, username, fullName, status).
+ * <p>
+ * - Cung cấp user hiện tại dưới dạng reference (getReferenceById) cho các thao tác ghi, không cần SELECT.
+ * - Cung cấp thông tin hiển thị (username nhân viên trên đơn hàng, phiếu nhập...) mà không khởi tạo proxy User.
+ * UserService phải gọi {@link #evictAfterCommit(Long)} khi sửa thông tin user.
+ */
+@Slf4j
+@Service
+public class UserDirectory {
+
+    private static final long MAX_ENTRIES = 1_000;
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    private final UserRepository userRepository;
+    private final Cache<Long, UserSummaryDTO> summaries;
+
+    public UserDirectory(UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.summaries = CacheBuilder.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .expireAfterWrite(TTL)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, summaries, "userDirectory");
+    }
+
+    /**
+     * ID của user đang đăng nhập (lấy từ principal do JwtAuthenticationFilter gán)
+     */
+    public Long currentUserId() {
+        return currentPrincipal().getId();
+    }
+
+    /**
+     * Reference tới user đang đăng nhập, dùng để gán khoá ngoại (không SELECT bảng users)
+     */
+    public User currentUserReference() {
+        User principal = currentPrincipal();
+        // Principal vừa được load trong request này: dùng luôn để làm nóng cache
+        summaries.asMap().putIfAbsent(principal.getId(), toSummary(principal));
+        return userRepository.getReferenceById(principal.getId());
+    }
+
+    /**
+     * Thông tin hiển thị của user theo ID
+     */
+    public Optional<UserSummaryDTO> find(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        UserSummaryDTO summary = summaries.getIfPresent(userId);
+        if (summary != null) {
+            return Optional.of(summary);
+        }
+        Optional<UserSummaryDTO> loaded = userRepository.findSummaryById(userId);
+        loaded.ifPresent(value -> summaries.put(userId, value));
+        return loaded;
+    }
+
+    /**
+     * Username để hiển thị. Chỉ đọc ID của proxy nên không kích hoạt lazy loading.
+     */
+    public String usernameOf(User user) {
+        if (user == null) {
+            return null;
+        }
+        return find(user.getId()).map(UserSummaryDTO::getUsername).orElse(null);
+    }
+
+    /**
+     * Xoá user khỏi cache ngay và sau khi transaction hiện tại commit
+     * (tránh request khác nạp lại dữ liệu cũ trong lúc transaction chưa commit)
+     */
+    public void evictAfterCommit(Long userId) {
+        summaries.invalidate(userId);
+        afterCommit(() -> summaries.invalidate(userId));
+    }
+
+    private User currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken
+                || !(authentication.getPrincipal() instanceof User user)) {
+            throw new IllegalStateException("User not authenticated");
+        }
+        return user;
+    }
+
+    private static UserSummaryDTO toSummary(User user) {
+        return new UserSummaryDTO(user.getId(), user.getUsername(), user.getFullName(), user.getStatus());
+    }
+}
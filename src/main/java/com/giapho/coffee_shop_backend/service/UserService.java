@@ -30,6 +30,7 @@ public class UserService {
     private final RoleRepository roleRepository; // Cần để kiểm tra Role ID hợp lệ
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final UserDirectory userDirectory;
 
     /**
      * Lấy danh sách tất cả người dùng (phân trang)
@@ -91,6 +92,7 @@ public class UserService {
 
         // Lưu thay đổi
         User updatedUser = userRepository.save(existingUser);
+        userDirectory.evictAfterCommit(updatedUser.getId());
 
         // Trả về DTO
         return userMapper.toUserResponseDto(updatedUser);
@@ -0,0 +1,436 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.config.VoucherCampaignProperties;
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import com.giapho.coffee_shop_backend.domain.entity.VoucherCampaign;
+import com.giapho.coffee_shop_backend.domain.repository.VoucherCampaignRepository;
+import com.giapho.coffee_shop_backend.domain.repository.VoucherCodeJdbcRepository;
+import com.giapho.coffee_shop_backend.dto.VoucherCampaignDTO;
+import com.giapho.coffee_shop_backend.dto.VoucherCampaignRequestDTO;
+import com.giapho.coffee_shop_backend.mapper.VoucherCampaignMapper;
+import com.giapho.coffee_shop_backend.service.VoucherRegistry.VoucherSnapshot;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import static com.giapho.coffee_shop_backend.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Chiến dịch voucher: phát hành hàng loạt mã dùng 1 lần.
+ * <p>
+ * - Sinh mã ngẫu nhiên (Crockford base32, không có ký tự dễ nhầm) và insert bằng JDBC batch.
+ * - Bloom filter chứa mọi mã đã phát hành: mã rác bị từ chối ngay mà không cần query DB.
+ *   Vượt dung lượng thiết kế thì job nền dựng filter lớn hơn từ DB; trong lúc đó mã mới vẫn được thêm vào filter cũ.
+ * - Mỗi chiến dịch có 1 bitmap (BitSet theo seq) đánh dấu mã đã dùng, để thống kê và từ chối sớm.
+ * - Chiến dịch do node khác tạo được nạp định kỳ, hoặc ngay khi gặp mã có tiền tố lạ (tối đa 1 lần / giây).
+ * Bảng voucher_codes vẫn là nguồn dữ liệu gốc; việc dùng mã là UPDATE có điều kiện (chỉ thành công 1 lần).
+ */
+@Slf4j
+@Service
+public class VoucherCampaignService {
+
+    private static final char[] CODE_ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int RANDOM_PART_LENGTH = 10; // 50 bit ngẫu nhiên
+    private static final Pattern CODE_FORMAT = Pattern.compile("^([A-Z0-9]{2,10})-[0-9A-Z]{" + RANDOM_PART_LENGTH + "}$");
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.001;
+    private static final int EXPORT_CHUNK_SIZE = 5_000;
+    private static final long RELOAD_MIN_GAP_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final VoucherCampaignRepository campaignRepository;
+    private final VoucherCodeJdbcRepository codeRepository;
+    private final VoucherCampaignMapper campaignMapper;
+    private final VoucherCampaignProperties properties;
+    private final SecureRandom random = new SecureRandom();
+    private final Counter bloomRejections;
+
+    private final Map<Long, VoucherCampaign> campaignsById = new ConcurrentHashMap<>();
+    private final Map<String, Long> campaignIdsByPrefix = new ConcurrentHashMap<>();
+    private final Map<Long, BitSet> redeemedBitmaps = new ConcurrentHashMap<>();
+
+    // Khoá chỉ giữ trong lúc thêm mã / thay filter, không giữ khi quét DB
+    private final ReentrantLock bloomLock = new ReentrantLock();
+    private volatile BloomFilter<CharSequence> codeFilter; // null khi chưa nạp xong → hỏi DB
+    private volatile long bloomCapacity;
+    private volatile long bloomSize;
+    private volatile boolean bloomRebuildRequested;
+    private List<String> codesDuringRebuild; // Khác null khi đang dựng lại: mã phát hành trong lúc quét DB
+
+    private final Object reloadLock = new Object();
+    private volatile long lastReloadNanos = System.nanoTime() - RELOAD_MIN_GAP_NANOS;
+
+    public VoucherCampaignService(VoucherCampaignRepository campaignRepository,
+                                  VoucherCodeJdbcRepository codeRepository,
+                                  VoucherCampaignMapper campaignMapper,
+                                  VoucherCampaignProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.campaignRepository = campaignRepository;
+        this.codeRepository = codeRepository;
+        this.campaignMapper = campaignMapper;
+        this.properties = properties;
+        this.bloomRejections = Counter.builder("voucher.codes.bloom.rejected")
+                .description("Campaign codes rejected by the Bloom filter without a DB lookup")
+                .register(meterRegistry);
+        Gauge.builder("voucher.codes.bloom.size", this, service -> service.bloomSize)
+                .description("Campaign codes in the Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("voucher.codes.bloom.capacity", this, service -> service.bloomCapacity)
+                .description("Design capacity of the Bloom filter")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            long start = System.nanoTime();
+            campaignRepository.findAll().forEach(this::register);
+            for (long[] row : codeRepository.findRedeemed()) {
+                BitSet bitmap = redeemedBitmaps.get(row[0]);
+                if (bitmap != null) {
+                    synchronized (bitmap) {
+                        bitmap.set((int) row[1]);
+                    }
+                }
+            }
+            rebuildBloomFilter();
+            log.info("Loaded {} voucher campaigns ({} codes) in {} ms", campaignsById.size(), bloomSize,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Could not load voucher campaigns: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tạo chiến dịch và phát hành {@code quantity} mã
+     */
+    @Transactional
+    public VoucherCampaignDTO createCampaign(VoucherCampaignRequestDTO request) {
+        if (!request.getValidTo().isAfter(request.getValidFrom())) {
+            throw new IllegalArgumentException("Valid to must be after valid from");
+        }
+        if (request.getType() == Voucher.VoucherType.PERCENTAGE
+                && request.getDiscountValue().compareTo(BigDecimal.valueOf(100)) > 0) {
+            throw new IllegalArgumentException("Percentage discount must not exceed 100");
+        }
+        if (campaignRepository.existsByPrefix(request.getPrefix())) {
+            throw new IllegalArgumentException("Campaign prefix already exists: " + request.getPrefix());
+        }
+
+        long start = System.nanoTime();
+        VoucherCampaign campaign = campaignMapper.toEntity(request);
+        campaign.setCodeCount(request.getQuantity());
+        VoucherCampaign saved = campaignRepository.save(campaign);
+
+        List<String> codes = generateCodes(saved.getPrefix(), request.getQuantity());
+        codeRepository.batchInsert(saved.getId(), codes);
+
+        afterCommit(() -> {
+            register(saved);
+            addToBloomFilter(codes);
+        });
+        log.info("Created voucher campaign {} with {} codes in {} ms", saved.getPrefix(), codes.size(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        VoucherCampaignDTO dto = campaignMapper.toDto(saved);
+        dto.setRedeemedCount(0);
+        return dto;
+    }
+
+    @Transactional(readOnly = true)
+    public List<VoucherCampaignDTO> getAllCampaigns() {
+        return campaignRepository.findAll().stream().map(this::toDto).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public VoucherCampaignDTO getCampaignById(Long id) {
+        return toDto(findCampaign(id));
+    }
+
+    /**
+     * Ghi toàn bộ mã của chiến dịch ra CSV (code, redeemed_at), đọc DB theo từng khúc
+     */
+    public void exportCodes(Long campaignId, Writer writer) throws IOException {
+        findCampaign(campaignId);
+        writer.write("code,redeemed_at\n");
+        int afterSeq = -1;
+        List<VoucherCodeJdbcRepository.ExportRow> chunk;
+        do {
+            chunk = codeRepository.findPage(campaignId, afterSeq, EXPORT_CHUNK_SIZE);
+            for (VoucherCodeJdbcRepository.ExportRow row : chunk) {
+                writer.write(row.code());
+                writer.write(',');
+                if (row.redeemedAt() != null) {
+                    writer.write(row.redeemedAt().toString());
+                }
+                writer.write('\n');
+                afterSeq = row.seq();
+            }
+            writer.flush();
+        } while (chunk.size() == EXPORT_CHUNK_SIZE);
+    }
+
+    /**
+     * Mã có đúng định dạng mã chiến dịch (tiền tố của một chiến dịch đã biết) hay không
+     */
+    public boolean isCampaignCode(String code) {
+        var matcher = CODE_FORMAT.matcher(code);
+        if (!matcher.matches()) {
+            return false;
+        }
+        String prefix = matcher.group(1);
+        // Tiền tố lạ: có thể là chiến dịch node khác vừa tạo
+        if (!campaignIdsByPrefix.containsKey(prefix) && System.nanoTime() - lastReloadNanos > RELOAD_MIN_GAP_NANOS) {
+            reloadCampaigns();
+        }
+        return campaignIdsByPrefix.containsKey(prefix);
+    }
+
+    /**
+     * Tra cứu mã chiến dịch: Bloom filter trước, chỉ query DB khi mã có thể tồn tại
+     */
+    public Optional<VoucherSnapshot> findSnapshot(String code) {
+        BloomFilter<CharSequence> filter = codeFilter;
+        if (filter != null && !filter.mightContain(code)) {
+            bloomRejections.increment();
+            return Optional.empty();
+        }
+        return codeRepository.findByCode(code).flatMap(row -> {
+            VoucherCampaign campaign = campaignsById.get(row.campaignId());
+            if (campaign == null) {
+                return Optional.empty();
+            }
+            boolean redeemed = row.redeemed() || isRedeemed(row.campaignId(), row.seq());
+            return Optional.of(VoucherSnapshot.ofCampaignCode(campaign, code, row.seq(), redeemed));
+        });
+    }
+
+    /**
+     * Dùng mã chiến dịch cho đơn hàng (UPDATE có điều kiện, chỉ thành công 1 lần)
+     */
+    @Transactional
+    public boolean redeem(VoucherSnapshot snapshot, Long orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        VoucherCampaign campaign = campaignsById.get(snapshot.campaignId());
+        if (campaign == null || !campaign.isActive()
+                || now.isBefore(campaign.getValidFrom()) || now.isAfter(campaign.getValidTo())
+                || isRedeemed(snapshot.campaignId(), snapshot.sequence())) {
+            return false;
+        }
+        if (codeRepository.redeem(snapshot.code(), orderId, now) == 0) {
+            return false;
+        }
+        afterCommit(() -> {
+            BitSet bitmap = redeemedBitmaps.get(snapshot.campaignId());
+            if (bitmap != null) {
+                synchronized (bitmap) {
+                    bitmap.set(snapshot.sequence());
+                }
+            }
+        });
+        return true;
+    }
+
+    private VoucherCampaign findCampaign(Long id) {
+        return campaignRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Voucher campaign not found with id: " + id));
+    }
+
+    private VoucherCampaignDTO toDto(VoucherCampaign campaign) {
+        VoucherCampaignDTO dto = campaignMapper.toDto(campaign);
+        BitSet bitmap = redeemedBitmaps.get(campaign.getId());
+        if (bitmap != null) {
+            synchronized (bitmap) {
+                dto.setRedeemedCount(bitmap.cardinality());
+            }
+        }
+        return dto;
+    }
+
+    private void register(VoucherCampaign campaign) {
+        campaignsById.put(campaign.getId(), campaign);
+        campaignIdsByPrefix.put(campaign.getPrefix(), campaign.getId());
+        redeemedBitmaps.putIfAbsent(campaign.getId(), new BitSet(campaign.getCodeCount()));
+    }
+
+    private boolean isRedeemed(long campaignId, int seq) {
+        BitSet bitmap = redeemedBitmaps.get(campaignId);
+        if (bitmap == null) {
+            return false;
+        }
+        synchronized (bitmap) {
+            return bitmap.get(seq);
+        }
+    }
+
+    private List<String> generateCodes(String prefix, int quantity) {
+        Set<String> unique = new HashSet<>(quantity * 2);
+        List<String> codes = new ArrayList<>(quantity);
+        char[] buffer = new char[RANDOM_PART_LENGTH];
+        while (codes.size() < quantity) {
+            for (int i = 0; i < buffer.length; i++) {
+                buffer[i] = CODE_ALPHABET[random.nextInt(CODE_ALPHABET.length)];
+            }
+            String code = prefix + "-" + new String(buffer);
+            if (unique.add(code)) { // Tiền tố là duy nhất nên chỉ cần chống trùng trong chiến dịch
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Nạp các chiến dịch chưa biết (do node khác tạo): thêm mã vào Bloom filter rồi mới nhận tiền tố,
+     * để mã của chiến dịch không bị filter từ chối
+     */
+    @Scheduled(fixedDelayString = "${app.voucher.campaign.reload-interval:10s}",
+            initialDelayString = "${app.voucher.campaign.reload-interval:10s}")
+    public void reloadCampaigns() {
+        synchronized (reloadLock) {
+            lastReloadNanos = System.nanoTime();
+            List<Long> unknown = campaignRepository.findAllIds().stream()
+                    .filter(id -> !campaignsById.containsKey(id))
+                    .toList();
+            if (unknown.isEmpty()) {
+                return;
+            }
+            for (VoucherCampaign campaign : campaignRepository.findAllById(unknown)) {
+                loadCodes(campaign);
+                register(campaign);
+            }
+            if (codeFilter == null) {
+                bloomRebuildRequested = true; // warmUp lỗi: dựng filter ở job nền
+            }
+            log.info("Loaded {} voucher campaigns created on other nodes", unknown.size());
+        }
+    }
+
+    /**
+     * Dựng lại Bloom filter ở job nền khi số mã đã vượt dung lượng thiết kế (tỉ lệ dương tính giả tăng dần)
+     */
+    @Scheduled(fixedDelayString = "${app.voucher.campaign.bloom-rebuild-interval:10s}",
+            initialDelayString = "${app.voucher.campaign.bloom-rebuild-interval:10s}")
+    public void rebuildBloomFilterIfNeeded() {
+        if (bloomRebuildRequested) {
+            rebuildBloomFilter();
+        }
+    }
+
+    // package-private để test kiểm tra nhánh dương tính giả
+    boolean mightBeIssued(String code) {
+        BloomFilter<CharSequence> filter = codeFilter;
+        return filter == null || filter.mightContain(code);
+    }
+
+    /**
+     * Đọc mã của chiến dịch từ DB theo từng khúc: thêm vào Bloom filter và đánh dấu mã đã dùng
+     */
+    private void loadCodes(VoucherCampaign campaign) {
+        BitSet bitmap = redeemedBitmaps.computeIfAbsent(campaign.getId(), id -> new BitSet(campaign.getCodeCount()));
+        int afterSeq = -1;
+        List<VoucherCodeJdbcRepository.ExportRow> chunk;
+        do {
+            chunk = codeRepository.findPage(campaign.getId(), afterSeq, EXPORT_CHUNK_SIZE);
+            List<String> codes = new ArrayList<>(chunk.size());
+            for (VoucherCodeJdbcRepository.ExportRow row : chunk) {
+                codes.add(row.code());
+                if (row.redeemedAt() != null) {
+                    synchronized (bitmap) {
+                        bitmap.set(row.seq());
+                    }
+                }
+                afterSeq = row.seq();
+            }
+            addToBloomFilter(codes);
+        } while (chunk.size() == EXPORT_CHUNK_SIZE);
+    }
+
+    private void addToBloomFilter(List<String> codes) {
+        bloomLock.lock();
+        try {
+            if (codesDuringRebuild != null) {
+                codesDuringRebuild.addAll(codes); // Lần quét DB đang chạy có thể không thấy các mã này
+            }
+            BloomFilter<CharSequence> filter = codeFilter;
+            if (filter == null) {
+                return; // Chưa nạp: warmUp sẽ đọc cả các mã này từ DB
+            }
+            // Vượt dung lượng vẫn thêm vào filter hiện tại (tỉ lệ dương tính giả tăng tạm thời) cho tới khi có filter mới
+            codes.forEach(filter::put);
+            bloomSize += codes.size();
+            if (bloomSize > bloomCapacity) {
+                bloomRebuildRequested = true;
+            }
+        } finally {
+            bloomLock.unlock();
+        }
+    }
+
+    private void rebuildBloomFilter() {
+        bloomLock.lock();
+        try {
+            if (codesDuringRebuild != null) {
+                return; // Đang dựng lại ở luồng khác
+            }
+            codesDuringRebuild = new ArrayList<>();
+            bloomRebuildRequested = false;
+        } finally {
+            bloomLock.unlock();
+        }
+
+        long total = campaignsById.values().stream().mapToLong(VoucherCampaign::getCodeCount).sum();
+        long capacity = Math.max(properties.getBloomMinCapacity(), total * 2);
+        BloomFilter<CharSequence> filter = BloomFilter.create(
+                Funnels.stringFunnel(StandardCharsets.UTF_8), capacity, BLOOM_FALSE_POSITIVE_RATE);
+        long[] count = {0};
+        boolean scanned = false;
+        try {
+            codeRepository.forEachCode(code -> {
+                filter.put(code);
+                count[0]++;
+            });
+            scanned = true;
+        } finally {
+            bloomLock.lock();
+            try {
+                if (scanned) {
+                    // Mã có thể bị đếm 2 lần (vừa quét thấy vừa nằm trong danh sách chờ): chỉ làm size ước lượng dư
+                    codesDuringRebuild.forEach(filter::put);
+                    bloomCapacity = capacity;
+                    bloomSize = count[0] + codesDuringRebuild.size();
+                    codeFilter = filter;
+                } else {
+                    bloomRebuildRequested = true; // Quét DB lỗi: giữ filter cũ, thử lại ở chu kỳ sau
+                }
+                codesDuringRebuild = null;
+            } finally {
+                bloomLock.unlock();
+            }
+        }
+    }
+}
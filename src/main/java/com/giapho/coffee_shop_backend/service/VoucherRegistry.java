@@ -0,0 +1,147 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import com.giapho.coffee_shop_backend.domain.entity.VoucherCampaign;
+import com.giapho.coffee_shop_backend.domain.repository.VoucherRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.giapho.coffee_shop_backend.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Bộ nhớ đệm voucher theo mã, để kiểm tra voucher (mỗi lần sửa món) không phải query DB.
+ * <p>
+ * - Mã không tồn tại cũng được cache (negative cache) để mã gõ sai không đánh vào DB liên tục.
+ * - Mã của chiến dịch (VD: "TET25-7K3QX9MD2A") được tra qua {@link VoucherCampaignService} (Bloom filter + voucher_codes).
+ * - Khung thời gian hiệu lực được kiểm tra theo giờ hiện tại ở mỗi lần gọi, nên entry không bị "quá hạn" trong cache.
+ * - Số lần đã dùng chỉ là giá trị tham khảo để từ chối sớm; giới hạn thật được DB đảm bảo
+ * bằng UPDATE có điều kiện (xem {@link VoucherRepository#consumeUsage}).
+ * Entry được nạp lại sau {@link #TTL} để nhận thay đổi sửa trực tiếp trong DB.
+ */
+@Slf4j
+@Service
+public class VoucherRegistry {
+
+    private static final long MAX_ENTRIES = 10_000;
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    /**
+     * Bản chụp bất biến của voucher (trừ bộ đếm lượt dùng)
+     *
+     * @param campaignId chiến dịch của mã (null với voucher thường trong bảng vouchers)
+     * @param sequence   số thứ tự của mã trong chiến dịch
+     */
+    public record VoucherSnapshot(
+            String code,
+            Voucher.VoucherType type,
+            BigDecimal discountValue,
+            BigDecimal minimumOrderAmount,
+            BigDecimal maximumDiscountAmount,
+            LocalDateTime validFrom,
+            LocalDateTime validTo,
+            int usageLimit,
+            AtomicInteger timesUsed,
+            boolean active,
+            Long campaignId,
+            int sequence
+    ) {
+        static VoucherSnapshot of(Voucher voucher) {
+            return new VoucherSnapshot(voucher.getCode(), voucher.getType(), voucher.getDiscountValue(),
+                    voucher.getMinimumOrderAmount(), voucher.getMaximumDiscountAmount(),
+                    voucher.getValidFrom(), voucher.getValidTo(), voucher.getUsageLimit(),
+                    new AtomicInteger(voucher.getTimesUsed()), voucher.isActive(), null, 0);
+        }
+
+        // Mã chiến dịch: dùng 1 lần, điều kiện lấy từ chiến dịch
+        static VoucherSnapshot ofCampaignCode(VoucherCampaign campaign, String code, int sequence, boolean redeemed) {
+            return new VoucherSnapshot(code, campaign.getType(), campaign.getDiscountValue(),
+                    campaign.getMinimumOrderAmount(), campaign.getMaximumDiscountAmount(),
+                    campaign.getValidFrom(), campaign.getValidTo(), 1,
+                    new AtomicInteger(redeemed ? 1 : 0), campaign.isActive(), campaign.getId(), sequence);
+        }
+
+        public boolean isCampaignCode() {
+            return campaignId != null;
+        }
+
+        public boolean isExhausted() {
+            return timesUsed.get() >= usageLimit;
+        }
+    }
+
+    private final VoucherRepository voucherRepository;
+    private final VoucherCampaignService campaignService;
+    private final Cache<String, Optional<VoucherSnapshot>> vouchers;
+
+    public VoucherRegistry(VoucherRepository voucherRepository, VoucherCampaignService campaignService,
+                           MeterRegistry meterRegistry) {
+        this.voucherRepository = voucherRepository;
+        this.campaignService = campaignService;
+        this.vouchers = CacheBuilder.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .expireAfterWrite(TTL)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, vouchers, "vouchers");
+    }
+
+    /**
+     * Chuẩn hoá mã voucher (mã được lưu và so sánh dạng chữ hoa)
+     */
+    public static String normalize(String code) {
+        return code == null ? "" : code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    public Optional<VoucherSnapshot> find(String code) {
+        String key = normalize(code);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return vouchers.get(key, () -> load(key));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to load voucher " + key, e.getCause());
+        }
+    }
+
+    /**
+     * Ghi nhận 1 lượt dùng vào bản chụp sau khi transaction commit (DB đã được cập nhật)
+     */
+    public void recordUsageAfterCommit(String code) {
+        String key = normalize(code);
+        afterCommit(() -> recordUsage(key));
+    }
+
+    /**
+     * Xoá voucher khỏi cache (khi voucher bị sửa hoặc DB từ chối lượt dùng)
+     */
+    public void evict(String code) {
+        vouchers.invalidate(normalize(code));
+    }
+
+    private Optional<VoucherSnapshot> load(String key) {
+        if (campaignService.isCampaignCode(key)) {
+            return campaignService.findSnapshot(key);
+        }
+        return voucherRepository.findByCode(key).map(VoucherSnapshot::of);
+    }
+
+    private void recordUsage(String key) {
+        Optional<VoucherSnapshot> cached = vouchers.getIfPresent(key);
+        if (cached != null) {
+            cached.ifPresent(snapshot -> snapshot.timesUsed().incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.config.VoucherReservationProperties;
+import com.giapho.coffee_shop_backend.domain.entity.Order;
+import com.giapho.coffee_shop_backend.domain.entity.VoucherReservation;
+import com.giapho.coffee_shop_backend.domain.repository.VoucherReservationRepository;
+import com.giapho.coffee_shop_backend.service.VoucherRegistry.VoucherSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.giapho.coffee_shop_backend.util.TransactionCallbacks.afterCommit;
+import static com.giapho.coffee_shop_backend.util.TransactionCallbacks.afterRollback;
+
+/**
+ * Giữ chỗ voucher cho đơn PENDING: áp dụng mã → giữ 1 lượt (có hạn), thanh toán → chuyển thành lượt dùng,
+ * gỡ mã / huỷ đơn → trả lượt. Job định kỳ thu hồi các lượt giữ quá hạn.
+ * <p>
+ * Số lượt đang giữ của từng mã nằm trong bộ nhớ (AtomicInteger), nên áp dụng mã hot không phải khoá dòng
+ * vouchers hay đếm bảng voucher_reservations. Bảng voucher_reservations lưu trạng thái từng lượt giữ
+ * để nạp lại bộ đếm khi khởi động. Giới hạn cuối cùng vẫn do UPDATE có điều kiện lúc thanh toán đảm bảo.
+ */
+@Slf4j
+@Service
+public class VoucherReservationService {
+
+    private final VoucherReservationRepository reservationRepository;
+    private final VoucherRegistry voucherRegistry;
+    private final VoucherService voucherService;
+    private final VoucherReservationProperties properties;
+    private final TransactionTemplate sweepTransaction;
+    private final Counter expiredCounter;
+
+    // Mã voucher → số lượt đang giữ (chưa thanh toán, chưa hết hạn)
+    private final Map<String, AtomicInteger> activeReservations = new ConcurrentHashMap<>();
+
+    public VoucherReservationService(VoucherReservationRepository reservationRepository,
+                                     VoucherRegistry voucherRegistry,
+                                     VoucherService voucherService,
+                                     VoucherReservationProperties properties,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry) {
+        this.reservationRepository = reservationRepository;
+        this.voucherRegistry = voucherRegistry;
+        this.voucherService = voucherService;
+        this.properties = properties;
+        this.sweepTransaction = new TransactionTemplate(transactionManager);
+        this.expiredCounter = Counter.builder("voucher.reservations.expired").register(meterRegistry);
+        Gauge.builder("voucher.reservations.active", activeReservations,
+                        map -> map.values().stream().mapToInt(AtomicInteger::get).sum())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveReservations() {
+        try {
+            for (Object[] row : reservationRepository.countActiveByVoucherCode(LocalDateTime.now())) {
+                counter((String) row[0]).addAndGet(((Number) row[1]).intValue());
+            }
+            log.info("Loaded active voucher reservations for {} codes", activeReservations.size());
+        } catch (Exception e) {
+            log.warn("Could not load voucher reservations: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Giữ 1 lượt voucher cho đơn (gia hạn nếu đơn đã giữ đúng mã này, trả lượt cũ nếu đơn đổi mã).
+     * Ném IllegalArgumentException nếu không còn lượt trống.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Order order, String code) {
+        String key = VoucherRegistry.normalize(code);
+        LocalDateTime expiresAt = LocalDateTime.now().plus(properties.getTtl());
+
+        Optional<VoucherReservation> existing = findActive(order);
+        if (existing.isPresent()) {
+            if (!existing.get().getVoucherCode().equals(key)) {
+                finish(existing.get(), VoucherReservation.STATUS_RELEASED);
+            } else if (reservationRepository.extend(existing.get().getId(), expiresAt, LocalDateTime.now()) == 1) {
+                // UPDATE có điều kiện, không sửa trên entity: flush sẽ ghi đè EXPIRED của job thu hồi bằng RESERVED
+                return;
+            }
+            // Đổi mã, hoặc job thu hồi vừa chuyển lượt giữ sang EXPIRED (và đã trả lượt): giữ lượt mới
+        }
+
+        claimSlot(key);
+        reservationRepository.save(VoucherReservation.builder()
+                .voucherCode(key)
+                .order(order)
+                .status(VoucherReservation.STATUS_RESERVED)
+                .expiresAt(expiresAt)
+                .build());
+    }
+
+    /**
+     * Thanh toán: chuyển lượt giữ thành lượt dùng (UPDATE có điều kiện trên vouchers).
+     * Nếu lượt giữ đã bị thu hồi do quá hạn thì giữ lại một lượt mới trước (nếu còn).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void convert(Order order) {
+        String key = VoucherRegistry.normalize(order.getVoucherCode());
+        Optional<VoucherReservation> reservation = findActive(order)
+                .filter(r -> r.getVoucherCode().equals(key));
+        if (reservation.isEmpty()) {
+            claimSlot(key);
+        }
+        // Ghi nhận lượt dùng trước rồi mới trả lượt giữ, để lượt này không bị coi là trống trong khoảnh khắc giữa 2 bước
+        voucherService.consumeUsage(key, order.getId());
+        if (reservation.isEmpty()) {
+            afterCommit(() -> decrement(key)); // Lượt tạm lấy lúc thanh toán
+        } else {
+            finish(reservation.get(), VoucherReservation.STATUS_CONVERTED);
+        }
+    }
+
+    /**
+     * Gỡ voucher / huỷ đơn: trả lại lượt đang giữ (nếu có)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Order order) {
+        findActive(order).ifPresent(reservation -> finish(reservation, VoucherReservation.STATUS_RELEASED));
+    }
+
+    /**
+     * Thu hồi các lượt giữ quá hạn (đơn bị bỏ dở), mỗi lô trong 1 transaction riêng
+     */
+    @Scheduled(fixedDelayString = "${app.voucher.reservation.sweep-interval:1m}",
+            initialDelayString = "${app.voucher.reservation.sweep-interval:1m}")
+    public void sweepExpired() {
+        int total = 0;
+        int swept;
+        do {
+            Integer result = sweepTransaction.execute(status -> sweepBatch());
+            swept = result == null ? 0 : result;
+            total += swept;
+        } while (swept >= properties.getSweepBatchSize());
+        if (total > 0) {
+            expiredCounter.increment(total);
+            log.info("Reclaimed {} expired voucher reservations", total);
+        }
+    }
+
+    /**
+     * Số lượt của mã đang được giữ cho các đơn chưa thanh toán (trên instance này)
+     */
+    public int activeReservations(String code) {
+        AtomicInteger counter = activeReservations.get(VoucherRegistry.normalize(code));
+        return counter == null ? 0 : counter.get();
+    }
+
+    private int sweepBatch() {
+        List<VoucherReservation> expired = reservationRepository.findByStatusAndExpiresAtBefore(
+                VoucherReservation.STATUS_RESERVED, LocalDateTime.now(), Limit.of(properties.getSweepBatchSize()));
+        List<String> reclaimedCodes = new ArrayList<>(expired.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (VoucherReservation reservation : expired) {
+            if (reservationRepository.transition(reservation.getId(), VoucherReservation.STATUS_RESERVED,
+                    VoucherReservation.STATUS_EXPIRED, now) == 1) {
+                reclaimedCodes.add(reservation.getVoucherCode());
+            }
+        }
+        afterCommit(() -> reclaimedCodes.forEach(this::decrement));
+        return reclaimedCodes.size();
+    }
+
+    private Optional<VoucherReservation> findActive(Order order) {
+        if (order.getId() == null) {
+            return Optional.empty(); // Đơn chưa lưu thì chưa giữ gì
+        }
+        return reservationRepository.findFirstByOrderIdAndStatus(order.getId(), VoucherReservation.STATUS_RESERVED);
+    }
+
+    /**
+     * Kết thúc lượt giữ; chỉ trả lượt trong bộ nhớ nếu chính luồng này chuyển được trạng thái
+     * (job thu hồi có thể đã chuyển sang EXPIRED trước)
+     */
+    private void finish(VoucherReservation reservation, String status) {
+        if (reservationRepository.transition(reservation.getId(), VoucherReservation.STATUS_RESERVED,
+                status, LocalDateTime.now()) == 1) {
+            String code = reservation.getVoucherCode();
+            afterCommit(() -> decrement(code));
+        }
+    }
+
+    /**
+     * Lấy 1 lượt trống: lượt đã dùng + lượt đang giữ < giới hạn (CAS, không khoá)
+     */
+    private void claimSlot(String key) {
+        VoucherSnapshot voucher = voucherRegistry.find(key)
+                .orElseThrow(() -> new EntityNotFoundException("Voucher không tồn tại: " + key));
+        AtomicInteger counter = counter(key);
+        while (true) {
+            int reserved = counter.get();
+            if (voucher.timesUsed().get() + reserved >= voucher.usageLimit()) {
+                throw new IllegalArgumentException("Voucher " + key
+                        + " đã hết lượt (các lượt còn lại đang được giữ cho đơn chưa thanh toán).");
+            }
+            if (counter.compareAndSet(reserved, reserved + 1)) {
+                break;
+            }
+        }
+        // Transaction rollback thì trả lại lượt vừa lấy
+        afterRollback(() -> decrement(key));
+    }
+
+    private AtomicInteger counter(String key) {
+        return activeReservations.computeIfAbsent(key, ignored -> new AtomicInteger());
+    }
+
+    private void decrement(String key) {
+        AtomicInteger counter = activeReservations.get(key);
+        if (counter != null) {
+            counter.updateAndGet(value -> Math.max(0, value - 1));
+        }
+    }
+}
@@ -3,41 +3,47 @@ package com.giapho.coffee_shop_backend.service;
 import com.giapho.coffee_shop_backend.domain.entity.Voucher;
 import com.giapho.coffee_shop_backend.domain.repository.VoucherRepository;
 import com.giapho.coffee_shop_backend.dto.VoucherCheckResponseDTO;
+import com.giapho.coffee_shop_backend.service.VoucherRegistry.VoucherSnapshot;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class VoucherService {
 
     private final VoucherRepository voucherRepository;
+    private final VoucherRegistry voucherRegistry;
+    private final VoucherCampaignService voucherCampaignService;
     // Inject VoucherMapper nếu cần cho CRUD
 
-    // Hàm quan trọng để kiểm tra và tính toán giảm giá
+    // Hàm quan trọng để kiểm tra và tính toán giảm giá (đọc từ VoucherRegistry, không query DB mỗi lần)
     public VoucherCheckResponseDTO checkAndCalculateDiscount(String code, BigDecimal orderAmount) {
-        Voucher voucher = voucherRepository.findByCode(code)
+        VoucherSnapshot voucher = voucherRegistry.find(code)
                 .orElseThrow(() -> new EntityNotFoundException("Voucher không tồn tại: " + code));
 
         // Kiểm tra cơ bản
-        if (!voucher.isActive()) {
+        if (!voucher.active()) {
             return buildInvalidResponse(voucher, "Voucher không hoạt động.");
         }
-        if (voucher.getTimesUsed() >= voucher.getUsageLimit()) {
+        if (voucher.isExhausted()) {
             return buildInvalidResponse(voucher, "Voucher đã hết lượt sử dụng.");
         }
         LocalDateTime now = LocalDateTime.now();
-        if (now.isBefore(voucher.getValidFrom())) {
+        if (now.isBefore(voucher.validFrom())) {
             return buildInvalidResponse(voucher, "Voucher chưa đến ngày sử dụng.");
         }
-        if (now.isAfter(voucher.getValidTo())) {
+        if (now.isAfter(voucher.validTo())) {
             return buildInvalidResponse(voucher, "Voucher đã hết hạn.");
         }
-        if (voucher.getMinimumOrderAmount() != null && orderAmount.compareTo(voucher.getMinimumOrderAmount()) < 0) {
-            return buildInvalidResponse(voucher, "Đơn hàng chưa đạt giá trị tối thiểu (" + voucher.getMinimumOrderAmount() + ").");
+        if (voucher.minimumOrderAmount() != null && orderAmount.compareTo(voucher.minimumOrderAmount()) < 0) {
+            return buildInvalidResponse(voucher, "Đơn hàng chưa đạt giá trị tối thiểu (" + voucher.minimumOrderAmount() + ").");
         }
 
 
@@ -46,22 +52,23 @@ public class VoucherService {
         return VoucherCheckResponseDTO.builder()
                 .isValid(true)
                 .message("Áp dụng voucher thành công!")
-                .code(voucher.getCode())
+                .code(voucher.code())
                 .discountAmount(discountAmount)
-                .type(voucher.getType())
+                .type(voucher.type())
                 .build();
     }
 
 
-    private BigDecimal calculateDiscount(Voucher voucher, BigDecimal orderAmount) {
+    // package-private để benchmark trong src/jmh gọi trực tiếp
+    BigDecimal calculateDiscount(VoucherSnapshot voucher, BigDecimal orderAmount) {
         BigDecimal discount = BigDecimal.ZERO;
-        if (voucher.getType() == Voucher.VoucherType.FIXED_AMOUNT) {
-            discount = voucher.getDiscountValue();
-        } else if (voucher.getType() == Voucher.VoucherType.PERCENTAGE) {
-            discount = orderAmount.multiply(voucher.getDiscountValue().divide(BigDecimal.valueOf(100)));
+        if (voucher.type() == Voucher.VoucherType.FIXED_AMOUNT) {
+            discount = voucher.discountValue();
+        } else if (voucher.type() == Voucher.VoucherType.PERCENTAGE) {
+            discount = orderAmount.multiply(voucher.discountValue().divide(BigDecimal.valueOf(100)));
 
-            if (voucher.getMaximumDiscountAmount() != null && discount.compareTo(voucher.getMaximumDiscountAmount()) > 0) {
-                discount = voucher.getMaximumDiscountAmount();
+            if (voucher.maximumDiscountAmount() != null && discount.compareTo(voucher.maximumDiscountAmount()) > 0) {
+                discount = voucher.maximumDiscountAmount();
             }
         }
 
@@ -69,21 +76,34 @@ public class VoucherService {
     }
 
 
-    private VoucherCheckResponseDTO buildInvalidResponse(Voucher voucher, String message) {
+    private VoucherCheckResponseDTO buildInvalidResponse(VoucherSnapshot voucher, String message) {
         return VoucherCheckResponseDTO.builder()
                 .isValid(false)
                 .message(message)
-                .code(voucher.getCode())
+                .code(voucher.code())
                 .discountAmount(BigDecimal.ZERO)
-                .type(voucher.getType()) // Vẫn trả về type nếu muốn
+                .type(voucher.type()) // Vẫn trả về type nếu muốn
                 .build();
     }
 
 
-    public void incrementUsageCount(String code) {
-        voucherRepository.findByCode(code).ifPresent(voucher -> {
-            voucher.setTimesUsed(voucher.getTimesUsed() + 1);
-            voucherRepository.save(voucher);
-        });
+    /**
+     * Dùng 1 lượt voucher khi thanh toán (phải chạy trong transaction thanh toán).
+     * UPDATE có điều kiện nên usageLimit luôn được đảm bảo chính xác kể cả khi thanh toán đồng thời;
+     * mã chiến dịch chỉ dùng được đúng 1 lần.
+     * Ném IllegalArgumentException nếu voucher hết lượt / hết hạn để transaction thanh toán rollback.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void consumeUsage(String code, Long orderId) {
+        String normalizedCode = VoucherRegistry.normalize(code);
+        Optional<VoucherSnapshot> snapshot = voucherRegistry.find(normalizedCode);
+        boolean consumed = snapshot.isPresent() && snapshot.get().isCampaignCode()
+                ? voucherCampaignService.redeem(snapshot.get(), orderId)
+                : voucherRepository.consumeUsage(normalizedCode, LocalDateTime.now()) == 1;
+        if (!consumed) {
+            voucherRegistry.evict(normalizedCode); // Bản chụp có thể đã cũ
+            throw new IllegalArgumentException("Voucher " + normalizedCode + " không còn hiệu lực hoặc đã hết lượt sử dụng.");
+        }
+        voucherRegistry.recordUsageAfterCommit(normalizedCode);
     }
 }
\ No newline at end of file
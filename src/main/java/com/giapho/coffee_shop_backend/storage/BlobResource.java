@@ -0,0 +1,66 @@
+package com.giapho.coffee_shop_backend.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+
+/**
+ * Resource đọc từ {@link BlobStore}: mỗi lần getInputStream mở một stream mới (Spring có thể đọc nhiều lần, VD: Range)
+ */
+public class BlobResource extends AbstractResource {
+
+    private final BlobStore blobStore;
+    private final String key;
+    private final long contentLength;
+
+    public BlobResource(BlobStore blobStore, String key, long contentLength) {
+        this.blobStore = blobStore;
+        this.key = key;
+        this.contentLength = contentLength;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return blobStore.get(key);
+    }
+
+    @Override
+    public boolean exists() {
+        try {
+            return blobStore.exists(key);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        if (contentLength >= 0) {
+            return contentLength;
+        }
+        return blobStore.stat(key).orElseThrow(() -> new NoSuchFileException(key)).size();
+    }
+
+    @Override
+    public String getFilename() {
+        return key;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Blob [" + key + "]";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof BlobResource that
+                && blobStore == that.blobStore && key.equals(that.key));
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+}
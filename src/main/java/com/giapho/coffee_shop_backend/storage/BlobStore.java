@@ -0,0 +1,63 @@
+package com.giapho.coffee_shop_backend.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Nơi lưu nội dung file theo key (tên file). Nội dung được đọc/ghi dạng stream, không giữ cả file trong heap.
+ * <p>
+ * Cài đặt: {@link LocalBlobStore} (ổ đĩa), {@link S3BlobStore} (S3 / MinIO); mã test có thêm InMemoryBlobStore.
+ */
+public interface BlobStore {
+
+    /**
+     * @param lastModified thời điểm ghi (epoch millis)
+     */
+    record BlobInfo(long size, long lastModified) {
+    }
+
+    /**
+     * Ghi file (ghi đè nếu đã có). Người đọc không bao giờ thấy file ghi dở.
+     */
+    void put(String key, InputStream content, long length, String contentType) throws IOException;
+
+    /**
+     * Mở stream đọc file; ném NoSuchFileException nếu không có
+     */
+    InputStream get(String key) throws IOException;
+
+    Optional<BlobInfo> stat(String key) throws IOException;
+
+    default boolean exists(String key) throws IOException {
+        return stat(key).isPresent();
+    }
+
+    /**
+     * Xoá file (không lỗi nếu file không tồn tại)
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Tất cả key đang lưu
+     */
+    List<String> listKeys() throws IOException;
+
+    /**
+     * Đường dẫn trên ổ đĩa (để gửi bằng sendfile), chỉ có với backend local
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * URL ký sẵn để client tải file trực tiếp từ backend (không đi qua app), nếu backend hỗ trợ
+     */
+    default Optional<URI> presignedUrl(String key, Duration ttl) {
+        return Optional.empty();
+    }
+}
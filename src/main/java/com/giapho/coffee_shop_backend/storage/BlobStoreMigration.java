@@ -0,0 +1,111 @@
+package com.giapho.coffee_shop_backend.storage;
+
+import com.giapho.coffee_shop_backend.config.BlobStoreConfig;
+import com.giapho.coffee_shop_backend.config.FileStorageProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copy toàn bộ file từ backend file.storage.migration.source sang backend đang dùng (file.storage.backend)
+ * khi khởi động. Chạy lại được nhiều lần: file đã có ở đích với cùng kích thước thì bỏ qua.
+ * <p>
+ * VD chuyển từ ổ đĩa lên S3: file.storage.backend=s3, file.storage.migration.source=local
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "file.storage.migration", name = "source")
+public class BlobStoreMigration implements ApplicationRunner {
+
+    public record Result(int copied, int skipped, int failed) {
+    }
+
+    private final BlobStore blobStore;
+    private final FileStorageProperties properties;
+
+    public BlobStoreMigration(BlobStore blobStore, FileStorageProperties properties) {
+        this.blobStore = blobStore;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        FileStorageProperties.Migration migration = properties.getMigration();
+        if (migration.getSource().equalsIgnoreCase(properties.getBackend())) {
+            log.warn("File storage migration source is the active backend ({}), nothing to migrate",
+                    properties.getBackend());
+            return;
+        }
+        log.info("Migrating stored files from {} to {}", migration.getSource(), properties.getBackend());
+        BlobStore source = BlobStoreConfig.create(migration.getSource(), properties);
+        Result result = migrate(source, blobStore, migration.isOverwrite(), migration.getParallelism());
+        log.info("File storage migration finished: {} copied, {} skipped, {} failed",
+                result.copied(), result.skipped(), result.failed());
+    }
+
+    /**
+     * Copy mọi key từ from sang to, tối đa parallelism file cùng lúc (mỗi file 1 virtual thread, dạng stream)
+     */
+    public static Result migrate(BlobStore from, BlobStore to, boolean overwrite, int parallelism)
+            throws IOException, InterruptedException {
+        List<String> keys = from.listKeys();
+        AtomicInteger copied = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Semaphore slots = new Semaphore(Math.max(1, parallelism));
+
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("blob-migration-", 0).factory())) {
+            for (String key : keys) {
+                // Chờ slot trước khi tạo thread: không dựng sẵn hàng nghìn thread đang chờ
+                slots.acquire();
+                executor.submit(() -> {
+                    try {
+                        if (copy(from, to, key, overwrite)) {
+                            copied.incrementAndGet();
+                        } else {
+                            skipped.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        log.error("Could not migrate file: {}", key, e);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        }
+        return new Result(copied.get(), skipped.get(), failed.get());
+    }
+
+    private static boolean copy(BlobStore from, BlobStore to, String key, boolean overwrite) throws IOException {
+        Optional<BlobStore.BlobInfo> source = from.stat(key);
+        if (source.isEmpty()) {
+            return false; // Bị xoá sau khi liệt kê
+        }
+        if (!overwrite) {
+            Optional<BlobStore.BlobInfo> target = to.stat(key);
+            if (target.isPresent() && target.get().size() == source.get().size()) {
+                return false;
+            }
+        }
+        String contentType = MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        try (InputStream content = from.get(key)) {
+            to.put(key, content, source.get().size(), contentType);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,169 @@
+package com.giapho.coffee_shop_backend.storage;
+
+import com.giapho.coffee_shop_backend.exception.FileStorageException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Lưu file trên ổ đĩa của node.
+ * <p>
+ * Key theo nội dung (bắt đầu bằng 64 ký tự hex SHA-256) được chia vào cây thư mục 2 cấp theo 4 ký tự đầu
+ * (VD: ab/cd/abcd...ef.jpg), để không thư mục nào phải chứa hàng trăm nghìn file.
+ * Key khác (file cũ đặt tên UUID) nằm phẳng ở thư mục gốc.
+ */
+@Slf4j
+public class LocalBlobStore implements BlobStore {
+
+    private static final Pattern SHARDED_KEY = Pattern.compile("^([0-9a-f]{2})([0-9a-f]{2})[0-9a-f]{60}[^/\\\\]*$");
+
+    private final Path root;
+    // Thư mục file tạm nằm trong thư mục lưu trữ (cùng ổ đĩa) để đổi tên file là thao tác nguyên tử
+    private final Path tempLocation;
+
+    public LocalBlobStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        this.tempLocation = this.root.resolve(".tmp");
+        try {
+            Files.createDirectories(this.tempLocation);
+            log.info("File storage directory created at: {}", this.root);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not create the directory where the uploaded files will be stored.", ex);
+        }
+    }
+
+    /**
+     * Ghi ra file tạm rồi đổi tên: người đọc không bao giờ thấy file ghi dở
+     */
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) throws IOException {
+        Path target = pathOf(key);
+        Path temp = Files.createTempFile(this.tempLocation, "blob-", ".part");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(locate(key));
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(locate(key), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(new BlobInfo(attributes.size(), attributes.lastModifiedTime().toMillis()));
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(locate(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(pathOf(key));
+        Files.deleteIfExists(flatPathOf(key)); // Bản chưa chuyển vào cây thư mục
+    }
+
+    @Override
+    public List<String> listKeys() throws IOException {
+        List<String> keys = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(this.root, 3)) {
+            paths.filter(path -> !path.startsWith(this.tempLocation))
+                    .filter(Files::isRegularFile)
+                    .map(path -> path.getFileName().toString())
+                    .forEach(keys::add);
+        }
+        return keys;
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        Path path = locate(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Chuyển các file theo nội dung còn nằm phẳng ở thư mục gốc (lưu trước khi chia thư mục) vào cây thư mục.
+     * Trong lúc chuyển, file vẫn đọc được vì {@link #locate} tìm cả vị trí cũ.
+     */
+    public int migrateToShardedLayout() {
+        int moved = 0;
+        try (Stream<Path> paths = Files.list(this.root)) {
+            for (Path source : paths.filter(Files::isRegularFile).toList()) {
+                String key = source.getFileName().toString();
+                if (!SHARDED_KEY.matcher(key).matches()) {
+                    continue;
+                }
+                Path target = pathOf(key);
+                Files.createDirectories(target.getParent());
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+                moved++;
+            }
+        } catch (IOException ex) {
+            log.error("Could not migrate stored files to sharded layout", ex);
+        }
+        if (moved > 0) {
+            log.info("Moved {} stored files into sharded directories", moved);
+        }
+        return moved;
+    }
+
+    /**
+     * Vị trí của file: key theo nội dung nằm trong cây thư mục, key khác nằm ở thư mục gốc
+     */
+    private Path pathOf(String key) {
+        Path flat = flatPathOf(key);
+        Matcher matcher = SHARDED_KEY.matcher(key);
+        if (!matcher.matches()) {
+            return flat;
+        }
+        return this.root.resolve(matcher.group(1)).resolve(matcher.group(2)).resolve(key);
+    }
+
+    private Path flatPathOf(String key) {
+        Path path = this.root.resolve(key).normalize();
+        // Chặn key chứa "../" hay "/" (path traversal)
+        if (!this.root.equals(path.getParent())) {
+            throw new FileStorageException("Invalid file name: " + key);
+        }
+        return path;
+    }
+
+    /**
+     * Vị trí hiện tại của file: trong cây thư mục, hoặc ở thư mục gốc nếu chưa được chuyển
+     */
+    private Path locate(String key) {
+        Path path = pathOf(key);
+        if (Files.exists(path)) {
+            return path;
+        }
+        Path flat = flatPathOf(key);
+        return Files.exists(flat) ? flat : path;
+    }
+}
@@ -0,0 +1,211 @@
+package com.giapho.coffee_shop_backend.storage;
+
+import com.giapho.coffee_shop_backend.config.FileStorageProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lưu file trên S3 hoặc dịch vụ tương thích S3 (MinIO, Cloudflare R2...), gọi REST API trực tiếp bằng
+ * java.net.http và tự ký SigV4 ({@link S3RequestSigner}), không cần AWS SDK.
+ * <p>
+ * Client tải ảnh qua URL ký sẵn (presigned), nên app không phải chuyển tiếp nội dung ảnh.
+ */
+@Slf4j
+public class S3BlobStore implements BlobStore {
+
+    private final HttpClient client;
+    private final S3RequestSigner signer;
+    private final URI endpoint;
+    private final String bucket;
+    private final boolean pathStyleAccess;
+    private final String keyPrefix;
+    private final Duration timeout;
+    private final Clock clock;
+
+    public S3BlobStore(FileStorageProperties.S3 properties, Clock clock) {
+        if (properties.getBucket() == null || properties.getBucket().isBlank()) {
+            throw new IllegalStateException("file.storage.s3.bucket is required for the s3 backend");
+        }
+        String endpoint = properties.getEndpoint();
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.bucket = properties.getBucket();
+        this.pathStyleAccess = properties.isPathStyleAccess();
+        this.keyPrefix = properties.getKeyPrefix() == null ? "" : properties.getKeyPrefix();
+        this.timeout = properties.getTimeout();
+        this.clock = clock;
+        this.signer = new S3RequestSigner(properties.getAccessKey(), properties.getSecretKey(), properties.getRegion());
+        this.client = HttpClient.newBuilder().connectTimeout(properties.getTimeout()).build();
+        log.info("Using S3 file storage: {} bucket {}", this.endpoint, this.bucket);
+    }
+
+    /**
+     * Upload dạng stream (không đọc cả file vào heap); payload không ký (UNSIGNED-PAYLOAD) để không phải đọc 2 lần
+     */
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) throws IOException {
+        URI uri = objectUri(key);
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> content), length);
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(timeout).PUT(body);
+        signer.sign("PUT", uri, Map.of("Content-Type", contentType), S3RequestSigner.UNSIGNED_PAYLOAD, clock.instant())
+                .forEach(request::header);
+        HttpResponse<byte[]> response = send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw failure("PUT", key, response.statusCode(), response.body());
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        HttpResponse<InputStream> response = send(signed("GET", objectUri(key)), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 200) {
+            return response.body();
+        }
+        try (InputStream error = response.body()) {
+            if (response.statusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw failure("GET", key, response.statusCode(), error.readNBytes(1024));
+        }
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        HttpResponse<Void> response = send(signed("HEAD", objectUri(key)), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        if (response.statusCode() != 200) {
+            throw failure("HEAD", key, response.statusCode(), new byte[0]);
+        }
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        long lastModified = response.headers().firstValue("Last-Modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                .orElse(0L);
+        return Optional.of(new BlobInfo(size, lastModified));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<byte[]> response = send(signed("DELETE", objectUri(key)), HttpResponse.BodyHandlers.ofByteArray());
+        // S3 trả 204 cả khi object không tồn tại
+        if (response.statusCode() != 204 && response.statusCode() != 200 && response.statusCode() != 404) {
+            throw failure("DELETE", key, response.statusCode(), response.body());
+        }
+    }
+
+    /**
+     * ListObjectsV2, mỗi trang tối đa 1000 key
+     */
+    @Override
+    public List<String> listKeys() throws IOException {
+        List<String> keys = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            String query = (continuationToken == null ? "" : "continuation-token=" + S3RequestSigner.encode(continuationToken) + "&")
+                    + "list-type=2"
+                    + (keyPrefix.isEmpty() ? "" : "&prefix=" + S3RequestSigner.encode(keyPrefix));
+            HttpResponse<byte[]> response = send(signed("GET", bucketUri(query)), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw failure("LIST", keyPrefix, response.statusCode(), response.body());
+            }
+            Document page = parseXml(response.body());
+            NodeList contents = page.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                String key = childText((Element) contents.item(i), "Key");
+                if (key != null && key.startsWith(keyPrefix)) {
+                    keys.add(key.substring(keyPrefix.length()));
+                }
+            }
+            boolean truncated = "true".equals(childText(page.getDocumentElement(), "IsTruncated"));
+            continuationToken = truncated ? childText(page.getDocumentElement(), "NextContinuationToken") : null;
+        } while (continuationToken != null);
+        return keys;
+    }
+
+    /**
+     * Thời điểm ký được làm tròn xuống theo nửa thời hạn: trong cùng khoảng đó URL giống hệt nhau
+     * (trình duyệt / CDN cache được), và URL trả ra luôn còn hạn ít nhất ttl/2
+     */
+    @Override
+    public Optional<URI> presignedUrl(String key, Duration ttl) {
+        long window = Math.max(1, ttl.toSeconds() / 2);
+        long now = clock.instant().getEpochSecond();
+        return Optional.of(signer.presign("GET", objectUri(key), ttl, Instant.ofEpochSecond(now - now % window)));
+    }
+
+    private URI objectUri(String key) {
+        String path = "/" + S3RequestSigner.encode(keyPrefix + key, true);
+        return pathStyleAccess
+                ? URI.create(endpoint + "/" + bucket + path)
+                : URI.create(endpoint.getScheme() + "://" + bucket + "." + endpoint.getRawAuthority() + path);
+    }
+
+    private URI bucketUri(String query) {
+        return pathStyleAccess
+                ? URI.create(endpoint + "/" + bucket + "?" + query)
+                : URI.create(endpoint.getScheme() + "://" + bucket + "." + endpoint.getRawAuthority() + "/?" + query);
+    }
+
+    private HttpRequest signed(String method, URI uri) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(timeout)
+                .method(method, HttpRequest.BodyPublishers.noBody());
+        signer.sign(method, uri, Map.of(), S3RequestSigner.EMPTY_PAYLOAD_SHA256, clock.instant()).forEach(request::header);
+        return request.build();
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return client.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling S3: " + request.method() + " " + request.uri());
+        }
+    }
+
+    private static IOException failure(String operation, String key, int status, byte[] body) {
+        String detail = new String(body, 0, Math.min(body.length, 512), StandardCharsets.UTF_8);
+        return new IOException("S3 " + operation + " " + key + " failed with HTTP " + status
+                + (detail.isBlank() ? "" : ": " + detail));
+    }
+
+    private static Document parseXml(byte[] xml) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+        } catch (Exception e) {
+            throw new IOException("Invalid S3 response", e);
+        }
+    }
+
+    private static String childText(Element parent, String name) {
+        NodeList children = parent.getElementsByTagName(name);
+        return children.getLength() == 0 ? null : children.item(0).getTextContent();
+    }
+}
@@ -0,0 +1,185 @@
+package com.giapho.coffee_shop_backend.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ký request S3 theo AWS Signature Version 4 (header Authorization hoặc URL ký sẵn).
+ * URI truyền vào phải có path và query đã được encode bằng {@link #encode}.
+ */
+public class S3RequestSigner {
+
+    public static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    public static final String EMPTY_PAYLOAD_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String SERVICE = "s3";
+    private static final Duration MAX_PRESIGN_TTL = Duration.ofDays(7);
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    private final String accessKey;
+    private final String secretKey;
+    private final String region;
+
+    public S3RequestSigner(String accessKey, String secretKey, String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    /**
+     * Ký request bằng header: trả về các header cần gửi kèm (headers đã cho + x-amz-date,
+     * x-amz-content-sha256, Authorization). Host được ký nhưng không trả về (HttpClient tự đặt).
+     */
+    public Map<String, String> sign(String method, URI uri, Map<String, String> headers, String payloadHash,
+                                    Instant now) {
+        String amzDate = DATE_TIME.format(now);
+        TreeMap<String, String> signed = new TreeMap<>();
+        headers.forEach((name, value) -> signed.put(name.toLowerCase(Locale.ROOT), value.trim()));
+        signed.put("host", hostHeader(uri));
+        signed.put("x-amz-content-sha256", payloadHash);
+        signed.put("x-amz-date", amzDate);
+
+        String signedHeaders = String.join(";", signed.keySet());
+        String canonicalRequest = canonicalRequest(method, uri.getRawPath(), canonicalQuery(uri.getRawQuery()),
+                signed, signedHeaders, payloadHash);
+        String signature = signature(now, canonicalRequest);
+
+        Map<String, String> result = new LinkedHashMap<>(headers);
+        result.put("x-amz-content-sha256", payloadHash);
+        result.put("x-amz-date", amzDate);
+        result.put("Authorization", ALGORITHM + " Credential=" + accessKey + "/" + scope(now)
+                + ",SignedHeaders=" + signedHeaders + ",Signature=" + signature);
+        return result;
+    }
+
+    /**
+     * URL ký sẵn (chỉ ký header host), hết hạn sau ttl (tối đa 7 ngày)
+     */
+    public URI presign(String method, URI uri, Duration ttl, Instant now) {
+        long expires = Math.min(ttl.toSeconds(), MAX_PRESIGN_TTL.toSeconds());
+        String query = (uri.getRawQuery() == null ? "" : uri.getRawQuery() + "&")
+                + "X-Amz-Algorithm=" + ALGORITHM
+                + "&X-Amz-Credential=" + encode(accessKey + "/" + scope(now))
+                + "&X-Amz-Date=" + DATE_TIME.format(now)
+                + "&X-Amz-Expires=" + expires
+                + "&X-Amz-SignedHeaders=host";
+        TreeMap<String, String> signed = new TreeMap<>(Map.of("host", hostHeader(uri)));
+        String canonicalRequest = canonicalRequest(method, uri.getRawPath(), canonicalQuery(query),
+                signed, "host", UNSIGNED_PAYLOAD);
+        String signature = signature(now, canonicalRequest);
+
+        String base = uri.getScheme() + "://" + uri.getRawAuthority() + uri.getRawPath();
+        return URI.create(base + "?" + query + "&X-Amz-Signature=" + signature);
+    }
+
+    /**
+     * Encode theo RFC 3986 như AWS yêu cầu: giữ nguyên A-Z a-z 0-9 - _ . ~ (và "/" nếu keepSlash)
+     */
+    public static String encode(String value, boolean keepSlash) {
+        StringBuilder result = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (keepSlash && c == '/')) {
+                result.append(c);
+            } else {
+                result.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+        return result.toString();
+    }
+
+    public static String encode(String value) {
+        return encode(value, false);
+    }
+
+    public static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String canonicalRequest(String method, String path, String query, TreeMap<String, String> headers,
+                                           String signedHeaders, String payloadHash) {
+        StringBuilder canonicalHeaders = new StringBuilder();
+        headers.forEach((name, value) -> canonicalHeaders.append(name).append(':').append(value).append('\n'));
+        return method + "\n"
+                + (path == null || path.isEmpty() ? "/" : path) + "\n"
+                + query + "\n"
+                + canonicalHeaders + "\n"
+                + signedHeaders + "\n"
+                + payloadHash;
+    }
+
+    /**
+     * Query đã encode, sắp xếp theo tên rồi theo giá trị
+     */
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        List<String[]> parameters = new ArrayList<>();
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            parameters.add(equals < 0
+                    ? new String[]{parameter, ""}
+                    : new String[]{parameter.substring(0, equals), parameter.substring(equals + 1)});
+        }
+        parameters.sort((a, b) -> a[0].equals(b[0]) ? a[1].compareTo(b[1]) : a[0].compareTo(b[0]));
+        List<String> pairs = new ArrayList<>(parameters.size());
+        for (String[] parameter : parameters) {
+            pairs.add(parameter[0] + "=" + parameter[1]);
+        }
+        return String.join("&", pairs);
+    }
+
+    private String signature(Instant now, String canonicalRequest) {
+        String stringToSign = ALGORITHM + "\n"
+                + DATE_TIME.format(now) + "\n"
+                + scope(now) + "\n"
+                + sha256Hex(canonicalRequest.getBytes(StandardCharsets.UTF_8));
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), DATE.format(now));
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, "aws4_request");
+        return HexFormat.of().formatHex(hmac(key, stringToSign));
+    }
+
+    private String scope(Instant now) {
+        return DATE.format(now) + "/" + region + "/" + SERVICE + "/aws4_request";
+    }
+
+    private static String hostHeader(URI uri) {
+        return uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
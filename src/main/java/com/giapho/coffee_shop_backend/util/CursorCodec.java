@@ -0,0 +1,100 @@
+package com.giapho.coffee_shop_backend.util;
+
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Mã hoá vị trí keyset (một hoặc nhiều số long, ví dụ id hoặc expenseDate + id) thành cursor base64url.
+ * Client chỉ cần gửi lại nguyên chuỗi, không cần hiểu nội dung.
+ */
+public final class CursorCodec {
+
+    /**
+     * Vị trí keyset có khoá sắp xếp dạng chuỗi (ví dụ fullName + id)
+     */
+    public record TextPosition(String key, long id) {
+    }
+
+    /**
+     * Vị trí keyset có khoá sắp xếp dạng thời điểm (ví dụ createdAt + id)
+     */
+    public record TimePosition(LocalDateTime time, long id) {
+    }
+
+    private CursorCodec() {
+    }
+
+    public static String encode(long... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Long.BYTES);
+        for (long value : values) {
+            buffer.putLong(value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Giải mã cursor, ném IllegalArgumentException (400) nếu cursor không hợp lệ
+     */
+    public static long[] decode(String cursor, int expectedValues) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != expectedValues * Long.BYTES) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            long[] values = new long[expectedValues];
+            for (int i = 0; i < expectedValues; i++) {
+                values[i] = buffer.getLong();
+            }
+            return values;
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Cursor cho khoá sắp xếp dạng chuỗi: id (8 byte) + khoá (UTF-8)
+     */
+    public static String encode(String key, long id) {
+        byte[] text = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + text.length);
+        buffer.putLong(id).put(text);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static TextPosition decodeText(String cursor) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+            long id = buffer.getLong();
+            byte[] text = new byte[buffer.remaining()];
+            buffer.get(text);
+            return new TextPosition(new String(text, StandardCharsets.UTF_8), id);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Cursor cho khoá sắp xếp dạng thời điểm: giây epoch + nano giây + id.
+     * Giữ nguyên độ chính xác của giá trị đọc từ DB trên toàn miền LocalDateTime
+     * (gộp thành 1 số nano giây thì tràn long ngoài khoảng năm 1677-2262).
+     */
+    public static String encode(LocalDateTime time, long id) {
+        return encode(time.toEpochSecond(ZoneOffset.UTC), time.getNano(), id);
+    }
+
+    public static TimePosition decodeTime(String cursor) {
+        long[] values = decode(cursor, 3);
+        try {
+            return new TimePosition(LocalDateTime.ofEpochSecond(values[0], Math.toIntExact(values[1]), ZoneOffset.UTC),
+                    values[2]);
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
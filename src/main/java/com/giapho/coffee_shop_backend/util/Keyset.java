@@ -0,0 +1,57 @@
+package com.giapho.coffee_shop_backend.util;
+
+import com.giapho.coffee_shop_backend.dto.CursorPageResponse;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Tiện ích phân trang keyset (seek) trên (khoá sắp xếp, id).
+ * Thay vì OFFSET n (DB phải quét bỏ n dòng), trang sau lọc "sau dòng cuối của trang trước"
+ * và đi thẳng vào index (khoá sắp xếp, id), nên trang thứ 500 cũng nhanh như trang đầu.
+ */
+public final class Keyset {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private Keyset() {
+    }
+
+    public static int pageSize(int requested) {
+        return Math.max(1, Math.min(requested, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Sắp xếp theo khoá rồi theo id (cùng chiều) để thứ tự là duy nhất
+     */
+    public static Sort sort(String attribute, Sort.Direction direction) {
+        return Sort.by(direction, attribute).and(Sort.by(direction, "id"));
+    }
+
+    /**
+     * Điều kiện "đứng sau" vị trí (key, id) theo thứ tự của {@link #sort}
+     */
+    public static <T, K extends Comparable<? super K>> Specification<T> after(
+            String attribute, K key, long id, Sort.Direction direction) {
+        return (root, query, cb) -> direction.isAscending()
+                ? cb.or(cb.greaterThan(root.get(attribute), key),
+                        cb.and(cb.equal(root.get(attribute), key), cb.greaterThan(root.get("id"), id)))
+                : cb.or(cb.lessThan(root.get(attribute), key),
+                        cb.and(cb.equal(root.get(attribute), key), cb.lessThan(root.get("id"), id)));
+    }
+
+    /**
+     * Cắt kết quả (đã lấy dư 1 dòng) thành 1 trang và tạo cursor từ dòng cuối
+     *
+     * @param total tổng số bản ghi, null nếu client không yêu cầu (bỏ qua câu COUNT)
+     */
+    public static <T, R> CursorPageResponse<R> page(List<T> rows, int pageSize, Function<T, String> cursorOf,
+                                                     Function<T, R> mapper, Long total) {
+        boolean hasNext = rows.size() > pageSize;
+        List<T> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(page.get(page.size() - 1)) : null;
+        return new CursorPageResponse<>(page.stream().map(mapper).toList(), nextCursor, hasNext, total);
+    }
+}
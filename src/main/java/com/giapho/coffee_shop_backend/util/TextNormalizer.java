@@ -0,0 +1,52 @@
+package com.giapho.coffee_shop_backend.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hoá chuỗi tiếng Việt để tìm kiếm: bỏ dấu, đ → d, chữ thường, chỉ giữ chữ và số.
+ * Ví dụ: "Cà Phê Sữa Đá" → "ca phe sua da"
+ */
+public final class TextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Bỏ dấu và chuẩn hoá khoảng trắng
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String withoutMarks = COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'd')
+                .toLowerCase(Locale.ROOT);
+        return NON_ALPHANUMERIC.matcher(withoutMarks).replaceAll(" ").trim();
+    }
+
+    /**
+     * Tách chuỗi đã chuẩn hoá thành các từ
+     */
+    public static List<String> tokens(String text) {
+        String folded = fold(text);
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>();
+        for (String token : folded.split(" ")) {
+            if (!token.isEmpty()) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,27 @@
+package com.giapho.coffee_shop_backend.config;
+
+import com.giapho.coffee_shop_backend.storage.LocalBlobStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BlobStoreConfigTest {
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void onlyDurableBackendsCanBeConfigured() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setUploadDir(uploadDir.toString());
+
+        assertInstanceOf(LocalBlobStore.class, BlobStoreConfig.create(" Local ", properties));
+        // Backend trong bộ nhớ làm mất file khi khởi động lại: không chọn được bằng cấu hình
+        assertThrows(IllegalStateException.class, () -> BlobStoreConfig.create("memory", properties));
+        assertThrows(IllegalStateException.class, () -> BlobStoreConfig.create(null, properties));
+    }
+}
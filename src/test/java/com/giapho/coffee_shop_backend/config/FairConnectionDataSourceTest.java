@@ -0,0 +1,95 @@
+package com.giapho.coffee_shop_backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FairConnectionDataSourceTest {
+
+    private final DataSource pool = mock(DataSource.class);
+
+    @Test
+    void releasesPermitOnceWhenConnectionIsClosed() throws SQLException {
+        Connection target = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(target);
+        FairConnectionDataSource guard = new FairConnectionDataSource(pool, 1, 50);
+
+        Connection connection = guard.getConnection();
+        assertSame(target, ((ConnectionProxy) connection).getTargetConnection());
+        assertEquals(1, guard.getActive());
+        assertThrows(SQLTransientConnectionException.class, guard::getConnection);
+
+        connection.close();
+        connection.close(); // Close lần 2 không được trả thêm permit
+        assertEquals(0, guard.getActive());
+        guard.getConnection();
+        assertThrows(SQLTransientConnectionException.class, guard::getConnection);
+    }
+
+    @Test
+    void releasesPermitWhenPoolFails() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLException("pool is down"));
+        FairConnectionDataSource guard = new FairConnectionDataSource(pool, 1, 50);
+
+        assertThrows(SQLException.class, guard::getConnection);
+        assertEquals(0, guard.getActive());
+    }
+
+    @Test
+    void servesWaitingThreadsInArrivalOrder() throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        FairConnectionDataSource guard = new FairConnectionDataSource(pool, 1, 5_000);
+        Connection held = guard.getConnection();
+
+        List<Integer> served = Collections.synchronizedList(new ArrayList<>());
+        int waiters = 20;
+        CountDownLatch done = new CountDownLatch(waiters);
+        AtomicInteger maxActive = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < waiters; i++) {
+                int order = i;
+                executor.submit(() -> {
+                    try (Connection connection = guard.getConnection()) {
+                        maxActive.accumulateAndGet(guard.getActive(), Math::max);
+                        served.add(order);
+                    } finally {
+                        done.countDown();
+                    }
+                    return null;
+                });
+                // Đợi thread này vào hàng rồi mới tạo thread tiếp theo
+                while (guard.getWaiting() <= i) {
+                    Thread.onSpinWait();
+                }
+            }
+            held.close();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < waiters; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, served);
+        assertEquals(1, maxActive.get());
+    }
+}
@@ -0,0 +1,139 @@
+package com.giapho.coffee_shop_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlMetricsFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private SqlMetricsDataSource dataSource;
+    private SqlMetricsFilter filter;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:sql-metrics;DB_CLOSE_DELAY=-1");
+        dataSource = new SqlMetricsDataSource(h2);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS product");
+            statement.execute("CREATE TABLE product (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+            for (int i = 1; i <= 20; i++) {
+                statement.execute("INSERT INTO product VALUES (" + i + ", 'Món " + i + "')");
+            }
+        }
+        SqlMetricsProperties properties = new SqlMetricsProperties();
+        properties.setRepeatedStatementThreshold(10);
+        filter = new SqlMetricsFilter(properties, registry);
+    }
+
+    @Test
+    void connectionsOutsideRequestsAreNotInstrumented() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            assertFalse(connection instanceof ConnectionProxy);
+        }
+    }
+
+    @Test
+    void recordsStatementsRowsAndTransactionPerHandler() throws Exception {
+        MockHttpServletRequest request = request("list");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            try (Connection connection = dataSource.getConnection()) {
+                assertInstanceOf(ConnectionProxy.class, connection);
+                connection.setAutoCommit(false);
+                try (PreparedStatement statement = connection.prepareStatement("SELECT id, name FROM product WHERE id <= ?")) {
+                    statement.setLong(1, 5);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            resultSet.getString("name");
+                        }
+                    }
+                }
+                connection.commit();
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        String handler = "SampleController.list";
+        assertEquals(1, registry.get("http.server.requests.sql.statements").tag("handler", handler).summary().count());
+        assertEquals(1, registry.get("http.server.requests.sql.statements").tag("handler", handler).summary().totalAmount());
+        assertEquals(5, registry.get("http.server.requests.sql.rows").tag("handler", handler).summary().totalAmount());
+        assertEquals(1, registry.get("http.server.requests.sql.connection.wait").tag("handler", handler).timer().count());
+        assertEquals(1, registry.get("http.server.requests.sql.transaction").tag("handler", handler).timer().count());
+        assertEquals(0, registry.get("http.server.requests.sql.repeated").tag("handler", handler).counter().count());
+    }
+
+    @Test
+    void flagsRepeatedStatementShapes() throws Exception {
+        filter.doFilter(request("detail"), new MockHttpServletResponse(), (req, res) -> {
+            try (Connection connection = dataSource.getConnection()) {
+                // N+1: mỗi món một query, cả khi literal / độ dài danh sách IN khác nhau
+                for (int id = 1; id <= 12; id++) {
+                    String ids = String.join(", ", Collections.nCopies(1 + id % 3, String.valueOf(id)));
+                    try (Statement statement = connection.createStatement();
+                         ResultSet resultSet = statement.executeQuery("SELECT name FROM product WHERE id IN (" + ids + ")")) {
+                        resultSet.next();
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(1, registry.get("http.server.requests.sql.repeated")
+                .tag("handler", "SampleController.detail").counter().count());
+    }
+
+    @Test
+    void normalizesStatementShapes() {
+        assertEquals("select * from product p1_0 where p1_0.id in (?) and p1_0.name = ?",
+                RequestSqlStats.shapeOf("select *\n  from product p1_0 where p1_0.id in (?, ?,?) and p1_0.name = 'Trà'"));
+
+        RequestSqlStats stats = new RequestSqlStats();
+        for (int i = 0; i < 11; i++) {
+            stats.statementExecuted("select * from orders where id = " + i);
+        }
+        stats.statementExecuted("select * from users");
+        Map<String, Integer> repeated = stats.repeatedShapes(10);
+        assertEquals(Map.of("select * from orders where id = ?", 11), repeated);
+        assertTrue(stats.repeatedShapes(11).isEmpty());
+    }
+
+    private static MockHttpServletRequest request(String method) throws NoSuchMethodException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                new HandlerMethod(new SampleController(), SampleController.class.getMethod(method)));
+        return request;
+    }
+
+    static class SampleController {
+
+        public void list() {
+        }
+
+        public void detail() {
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.giapho.coffee_shop_backend.config;
+
+import com.giapho.coffee_shop_backend.CoffeeShopBackendApplication;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Chạy app (Tomcat thật, H2) ở chế độ virtual thread.
+ * So sánh với platform thread, 500 client POS đồng thời:
+ * mvn test -Dtest=VirtualThreadModeTest -Dbenchmark=true
+ */
+class VirtualThreadModeTest {
+
+    private static final int CLIENTS = 500;
+
+    /**
+     * Giả lập độ trễ mạng tới MySQL: mỗi câu SQL giữ connection thêm vài ms (H2 in-memory gần như không tốn thời gian)
+     */
+    public static class DatabaseLatency implements StatementInspector {
+
+        static volatile long millis = 0;
+
+        @Override
+        public String inspect(String sql) {
+            if (millis > 0) {
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return sql;
+        }
+    }
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void servesRequestsThroughFairConnectionQueue() throws Exception {
+        try (ConfigurableApplicationContext context = start("vt-smoke", true)) {
+            // Hàng đợi nằm trong, SqlMetricsDataSource bọc ngoài cùng
+            DataSource dataSource = context.getBean(DataSource.class);
+            assertInstanceOf(SqlMetricsDataSource.class, dataSource);
+            FairConnectionDataSource guard = dataSource.unwrap(FairConnectionDataSource.class);
+            String token = manager(context, port(context));
+
+            HttpResponse<String> response = client.send(ordersRequest(port(context), token),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals(0, guard.getActive());
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkPlatformVersusVirtualThreads() throws Exception {
+        DatabaseLatency.millis = 3;
+        try {
+            for (boolean virtual : new boolean[]{false, true}) {
+                try (ConfigurableApplicationContext context = start(virtual ? "vt-on" : "vt-off", virtual)) {
+                    int port = port(context);
+                    String token = manager(context, port);
+                    HttpRequest request = ordersRequest(port, token);
+                    run(request, 5_000); // Làm nóng
+                    report(virtual ? "virtual threads" : "platform threads (200)", request);
+                }
+            }
+        } finally {
+            DatabaseLatency.millis = 0;
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String database, boolean virtual) {
+        // Tham số dòng lệnh: ưu tiên hơn application.properties
+        return new SpringApplicationBuilder(CoffeeShopBackendApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.session_factory.statement_inspector=" + DatabaseLatency.class.getName(),
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--logging.level.org.springframework.security=INFO",
+                "--logging.level.com.giapho.coffee_shop_backend=INFO",
+                "--logging.level.org.hibernate.SQL=INFO",
+                "--logging.level.org.hibernate.orm.jdbc.bind=INFO");
+    }
+
+    private static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    /**
+     * Đăng ký user, cấp quyền MANAGER rồi đăng nhập lại để lấy token có quyền mới
+     */
+    private String manager(ConfigurableApplicationContext context, int port) throws Exception {
+        String body = "{\"username\":\"cashier\",\"password\":\"secret123\",\"fullName\":\"Cashier\","
+                + "\"email\":\"cashier@example.com\",\"phone\":\"0900000000\"}";
+        assertEquals(200, client.send(json(port, "/api/v1/auth/register", body),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+        context.getBean(JdbcTemplate.class).update("INSERT INTO user_roles (user_id, role_id) "
+                + "SELECT u.id, r.id FROM users u, roles r WHERE u.username = 'cashier' AND r.name = 'ROLE_MANAGER'");
+        HttpResponse<String> login = client.send(json(port, "/api/v1/auth/login",
+                "{\"username\":\"cashier\",\"password\":\"secret123\"}"), HttpResponse.BodyHandlers.ofString());
+        return login.body().replaceAll(".*\"token\"\\s*:\\s*\"([^\"]+)\".*", "$1");
+    }
+
+    private static HttpRequest json(int port, String path, String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Màn hình POS: danh sách đơn đang chờ (2 câu SQL: đếm + trang dữ liệu)
+     */
+    private static HttpRequest ordersRequest(int port, String token) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/orders/status/PENDING?size=20"))
+                .header("Authorization", "Bearer " + token)
+                .build();
+    }
+
+    /**
+     * 500 client gửi liên tục trong 15 giây, in số request/giây và phân vị độ trễ
+     */
+    private void report(String name, HttpRequest request) throws Exception {
+        List<Long> latencies = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger();
+        long started = System.nanoTime();
+        run(request, 15_000, latencies, errors);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        latencies.sort(null);
+        System.out.printf("%-24s %,8.0f req/s  p50 %,6d ms  p99 %,6d ms  max %,6d ms  errors %d%n", name,
+                latencies.size() / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                latencies.isEmpty() ? 0 : latencies.get(latencies.size() - 1), errors.get());
+    }
+
+    private void run(HttpRequest request, long millis) throws Exception {
+        run(request, millis, new ArrayList<>(), new AtomicInteger());
+    }
+
+    private void run(HttpRequest request, long millis, List<Long> latencies, AtomicInteger errors) throws Exception {
+        long deadline = System.currentTimeMillis() + millis;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<Long>>> workers = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                workers.add(executor.submit(() -> {
+                    List<Long> own = new ArrayList<>();
+                    while (System.currentTimeMillis() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        own.add((System.nanoTime() - start) / 1_000_000);
+                    }
+                    return own;
+                }));
+            }
+            for (Future<List<Long>> worker : workers) {
+                latencies.addAll(worker.get());
+            }
+        }
+    }
+
+    private static long percentile(List<Long> sorted, double quantile) {
+        return sorted.isEmpty() ? 0 : sorted.get((int) Math.min(sorted.size() - 1, Math.floor(sorted.size() * quantile)));
+    }
+}
@@ -0,0 +1,93 @@
+package com.giapho.coffee_shop_backend.controller;
+
+import com.giapho.coffee_shop_backend.dto.CategoryDTO;
+import com.giapho.coffee_shop_backend.service.CategoryService;
+import com.giapho.coffee_shop_backend.service.ProductCatalog;
+import com.giapho.coffee_shop_backend.service.ResourceVersions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CatalogConditionalGetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    CategoryService categoryService;
+
+    @Autowired
+    ResourceVersions resourceVersions;
+
+    @Autowired
+    ProductCatalog productCatalog;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void catalogWriteChangesETag() throws Exception {
+        String token = TestTokens.create(context, "etag-staff", "ROLE_STAFF");
+
+        String eTag = fetch("/api/v1/products", token, null, 200).getResponse().getHeader("ETag");
+        fetch("/api/v1/products", token, eTag, 304);
+        fetch("/api/v1/categories", token, eTag, 304); // Danh mục dùng chung phiên bản catalog
+
+        long version = resourceVersions.current(ResourceVersions.Resource.CATALOG);
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Tra sua");
+        categoryService.createCategory(category);
+        assertEquals(version + 1, resourceVersions.current(ResourceVersions.Resource.CATALOG));
+
+        // ETag cũ: trả lại dữ liệu mới kèm ETag mới
+        String newETag = fetch("/api/v1/products", token, eTag, 200).getResponse().getHeader("ETag");
+        assertNotEquals(eTag, newETag);
+        fetch("/api/v1/products", token, newETag, 304);
+    }
+
+    @Test
+    void writesFromAnotherNodeChangeETagAfterRefresh() throws Exception {
+        String token = TestTokens.create(context, "etag-peer-staff", "ROLE_STAFF");
+        productCatalog.refreshIfChanged();
+        resourceVersions.refreshTables();
+        String catalogETag = fetch("/api/v1/products", token, null, 200).getResponse().getHeader("ETag");
+        String tablesETag = fetch("/api/v1/tables", token, null, 200).getResponse().getHeader("ETag");
+
+        // Node khác ghi thẳng vào DB: node này không nhận sự kiện
+        jdbcTemplate.update("INSERT INTO categories (name) VALUES ('Tu node khac')");
+        jdbcTemplate.update("INSERT INTO tables (name, capacity, status) VALUES ('Ban node khac', 4, 'EMPTY')");
+        productCatalog.refreshIfChanged();
+        resourceVersions.refreshTables();
+
+        fetch("/api/v1/products", token, catalogETag, 200);
+        fetch("/api/v1/tables", token, tablesETag, 200);
+        long version = resourceVersions.current(ResourceVersions.Resource.CATALOG);
+        productCatalog.refreshIfChanged(); // Không đổi gì: giữ phiên bản
+        assertEquals(version, resourceVersions.current(ResourceVersions.Resource.CATALOG));
+    }
+
+    private MvcResult fetch(String path, String token, String ifNoneMatch, int expectedStatus) throws Exception {
+        var request = get(path).header("Authorization", "Bearer " + token);
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return mockMvc.perform(request).andExpect(status().is(expectedStatus)).andReturn();
+    }
+}
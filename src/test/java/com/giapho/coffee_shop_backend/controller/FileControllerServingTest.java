@@ -0,0 +1,183 @@
+package com.giapho.coffee_shop_backend.controller;
+
+import com.giapho.coffee_shop_backend.service.FileStorageService;
+import com.giapho.coffee_shop_backend.service.ImageProcessingService.Variant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Trả file qua Tomcat thật (sendfile chỉ có hiệu lực trên connector thật, không có trong MockMvc), DB là H2.
+ * Benchmark số request/giây cho ảnh "nóng": mvn test -Dtest=FileControllerServingTest -Dbenchmark=true
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:files;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // Log DEBUG của security/app cho mỗi request làm sai lệch số đo
+        "logging.level.org.springframework.security=INFO",
+        "logging.level.com.giapho.coffee_shop_backend=INFO"
+})
+class FileControllerServingTest {
+
+    @TempDir
+    static Path uploadDir;
+
+    private static byte[] original;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    FileStorageService fileStorageService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("file.storage.upload-dir", () -> uploadDir.toString());
+    }
+
+    @BeforeAll
+    static void image() throws IOException {
+        // Nhiễu ngẫu nhiên: bản full sau khi encode lại vẫn lớn (> ngưỡng sendfile), bản thumb thì nhỏ
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < 600; y++) {
+            for (int x = 0; x < 800; x++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        original = out.toByteArray();
+    }
+
+    @Test
+    void servesImmutableFileAndAnswersConditionalAndRangeRequests() throws Exception {
+        String fileName = store();
+        byte[] stored = Files.readAllBytes(fileStorageService.loadFileForServing(fileName,
+                Variant.FULL).localPath());
+
+        assertTrue(stored.length > 48 * 1024);
+        HttpResponse<byte[]> full = send(get(fileName).build());
+        assertEquals(200, full.statusCode());
+        assertArrayEquals(stored, full.body());
+        String eTag = full.headers().firstValue("ETag").orElseThrow();
+        assertEquals("\"" + fileName.substring(0, fileName.lastIndexOf('.')) + "\"", eTag);
+        assertTrue(full.headers().firstValue("Cache-Control").orElseThrow().contains("immutable"));
+        assertEquals("image/jpeg", full.headers().firstValue("Content-Type").orElseThrow());
+
+        HttpResponse<byte[]> notModified = send(get(fileName).header("If-None-Match", eTag).build());
+        assertEquals(304, notModified.statusCode());
+        assertEquals(0, notModified.body().length);
+
+        String lastModified = full.headers().firstValue("Last-Modified").orElseThrow();
+        assertEquals(304, send(get(fileName).header("If-Modified-Since", lastModified).build()).statusCode());
+
+        HttpResponse<byte[]> range = send(get(fileName).header("Range", "bytes=10-19").build());
+        assertEquals(206, range.statusCode());
+        assertEquals("bytes 10-19/" + stored.length, range.headers().firstValue("Content-Range").orElseThrow());
+        assertArrayEquals(Arrays.copyOfRange(stored, 10, 20), range.body());
+
+        // Bản thumb nhỏ hơn ngưỡng sendfile: đi qua nhánh Spring
+        HttpResponse<byte[]> thumbnail = send(get(fileName + "?size=thumb").build());
+        assertEquals(200, thumbnail.statusCode());
+        assertArrayEquals(Files.readAllBytes(fileStorageService.loadFileForServing(fileName, Variant.THUMBNAIL).localPath()),
+                thumbnail.body());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkHotImages() throws Exception {
+        String fileName = store();
+        String eTag = send(get(fileName).build()).headers().firstValue("ETag").orElseThrow();
+        run(() -> get(fileName).build(), 5_000); // Làm nóng JIT trước khi đo
+        report("GET full image (sendfile)", () -> get(fileName).build());
+        // Có Range: đi qua nhánh Spring đọc file qua InputStream, để so sánh với sendfile
+        report("GET full image (streamed)", () -> get(fileName).header("Range", "bytes=0-").build());
+        report("GET thumbnail", () -> get(fileName + "?size=thumb").build());
+        report("GET If-None-Match (304)", () -> get(fileName).header("If-None-Match", eTag).build());
+    }
+
+    private String store() {
+        return fileStorageService.storeFile(new MockMultipartFile("file", "menu.png", "image/png", original));
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/files/" + path));
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * 16 luồng gửi liên tục trong 5 giây (sau 2 giây làm nóng), in số request/giây
+     */
+    private void report(String name, Supplier<HttpRequest> request) throws Exception {
+        run(request, 2_000);
+        long started = System.nanoTime();
+        int requests = run(request, 5_000);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%-30s %,10.0f req/s%n", name, requests / seconds);
+    }
+
+    private int run(Supplier<HttpRequest> request, long millis) throws Exception {
+        int threads = 16;
+        long deadline = System.currentTimeMillis() + millis;
+        AtomicInteger completed = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    while (System.currentTimeMillis() < deadline) {
+                        HttpResponse<byte[]> response = send(request.get());
+                        if (response.statusCode() >= 400) {
+                            throw new IllegalStateException("HTTP " + response.statusCode());
+                        }
+                        completed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        return completed.get();
+    }
+}
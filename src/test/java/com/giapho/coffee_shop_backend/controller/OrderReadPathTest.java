@@ -0,0 +1,134 @@
+package com.giapho.coffee_shop_backend.controller;
+
+import com.giapho.coffee_shop_backend.domain.entity.Category;
+import com.giapho.coffee_shop_backend.domain.entity.Order;
+import com.giapho.coffee_shop_backend.domain.entity.OrderDetail;
+import com.giapho.coffee_shop_backend.domain.entity.Product;
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import com.giapho.coffee_shop_backend.domain.repository.CategoryRepository;
+import com.giapho.coffee_shop_backend.domain.repository.OrderRepository;
+import com.giapho.coffee_shop_backend.domain.repository.ProductRepository;
+import com.giapho.coffee_shop_backend.domain.repository.UserRepository;
+import com.giapho.coffee_shop_backend.dto.OrderSummaryDTO;
+import com.giapho.coffee_shop_backend.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Danh sách đơn dạng tóm tắt (projection) và màn hình chi tiết đơn, với open-in-view tắt như production
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderReadPathTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void summaryItemCountMatchesEntityLines() {
+        List<Long> ids = List.of(order(2, 1, 4), order(5), order());
+
+        Map<Long, OrderSummaryDTO> summaries = orderService
+                .getOrdersByCursor(null, LocalDate.now(), LocalDate.now(), null, 100, false)
+                .getContent().stream()
+                .collect(Collectors.toMap(OrderSummaryDTO::getId, Function.identity()));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (Long id : ids) {
+                Order order = orderRepository.findById(id).orElseThrow();
+                OrderSummaryDTO summary = summaries.get(id);
+                assertEquals(order.getOrderDetails().stream().mapToLong(OrderDetail::getQuantity).sum(),
+                        summary.getItemCount());
+                assertEquals(0, order.getSubTotal().compareTo(summary.getSubTotal()));
+                assertEquals(0, order.getTotalAmount().compareTo(summary.getTotalAmount()));
+            }
+        });
+    }
+
+    @Test
+    void detailsEndpointLoadsLazyLinesWithoutOpenInView() throws Exception {
+        assertEquals("false", context.getBean(Environment.class).getProperty("spring.jpa.open-in-view"));
+        Long id = order(2, 3);
+        String token = TestTokens.create(context, "details-staff", "ROLE_STAFF");
+
+        mockMvc.perform(get("/api/v1/orders/" + id + "/details").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].quantity", containsInAnyOrder(2, 3)))
+                .andExpect(jsonPath("$[*].productName", containsInAnyOrder("Mon 1", "Mon 2")));
+    }
+
+    /**
+     * Đơn PAID với mỗi dòng là 1 món giá 10.000đ và số lượng cho trước
+     */
+    private Long order(int... quantities) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User cashier = userRepository.findByUsername("order-read-cashier").orElseGet(() -> userRepository.save(
+                    User.builder().username("order-read-cashier").password("secret").build()));
+            Category category = new Category();
+            category.setName("Order read " + System.nanoTime());
+            categoryRepository.save(category);
+
+            BigDecimal price = BigDecimal.valueOf(10_000);
+            BigDecimal total = price.multiply(BigDecimal.valueOf(Arrays.stream(quantities).sum()));
+            Order order = Order.builder()
+                    .user(cashier).type("TAKE_AWAY").status("PAID")
+                    .subTotal(total).totalAmount(total)
+                    .build();
+            for (int i = 0; i < quantities.length; i++) {
+                Product product = productRepository.save(Product.builder()
+                        .name("Mon " + (i + 1)).price(price).category(category)
+                        .build());
+                order.getOrderDetails().add(OrderDetail.builder()
+                        .order(order).product(product).quantity(quantities[i]).priceAtOrder(price)
+                        .build());
+            }
+            return orderRepository.save(order).getId();
+        });
+    }
+}
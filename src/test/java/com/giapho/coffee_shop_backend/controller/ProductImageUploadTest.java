@@ -0,0 +1,104 @@
+package com.giapho.coffee_shop_backend.controller;
+
+import com.giapho.coffee_shop_backend.domain.entity.Category;
+import com.giapho.coffee_shop_backend.domain.repository.CategoryRepository;
+import com.giapho.coffee_shop_backend.service.FileUploadService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ảnh sản phẩm được lưu trước khi mở transaction: upload chậm không giữ connection của pool
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductImageUploadTest {
+
+    @TempDir
+    static Path uploadDir;
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("file.storage.upload-dir", uploadDir::toString);
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @MockitoSpyBean
+    FileUploadService fileUploadService;
+
+    @Test
+    void imageIsStoredOutsideTheProductTransaction() throws Exception {
+        List<Boolean> inTransaction = new ArrayList<>();
+        doAnswer(invocation -> {
+            inTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return invocation.callRealMethod();
+        }).when(fileUploadService).storeFile(any());
+        Category category = new Category();
+        category.setName("Upload " + System.nanoTime());
+        categoryRepository.save(category);
+        String token = TestTokens.create(context, "upload-manager", "ROLE_MANAGER");
+        MockMultipartFile product = new MockMultipartFile("product", "", MediaType.APPLICATION_JSON_VALUE,
+                ("{\"name\":\"Latte\",\"code\":\"UPLOAD-1\",\"price\":45000,\"categoryId\":" + category.getId() + "}")
+                        .getBytes());
+
+        String id = mockMvc.perform(multipart("/api/v1/products").file(product).file(image(0x204060))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageUrl", containsString("/api/v1/files/")))
+                .andReturn().getResponse().getContentAsString().replaceAll(".*\"id\":(\\d+).*", "$1");
+
+        mockMvc.perform(multipart(HttpMethod.PUT, "/api/v1/products/" + id).file(product).file(image(0x604020))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(multipart("/api/v1/products/" + id + "/image").file(image(0x406020))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        assertEquals(List.of(false, false, false), inTransaction);
+    }
+
+    private static MockMultipartFile image(int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, rgb);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("image", "image.png", "image/png", out.toByteArray());
+    }
+}
@@ -0,0 +1,30 @@
+package com.giapho.coffee_shop_backend.controller;
+
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import com.giapho.coffee_shop_backend.domain.repository.RoleRepository;
+import com.giapho.coffee_shop_backend.domain.repository.UserRepository;
+import com.giapho.coffee_shop_backend.security.JwtService;
+import org.springframework.context.ApplicationContext;
+
+import java.util.Set;
+
+/**
+ * Tạo nhân viên với 1 role và trả về JWT của họ, cho các test gọi API qua security filter
+ */
+final class TestTokens {
+
+    private TestTokens() {
+    }
+
+    static String create(ApplicationContext context, String username, String roleName) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User user = userRepository.findByUsername(username).orElseGet(() -> userRepository.save(User.builder()
+                .username(username)
+                .password("secret")
+                .fullName(username)
+                .status("ACTIVE")
+                .roles(Set.of(context.getBean(RoleRepository.class).findByName(roleName).orElseThrow()))
+                .build()));
+        return context.getBean(JwtService.class).generateToken(user);
+    }
+}
@@ -0,0 +1,86 @@
+package com.giapho.coffee_shop_backend.controller;
+
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import com.giapho.coffee_shop_backend.dto.VoucherCampaignDTO;
+import com.giapho.coffee_shop_backend.dto.VoucherCampaignRequestDTO;
+import com.giapho.coffee_shop_backend.service.VoucherCampaignService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tải CSV qua Tomcat thật: StreamingResponseBody kết thúc bằng async dispatch, MockMvc không đi qua bước này
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class VoucherCampaignExportTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    VoucherCampaignService campaignService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void managerDownloadsExport() throws Exception {
+        VoucherCampaignDTO campaign = campaign("EXPORT", 3);
+        String token = TestTokens.create(context, "export-manager", "ROLE_MANAGER");
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/v1/voucher-campaigns/" + campaign.getId() + "/codes/export"))
+                .header("Authorization", "Bearer " + token)
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/csv"));
+        String[] lines = response.body().split("\n");
+        assertEquals("code,redeemed_at", lines[0]);
+        assertEquals(4, lines.length);
+        for (int i = 1; i < lines.length; i++) {
+            assertTrue(lines[i].matches("EXPORT-[0-9A-Z]{10},"), lines[i]);
+        }
+    }
+
+    @Test
+    void staffCannotDownloadExport() throws Exception {
+        VoucherCampaignDTO campaign = campaign("DENIED", 1);
+        String token = TestTokens.create(context, "export-staff", "ROLE_STAFF");
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/v1/voucher-campaigns/" + campaign.getId() + "/codes/export"))
+                .header("Authorization", "Bearer " + token)
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(403, response.statusCode());
+    }
+
+    private VoucherCampaignDTO campaign(String prefix, int quantity) {
+        VoucherCampaignRequestDTO request = new VoucherCampaignRequestDTO();
+        request.setName(prefix);
+        request.setPrefix(prefix);
+        request.setType(Voucher.VoucherType.PERCENTAGE);
+        request.setDiscountValue(BigDecimal.TEN);
+        request.setValidFrom(LocalDateTime.now().minusDays(1));
+        request.setValidTo(LocalDateTime.now().plusDays(30));
+        request.setQuantity(quantity);
+        return campaignService.createCampaign(request);
+    }
+}
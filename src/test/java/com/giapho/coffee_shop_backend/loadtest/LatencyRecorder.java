@@ -0,0 +1,121 @@
+package com.giapho.coffee_shop_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Độ trễ theo endpoint (tên dạng "POST /orders/{id}/items"). Chỉ ghi nhận khi đang đo (sau làm nóng).
+ */
+public class LatencyRecorder {
+
+    /**
+     * Thống kê của 1 endpoint
+     *
+     * @param rejected số request bị 429 (rate limit): hành vi mong muốn, không tính là lỗi
+     */
+    public record EndpointStats(String endpoint, int count, int errors, int rejected, double throughputPerSecond,
+                                double p50Ms, double p90Ms, double p99Ms, double maxMs) {
+    }
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+
+    public void start() {
+        samples.clear();
+        recording = true;
+    }
+
+    public void stop() {
+        recording = false;
+    }
+
+    public void record(String endpoint, long nanos, int status) {
+        if (recording) {
+            samples.computeIfAbsent(endpoint, key -> new Samples()).add(nanos, status);
+        }
+    }
+
+    public List<EndpointStats> summarize(double seconds) {
+        List<EndpointStats> stats = new ArrayList<>();
+        new TreeMap<>(samples).forEach((endpoint, endpointSamples) -> stats.add(endpointSamples.summarize(endpoint, seconds)));
+        return stats;
+    }
+
+    public static String format(List<EndpointStats> stats) {
+        StringBuilder table = new StringBuilder(String.format("%-42s %8s %7s %6s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "429", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (EndpointStats row : stats) {
+            table.append(String.format("%-42s %8d %7d %6d %9.1f %9.1f %9.1f %9.1f %9.1f%n", row.endpoint(),
+                    row.count(), row.errors(), row.rejected(), row.throughputPerSecond(),
+                    row.p50Ms(), row.p90Ms(), row.p99Ms(), row.maxMs()));
+        }
+        return table.toString();
+    }
+
+    /**
+     * Ghi kết quả ra JSON để so sánh giữa các lần chạy
+     */
+    public static void writeJson(Path file, LoadTestConfig config, double seconds, List<EndpointStats> stats)
+            throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("clients", config.clients());
+        report.put("durationSeconds", seconds);
+        report.put("seed", config.seed());
+        report.put("mix", config.mix());
+        report.put("database", config.embeddedDatabase() ? "h2" : config.jdbcUrl().replaceAll("\\?.*", ""));
+        report.put("totalRequests", stats.stream().mapToInt(EndpointStats::count).sum());
+        report.put("endpoints", stats);
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+    }
+
+    private static final class Samples {
+
+        private long[] nanos = new long[1024];
+        private int size;
+        private int errors;
+        private int rejected;
+
+        synchronized void add(long elapsed, int status) {
+            if (status == 429) {
+                rejected++;
+                return;
+            }
+            if (status >= 400 || status == 0) {
+                errors++;
+                return;
+            }
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = elapsed;
+        }
+
+        synchronized EndpointStats summarize(String endpoint, double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            return new EndpointStats(endpoint, size, errors, rejected, size / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(sorted.length * quantile) - 1);
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.giapho.coffee_shop_backend.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cấu hình một lần chạy tải, đọc từ system property (-Dloadtest.xxx=...)
+ *
+ * @param clients     số thu ngân / quản lý gửi request đồng thời
+ * @param warmup      thời gian chạy làm nóng (không tính vào kết quả)
+ * @param duration    thời gian đo
+ * @param thinkTime   thời gian nghỉ giữa 2 thao tác của mỗi client (0 = gửi liên tục)
+ * @param seed        seed ngẫu nhiên: cùng seed thì cùng dữ liệu mẫu và cùng chuỗi thao tác của mỗi client
+ * @param products    số sản phẩm trong thực đơn
+ * @param customers   số khách hàng thành viên
+ * @param mix         trọng số các kịch bản (xem {@link ShopDayTraffic.Scenario})
+ * @param jdbcUrl     DB của app; mặc định H2 in-memory, có thể trỏ tới MySQL local
+ */
+public record LoadTestConfig(
+        int clients,
+        Duration warmup,
+        Duration duration,
+        Duration thinkTime,
+        long seed,
+        int products,
+        int customers,
+        Map<ShopDayTraffic.Scenario, Integer> mix,
+        String jdbcUrl,
+        String jdbcUsername,
+        String jdbcPassword
+) {
+
+    /**
+     * Tỉ lệ thao tác trong một ngày bán hàng bình thường: phần lớn là lên đơn và xem thực đơn / sơ đồ bàn
+     */
+    static final String DEFAULT_MIX = "counter-order:30,table-order:15,menu-browse:25,table-board:15,"
+            + "customer-lookup:10,reports:5";
+
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.clients", 50),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT10S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT60S")),
+                Duration.parse(System.getProperty("loadtest.think-time", "PT0S")),
+                Long.getLong("loadtest.seed", 42L),
+                Integer.getInteger("loadtest.products", 60),
+                Integer.getInteger("loadtest.customers", 500),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                System.getProperty("loadtest.jdbc-url", "jdbc:h2:mem:shopday;MODE=MySQL;DB_CLOSE_DELAY=-1"),
+                System.getProperty("loadtest.jdbc-username", "sa"),
+                System.getProperty("loadtest.jdbc-password", ""));
+    }
+
+    /**
+     * "counter-order:30,menu-browse:25" → trọng số theo kịch bản; kịch bản không nêu có trọng số 0
+     */
+    static Map<ShopDayTraffic.Scenario, Integer> parseMix(String value) {
+        Map<ShopDayTraffic.Scenario, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in loadtest.mix: " + part);
+            }
+            mix.put(ShopDayTraffic.Scenario.fromName(pair[0].trim()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("loadtest.mix has no scenario with a positive weight");
+        }
+        return mix;
+    }
+
+    public boolean embeddedDatabase() {
+        return jdbcUrl.startsWith("jdbc:h2:");
+    }
+}
@@ -0,0 +1,116 @@
+package com.giapho.coffee_shop_backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Gọi REST API của app như client POS, ghi độ trễ của từng request theo tên endpoint
+ */
+public class ShopApi {
+
+    /**
+     * @param status 0 nếu lỗi kết nối / timeout
+     */
+    public record Response(int status, JsonNode body, String raw) {
+
+        public boolean ok() {
+            return status >= 200 && status < 300;
+        }
+
+        public long id() {
+            return body.path("id").asLong();
+        }
+    }
+
+    static final ObjectMapper JSON = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final String baseUrl;
+    private final LatencyRecorder recorder;
+
+    public ShopApi(String baseUrl, LatencyRecorder recorder) {
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+    }
+
+    public Response get(String endpoint, String path, String token) {
+        return send(endpoint, builder(path, token).GET());
+    }
+
+    public Response post(String endpoint, String path, String token, Object body) {
+        return send(endpoint, builder(path, token).POST(json(body)));
+    }
+
+    public Response put(String endpoint, String path, String token, Object body) {
+        return send(endpoint, builder(path, token).PUT(json(body)));
+    }
+
+    public Response patch(String endpoint, String path, String token, Object body) {
+        return send(endpoint, builder(path, token).method("PATCH", json(body)));
+    }
+
+    /**
+     * Dùng khi chuẩn bị dữ liệu: request lỗi thì dừng luôn
+     */
+    public static Response expectOk(Response response, String action) {
+        if (!response.ok()) {
+            throw new IllegalStateException(action + " failed with HTTP " + response.status() + ": " + response.raw());
+        }
+        return response;
+    }
+
+    private HttpRequest.Builder builder(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot serialize request body", e);
+        }
+    }
+
+    private Response send(String endpoint, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            recorder.record(endpoint, System.nanoTime() - start, response.statusCode());
+            return new Response(response.statusCode(), parse(response.body()), response.body());
+        } catch (IOException e) {
+            recorder.record(endpoint, System.nanoTime() - start, 0);
+            return new Response(0, MissingNode.getInstance(), e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Response(0, MissingNode.getInstance(), "interrupted");
+        }
+    }
+
+    private static JsonNode parse(String body) {
+        if (body == null || body.isBlank() || !(body.startsWith("{") || body.startsWith("["))) {
+            return MissingNode.getInstance();
+        }
+        try {
+            return JSON.readTree(body);
+        } catch (IOException e) {
+            return MissingNode.getInstance();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.giapho.coffee_shop_backend.loadtest;
+
+import com.giapho.coffee_shop_backend.CoffeeShopBackendApplication;
+import com.giapho.coffee_shop_backend.loadtest.LatencyRecorder.EndpointStats;
+import com.giapho.coffee_shop_backend.loadtest.ShopDaySeeder.ShopData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mô phỏng một ngày bán hàng: dựng app (Tomcat thật), tạo dữ liệu quán, rồi mỗi client (1 virtual thread)
+ * chạy các kịch bản theo trọng số đến hết giờ. In độ trễ p50/p90/p99 và throughput theo endpoint,
+ * ghi JSON vào target/loadtest/ để làm mốc so sánh cho các thay đổi hiệu năng.
+ * <p>
+ * mvn test -Dtest=ShopDayLoadTest -Dloadtest=true [-Dloadtest.clients=100 -Dloadtest.duration=PT5M
+ * -Dloadtest.mix=counter-order:40,menu-browse:60 -Dloadtest.jdbc-url=jdbc:mysql://localhost:3306/shopday_load ...]
+ * DB được tạo lại (create-drop) mỗi lần chạy: chỉ trỏ tới schema dành riêng cho test tải.
+ */
+class ShopDayLoadTest {
+
+    @Test
+    void replaysShortShopDayWithoutErrors() throws Exception {
+        LoadTestConfig config = new LoadTestConfig(2, Duration.ZERO, Duration.ofSeconds(3), Duration.ZERO, 7, 12, 20,
+                LoadTestConfig.parseMix(LoadTestConfig.DEFAULT_MIX),
+                "jdbc:h2:mem:shopday-smoke;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+
+        List<EndpointStats> stats = run(config).stats();
+
+        assertTrue(stats.stream().anyMatch(row -> row.endpoint().equals("POST /orders/{id}/payment") && row.count() > 0));
+        for (EndpointStats row : stats) {
+            assertEquals(0, row.errors(), "Errors on " + row.endpoint());
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "loadtest", matches = "true")
+    void shopDay() throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        Result result = run(config);
+
+        System.out.printf("%nShop day: %d clients, %.0f s, seed %d, mix %s%n", config.clients(), result.seconds(),
+                config.seed(), config.mix());
+        System.out.print(LatencyRecorder.format(result.stats()));
+        Path report = Path.of("target", "loadtest",
+                "shop-day-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        LatencyRecorder.writeJson(report, config, result.seconds(), result.stats());
+        System.out.println("Report written to " + report.toAbsolutePath());
+    }
+
+    private record Result(double seconds, List<EndpointStats> stats) {
+    }
+
+    private static Result run(LoadTestConfig config) throws Exception {
+        try (ConfigurableApplicationContext context = start(config)) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            ShopApi api = new ShopApi("http://localhost:" + context.getEnvironment().getProperty("local.server.port"),
+                    recorder);
+            ShopData data = new ShopDaySeeder(api, context, config).seed();
+
+            if (!config.warmup().isZero()) {
+                replay(api, data, config, config.warmup());
+            }
+            recorder.start();
+            long started = System.nanoTime();
+            replay(api, data, config, config.duration());
+            double seconds = (System.nanoTime() - started) / 1e9;
+            recorder.stop();
+            return new Result(seconds, recorder.summarize(seconds));
+        }
+    }
+
+    private static void replay(ShopApi api, ShopData data, LoadTestConfig config, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int client = 0; client < config.clients(); client++) {
+                clients.add(executor.submit(new ShopDayTraffic(api, data, config, client, deadline)));
+            }
+            for (Future<?> client : clients) {
+                client.get(duration.toMillis() + 120_000, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestConfig config) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", config.jdbcUrl());
+        properties.put("spring.datasource.username", config.jdbcUsername());
+        properties.put("spring.datasource.password", config.jdbcPassword());
+        if (config.embeddedDatabase()) {
+            properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        }
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        // Log DEBUG/TRACE của SQL và security cho mỗi request làm sai lệch số đo
+        properties.put("logging.level.com.giapho.coffee_shop_backend", "INFO");
+        properties.put("logging.level.org.springframework.security", "INFO");
+        properties.put("logging.level.org.hibernate.SQL", "INFO");
+        properties.put("logging.level.org.hibernate.orm.jdbc.bind", "INFO");
+        // Tham số dòng lệnh: ưu tiên hơn application.properties
+        return new SpringApplicationBuilder(CoffeeShopBackendApplication.class).run(properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new));
+    }
+}
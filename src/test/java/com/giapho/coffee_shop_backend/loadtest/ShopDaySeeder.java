@@ -0,0 +1,177 @@
+package com.giapho.coffee_shop_backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import com.giapho.coffee_shop_backend.domain.repository.VoucherRepository;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.giapho.coffee_shop_backend.loadtest.ShopApi.expectOk;
+
+/**
+ * Tạo dữ liệu của một quán: danh mục, nguyên liệu (tồn kho đủ cả ngày), sản phẩm kèm công thức, bàn,
+ * khách hàng thành viên, voucher dùng chung và một chiến dịch mã dùng 1 lần.
+ * Dữ liệu đi qua REST API (cùng validate như thật), trừ voucher thường (không có API tạo) và việc cấp quyền MANAGER.
+ */
+public class ShopDaySeeder {
+
+    /**
+     * Dữ liệu đã tạo, dùng chung cho mọi client (chỉ đọc, trừ hàng đợi mã chiến dịch)
+     *
+     * @param tableIds      mỗi client có 2 bàn riêng (client i dùng bàn 2i và 2i+1), để đơn tại bàn không tranh nhau
+     * @param campaignCodes mã dùng 1 lần: mỗi mã chỉ được lấy ra 1 lần
+     */
+    public record ShopData(String managerToken, List<String> cashierTokens, List<Long> categoryIds,
+                           List<Long> productIds, List<String> searchTerms, List<Long> tableIds,
+                           List<String> customerPhones, List<Long> customerIds, List<String> sharedVoucherCodes,
+                           Queue<String> campaignCodes) {
+    }
+
+    private static final String[] DRINKS = {"Ca phe", "Tra", "Sinh to", "Nuoc ep", "Da xay", "Banh"};
+    private static final String[] FLAVORS = {"sua", "den", "dao", "vai", "bo", "xoai", "dau", "matcha", "socola",
+            "caramel", "cam", "dua"};
+    private static final String[] INGREDIENTS = {"Ca phe hat:g", "Sua dac:ml", "Sua tuoi:ml", "Duong:g", "Da:g",
+            "Tra den:g", "Tra xanh:g", "Dao ngam:g", "Vai ngam:g", "Trai cay tuoi:g", "Bot matcha:g", "Bot mi:g"};
+
+    private final ShopApi api;
+    private final ConfigurableApplicationContext context;
+    private final LoadTestConfig config;
+    private final Random random;
+
+    public ShopDaySeeder(ShopApi api, ConfigurableApplicationContext context, LoadTestConfig config) {
+        this.api = api;
+        this.context = context;
+        this.config = config;
+        this.random = new Random(config.seed());
+    }
+
+    public ShopData seed() {
+        String managerToken = manager();
+        List<String> cashierTokens = new ArrayList<>();
+        for (int i = 0; i < config.clients(); i++) {
+            cashierTokens.add(register("cashier" + i, i + 1));
+        }
+
+        List<Long> categoryIds = new ArrayList<>();
+        for (String drink : DRINKS) {
+            categoryIds.add(expectOk(api.post("seed", "/api/v1/categories", managerToken,
+                    Map.of("name", drink, "description", drink + " cac loai")), "Create category").id());
+        }
+
+        List<Long> ingredientIds = new ArrayList<>();
+        for (String ingredient : INGREDIENTS) {
+            String[] nameAndUnit = ingredient.split(":");
+            long id = expectOk(api.post("seed", "/api/v1/ingredients", managerToken,
+                    Map.of("name", nameAndUnit[0], "unit", nameAndUnit[1], "reorderLevel", 100)),
+                    "Create ingredient").id();
+            // Đủ cho cả ngày: lỗi hết hàng khi thanh toán không phải điều cần đo
+            expectOk(api.patch("seed", "/api/v1/ingredients/adjust-inventory", managerToken,
+                    Map.of("ingredientId", id, "newQuantityOnHand", 1_000_000_000, "reason", "Load test stock")),
+                    "Adjust inventory");
+            ingredientIds.add(id);
+        }
+
+        List<Long> productIds = new ArrayList<>();
+        List<String> searchTerms = new ArrayList<>();
+        for (int i = 0; i < config.products(); i++) {
+            int category = i % DRINKS.length;
+            String flavor = FLAVORS[random.nextInt(FLAVORS.length)];
+            String name = DRINKS[category] + " " + flavor + " " + (i + 1);
+            long price = 25_000 + 5_000L * random.nextInt(10);
+            long id = expectOk(api.post("seed", "/api/v1/products", managerToken, Map.of(
+                    "name", name, "code", String.format("SP%04d", i + 1),
+                    "price", price, "cost", price * 4 / 10,
+                    "description", name, "categoryId", categoryIds.get(category))), "Create product").id();
+            List<Map<String, Object>> recipe = new ArrayList<>();
+            for (int ingredient : random.ints(0, ingredientIds.size()).distinct().limit(1 + random.nextInt(3)).toArray()) {
+                recipe.add(Map.of("ingredientId", ingredientIds.get(ingredient),
+                        "quantityNeeded", 5 + random.nextInt(50)));
+            }
+            expectOk(api.put("seed", "/api/v1/products/" + id + "/recipe", managerToken,
+                    Map.of("ingredients", recipe)), "Set recipe");
+            productIds.add(id);
+            searchTerms.add(flavor);
+        }
+
+        List<Long> tableIds = new ArrayList<>();
+        for (int i = 0; i < config.clients() * 2; i++) {
+            tableIds.add(expectOk(api.post("seed", "/api/v1/tables", managerToken,
+                    Map.of("name", "Ban " + (i + 1), "capacity", 2 + random.nextInt(5))), "Create table").id());
+        }
+
+        List<String> customerPhones = new ArrayList<>();
+        List<Long> customerIds = new ArrayList<>();
+        for (int i = 0; i < config.customers(); i++) {
+            String phone = String.format("09%08d", i);
+            customerIds.add(expectOk(api.post("seed", "/api/v1/customers", managerToken,
+                    Map.of("phone", phone, "fullName", "Khach " + (i + 1))), "Create customer").id());
+            customerPhones.add(phone);
+        }
+
+        return new ShopData(managerToken, cashierTokens, categoryIds, productIds, searchTerms, tableIds,
+                customerPhones, customerIds, sharedVouchers(), campaignCodes(managerToken));
+    }
+
+    /**
+     * Quản lý: đăng ký như nhân viên, cấp ROLE_MANAGER trong DB rồi đăng nhập lại để lấy token có quyền mới
+     */
+    private String manager() {
+        register("manager", 0);
+        context.getBean(JdbcTemplate.class).update("INSERT INTO user_roles (user_id, role_id) "
+                + "SELECT u.id, r.id FROM users u, roles r WHERE u.username = 'manager' AND r.name = 'ROLE_MANAGER'");
+        return expectOk(api.post("seed", "/api/v1/auth/login", null,
+                Map.of("username", "manager", "password", "secret123")), "Login").body().path("token").asText();
+    }
+
+    private String register(String username, int number) {
+        return expectOk(api.post("seed", "/api/v1/auth/register", null, Map.of(
+                "username", username, "password", "secret123", "fullName", username,
+                "email", username + "@shopday.test", "phone", String.format("08%08d", number))), "Register " + username)
+                .body().path("token").asText();
+    }
+
+    private List<String> sharedVouchers() {
+        VoucherRepository vouchers = context.getBean(VoucherRepository.class);
+        // Đơn tối thiểu = giá món rẻ nhất: mã luôn áp được, lỗi trong báo cáo là lỗi thật chứ không phải đơn nhỏ
+        vouchers.save(voucher("GIAM10", Voucher.VoucherType.PERCENTAGE, 10, 25_000));
+        vouchers.save(voucher("GIAM20K", Voucher.VoucherType.FIXED_AMOUNT, 20_000, 25_000));
+        return List.of("GIAM10", "GIAM20K");
+    }
+
+    private static Voucher voucher(String code, Voucher.VoucherType type, long value, long minimumOrder) {
+        Voucher voucher = new Voucher();
+        voucher.setCode(code);
+        voucher.setDescription("Load test " + code);
+        voucher.setType(type);
+        voucher.setDiscountValue(BigDecimal.valueOf(value));
+        voucher.setMinimumOrderAmount(BigDecimal.valueOf(minimumOrder));
+        voucher.setMaximumDiscountAmount(BigDecimal.valueOf(50_000));
+        voucher.setValidFrom(LocalDateTime.now().minusDays(1));
+        voucher.setValidTo(LocalDateTime.now().plusDays(30));
+        voucher.setUsageLimit(Integer.MAX_VALUE);
+        voucher.setActive(true);
+        return voucher;
+    }
+
+    private Queue<String> campaignCodes(String managerToken) {
+        JsonNode campaign = expectOk(api.post("seed", "/api/v1/voucher-campaigns", managerToken, Map.of(
+                "name", "Shop day", "prefix", "SHOPDAY", "type", "FIXED_AMOUNT", "discountValue", 10_000,
+                "minimumOrderAmount", 0, "validFrom", LocalDateTime.now().minusDays(1).withNano(0),
+                "validTo", LocalDateTime.now().plusDays(30).withNano(0), "quantity", 20_000)),
+                "Create voucher campaign").body();
+        String csv = expectOk(api.get("seed", "/api/v1/voucher-campaigns/" + campaign.path("id").asLong()
+                + "/codes/export", managerToken), "Export campaign codes").raw();
+        Queue<String> codes = new ConcurrentLinkedQueue<>();
+        csv.lines().skip(1).map(line -> line.split(",", 2)[0]).filter(code -> !code.isBlank()).forEach(codes::add);
+        return codes;
+    }
+}
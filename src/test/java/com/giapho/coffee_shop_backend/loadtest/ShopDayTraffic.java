@@ -0,0 +1,182 @@
+package com.giapho.coffee_shop_backend.loadtest;
+
+import com.giapho.coffee_shop_backend.loadtest.ShopDaySeeder.ShopData;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Thao tác của một client trong ngày: chọn kịch bản theo trọng số, chạy đến hết giờ.
+ * Mỗi client có Random riêng (seed + số thứ tự) nên chuỗi kịch bản lặp lại được giữa các lần chạy.
+ */
+public class ShopDayTraffic implements Runnable {
+
+    public enum Scenario {
+        COUNTER_ORDER("counter-order"),   // Khách mua mang đi: tạo đơn, thêm món, có thể áp voucher, thanh toán
+        TABLE_ORDER("table-order"),       // Khách ngồi bàn: tạo đơn tại bàn, gọi thêm món, thanh toán (bàn trống lại)
+        MENU_BROWSE("menu-browse"),       // Xem thực đơn: danh mục, trang sản phẩm, tìm kiếm
+        TABLE_BOARD("table-board"),       // Sơ đồ bàn trên màn hình POS
+        CUSTOMER_LOOKUP("customer-lookup"), // Tra khách thành viên theo SĐT
+        REPORTS("reports");               // Quản lý xem báo cáo trong ngày
+
+        private final String name;
+
+        Scenario(String name) {
+            this.name = name;
+        }
+
+        public static Scenario fromName(String name) {
+            for (Scenario scenario : values()) {
+                if (scenario.name.equals(name)) {
+                    return scenario;
+                }
+            }
+            throw new IllegalArgumentException("Unknown load test scenario: " + name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final String[] PAYMENT_METHODS = {"CASH", "CASH", "CARD", "TRANSFER"};
+
+    private final ShopApi api;
+    private final ShopData data;
+    private final LoadTestConfig config;
+    private final int client;
+    private final long deadlineNanos;
+    private final Random random;
+    private final List<Scenario> weighted = new ArrayList<>();
+
+    public ShopDayTraffic(ShopApi api, ShopData data, LoadTestConfig config, int client, long deadlineNanos) {
+        this.api = api;
+        this.data = data;
+        this.config = config;
+        this.client = client;
+        this.deadlineNanos = deadlineNanos;
+        this.random = new Random(config.seed() + client);
+        config.mix().forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(scenario);
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        while (System.nanoTime() < deadlineNanos && !Thread.currentThread().isInterrupted()) {
+            switch (weighted.get(random.nextInt(weighted.size()))) {
+                case COUNTER_ORDER -> counterOrder();
+                case TABLE_ORDER -> tableOrder();
+                case MENU_BROWSE -> menuBrowse();
+                case TABLE_BOARD -> api.get("GET /tables", "/api/v1/tables", cashier());
+                case CUSTOMER_LOOKUP -> api.get("GET /customers/phone/{phone}",
+                        "/api/v1/customers/phone/" + pick(data.customerPhones()), cashier());
+                case REPORTS -> reports();
+            }
+            thinkTime();
+        }
+    }
+
+    private void counterOrder() {
+        Map<String, Object> order = new HashMap<>(Map.of("type", "TAKE_AWAY", "items", items(1 + random.nextInt(3))));
+        if (random.nextInt(3) == 0) {
+            order.put("customerId", pick(data.customerIds()));
+        }
+        ShopApi.Response created = api.post("POST /orders", "/api/v1/orders", cashier(), order);
+        if (!created.ok()) {
+            return;
+        }
+        long orderId = created.id();
+        addItems(orderId);
+        if (random.nextInt(10) < 3) {
+            // Phần lớn dùng mã chung; thỉnh thoảng là mã 1 lần của chiến dịch
+            String code = random.nextInt(4) == 0 ? data.campaignCodes().poll() : null;
+            api.post("POST /orders/{id}/voucher", "/api/v1/orders/" + orderId + "/voucher", cashier(),
+                    Map.of("voucherCode", code != null ? code : pick(data.sharedVoucherCodes())));
+        }
+        pay(orderId);
+    }
+
+    private void tableOrder() {
+        // 2 bàn riêng của client: đơn trước đã thanh toán nên bàn luôn trống
+        long tableId = data.tableIds().get(client * 2 + random.nextInt(2));
+        ShopApi.Response created = api.post("POST /orders", "/api/v1/orders", cashier(),
+                Map.of("type", "AT_TABLE", "tableId", tableId, "items", items(1 + random.nextInt(4))));
+        if (!created.ok()) {
+            return;
+        }
+        long orderId = created.id();
+        api.get("GET /orders/table/{tableId}/pending", "/api/v1/orders/table/" + tableId + "/pending", cashier());
+        addItems(orderId);
+        pay(orderId);
+    }
+
+    private void menuBrowse() {
+        api.get("GET /categories", "/api/v1/categories", cashier());
+        api.get("GET /products", "/api/v1/products?page=" + random.nextInt(3) + "&size=20", cashier());
+        if (random.nextBoolean()) {
+            api.get("GET /products?categoryId", "/api/v1/products?categoryId=" + pick(data.categoryIds()), cashier());
+        }
+        api.get("GET /products/search", "/api/v1/products/search?q=" + pick(data.searchTerms()), cashier());
+        api.get("GET /products/{id}", "/api/v1/products/" + pick(data.productIds()), cashier());
+    }
+
+    private void reports() {
+        String today = LocalDate.now().toString();
+        String monthStart = LocalDate.now().withDayOfMonth(1).toString();
+        String token = data.managerToken();
+        switch (random.nextInt(4)) {
+            case 0 -> api.get("GET /reports/daily-revenue", "/api/v1/reports/daily-revenue?date=" + today, token);
+            case 1 -> api.get("GET /reports/best-sellers",
+                    "/api/v1/reports/best-sellers?startDate=" + monthStart + "&endDate=" + today, token);
+            case 2 -> api.get("GET /reports/revenue-by-date",
+                    "/api/v1/reports/revenue-by-date?startDate=" + monthStart + "&endDate=" + today, token);
+            default -> api.get("GET /reports/inventory", "/api/v1/reports/inventory?lowStock=true", token);
+        }
+    }
+
+    private void addItems(long orderId) {
+        for (int i = random.nextInt(3); i > 0; i--) {
+            api.post("POST /orders/{id}/items", "/api/v1/orders/" + orderId + "/items", cashier(),
+                    Map.of("productId", pick(data.productIds()), "quantity", 1 + random.nextInt(2)));
+        }
+    }
+
+    private void pay(long orderId) {
+        api.post("POST /orders/{id}/payment", "/api/v1/orders/" + orderId + "/payment", cashier(),
+                Map.of("paymentMethod", PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)]));
+    }
+
+    private List<Map<String, Object>> items(int count) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(Map.of("productId", pick(data.productIds()), "quantity", 1 + random.nextInt(3)));
+        }
+        return items;
+    }
+
+    private String cashier() {
+        return data.cashierTokens().get(client);
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private void thinkTime() {
+        if (!config.thinkTime().isZero()) {
+            try {
+                Thread.sleep(config.thinkTime());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
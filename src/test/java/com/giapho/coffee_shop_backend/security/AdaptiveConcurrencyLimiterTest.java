@@ -0,0 +1,50 @@
+package com.giapho.coffee_shop_backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long THRESHOLD = 1_000_000_000L;
+
+    @Test
+    void rejectsBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 4, THRESHOLD, 0.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void slowRequestsShrinkLimitDownToMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 8, THRESHOLD, 0.5);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(THRESHOLD * 2, true);
+        }
+        assertEquals(1, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void fastRequestsAtCapacityGrowLimitUpToMaximum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 3, THRESHOLD, 0.5);
+
+        for (int i = 0; i < 100; i++) {
+            while (limiter.tryAcquire()) {
+                // lấp đầy toàn bộ slot
+            }
+            int inFlight = limiter.getInFlight();
+            for (int j = 0; j < inFlight; j++) {
+                limiter.release(1_000, true);
+            }
+        }
+        assertEquals(3, limiter.getLimit());
+    }
+}
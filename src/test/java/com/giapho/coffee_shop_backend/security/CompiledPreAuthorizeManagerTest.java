@@ -0,0 +1,111 @@
+package com.giapho.coffee_shop_backend.security;
+
+import com.giapho.coffee_shop_backend.domain.entity.Role;
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledPreAuthorizeManagerTest {
+
+    static class Endpoints {
+        @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+        public void managerOrAdmin() {
+        }
+
+        @PreAuthorize("hasRole('ADMIN')")
+        public void adminOnly() {
+        }
+
+        @PreAuthorize("isAuthenticated()")
+        public void anyUser() {
+        }
+
+        @PreAuthorize("#id == authentication.principal.id || hasRole('ADMIN')")
+        public void selfOrAdmin(Long id) {
+        }
+
+        public void open() {
+        }
+    }
+
+    private final CompiledPreAuthorizeManager manager = new CompiledPreAuthorizeManager();
+
+    @Test
+    void compilesRoleExpressionsToMasks() {
+        CompiledPreAuthorizeManager.CompiledDecision decision =
+                CompiledPreAuthorizeManager.compile("hasAnyRole('STAFF','MANAGER') || hasRole('ADMIN')");
+
+        assertEquals(CompiledPreAuthorizeManager.Kind.ROLE_MASK, decision.kind());
+        assertEquals(RoleAuthorities.STAFF | RoleAuthorities.MANAGER | RoleAuthorities.ADMIN, decision.requiredMask());
+        assertEquals(List.of("STAFF", "MANAGER", "ADMIN"), decision.requiredRoles());
+    }
+
+    @Test
+    void leavesOtherExpressionsToSpel() {
+        assertEquals(CompiledPreAuthorizeManager.Kind.EXPRESSION,
+                CompiledPreAuthorizeManager.compile("#id == authentication.principal.id || hasRole('ADMIN')").kind());
+        assertEquals(CompiledPreAuthorizeManager.Kind.EXPRESSION,
+                CompiledPreAuthorizeManager.compile("hasRole('BARISTA')").kind());
+        assertEquals(CompiledPreAuthorizeManager.Kind.EXPRESSION,
+                CompiledPreAuthorizeManager.compile("hasRole('ADMIN') && hasRole('STAFF')").kind());
+    }
+
+    @Test
+    void authorizesByRoleMask() throws Exception {
+        Authentication manager = authenticated(7L, "ROLE_MANAGER");
+
+        assertTrue(authorize(manager, "managerOrAdmin").isGranted());
+        assertFalse(authorize(manager, "adminOnly").isGranted());
+        assertTrue(authorize(manager, "anyUser").isGranted());
+        assertNull(authorize(manager, "open"));
+    }
+
+    @Test
+    void deniesAnonymous() throws Exception {
+        Authentication anonymous = new AnonymousAuthenticationToken("key", "anonymousUser",
+                List.of(RoleAuthorities.authorityOf("ROLE_ANONYMOUS")));
+
+        assertFalse(authorize(anonymous, "managerOrAdmin").isGranted());
+        assertFalse(authorize(anonymous, "anyUser").isGranted());
+    }
+
+    @Test
+    void fallsBackToSpelForParameterExpressions() throws Exception {
+        Authentication staff = authenticated(7L, "ROLE_STAFF");
+
+        assertTrue(authorize(staff, "selfOrAdmin", 7L).isGranted());
+        assertFalse(authorize(staff, "selfOrAdmin", 8L).isGranted());
+    }
+
+    private AuthorizationResult authorize(Authentication authentication, String methodName, Object... args)
+            throws NoSuchMethodException {
+        Class<?>[] types = args.length == 0 ? new Class<?>[0] : new Class<?>[]{Long.class};
+        SimpleMethodInvocation invocation = new SimpleMethodInvocation(
+                new Endpoints(), Endpoints.class.getMethod(methodName, types), args);
+        return manager.authorize(() -> authentication, invocation);
+    }
+
+    private static Authentication authenticated(Long id, String roleName) {
+        User user = User.builder()
+                .id(id)
+                .username("user" + id)
+                .password("secret")
+                .status("ACTIVE")
+                .roles(Set.of(Role.builder().id(1L).name(roleName).build()))
+                .build();
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+}
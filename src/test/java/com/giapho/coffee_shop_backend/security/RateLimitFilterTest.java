@@ -0,0 +1,59 @@
+package com.giapho.coffee_shop_backend.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.giapho.coffee_shop_backend.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimitFilterTest {
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() throws Exception {
+        RateLimitFilter filter = filter(group(1, 0.001));
+
+        assertEquals(200, call(filter).getStatus());
+        MockHttpServletResponse rejected = call(filter);
+        assertEquals(429, rejected.getStatus());
+        long retryAfter = Long.parseLong(rejected.getHeader("Retry-After"));
+        // 1 token / 1000 s: phải chờ gần 1000 s, không phải 1 s
+        assertEquals(1000, retryAfter, 1);
+    }
+
+    @Test
+    void rejectsGroupThatNeverRefills() {
+        assertThrows(IllegalStateException.class, () -> filter(group(5, 0)));
+        assertThrows(IllegalStateException.class, () -> filter(group(0, 1)));
+    }
+
+    private static RateLimitProperties.Group group(double capacity, double refillPerSecond) {
+        RateLimitProperties.Group group = new RateLimitProperties.Group();
+        group.setName("export");
+        group.setPaths(List.of("/api/v1/reports/**"));
+        group.setCapacity(capacity);
+        group.setRefillPerSecond(refillPerSecond);
+        return group;
+    }
+
+    private static RateLimitFilter filter(RateLimitProperties.Group group) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setGroups(List.of(group));
+        return new RateLimitFilter(properties, new ObjectMapper().registerModule(new JavaTimeModule()),
+                new SimpleMeterRegistry());
+    }
+
+    private static MockHttpServletResponse call(RateLimitFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/reports/orders/export");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,102 @@
+package com.giapho.coffee_shop_backend.security;
+
+import com.giapho.coffee_shop_backend.domain.entity.Role;
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cache quyền của User. Kiểm tra không cấp phát trên đường nóng (getAuthorities, hasAnyRole) chỉ chạy khi bật:
+ * mvn test -Dtest=RoleAuthoritiesAllocationTest -Dbenchmark=true (số đo chi tiết: SecurityBenchmark trong profile jmh)
+ */
+class RoleAuthoritiesAllocationTest {
+
+    private static final int ITERATIONS = 1_000_000;
+
+    @Test
+    void authoritiesAreInternedAndShared() {
+        User staff = userWith("ROLE_STAFF");
+        User otherStaff = userWith("ROLE_STAFF");
+
+        assertSame(staff.getAuthorities(), otherStaff.getAuthorities());
+        assertEquals(RoleAuthorities.STAFF, staff.getRoleMask());
+        assertTrue(staff.hasAnyRole(RoleAuthorities.STAFF | RoleAuthorities.ADMIN));
+    }
+
+    @Test
+    void replacingRolesRefreshesCache() {
+        User user = userWith("ROLE_STAFF");
+        assertEquals(RoleAuthorities.STAFF, user.getRoleMask());
+
+        user.setRoles(Set.of(role(2L, "ROLE_MANAGER"), role(3L, "ROLE_ADMIN")));
+
+        assertEquals(RoleAuthorities.MANAGER | RoleAuthorities.ADMIN, user.getRoleMask());
+        assertEquals(2, user.getAuthorities().size());
+    }
+
+    @Test
+    void customRoleKeepsInternedAuthority() {
+        User user = userWith("ROLE_BARISTA");
+
+        assertEquals(0, user.getRoleMask());
+        assertSame(RoleAuthorities.authorityOf("ROLE_BARISTA"), user.getAuthorities().iterator().next());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void hotPathDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        User user = userWith("ROLE_MANAGER");
+        long threadId = Thread.currentThread().getId();
+
+        // Warm-up để JIT biên dịch xong
+        long sink = runChecks(user);
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        sink += runChecks(user);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        double bytesPerCall = (double) allocated / ITERATIONS;
+        assertEquals(4L * ITERATIONS, sink); // Dùng kết quả để JIT không bỏ qua vòng lặp
+        assertTrue(bytesPerCall < 1.0, "Expected no allocation per call but got " + bytesPerCall + " bytes/call");
+    }
+
+    private static long runChecks(User user) {
+        long sink = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            Collection<?> authorities = user.getAuthorities();
+            sink += authorities.size();
+            if (user.hasAnyRole(RoleAuthorities.MANAGER | RoleAuthorities.ADMIN)) {
+                sink++;
+            }
+        }
+        return sink;
+    }
+
+    private static User userWith(String roleName) {
+        return User.builder()
+                .username("test")
+                .password("secret")
+                .status("ACTIVE")
+                .roles(Set.of(role(1L, roleName)))
+                .build();
+    }
+
+    private static Role role(Long id, String name) {
+        return Role.builder().id(id).name(name).build();
+    }
+}
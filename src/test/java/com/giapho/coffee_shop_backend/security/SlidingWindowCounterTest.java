@@ -0,0 +1,50 @@
+package com.giapho.coffee_shop_backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowCounterTest {
+
+    private static final long WINDOW = 60_000;
+
+    @Test
+    void rejectsOnceLimitReachedWithinWindow() {
+        long t0 = 1_000_000 * WINDOW;
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW, t0);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(counter.tryIncrement(3, t0 + i));
+        }
+        assertFalse(counter.tryIncrement(3, t0 + 10));
+        assertEquals(3.0, counter.estimate(t0 + 10));
+    }
+
+    @Test
+    void previousWindowDecaysLinearly() {
+        long t0 = 1_000_000 * WINDOW;
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW, t0);
+        for (int i = 0; i < 4; i++) {
+            counter.increment(t0);
+        }
+
+        // Giữa cửa sổ kế tiếp: còn một nửa trọng số của cửa sổ trước
+        assertEquals(2.0, counter.estimate(t0 + WINDOW + WINDOW / 2), 1e-9);
+        assertTrue(counter.tryIncrement(3, t0 + WINDOW + WINDOW / 2));
+        assertFalse(counter.tryIncrement(3, t0 + WINDOW + WINDOW / 2));
+    }
+
+    @Test
+    void resetsAfterTwoIdleWindows() {
+        long t0 = 1_000_000 * WINDOW;
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW, t0);
+        for (int i = 0; i < 5; i++) {
+            counter.increment(t0);
+        }
+
+        assertEquals(0.0, counter.estimate(t0 + 2 * WINDOW));
+        assertTrue(counter.tryIncrement(1, t0 + 2 * WINDOW));
+    }
+}
@@ -0,0 +1,28 @@
+package com.giapho.coffee_shop_backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void consumesBurstThenReportsWaitUntilRefill() {
+        TokenBucket bucket = new TokenBucket(2, 0.5, 0);
+
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(2 * SECOND, bucket.tryConsume(0));
+        assertEquals(SECOND, bucket.tryConsume(SECOND));
+        assertEquals(0, bucket.tryConsume(2 * SECOND));
+    }
+
+    @Test
+    void rejectsBucketThatNeverRefills() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(5, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(5, -1, 0));
+    }
+}
@@ -0,0 +1,102 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.dto.CustomerSummaryDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerLookupIndexTest {
+
+    private final CustomerLookupIndex index = new CustomerLookupIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.rebuild(List.of(
+                new CustomerSummaryDTO(1L, "0912345678", "Nguyễn Văn An"),
+                new CustomerSummaryDTO(2L, "+84912999000", "Trần Thị Bình"),
+                new CustomerSummaryDTO(3L, "0987000111", "Nguyễn Thị Ánh"),
+                new CustomerSummaryDTO(4L, "0356111222", "Lê Đức Anh")
+        ));
+    }
+
+    @Test
+    void normalizesCountryCode() {
+        assertEquals("0912999000", CustomerLookupIndex.normalizePhone("+84 912 999 000"));
+        assertEquals("0912999000", CustomerLookupIndex.normalizePhone("0912.999.000"));
+    }
+
+    @Test
+    void matchesPhonePrefix() {
+        assertEquals(List.of(1L, 2L), ids("0912"));
+        assertEquals(List.of(2L), ids("+84 9129"));
+        assertEquals(List.of(3L, 1L, 2L), ids("09")); // theo tên
+        assertTrue(ids("0913").isEmpty());
+    }
+
+    @Test
+    void matchesNameTokenPrefixesWithoutDiacritics() {
+        assertEquals(List.of(3L, 1L), ids("nguyen"));
+        assertEquals(List.of(3L), ids("nguyen anh"));
+        assertEquals(List.of(4L, 3L, 1L), ids("an"));
+        assertEquals(List.of(4L), ids("DUC a"));
+    }
+
+    @Test
+    void sortsAndPages() {
+        CustomerLookupIndex.Result page = index.search("09", CustomerLookupIndex.SortKey.PHONE, false, 1, 1);
+        assertEquals(List.of(2L), page.ids()); // 0987.., [0912999..], 0912345..
+        assertEquals(3, page.total());
+    }
+
+    @Test
+    void updatesAndRemovesSingleCustomers() {
+        index.put(new CustomerSummaryDTO(1L, "0911000000", "Nguyễn Văn An"));
+        assertEquals(List.of(2L), ids("0912"));
+        assertEquals(List.of(1L), ids("0911"));
+
+        index.remove(3L);
+        assertEquals(List.of(1L), ids("nguyen"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void keepsCustomersWhosePhonesNormalizeToTheSameNumber() {
+        index.put(new CustomerSummaryDTO(5L, "0912999000", "Phạm Văn Cường"));
+        assertEquals(List.of(5L, 2L), ids("0912999"));
+
+        index.remove(2L);
+        assertEquals(List.of(5L), ids("+84912999"));
+    }
+
+    @Test
+    void pagesOfShortPrefixMatchFullSort() {
+        Random random = new Random(7);
+        List<CustomerSummaryDTO> customers = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            customers.add(new CustomerSummaryDTO(id, String.format("09%08d", random.nextInt(1000)), "Khach " + id));
+        }
+        index.rebuild(customers);
+        List<Long> expected = customers.stream()
+                .sorted(Comparator.comparing((CustomerSummaryDTO c) -> c.getPhone()).thenComparing(CustomerSummaryDTO::getId)
+                        .reversed())
+                .map(CustomerSummaryDTO::getId)
+                .toList();
+
+        for (int offset : new int[]{0, 37, 490, 500}) {
+            CustomerLookupIndex.Result page = index.search("0", CustomerLookupIndex.SortKey.PHONE, false, offset, 20);
+            assertEquals(expected.subList(offset, Math.min(offset + 20, expected.size())), page.ids());
+            assertEquals(500, page.total());
+        }
+    }
+
+    private List<Long> ids(String keyword) {
+        return index.search(keyword, CustomerLookupIndex.SortKey.FULL_NAME, true, 0, 20).ids();
+    }
+}
@@ -0,0 +1,169 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Category;
+import com.giapho.coffee_shop_backend.domain.repository.CategoryRepository;
+import com.giapho.coffee_shop_backend.dto.ProductRequest;
+import com.giapho.coffee_shop_backend.storage.BlobStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+/**
+ * Đếm tham chiếu ảnh qua ProductService và job dọn rác trên DB H2; job được gọi tay, thời gian chờ
+ * được "vượt qua" bằng cách lùi updated_at
+ */
+@SpringBootTest(properties = {
+        "file.storage.gc-grace-period=1h",
+        "file.storage.gc-interval=1d"
+})
+@ActiveProfiles("test")
+class FileReferenceServiceTest {
+
+    @TempDir
+    static Path uploadDir;
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("file.storage.upload-dir", uploadDir::toString);
+    }
+
+    @Autowired
+    FileReferenceService fileReferenceService;
+
+    @Autowired
+    FileStorageService fileStorageService;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    BlobStore blobStore;
+
+    @Test
+    void referencesFollowProductCreateUpdateAndDelete() throws IOException {
+        String first = fileReferenceService.storeFile(image(0x102030));
+        String second = fileReferenceService.storeFile(image(0x405060));
+        assertEquals(0, refCount(first));
+
+        Long a = productService.createProduct(product("REF-A", first)).getId();
+        Long b = productService.createProduct(product("REF-B", first)).getId();
+        assertEquals(2, refCount(first));
+
+        productService.updateProduct(a, product("REF-A", second));
+        assertEquals(1, refCount(first));
+        assertEquals(1, refCount(second));
+
+        productService.deleteProduct(b);
+        productService.deleteProduct(a);
+        assertEquals(0, refCount(first));
+        assertEquals(0, refCount(second));
+    }
+
+    @Test
+    void unreferencedFileIsKeptDuringTheGracePeriod() throws IOException {
+        String recent = fileReferenceService.storeFile(image(0x111111));
+        String stale = fileReferenceService.storeFile(image(0x222222));
+        backdate(stale);
+
+        fileReferenceService.collectGarbage();
+
+        assertEquals(0, refCount(recent));
+        assertTrue(fileStorageService.exists(recent));
+        assertNull(refCount(stale));
+        assertFalse(fileStorageService.exists(stale));
+    }
+
+    @Test
+    void reusedFileIsNotCollected() throws IOException {
+        String acquired = fileReferenceService.storeFile(image(0x333333));
+        String reuploaded = fileReferenceService.storeFile(image(0x444444));
+        backdate(acquired);
+        backdate(reuploaded);
+
+        // Được dùng lại sau thời gian chờ: sản phẩm mới trỏ tới / upload lại cùng nội dung
+        productService.createProduct(product("REF-REUSE", acquired));
+        assertEquals(reuploaded, fileReferenceService.storeFile(image(0x444444)));
+        fileReferenceService.collectGarbage();
+
+        assertEquals(1, refCount(acquired));
+        assertTrue(fileStorageService.exists(acquired));
+        assertEquals(0, refCount(reuploaded));
+        assertTrue(fileStorageService.exists(reuploaded));
+    }
+
+    @Test
+    void failedBlobDeleteIsRetriedOnTheNextRun() throws IOException {
+        String fileName = fileReferenceService.storeFile(image(0x555555));
+        backdate(fileName);
+        doThrow(new IOException("storage unavailable")).when(blobStore).delete(fileName);
+
+        fileReferenceService.collectGarbage();
+
+        assertEquals(0, refCount(fileName)); // Dòng còn nguyên vì file chưa xoá được
+        assertTrue(fileStorageService.exists(fileName));
+
+        reset(blobStore);
+        fileReferenceService.collectGarbage();
+
+        assertNull(refCount(fileName));
+        assertFalse(fileStorageService.exists(fileName));
+    }
+
+    private ProductRequest product(String code, String fileName) {
+        Category category = new Category();
+        category.setName("Files " + System.nanoTime());
+        categoryRepository.save(category);
+        return ProductRequest.builder()
+                .name(code).code(code + "-" + System.nanoTime()).price(BigDecimal.valueOf(30_000))
+                .categoryId(category.getId())
+                .imageUrl(fileStorageService.getFileUrl(fileName))
+                .build();
+    }
+
+    private Integer refCount(String fileName) {
+        List<Integer> counts = jdbcTemplate.queryForList(
+                "SELECT ref_count FROM stored_files WHERE file_name = ?", Integer.class, fileName);
+        return counts.isEmpty() ? null : counts.get(0);
+    }
+
+    private void backdate(String fileName) {
+        jdbcTemplate.update("UPDATE stored_files SET updated_at = DATEADD('HOUR', -2, CURRENT_TIMESTAMP) " +
+                "WHERE file_name = ?", fileName);
+    }
+
+    private static MockMultipartFile image(int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, rgb);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("file", "image.png", "image/png", out.toByteArray());
+    }
+}
@@ -0,0 +1,124 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.config.FileStorageProperties;
+import com.giapho.coffee_shop_backend.exception.FileStorageException;
+import com.giapho.coffee_shop_backend.storage.BlobStore;
+import com.giapho.coffee_shop_backend.storage.InMemoryBlobStore;
+import com.giapho.coffee_shop_backend.storage.LocalBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileStorageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageProperties properties;
+    private FileStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new FileStorageProperties();
+        properties.setUploadDir(uploadDir.toString());
+        service = new FileStorageService(properties, new ImageProcessingService(properties),
+                new LocalBlobStore(uploadDir));
+    }
+
+    @Test
+    void storesContentAddressedFilesInShardedDirectories() throws IOException {
+        String fileName = service.storeFile(image("a.png", 0x336699));
+        Path shard = uploadDir.resolve(fileName.substring(0, 2)).resolve(fileName.substring(2, 4));
+
+        assertTrue(Files.exists(shard.resolve(fileName)));
+        assertTrue(Files.exists(shard.resolve(ImageProcessingService.Variant.THUMBNAIL.fileName(fileName))));
+        assertEquals(List.of(fileName), service.listStoredFiles());
+
+        // Cùng nội dung, khác tên file gốc → dùng lại file đã có
+        assertEquals(fileName, service.storeFile(image("b.png", 0x336699)));
+    }
+
+    @Test
+    void migratesFlatFilesAndKeepsThemReadableMeanwhile() throws IOException {
+        String fileName = "ab12" + "0".repeat(60) + ".jpg";
+        Files.write(uploadDir.resolve(fileName), new byte[]{1, 2, 3});
+        Files.write(uploadDir.resolve("3f2a9c1e-1111-2222-3333-444455556666.jpg"), new byte[]{4});
+
+        assertTrue(service.exists(fileName)); // Chưa chuyển: vẫn tìm thấy ở thư mục gốc
+        assertEquals(1, service.migrateToShardedLayout());
+
+        assertTrue(Files.exists(uploadDir.resolve("ab").resolve("12").resolve(fileName)));
+        assertFalse(Files.exists(uploadDir.resolve(fileName)));
+        assertTrue(service.loadFileAsResource(fileName).exists());
+        // File cũ đặt tên UUID giữ nguyên vị trí
+        assertTrue(service.exists("3f2a9c1e-1111-2222-3333-444455556666.jpg"));
+    }
+
+    @Test
+    void rejectsPathTraversal() throws IOException {
+        Files.write(uploadDir.resolveSibling("secret.jpg"), new byte[]{1});
+        assertThrows(FileStorageException.class, () -> service.exists("../secret.jpg"));
+        assertThrows(FileStorageException.class, () -> service.deleteFile("sub/../../secret.jpg"));
+        assertTrue(Files.exists(uploadDir.resolveSibling("secret.jpg")));
+    }
+
+    @Test
+    void redirectsOnlyToObjectsThatExistAndCachesTheCheck() throws IOException {
+        AtomicInteger heads = new AtomicInteger();
+        BlobStore bucket = new InMemoryBlobStore() {
+            @Override
+            public boolean exists(String key) {
+                heads.incrementAndGet();
+                return stat(key).isPresent();
+            }
+
+            @Override
+            public Optional<URI> presignedUrl(String key, Duration ttl) {
+                return Optional.of(URI.create("https://bucket.example/" + key));
+            }
+        };
+        FileStorageService s3Service = new FileStorageService(properties, new ImageProcessingService(properties), bucket);
+        String fileName = s3Service.storeFile(image("a.png", 0x336699));
+        heads.set(0);
+
+        assertEquals(URI.create("https://bucket.example/" + fileName),
+                s3Service.loadFileForServing(fileName, ImageProcessingService.Variant.FULL).redirectUrl());
+        s3Service.loadFileForServing(fileName, ImageProcessingService.Variant.FULL);
+        assertEquals(1, heads.get()); // Lần 2 dùng kết quả đã cache
+
+        // Object không có: 404 thay vì redirect tới URL ký sẵn hỏng
+        String missing = "cd34" + "0".repeat(60) + ".jpg";
+        assertThrows(FileStorageException.class,
+                () -> s3Service.loadFileForServing(missing, ImageProcessingService.Variant.FULL));
+
+        s3Service.deleteFile(fileName);
+        assertThrows(FileStorageException.class,
+                () -> s3Service.loadFileForServing(fileName, ImageProcessingService.Variant.FULL));
+    }
+
+    private static MockMultipartFile image(String name, int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, rgb);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("file", name, "image/png", out.toByteArray());
+    }
+}
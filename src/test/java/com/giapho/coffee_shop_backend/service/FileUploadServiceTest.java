@@ -0,0 +1,100 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.config.FileStorageProperties;
+import com.giapho.coffee_shop_backend.dto.FileUploadResponse;
+import com.giapho.coffee_shop_backend.exception.FileStorageException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileUploadServiceTest {
+
+    private final FileReferenceService fileReferenceService = mock(FileReferenceService.class);
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @Test
+    void returnsPerFileResultsInRequestOrder() {
+        FileUploadService service = service(4, 64 * 1024);
+        when(fileReferenceService.storeFile(any())).thenAnswer(invocation -> {
+            MultipartFile file = invocation.getArgument(0);
+            if (file.getOriginalFilename().startsWith("bad")) {
+                throw new FileStorageException("File is not a valid image");
+            }
+            return slowStore(file);
+        });
+
+        List<FileUploadResponse> responses = service.storeAll(new MultipartFile[]{
+                file("a.jpg", 100), file("bad.jpg", 100), file("c.jpg", 100)});
+
+        assertEquals(List.of("a.jpg", "bad.jpg", "c.jpg"),
+                responses.stream().map(FileUploadResponse::getOriginalFileName).toList());
+        assertTrue(responses.get(0).isSuccess());
+        assertEquals("stored-a.jpg", responses.get(0).getFileName());
+        assertFalse(responses.get(1).isSuccess());
+        assertEquals("File is not a valid image", responses.get(1).getError());
+        assertTrue(responses.get(2).isSuccess());
+    }
+
+    @Test
+    void limitsParallelismAndInFlightBytes() {
+        when(fileReferenceService.storeFile(any())).thenAnswer(invocation -> slowStore(invocation.getArgument(0)));
+
+        service(3, 64 * 1024).storeAll(files(12, 1024));
+        assertEquals(3, maxRunning.get());
+
+        // Ngân sách chỉ đủ cho 2 file 10KB cùng lúc
+        maxRunning.set(0);
+        service(8, 20 * 1024).storeAll(files(8, 10 * 1024));
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void fileLargerThanBudgetStillRunsAlone() {
+        when(fileReferenceService.storeFile(any())).thenAnswer(invocation -> slowStore(invocation.getArgument(0)));
+
+        List<FileUploadResponse> responses = service(4, 8 * 1024).storeAll(files(3, 16 * 1024));
+        assertTrue(responses.stream().allMatch(FileUploadResponse::isSuccess));
+        assertEquals(1, maxRunning.get());
+    }
+
+    private FileUploadService service(int parallelism, long budgetBytes) {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setUploadParallelism(parallelism);
+        properties.setUploadInFlightBytes(budgetBytes);
+        properties.setUploadQueueTimeout(Duration.ofSeconds(10));
+        return new FileUploadService(fileReferenceService, fileStorageService, properties, new SimpleMeterRegistry());
+    }
+
+    private String slowStore(MultipartFile file) throws InterruptedException {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(50);
+        running.decrementAndGet();
+        return "stored-" + file.getOriginalFilename();
+    }
+
+    private static MultipartFile[] files(int count, int size) {
+        MultipartFile[] files = new MultipartFile[count];
+        for (int i = 0; i < count; i++) {
+            files[i] = file("f" + i + ".jpg", size);
+        }
+        return files;
+    }
+
+    private static MockMultipartFile file(String name, int size) {
+        return new MockMultipartFile("files", name, "image/jpeg", new byte[size]);
+    }
+}
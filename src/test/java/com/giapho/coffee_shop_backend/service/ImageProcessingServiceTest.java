@@ -0,0 +1,152 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.config.FileStorageProperties;
+import com.giapho.coffee_shop_backend.exception.FileStorageException;
+import com.giapho.coffee_shop_backend.service.ImageProcessingService.ProcessedImage;
+import com.giapho.coffee_shop_backend.service.ImageProcessingService.Variant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ImageProcessingServiceTest {
+
+    private final FileStorageProperties properties = new FileStorageProperties();
+    private final ImageProcessingService service = new ImageProcessingService(properties);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void producesFixedWidthVariantsWithoutUpscaling() throws IOException {
+        List<ProcessedImage> large = process(encode(new BufferedImage(3000, 2000, BufferedImage.TYPE_INT_RGB), "jpg"));
+        assertEquals(List.of(Variant.FULL, Variant.MEDIUM, Variant.THUMBNAIL), large.stream().map(ProcessedImage::variant).toList());
+        assertSize(large.get(0), 1600, 1067);
+        assertSize(large.get(1), 600, 400);
+        assertSize(large.get(2), 200, 133);
+
+        List<ProcessedImage> small = process(encode(new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB), "png"));
+        small.forEach(image -> assertSize(image, 100, 50));
+        assertEquals("jpg", small.get(0).extension()); // Không có kênh alpha → JPEG
+    }
+
+    @Test
+    void keepsTransparencyAsPng() throws IOException {
+        List<ProcessedImage> images = process(encode(new BufferedImage(80, 80, BufferedImage.TYPE_INT_ARGB), "png"));
+        assertEquals("png", images.get(0).extension());
+    }
+
+    @Test
+    void appliesExifOrientationAndStripsMetadata() throws IOException {
+        byte[] rotated = withExifOrientation(encode(new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB), "jpg"), 6);
+        assertEquals(6, ImageProcessingService.readExifOrientation(rotated));
+
+        ProcessedImage full = process(rotated).get(0);
+        assertSize(full, 20, 40);
+        assertFalse(new String(full.data(), StandardCharsets.ISO_8859_1).contains("Exif"));
+        assertEquals(1, ImageProcessingService.readExifOrientation(full.data()));
+    }
+
+    @Test
+    void rotatesPixelsForEachOrientation() {
+        BufferedImage image = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xFF0000); // Điểm đỏ ở góc trên-trái
+
+        // orientation → vị trí mới của góc trên-trái
+        int[][] expected = {{2, 3, 0}, {3, 3, 1}, {4, 0, 1}, {5, 0, 0}, {6, 1, 0}, {7, 1, 3}, {8, 0, 3}};
+        for (int[] row : expected) {
+            BufferedImage oriented = ImageProcessingService.applyOrientation(image, row[0]);
+            assertEquals(0xFF0000, oriented.getRGB(row[1], row[2]) & 0xFFFFFF, "orientation " + row[0]);
+        }
+    }
+
+    @Test
+    void inspectsHeaderWithoutDecoding() throws IOException {
+        ImageProcessingService.ImageInfo info = service.inspect(
+                write(encode(new BufferedImage(300, 120, BufferedImage.TYPE_INT_RGB), "png")));
+        assertEquals(new ImageProcessingService.ImageInfo("png", 300, 120, 1), info);
+
+        properties.setMaxImagePixels(300 * 119);
+        Path tooLarge = write(encode(new BufferedImage(300, 120, BufferedImage.TYPE_INT_RGB), "jpg"));
+        assertThrows(FileStorageException.class, () -> service.inspect(tooLarge));
+    }
+
+    @Test
+    void rejectsContentThatIsNotAnImage() throws IOException {
+        assertNull(ImageProcessingService.sniffFormat("<?php echo 1; ?>".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("gif", ImageProcessingService.sniffFormat("GIF89a....".getBytes(StandardCharsets.US_ASCII)));
+
+        // Magic bytes của JPEG nhưng phần còn lại hỏng
+        Path broken = write(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x00, 0x01});
+        assertThrows(FileStorageException.class, () -> service.inspect(broken));
+        assertThrows(FileStorageException.class, () -> service.inspect(write("not an image".getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    void mapsSizeParameterToVariantFileName() {
+        assertEquals("abc-sm.jpg", Variant.fromParam("thumb").fileName("abc.jpg"));
+        assertEquals("abc-md.jpg", Variant.fromParam("MEDIUM").fileName("abc.jpg"));
+        assertEquals("abc.jpg", Variant.fromParam(null).fileName("abc.jpg"));
+        assertThrows(IllegalArgumentException.class, () -> Variant.fromParam("huge"));
+    }
+
+    private List<ProcessedImage> process(byte[] content) throws IOException {
+        Path file = write(content);
+        return service.process(file, service.inspect(file));
+    }
+
+    private Path write(byte[] content) throws IOException {
+        return Files.write(Files.createTempFile(tempDir, "image-", ".bin"), content);
+    }
+
+    private static void assertSize(ProcessedImage image, int width, int height) {
+        assertEquals(width, image.width());
+        assertEquals(height, image.height());
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Chèn segment APP1/Exif (big-endian, 1 tag Orientation) ngay sau segment APP0 của file JPEG
+     */
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] app1 = {
+                (byte) 0xFF, (byte) 0xE1, 0, 34,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,           // TIFF header, IFD0 ở offset 8
+                0, 1,                                   // 1 entry
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0                              // Không có IFD tiếp theo
+        };
+        int app0End = 4 + (((jpeg[4] & 0xFF) << 8) | (jpeg[5] & 0xFF));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, app0End);
+        out.write(app1, 0, app1.length);
+        out.write(jpeg, app0End, jpeg.length - app0End);
+        byte[] result = out.toByteArray();
+        // Đảm bảo ảnh vẫn đọc được sau khi chèn
+        try {
+            assertEquals(40, ImageIO.read(new ByteArrayInputStream(result)).getWidth());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,109 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Customer;
+import com.giapho.coffee_shop_backend.domain.entity.Expense;
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import com.giapho.coffee_shop_backend.domain.repository.CustomerRepository;
+import com.giapho.coffee_shop_backend.domain.repository.ExpenseRepository;
+import com.giapho.coffee_shop_backend.domain.repository.UserRepository;
+import com.giapho.coffee_shop_backend.dto.CursorPageResponse;
+import com.giapho.coffee_shop_backend.dto.CustomerDTO;
+import com.giapho.coffee_shop_backend.dto.ExpenseDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Ranh giới trang rơi vào giữa một nhóm dòng trùng khoá sắp xếp: id phải phân định thứ tự,
+ * không dòng nào bị lặp hay bị bỏ sót giữa hai trang
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class KeysetPaginationTest {
+
+    @Autowired
+    CustomerService customerService;
+
+    @Autowired
+    ExpenseService expenseService;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    ExpenseRepository expenseRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    void customersWithTheSameNameSpanPagesInIdOrder() {
+        List<Long> expected = new ArrayList<>();
+        String[] names = {"Keyset An", "Keyset Binh", "Keyset Binh", "Keyset Binh", "Keyset Binh", "Keyset Chi"};
+        for (int i = 0; i < names.length; i++) {
+            expected.add(customerRepository.save(Customer.builder()
+                    .fullName(names[i])
+                    .phone("09000001" + String.format("%02d", i))
+                    .build()).getId());
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponse<CustomerDTO> page = customerService.getCustomersByCursor("Keyset", cursor, 2, false);
+            page.getContent().forEach(customer -> seen.add(customer.getId()));
+            cursor = page.getNextCursor();
+            assertEquals(cursor != null, page.isHasNext());
+        } while (cursor != null);
+
+        assertEquals(expected, seen); // Tên tăng dần, trùng tên thì id tăng dần
+    }
+
+    @Test
+    void expensesOnTheSameDaySpanPagesInIdOrder() {
+        User user = userRepository.save(User.builder().username("keyset-expenses").password("secret").build());
+        LocalDate day = LocalDate.of(2031, 5, 20);
+        List<Expense> saved = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            saved.add(expenseRepository.save(Expense.builder()
+                    .user(user)
+                    .category("OTHER")
+                    .amount(BigDecimal.valueOf(1_000 + i))
+                    .expenseDate(i < 5 ? day : day.minusDays(1))
+                    .build()));
+        }
+        List<Long> expected = saved.stream()
+                .sorted(Comparator.comparing(Expense::getExpenseDate).thenComparing(Expense::getId).reversed())
+                .map(Expense::getId)
+                .toList();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageResponse<ExpenseDTO> page = expenseService.getExpensesByCursor(day.minusDays(1), day, cursor, 3,
+                    pages == 0);
+            if (pages == 0) {
+                assertEquals(7L, page.getTotalElements());
+            } else {
+                assertNull(page.getTotalElements());
+            }
+            page.getContent().forEach(expense -> seen.add(expense.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(expected, seen); // Ngày giảm dần, cùng ngày thì id giảm dần
+    }
+}
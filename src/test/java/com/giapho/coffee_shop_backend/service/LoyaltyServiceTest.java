@@ -0,0 +1,167 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Customer;
+import com.giapho.coffee_shop_backend.domain.entity.Order;
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import com.giapho.coffee_shop_backend.domain.repository.CustomerRepository;
+import com.giapho.coffee_shop_backend.domain.repository.OrderRepository;
+import com.giapho.coffee_shop_backend.domain.repository.RoleRepository;
+import com.giapho.coffee_shop_backend.domain.repository.UserRepository;
+import com.giapho.coffee_shop_backend.dto.LoyaltyRedeemRequestDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LoyaltyServiceTest {
+
+    private static final AtomicInteger PHONES = new AtomicInteger();
+
+    @Autowired
+    LoyaltyService loyaltyService;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RoleRepository roleRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private User cashier;
+
+    @BeforeEach
+    void setUp() {
+        cashier = userRepository.findByUsername("loyalty-cashier").orElseGet(() -> userRepository.save(User.builder()
+                .username("loyalty-cashier").password("secret").status("ACTIVE")
+                .roles(Set.of(roleRepository.findByName("ROLE_STAFF").orElseThrow()))
+                .build()));
+        login();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void concurrentRedeemsNeverOverdraw() throws Exception {
+        Long customerId = customerWithPoints(50);
+
+        int threads = 10;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    login();
+                    start.await();
+                    try {
+                        loyaltyService.redeem(customerId, redeem(10));
+                        succeeded.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(5, succeeded.get());
+        assertEquals(5, rejected.get());
+        assertEquals(0, balance(customerId));
+        assertEquals(balance(customerId), ledgerSum(customerId));
+    }
+
+    @Test
+    void redeemAboveBalanceIsRejectedWithoutLedgerRow() {
+        Long customerId = customerWithPoints(30);
+
+        assertEquals(10, loyaltyService.redeem(customerId, redeem(20)).getBalanceAfter());
+        assertThrows(IllegalArgumentException.class, () -> loyaltyService.redeem(customerId, redeem(11)));
+
+        assertEquals(10, balance(customerId));
+        assertEquals(balance(customerId), ledgerSum(customerId));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM loyalty_point_transactions WHERE customer_id = ?", Integer.class, customerId));
+    }
+
+    /**
+     * Khách mới có điểm từ 1 đơn đã thanh toán (điểm đi qua sổ điểm như thật)
+     */
+    private Long customerWithPoints(int points) {
+        Customer customer = customerRepository.save(Customer.builder()
+                .phone(String.format("0977%06d", PHONES.incrementAndGet()))
+                .fullName("Khach than thiet")
+                .build());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            BigDecimal total = BigDecimal.valueOf(points * 10_000L);
+            Order order = orderRepository.save(Order.builder()
+                    .user(cashier).customer(customer).type("TAKE_AWAY").status("PAID")
+                    .subTotal(total).totalAmount(total)
+                    .build());
+            loyaltyService.earnForOrder(order);
+        });
+        assertEquals(points, balance(customer.getId()));
+        return customer.getId();
+    }
+
+    private void login() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(cashier, null, cashier.getAuthorities()));
+    }
+
+    private int balance(Long customerId) {
+        return customerRepository.findLoyaltyPointsById(customerId).orElseThrow();
+    }
+
+    private int ledgerSum(Long customerId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(points), 0) FROM loyalty_point_transactions WHERE customer_id = ?",
+                Integer.class, customerId);
+    }
+
+    private static LoyaltyRedeemRequestDTO redeem(int points) {
+        LoyaltyRedeemRequestDTO request = new LoyaltyRedeemRequestDTO();
+        request.setPoints(points);
+        return request;
+    }
+}
@@ -0,0 +1,74 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.dto.CategoryDTO;
+import com.giapho.coffee_shop_backend.dto.ProductRequest;
+import com.giapho.coffee_shop_backend.dto.ProductResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductCatalogTest {
+
+    @Autowired
+    ProductCatalog productCatalog;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    CategoryService categoryService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void snapshotIsReplacedAfterCommittedWritesOnly() {
+        Long categoryId = category("Ca phe");
+        ProductResponse created = productService.createProduct(request("CF01", "Ca phe sua", 25_000, categoryId));
+
+        assertEquals("Ca phe sua", productCatalog.findById(created.getId()).orElseThrow().getName());
+        assertEquals("Ca phe", productCatalog.findById(created.getId()).orElseThrow().getCategoryName());
+
+        productService.updateProduct(created.getId(), request("CF01", "Ca phe sua da", 29_000, categoryId));
+        ProductResponse updated = productCatalog.findById(created.getId()).orElseThrow();
+        assertEquals("Ca phe sua da", updated.getName());
+        assertEquals(0, BigDecimal.valueOf(29_000).compareTo(updated.getPrice()));
+
+        // Transaction rollback: snapshot giữ dữ liệu đã commit
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> {
+                    productService.updateProduct(created.getId(), request("CF01", "Rolled back", 1_000, categoryId));
+                    throw new IllegalStateException("rollback");
+                }));
+        assertEquals("Ca phe sua da", productCatalog.findById(created.getId()).orElseThrow().getName());
+
+        productService.deleteProduct(created.getId());
+        assertTrue(productCatalog.findById(created.getId()).isEmpty());
+    }
+
+    private Long category(String name) {
+        CategoryDTO category = new CategoryDTO();
+        category.setName(name);
+        return categoryService.createCategory(category).getId();
+    }
+
+    private static ProductRequest request(String code, String name, long price, Long categoryId) {
+        return ProductRequest.builder()
+                .code(code)
+                .name(name)
+                .price(BigDecimal.valueOf(price))
+                .categoryId(categoryId)
+                .build();
+    }
+}
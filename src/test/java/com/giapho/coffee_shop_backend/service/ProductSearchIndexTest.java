@@ -0,0 +1,83 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.dto.ProductResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.rebuild(List.of(
+                product(1L, "CF01", "Cà phê sữa đá", "Cà phê", "Cà phê phin pha sữa đặc", true),
+                product(2L, "CF02", "Cà phê đen nóng", "Cà phê", null, true),
+                product(3L, "CP01", "Cappuccino", "Espresso", "Espresso và sữa tươi đánh bọt", false),
+                product(4L, "TS01", "Trà sữa trân châu", "Trà", null, true)
+        ));
+    }
+
+    @Test
+    void matchesWithoutDiacritics() {
+        assertEquals(List.of(1L, 2L), ids(index.search("ca phe", 10, false)));
+        assertEquals(List.of(1L), ids(index.search("CÀ PHÊ SỮA", 10, false)));
+    }
+
+    @Test
+    void matchesPrefixesAsYouType() {
+        assertEquals(List.of(3L), ids(index.search("capp", 10, false)));
+        assertEquals(List.of(4L), ids(index.search("tra s tr", 10, false)));
+        assertTrue(index.search("cappx", 10, false).isEmpty());
+    }
+
+    @Test
+    void ranksNameAndCodeAboveDescription() {
+        // "sua" có trong tên của 1 và 4, chỉ có trong mô tả của 3
+        List<Long> ids = ids(index.search("sua", 10, false));
+        assertEquals(3, ids.size());
+        assertEquals(3L, ids.get(2));
+
+        assertEquals(List.of(2L), ids(index.search("cf02", 10, false)));
+    }
+
+    @Test
+    void filtersUnavailableAndLimits() {
+        assertTrue(index.search("cappuccino", 10, true).isEmpty());
+        assertEquals(1, index.search("ca", 1, false).size());
+    }
+
+    @Test
+    void updatesAndRemovesSingleProducts() {
+        index.put(product(3L, "CP01", "Cà phê Cappuccino", "Espresso", null, true));
+        assertEquals(List.of(1L, 2L, 3L), ids(index.search("ca phe", 10, false)));
+        assertTrue(index.search("tuoi", 10, false).isEmpty());
+
+        int keysBefore = index.keyCount();
+        index.remove(4L);
+        assertTrue(index.search("tran chau", 10, false).isEmpty());
+        assertEquals(3, index.size());
+        assertTrue(index.keyCount() < keysBefore);
+    }
+
+    private static List<Long> ids(List<ProductResponse> products) {
+        return products.stream().map(ProductResponse::getId).toList();
+    }
+
+    private static ProductResponse product(Long id, String code, String name, String category,
+                                           String description, boolean available) {
+        return ProductResponse.builder()
+                .id(id)
+                .code(code)
+                .name(name)
+                .categoryName(category)
+                .description(description)
+                .available(available)
+                .build();
+    }
+}
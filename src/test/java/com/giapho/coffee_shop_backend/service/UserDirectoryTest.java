@@ -0,0 +1,69 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Role;
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import com.giapho.coffee_shop_backend.domain.repository.RoleRepository;
+import com.giapho.coffee_shop_backend.domain.repository.UserRepository;
+import com.giapho.coffee_shop_backend.dto.UserSummaryDTO;
+import com.giapho.coffee_shop_backend.dto.UserUpdateRequestDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserDirectoryTest {
+
+    @Autowired
+    UserDirectory userDirectory;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RoleRepository roleRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cachesSummaryUntilUserIsUpdated() {
+        Role staff = roleRepository.findByName("ROLE_STAFF").orElseThrow();
+        User user = userRepository.save(User.builder()
+                .username("barista").password("secret").fullName("Old Name").phone("0901000001")
+                .status("ACTIVE").roles(Set.of(staff)).build());
+
+        assertEquals("Old Name", userDirectory.find(user.getId()).map(UserSummaryDTO::getFullName).orElseThrow());
+
+        // Đổi thẳng trong DB (không qua UserService): cache vẫn trả bản cũ, không query lại
+        jdbcTemplate.update("UPDATE users SET full_name = 'Changed Behind' WHERE id = ?", user.getId());
+        assertEquals("Old Name", userDirectory.find(user.getId()).map(UserSummaryDTO::getFullName).orElseThrow());
+
+        UserUpdateRequestDTO update = new UserUpdateRequestDTO();
+        update.setFullName("New Name");
+        update.setPhone("0901000001");
+        update.setStatus("INACTIVE");
+        update.setRoleIds(Set.of(staff.getId()));
+        userService.updateUser(user.getId(), update);
+
+        UserSummaryDTO summary = userDirectory.find(user.getId()).orElseThrow();
+        assertEquals("New Name", summary.getFullName());
+        assertEquals("INACTIVE", summary.getStatus());
+    }
+
+    @Test
+    void returnsEmptyForUnknownOrMissingId() {
+        assertTrue(userDirectory.find(987_654L).isEmpty());
+        assertTrue(userDirectory.find(null).isEmpty());
+    }
+}
@@ -0,0 +1,176 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import com.giapho.coffee_shop_backend.domain.entity.VoucherCampaign;
+import com.giapho.coffee_shop_backend.domain.repository.VoucherCampaignRepository;
+import com.giapho.coffee_shop_backend.domain.repository.VoucherCodeJdbcRepository;
+import com.giapho.coffee_shop_backend.dto.VoucherCampaignDTO;
+import com.giapho.coffee_shop_backend.dto.VoucherCampaignRequestDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bloom filter nhỏ để vượt dung lượng với vài trăm mã; job dựng lại được gọi tay trong test
+ */
+@SpringBootTest(properties = {
+        "app.voucher.campaign.bloom-min-capacity=100",
+        "app.voucher.campaign.bloom-rebuild-interval=1h"
+})
+@ActiveProfiles("test")
+class VoucherCampaignServiceTest {
+
+    @Autowired
+    VoucherCampaignService campaignService;
+
+    @Autowired
+    VoucherService voucherService;
+
+    @Autowired
+    VoucherCampaignRepository campaignRepository;
+
+    @Autowired
+    VoucherCodeJdbcRepository codeRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void codeIsRedeemedOnlyOnce() throws IOException {
+        String code = codes(campaign("ONCE", 3)).get(0);
+
+        consume(code, null);
+        assertThrows(IllegalArgumentException.class, () -> consume(code, null));
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM voucher_codes WHERE code = ? AND redeemed_at IS NOT NULL", Integer.class, code));
+        assertTrue(campaignService.findSnapshot(code).orElseThrow().isExhausted());
+    }
+
+    @Test
+    void unknownCodeIsRejectedByTheFilter() {
+        campaign("UNKN", 3);
+        String code;
+        int i = 0;
+        do {
+            code = "UNKN-" + String.format("%010d", i++);
+        } while (campaignService.mightBeIssued(code));
+        double rejected = rejections();
+
+        assertTrue(campaignService.isCampaignCode(code));
+        assertTrue(campaignService.findSnapshot(code).isEmpty());
+        assertEquals(rejected + 1, rejections());
+        String unknown = code;
+        assertThrows(IllegalArgumentException.class, () -> consume(unknown, null));
+    }
+
+    @Test
+    void falsePositiveFallsThroughToTheDatabase() {
+        // Lấp đầy filter tới dung lượng thiết kế để tỉ lệ dương tính giả ~0.1%
+        campaign("FPOS", (int) Math.max(1, gauge("voucher.codes.bloom.capacity") - gauge("voucher.codes.bloom.size")));
+        String code;
+        int i = 0;
+        do {
+            code = "FPOS-" + String.format("%010d", i++);
+        } while (!campaignService.mightBeIssued(code) || isIssued(code));
+        double rejected = rejections();
+
+        assertTrue(campaignService.findSnapshot(code).isEmpty());
+        assertEquals(rejected, rejections()); // Filter cho qua, DB trả lời không có
+    }
+
+    @Test
+    void rebuildGrowsTheFilterAndKeepsCodesIssuedMeanwhile() throws IOException {
+        double capacity = gauge("voucher.codes.bloom.capacity");
+        int quantity = (int) Math.max(0, capacity - gauge("voucher.codes.bloom.size")) + 50;
+        List<String> codes = codes(campaign("GROW", quantity));
+
+        // Đã vượt dung lượng nhưng chưa dựng lại: mã mới vẫn nằm trong filter cũ
+        assertEquals(capacity, gauge("voucher.codes.bloom.capacity"));
+        assertTrue(codes.stream().allMatch(campaignService::mightBeIssued));
+        assertTrue(campaignService.findSnapshot(codes.get(0)).isPresent());
+
+        campaignService.rebuildBloomFilterIfNeeded();
+
+        long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM voucher_codes", Long.class);
+        assertEquals(total * 2, gauge("voucher.codes.bloom.capacity"));
+        assertEquals(total, gauge("voucher.codes.bloom.size"));
+        assertTrue(codes.stream().allMatch(campaignService::mightBeIssued));
+        assertTrue(campaignService.findSnapshot(codes.get(codes.size() - 1)).isPresent());
+    }
+
+    @Test
+    void campaignCreatedOnAnotherNodeIsLoadedOnFirstLookup() throws InterruptedException {
+        // Node khác tạo chiến dịch: chỉ có dữ liệu trong DB, node này không nhận afterCommit
+        VoucherCampaign campaign = campaignRepository.save(VoucherCampaign.builder()
+                .name("PEER").prefix("PEER").type(Voucher.VoucherType.FIXED_AMOUNT)
+                .discountValue(BigDecimal.valueOf(10_000))
+                .validFrom(LocalDateTime.now().minusDays(1)).validTo(LocalDateTime.now().plusDays(30))
+                .codeCount(2)
+                .build());
+        codeRepository.batchInsert(campaign.getId(), List.of("PEER-0000000001", "PEER-0000000002"));
+        Thread.sleep(1_100); // Qua khoảng cách tối thiểu giữa 2 lần nạp
+
+        assertTrue(campaignService.isCampaignCode("PEER-0000000001"));
+        assertTrue(campaignService.mightBeIssued("PEER-0000000002"));
+        consume("PEER-0000000002", null);
+        assertTrue(campaignService.findSnapshot("PEER-0000000002").orElseThrow().isExhausted());
+    }
+
+    private VoucherCampaignDTO campaign(String prefix, int quantity) {
+        VoucherCampaignRequestDTO request = new VoucherCampaignRequestDTO();
+        request.setName(prefix);
+        request.setPrefix(prefix);
+        request.setType(Voucher.VoucherType.FIXED_AMOUNT);
+        request.setDiscountValue(BigDecimal.valueOf(10_000));
+        request.setValidFrom(LocalDateTime.now().minusDays(1));
+        request.setValidTo(LocalDateTime.now().plusDays(30));
+        request.setQuantity(quantity);
+        return campaignService.createCampaign(request);
+    }
+
+    private List<String> codes(VoucherCampaignDTO campaign) throws IOException {
+        StringWriter csv = new StringWriter();
+        campaignService.exportCodes(campaign.getId(), csv);
+        return Arrays.stream(csv.toString().split("\n")).skip(1).map(line -> line.split(",")[0]).toList();
+    }
+
+    private void consume(String code, Long orderId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> voucherService.consumeUsage(code, orderId));
+    }
+
+    private boolean isIssued(String code) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM voucher_codes WHERE code = ?", Integer.class, code) > 0;
+    }
+
+    private double rejections() {
+        return meterRegistry.get("voucher.codes.bloom.rejected").counter().count();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+}
@@ -0,0 +1,219 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Order;
+import com.giapho.coffee_shop_backend.domain.entity.User;
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import com.giapho.coffee_shop_backend.domain.repository.OrderRepository;
+import com.giapho.coffee_shop_backend.domain.repository.RoleRepository;
+import com.giapho.coffee_shop_backend.domain.repository.UserRepository;
+import com.giapho.coffee_shop_backend.domain.repository.VoucherRepository;
+import com.giapho.coffee_shop_backend.domain.repository.VoucherReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class VoucherReservationServiceTest {
+
+    @Autowired
+    VoucherReservationService reservationService;
+
+    @Autowired
+    VoucherRepository voucherRepository;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RoleRepository roleRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    VoucherReservationRepository reservationRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentReservesNeverExceedUsageLimit() throws Exception {
+        voucher("HOT3", 3);
+        int threads = 10;
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            orders.add(order("HOT3"));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Order order : orders) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        inTransaction(ignored -> reservationService.reserve(order, "hot3"));
+                        reserved.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(3, reserved.get());
+        assertEquals(7, rejected.get());
+        assertEquals(3, reservationService.activeReservations("HOT3"));
+        assertEquals(3, countByStatus("HOT3", "RESERVED"));
+    }
+
+    @Test
+    void rollbackReturnsClaimedSlot() {
+        voucher("ROLLBACK", 1);
+        Order order = order("ROLLBACK");
+
+        assertThrows(IllegalStateException.class, () -> inTransaction(ignored -> {
+            reservationService.reserve(order, "ROLLBACK");
+            throw new IllegalStateException("payment failed");
+        }));
+
+        assertEquals(0, reservationService.activeReservations("ROLLBACK"));
+        assertEquals(0, countByStatus("ROLLBACK", "RESERVED"));
+        inTransaction(ignored -> reservationService.reserve(order("ROLLBACK"), "ROLLBACK")); // Lượt đã được trả lại
+    }
+
+    @Test
+    void releaseAndConvertAreIdempotent() {
+        voucher("TWICE", 2);
+        Order released = order("TWICE");
+        Order paid = order("TWICE");
+        inTransaction(ignored -> {
+            reservationService.reserve(released, "TWICE");
+            reservationService.reserve(paid, "TWICE");
+        });
+        assertEquals(2, reservationService.activeReservations("TWICE"));
+
+        inTransaction(ignored -> reservationService.release(released));
+        inTransaction(ignored -> reservationService.release(released));
+        assertEquals(1, reservationService.activeReservations("TWICE"));
+
+        inTransaction(ignored -> reservationService.convert(paid));
+        inTransaction(ignored -> reservationService.release(paid)); // Đã chuyển thành lượt dùng: không trả lượt nữa
+        assertEquals(0, reservationService.activeReservations("TWICE"));
+        assertEquals(1, voucherRepository.findByCode("TWICE").orElseThrow().getTimesUsed());
+        assertEquals(1, countByStatus("TWICE", "RELEASED"));
+        assertEquals(1, countByStatus("TWICE", "CONVERTED"));
+    }
+
+    @Test
+    void sweepExpiresStaleReservationOnce() {
+        voucher("STALE", 1);
+        Order abandoned = order("STALE");
+        inTransaction(ignored -> reservationService.reserve(abandoned, "STALE"));
+        assertThrows(IllegalArgumentException.class,
+                () -> inTransaction(ignored -> reservationService.reserve(order("STALE"), "STALE")));
+
+        jdbcTemplate.update("UPDATE voucher_reservations SET expires_at = ? WHERE voucher_code = 'STALE'",
+                LocalDateTime.now().minusMinutes(1));
+        reservationService.sweepExpired();
+
+        assertEquals(0, reservationService.activeReservations("STALE"));
+        assertEquals(1, countByStatus("STALE", "EXPIRED"));
+        // Đơn bỏ dở bị huỷ sau khi đã bị thu hồi: không trả lượt lần nữa
+        inTransaction(ignored -> reservationService.release(abandoned));
+        assertEquals(0, reservationService.activeReservations("STALE"));
+        inTransaction(ignored -> reservationService.reserve(order("STALE"), "STALE"));
+        assertEquals(1, reservationService.activeReservations("STALE"));
+    }
+
+    @Test
+    void extendingASweptReservationClaimsANewSlot() {
+        voucher("RACE", 2);
+        Order order = order("RACE");
+        inTransaction(ignored -> reservationService.reserve(order, "RACE"));
+
+        Long id = jdbcTemplate.queryForObject(
+                "SELECT id FROM voucher_reservations WHERE voucher_code = 'RACE'", Long.class);
+
+        // Job thu hồi chuyển lượt giữ sang EXPIRED ngay sau khi reserve() đọc được nó
+        doAnswer(invocation -> {
+            Object reservation = reservationRepository.findById(id);
+            jdbcTemplate.update("UPDATE voucher_reservations SET status = 'EXPIRED' WHERE voucher_code = 'RACE'");
+            return reservation;
+        }).when(reservationRepository).findFirstByOrderIdAndStatus(order.getId(), "RESERVED");
+        try {
+            inTransaction(ignored -> reservationService.reserve(order, "RACE"));
+        } finally {
+            reset(reservationRepository);
+        }
+
+        assertEquals(1, countByStatus("RACE", "EXPIRED")); // Flush không ghi đè lại thành RESERVED
+        assertEquals(1, countByStatus("RACE", "RESERVED"));
+    }
+
+    private void inTransaction(Consumer<Object> action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(action::accept);
+    }
+
+    private int countByStatus(String code, String status) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM voucher_reservations WHERE voucher_code = ? AND status = ?",
+                Integer.class, code, status);
+    }
+
+    private void voucher(String code, int usageLimit) {
+        Voucher voucher = new Voucher();
+        voucher.setCode(code);
+        voucher.setDescription("Giam 10k");
+        voucher.setType(Voucher.VoucherType.FIXED_AMOUNT);
+        voucher.setDiscountValue(BigDecimal.valueOf(10_000));
+        voucher.setValidFrom(LocalDateTime.now().minusDays(1));
+        voucher.setValidTo(LocalDateTime.now().plusDays(1));
+        voucher.setUsageLimit(usageLimit);
+        voucherRepository.save(voucher);
+    }
+
+    private Order order(String voucherCode) {
+        User cashier = userRepository.findByUsername("reservation-cashier").orElseGet(() -> userRepository.save(
+                User.builder().username("reservation-cashier").password("secret").status("ACTIVE")
+                        .roles(Set.of(roleRepository.findByName("ROLE_STAFF").orElseThrow()))
+                        .build()));
+        return orderRepository.save(Order.builder()
+                .user(cashier).type("TAKE_AWAY").voucherCode(voucherCode)
+                .subTotal(BigDecimal.valueOf(50_000)).totalAmount(BigDecimal.valueOf(40_000))
+                .build());
+    }
+}
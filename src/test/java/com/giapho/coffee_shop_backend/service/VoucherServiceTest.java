@@ -0,0 +1,116 @@
+package com.giapho.coffee_shop_backend.service;
+
+import com.giapho.coffee_shop_backend.domain.entity.Voucher;
+import com.giapho.coffee_shop_backend.domain.repository.VoucherRepository;
+import com.giapho.coffee_shop_backend.service.VoucherRegistry.VoucherSnapshot;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class VoucherServiceTest {
+
+    @Autowired
+    VoucherService voucherService;
+
+    @Autowired
+    VoucherRegistry voucherRegistry;
+
+    @Autowired
+    VoucherRepository voucherRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void lastUsageIsConsumedExactlyOnceUnderContention() throws Exception {
+        voucher("LAST1", 5, 4);
+        assertFalse(voucherRegistry.find("last1").orElseThrow().isExhausted()); // Bản chụp đã nằm trong cache
+
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        new TransactionTemplate(transactionManager).executeWithoutResult(
+                                status -> voucherService.consumeUsage("LAST1", null));
+                        succeeded.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(1, succeeded.get());
+        assertEquals(threads - 1, rejected.get());
+        assertEquals(5, voucherRepository.findByCode("LAST1").orElseThrow().getTimesUsed());
+        assertTrue(voucherRegistry.find("LAST1").orElseThrow().isExhausted());
+        assertFalse(voucherService.checkAndCalculateDiscount("LAST1", BigDecimal.valueOf(100_000)).isValid());
+    }
+
+    @Test
+    void cacheServesSnapshotUntilEvicted() {
+        assertTrue(voucherRegistry.find("LATER").isEmpty()); // Mã chưa có cũng được cache
+        voucher("LATER", 10, 0);
+        assertTrue(voucherRegistry.find("LATER").isEmpty());
+        voucherRegistry.evict("later");
+        VoucherSnapshot snapshot = voucherRegistry.find("LATER").orElseThrow();
+        assertTrue(snapshot.active());
+
+        // Sửa thẳng trong DB: cache chưa biết cho tới khi bị xoá
+        jdbcTemplate.update("UPDATE vouchers SET active = false WHERE code = 'LATER'");
+        assertTrue(voucherRegistry.find("LATER").orElseThrow().active());
+
+        // DB từ chối lượt dùng → bản chụp cũ bị xoá, lần tra sau đọc lại từ DB
+        assertThrows(IllegalArgumentException.class, () -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> voucherService.consumeUsage("LATER", null)));
+        assertFalse(voucherRegistry.find("LATER").orElseThrow().active());
+    }
+
+    private void voucher(String code, int usageLimit, int timesUsed) {
+        Voucher voucher = new Voucher();
+        voucher.setCode(code);
+        voucher.setDescription("Giam 10k");
+        voucher.setType(Voucher.VoucherType.FIXED_AMOUNT);
+        voucher.setDiscountValue(BigDecimal.valueOf(10_000));
+        voucher.setValidFrom(LocalDateTime.now().minusDays(1));
+        voucher.setValidTo(LocalDateTime.now().plusDays(1));
+        voucher.setUsageLimit(usageLimit);
+        voucher.setTimesUsed(timesUsed);
+        voucherRepository.save(voucher);
+    }
+}
@@ -0,0 +1,56 @@
+package com.giapho.coffee_shop_backend.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lưu file trong bộ nhớ, chỉ dùng trong test (không có trong bản build). Nội dung mất khi tắt ứng dụng.
+ */
+public class InMemoryBlobStore implements BlobStore {
+
+    private record Blob(byte[] data, long lastModified) {
+    }
+
+    private final Map<String, Blob> blobs = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) throws IOException {
+        byte[] data = content.readAllBytes();
+        if (length >= 0 && data.length != length) {
+            throw new IOException("Expected " + length + " bytes for " + key + " but got " + data.length);
+        }
+        blobs.put(key, new Blob(data, System.currentTimeMillis()));
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        Blob blob = blobs.get(key);
+        if (blob == null) {
+            throw new NoSuchFileException(key);
+        }
+        return new ByteArrayInputStream(blob.data());
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) {
+        Blob blob = blobs.get(key);
+        return blob == null ? Optional.empty() : Optional.of(new BlobInfo(blob.data().length, blob.lastModified()));
+    }
+
+    @Override
+    public void delete(String key) {
+        blobs.remove(key);
+    }
+
+    @Override
+    public List<String> listKeys() {
+        return new ArrayList<>(blobs.keySet());
+    }
+}
@@ -0,0 +1,256 @@
+package com.giapho.coffee_shop_backend.storage;
+
+import com.giapho.coffee_shop_backend.config.FileStorageProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * S3BlobStore với một S3 giả (HttpServer của JDK) kiểm tra chữ ký SigV4 của mọi request
+ */
+class S3BlobStoreTest {
+
+    private static final String KEY_1 = "ab12" + "0".repeat(60) + ".jpg";
+    private static final String KEY_2 = "cd34" + "0".repeat(60) + "-sm.jpg";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private final S3RequestSigner signer = new S3RequestSigner("test-access", "test-secret", "us-east-1");
+    // Key đầy đủ trong bucket (gồm keyPrefix) -> nội dung
+    private final Map<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final List<String> rejected = new ArrayList<>();
+    private HttpServer server;
+    private S3BlobStore store;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bucket", this::handle);
+        server.start();
+
+        FileStorageProperties.S3 properties = new FileStorageProperties.S3();
+        properties.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort());
+        properties.setBucket("bucket");
+        properties.setAccessKey("test-access");
+        properties.setSecretKey("test-secret");
+        properties.setKeyPrefix("products/");
+        store = new S3BlobStore(properties, Clock.systemUTC());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void putsGetsStatsListsAndDeletesObjects() throws IOException {
+        byte[] data = "image-bytes".getBytes(StandardCharsets.UTF_8);
+        store.put(KEY_1, new ByteArrayInputStream(data), data.length, "image/jpeg");
+
+        assertArrayEquals(data, objects.get("products/" + KEY_1));
+        try (InputStream content = store.get(KEY_1)) {
+            assertArrayEquals(data, content.readAllBytes());
+        }
+        assertEquals(data.length, store.stat(KEY_1).orElseThrow().size());
+        assertTrue(store.stat(KEY_2).isEmpty());
+        assertThrows(NoSuchFileException.class, () -> store.get(KEY_2));
+
+        // 3 object, mỗi trang 2 key: phải đi qua continuation token
+        store.put(KEY_2, new ByteArrayInputStream(data), data.length, "image/jpeg");
+        store.put("legacy.png", new ByteArrayInputStream(data), data.length, "image/png");
+        objects.put("other/ignored.jpg", data);
+        assertEquals(List.of(KEY_1, KEY_2, "legacy.png"), store.listKeys());
+
+        store.delete(KEY_1);
+        store.delete(KEY_1); // Không lỗi khi đã xoá
+        assertFalse(store.exists(KEY_1));
+        assertTrue(rejected.isEmpty(), "Requests with invalid signature: " + rejected);
+    }
+
+    @Test
+    void presignedUrlIsStableWithinHalfTtlAndDownloadable() throws Exception {
+        byte[] data = "image-bytes".getBytes(StandardCharsets.UTF_8);
+        store.put(KEY_1, new ByteArrayInputStream(data), data.length, "image/jpeg");
+
+        URI url = store.presignedUrl(KEY_1, Duration.ofHours(1)).orElseThrow();
+        assertEquals(url, store.presignedUrl(KEY_1, Duration.ofHours(1)).orElseThrow());
+        assertTrue(url.getQuery().contains("X-Amz-Expires=3600"));
+
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(url).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(data, response.body());
+        assertTrue(rejected.isEmpty(), "Requests with invalid signature: " + rejected);
+    }
+
+    @Test
+    void migratesLocalFilesToS3AndSkipsExistingOnRerun() throws Exception {
+        LocalBlobStore local = new LocalBlobStore(uploadDir);
+        byte[] data = "image-bytes".getBytes(StandardCharsets.UTF_8);
+        for (String key : List.of(KEY_1, KEY_2, "legacy.png")) {
+            local.put(key, new ByteArrayInputStream(data), data.length, "image/jpeg");
+        }
+
+        assertEquals(new BlobStoreMigration.Result(3, 0, 0), BlobStoreMigration.migrate(local, store, false, 2));
+        assertEquals(List.of(KEY_1, KEY_2, "legacy.png"), store.listKeys());
+        try (InputStream content = store.get("legacy.png")) {
+            assertArrayEquals(data, content.readAllBytes());
+        }
+
+        assertEquals(new BlobStoreMigration.Result(0, 3, 0), BlobStoreMigration.migrate(local, store, false, 2));
+        assertTrue(rejected.isEmpty(), "Requests with invalid signature: " + rejected);
+    }
+
+    // ==================== S3 giả ====================
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            URI uri = exchange.getRequestURI();
+            if (!validSignature(exchange)) {
+                rejected.add(exchange.getRequestMethod() + " " + uri);
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+            String key = uri.getPath().substring("/bucket".length()).replaceFirst("^/", "");
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    objects.put(key, body);
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "DELETE" -> {
+                    objects.remove(key);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                case "HEAD" -> {
+                    byte[] object = objects.get(key);
+                    exchange.getResponseHeaders().set("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT");
+                    if (object != null) {
+                        exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.length));
+                    }
+                    exchange.sendResponseHeaders(object == null ? 404 : 200, -1);
+                }
+                case "GET" -> {
+                    if (key.isEmpty()) {
+                        list(exchange, query(uri));
+                        return;
+                    }
+                    byte[] object = objects.get(key);
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    exchange.sendResponseHeaders(200, object.length);
+                    exchange.getResponseBody().write(object);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    /**
+     * ListObjectsV2, mỗi trang 2 key; continuation token là key cuối của trang trước
+     */
+    private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String prefix = query.getOrDefault("prefix", "");
+        String after = query.get("continuation-token");
+        List<String> keys = objects.keySet().stream()
+                .filter(key -> key.startsWith(prefix))
+                .filter(key -> after == null || key.compareTo(after) > 0)
+                .toList();
+        List<String> page = keys.subList(0, Math.min(2, keys.size()));
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">");
+        page.forEach(key -> xml.append("<Contents><Key>").append(key).append("</Key></Contents>"));
+        xml.append("<IsTruncated>").append(keys.size() > page.size()).append("</IsTruncated>");
+        if (keys.size() > page.size()) {
+            xml.append("<NextContinuationToken>").append(page.get(page.size() - 1)).append("</NextContinuationToken>");
+        }
+        xml.append("</ListBucketResult>");
+        byte[] body = xml.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Ký lại request bằng cùng khoá và thời điểm, so với chữ ký client gửi
+     */
+    private boolean validSignature(HttpExchange exchange) {
+        URI uri = URI.create("http://" + exchange.getRequestHeaders().getFirst("Host")
+                + exchange.getRequestURI().getRawPath()
+                + (exchange.getRequestURI().getRawQuery() == null ? "" : "?" + exchange.getRequestURI().getRawQuery()));
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = query(exchange.getRequestURI());
+
+        if (query.containsKey("X-Amz-Signature")) {
+            Instant date = AMZ_DATE.parse(query.get("X-Amz-Date"), Instant::from);
+            URI unsigned = URI.create(uri.toString().substring(0, uri.toString().indexOf('?')));
+            URI expected = signer.presign(method, unsigned,
+                    Duration.ofSeconds(Long.parseLong(query.get("X-Amz-Expires"))), date);
+            return expected.equals(uri);
+        }
+
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        String amzDate = exchange.getRequestHeaders().getFirst("x-amz-date");
+        if (authorization == null || amzDate == null) {
+            return false;
+        }
+        String signedHeaders = authorization.replaceAll(".*SignedHeaders=([^,]+),.*", "$1");
+        Map<String, String> headers = new TreeMap<>();
+        for (String name : signedHeaders.split(";")) {
+            if (!name.equals("host") && !name.startsWith("x-amz-")) {
+                headers.put(name, exchange.getRequestHeaders().getFirst(name));
+            }
+        }
+        Map<String, String> expected = signer.sign(method, uri, headers,
+                exchange.getRequestHeaders().getFirst("x-amz-content-sha256"), AMZ_DATE.parse(amzDate, Instant::from));
+        return authorization.equals(expected.get("Authorization"));
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> parameters = new HashMap<>();
+        if (uri.getRawQuery() != null) {
+            for (String parameter : uri.getRawQuery().split("&")) {
+                String[] pair = parameter.split("=", 2);
+                parameters.put(pair[0], pair.length > 1 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8) : "");
+            }
+        }
+        return parameters;
+    }
+}
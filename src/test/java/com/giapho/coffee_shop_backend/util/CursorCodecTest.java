@@ -0,0 +1,55 @@
+package com.giapho.coffee_shop_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorCodecTest {
+
+    @Test
+    void longValuesRoundTrip() {
+        long[] values = {0, -1, Long.MIN_VALUE, Long.MAX_VALUE};
+        assertArrayEquals(values, CursorCodec.decode(CursorCodec.encode(values), values.length));
+        assertArrayEquals(new long[]{42}, CursorCodec.decode(CursorCodec.encode(42), 1));
+    }
+
+    @Test
+    void textRoundTrip() {
+        for (String key : new String[]{"", "Nguyễn Văn A", "a,b/c+d=", "☕ 🍰"}) {
+            CursorCodec.TextPosition position = CursorCodec.decodeText(CursorCodec.encode(key, 17));
+            assertEquals(key, position.key());
+            assertEquals(17, position.id());
+        }
+    }
+
+    @Test
+    void timeRoundTripKeepsNanosecondsOverTheWholeRange() {
+        LocalDateTime[] times = {
+                LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_238),
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999),
+                LocalDateTime.of(1970, 1, 1, 0, 0), // Mốc MIN_CREATED_AT của OrderService
+                LocalDateTime.of(9999, 12, 31, 0, 0), // Mốc MAX_CREATED_AT của OrderService
+                LocalDateTime.MIN,
+                LocalDateTime.MAX
+        };
+        for (LocalDateTime time : times) {
+            CursorCodec.TimePosition position = CursorCodec.decodeTime(CursorCodec.encode(time, Long.MAX_VALUE));
+            assertEquals(time, position.time());
+            assertEquals(Long.MAX_VALUE, position.id());
+        }
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode("not base64!", 2));
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode(CursorCodec.encode(1), 2));
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decodeText("AAAA"));
+        // Nano giây ngoài [0, 1e9) và giây vượt miền LocalDateTime
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decodeTime(CursorCodec.encode(0, 1_000_000_000, 1)));
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decodeTime(CursorCodec.encode(Long.MAX_VALUE, 0, 1)));
+    }
+}